@@ -0,0 +1,35 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.automatics.zte.config;
+
+/**
+ * How pipes in commands sent to non-RDK devices are handled before execution
+ */
+public enum PipeRewritePolicy {
+
+    /**
+     * Commands are sent as given
+     */
+    NONE,
+
+    /**
+     * Each pipeline is replaced by nested process substitutions, as the interactive shell of some devices does not
+     * return the output of pipelines reliably. Commands the rewriter cannot parse safely are sent as given
+     */
+    PROCESS_SUBSTITUTION
+}
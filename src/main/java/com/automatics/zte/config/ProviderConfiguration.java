@@ -0,0 +1,559 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.automatics.zte.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import com.automatics.snmp.Snmpv3SecurityLevel;
+import com.automatics.zte.constants.Constants;
+import com.automatics.zte.utils.CommonMethods;
+
+/**
+ * Immutable snapshot of the provider settings read from automatics properties. Values are parsed and validated once
+ * when the snapshot is built, so that command execution does not look up or parse properties.
+ */
+public final class ProviderConfiguration {
+
+    static final long DEFAULT_RDK_RESPONSE_TIMEOUT_MILLISECS = 1000;
+    static final int DEFAULT_SSH_CONNECTION_MAX_ATTEMPT = 4;
+    static final long DEFAULT_LOCAL_COMMAND_TIMEOUT_MILLISECS = 300000;
+    static final String DEFAULT_SNMP_PORT = "161";
+    static final String DEFAULT_SNMP_PROTOCOL = "udp";
+    static final String DEFAULT_SNMP_COMMUNITY = "private";
+    static final long DEFAULT_SNMP_TIMEOUT_MILLISECS = 1000;
+    static final int DEFAULT_SNMP_RETRIES = 2;
+    static final int DEFAULT_SNMP_MAX_MESSAGE_SIZE = 1472;
+    static final long DEFAULT_DEVICE_ACCESS_CACHE_TTL_MILLISECS = 30000;
+    static final int DEFAULT_DEVICE_ACCESS_MAX_PARALLEL_CHECKS = 8;
+    static final long DEFAULT_DEVICE_ACCESS_PROBE_TIMEOUT_MILLISECS = 3000;
+    static final PipeRewritePolicy DEFAULT_PIPE_REWRITE_POLICY = PipeRewritePolicy.PROCESS_SUBSTITUTION;
+    static final int DEFAULT_PIPE_REWRITE_CACHE_SIZE = 1024;
+    static final long DEFAULT_EXPECT_TIMEOUT_MILLISECS = 30000;
+    static final long DEFAULT_SSH_RETRY_INITIAL_DELAY_MILLISECS = 1000;
+    static final long DEFAULT_SSH_RETRY_MAX_DELAY_MILLISECS = Constants.TEN_SECONDS;
+    static final double DEFAULT_SSH_RETRY_BACKOFF_MULTIPLIER = 2.0;
+    static final double DEFAULT_SSH_RETRY_JITTER_FACTOR = 0.5;
+    static final int DEFAULT_SSH_CIRCUIT_BREAKER_FAILURE_THRESHOLD = 3;
+    static final long DEFAULT_SSH_CIRCUIT_BREAKER_PROBE_INTERVAL_MILLISECS = 5000;
+    static final int DEFAULT_SSH_POOL_MAX_SESSIONS_PER_HOST = 2;
+    static final long DEFAULT_SSH_POOL_IDLE_TIMEOUT_MILLISECS = 60000;
+    static final long DEFAULT_SSH_POOL_VALIDATION_TIMEOUT_MILLISECS = 1000;
+    static final long DEFAULT_SSH_POOL_BORROW_WAIT_MILLISECS = 60000;
+    static final int DEFAULT_DEVICE_SCHEDULER_MAX_CONCURRENT_PER_DEVICE = 2;
+    static final int DEFAULT_DEVICE_SCHEDULER_MAX_CONCURRENT_TOTAL = 64;
+    static final long DEFAULT_DEVICE_SCHEDULER_QUEUE_WAIT_MILLISECS = 120000;
+    private static final int MIN_SNMP_MESSAGE_SIZE = 484;
+    private static final int MAX_SNMP_MESSAGE_SIZE = 65507;
+    private static final int MAX_PORT = 65535;
+
+    private final long rdkResponseTimeout;
+    private final long nonRdkResponseTimeout;
+    private final int sshConnectionMaxAttempt;
+    private final long localCommandTimeout;
+    private final String snmpPort;
+    private final String snmpProtocol;
+    private final String snmpCommunity;
+    private final Snmpv3SecurityLevel snmpSecurityLevel;
+    private final String snmpSecurityName;
+    private final String snmpSecurityOptions;
+    private final long snmpTimeout;
+    private final int snmpRetries;
+    private final int snmpMaxMessageSize;
+    private final long deviceAccessCacheTtl;
+    private final int deviceAccessMaxParallelChecks;
+    private final long deviceAccessProbeTimeout;
+    private final PipeRewritePolicy pipeRewritePolicy;
+    private final int pipeRewriteCacheSize;
+    private final long expectTimeout;
+    private final long sshRetryInitialDelay;
+    private final long sshRetryMaxDelay;
+    private final double sshRetryBackoffMultiplier;
+    private final double sshRetryJitterFactor;
+    private final boolean sshCircuitBreakerEnabled;
+    private final int sshCircuitBreakerFailureThreshold;
+    private final long sshCircuitBreakerProbeInterval;
+    private final boolean sshPoolEnabled;
+    private final int sshPoolMaxSessionsPerHost;
+    private final long sshPoolIdleTimeout;
+    private final long sshPoolValidationTimeout;
+    private final long sshPoolBorrowWait;
+    private final boolean deviceSchedulerEnabled;
+    private final int deviceSchedulerMaxConcurrentPerDevice;
+    private final int deviceSchedulerMaxConcurrentTotal;
+    private final long deviceSchedulerQueueWait;
+
+    private ProviderConfiguration(Parser parser) {
+	rdkResponseTimeout = parser.getPositiveLong(Constants.PROPS_RDK_RESP_WAIT_TIME_MILLISEC,
+		DEFAULT_RDK_RESPONSE_TIMEOUT_MILLISECS);
+	nonRdkResponseTimeout = parser.getPositiveLong(Constants.PROPS_NON_RDK_RESP_WAIT_TIME_MILLISEC, 0);
+	sshConnectionMaxAttempt = (int) parser.getPositiveLong(Constants.PROPS_SSH_CONNECTION_MAX_ATTEMPT,
+		DEFAULT_SSH_CONNECTION_MAX_ATTEMPT);
+	localCommandTimeout = parser.getPositiveLong(Constants.PROPS_LOCAL_COMMAND_TIMEOUT_MILLISEC,
+		DEFAULT_LOCAL_COMMAND_TIMEOUT_MILLISECS);
+	snmpPort = parser.getPort(Constants.PROPS_SNMP_PORT, DEFAULT_SNMP_PORT);
+	snmpProtocol = parser.getSnmpProtocol(Constants.PROPS_SNMP_PROTOCOL, DEFAULT_SNMP_PROTOCOL);
+	snmpCommunity = parser.getString(Constants.PROPS_SNMP_COMMUNITY, DEFAULT_SNMP_COMMUNITY);
+	snmpSecurityLevel = parser.getSecurityLevel(Constants.PROPS_SNMP_SECURITY_LEVEL);
+	snmpSecurityName = parser.getString(Constants.PROPS_SNMP_SECURITY_NAME, null);
+	snmpSecurityOptions = parser.getString(Constants.PROPS_SNMP_SECURITY_OPTIONS, null);
+	snmpTimeout = parser.getPositiveLong(Constants.PROPS_SNMP_TIMEOUT_MILLISEC, DEFAULT_SNMP_TIMEOUT_MILLISECS);
+	snmpRetries = (int) parser.getNonNegativeLong(Constants.PROPS_SNMP_RETRIES, DEFAULT_SNMP_RETRIES);
+	snmpMaxMessageSize = (int) parser.getLongInRange(Constants.PROPS_SNMP_MAX_MESSAGE_SIZE,
+		DEFAULT_SNMP_MAX_MESSAGE_SIZE, MIN_SNMP_MESSAGE_SIZE, MAX_SNMP_MESSAGE_SIZE);
+	deviceAccessCacheTtl = parser.getNonNegativeLong(Constants.PROPS_DEVICE_ACCESS_CACHE_TTL_MILLISEC,
+		DEFAULT_DEVICE_ACCESS_CACHE_TTL_MILLISECS);
+	deviceAccessMaxParallelChecks = (int) parser.getPositiveLong(Constants.PROPS_DEVICE_ACCESS_MAX_PARALLEL_CHECKS,
+		DEFAULT_DEVICE_ACCESS_MAX_PARALLEL_CHECKS);
+	deviceAccessProbeTimeout = parser.getPositiveLong(Constants.PROPS_DEVICE_ACCESS_PROBE_TIMEOUT_MILLISEC,
+		DEFAULT_DEVICE_ACCESS_PROBE_TIMEOUT_MILLISECS);
+	pipeRewritePolicy = parser.getPipeRewritePolicy(Constants.PROPS_SSH_PIPE_REWRITE_POLICY,
+		DEFAULT_PIPE_REWRITE_POLICY);
+	pipeRewriteCacheSize = (int) parser.getNonNegativeLong(Constants.PROPS_SSH_PIPE_REWRITE_CACHE_SIZE,
+		DEFAULT_PIPE_REWRITE_CACHE_SIZE);
+	expectTimeout = parser.getPositiveLong(Constants.PROPS_SSH_EXPECT_TIMEOUT_MILLISEC,
+		DEFAULT_EXPECT_TIMEOUT_MILLISECS);
+	sshRetryInitialDelay = parser.getNonNegativeLong(Constants.PROPS_SSH_RETRY_INITIAL_DELAY_MILLISEC,
+		DEFAULT_SSH_RETRY_INITIAL_DELAY_MILLISECS);
+	sshRetryMaxDelay = parser.getNonNegativeLong(Constants.PROPS_SSH_RETRY_MAX_DELAY_MILLISEC,
+		DEFAULT_SSH_RETRY_MAX_DELAY_MILLISECS);
+	sshRetryBackoffMultiplier = parser.getDoubleInRange(Constants.PROPS_SSH_RETRY_BACKOFF_MULTIPLIER,
+		DEFAULT_SSH_RETRY_BACKOFF_MULTIPLIER, 1.0, Double.POSITIVE_INFINITY);
+	sshRetryJitterFactor = parser.getDoubleInRange(Constants.PROPS_SSH_RETRY_JITTER_FACTOR,
+		DEFAULT_SSH_RETRY_JITTER_FACTOR, 0.0, 1.0);
+	sshCircuitBreakerEnabled = parser.getBoolean(Constants.PROPS_SSH_CIRCUIT_BREAKER_ENABLED, true);
+	sshCircuitBreakerFailureThreshold = (int) parser.getPositiveLong(
+		Constants.PROPS_SSH_CIRCUIT_BREAKER_FAILURE_THRESHOLD, DEFAULT_SSH_CIRCUIT_BREAKER_FAILURE_THRESHOLD);
+	sshCircuitBreakerProbeInterval = parser.getPositiveLong(
+		Constants.PROPS_SSH_CIRCUIT_BREAKER_PROBE_INTERVAL_MILLISEC,
+		DEFAULT_SSH_CIRCUIT_BREAKER_PROBE_INTERVAL_MILLISECS);
+	sshPoolEnabled = parser.getBoolean(Constants.PROPS_SSH_POOL_ENABLED, true);
+	sshPoolMaxSessionsPerHost = (int) parser.getPositiveLong(Constants.PROPS_SSH_POOL_MAX_SESSIONS_PER_HOST,
+		DEFAULT_SSH_POOL_MAX_SESSIONS_PER_HOST);
+	sshPoolIdleTimeout = parser.getNonNegativeLong(Constants.PROPS_SSH_POOL_IDLE_TIMEOUT_MILLISEC,
+		DEFAULT_SSH_POOL_IDLE_TIMEOUT_MILLISECS);
+	sshPoolValidationTimeout = parser.getPositiveLong(Constants.PROPS_SSH_POOL_VALIDATION_TIMEOUT_MILLISEC,
+		DEFAULT_SSH_POOL_VALIDATION_TIMEOUT_MILLISECS);
+	sshPoolBorrowWait = parser.getNonNegativeLong(Constants.PROPS_SSH_POOL_BORROW_WAIT_MILLISEC,
+		DEFAULT_SSH_POOL_BORROW_WAIT_MILLISECS);
+	deviceSchedulerEnabled = parser.getBoolean(Constants.PROPS_DEVICE_SCHEDULER_ENABLED, true);
+	deviceSchedulerMaxConcurrentPerDevice = (int) parser.getPositiveLong(
+		Constants.PROPS_DEVICE_SCHEDULER_MAX_CONCURRENT_PER_DEVICE,
+		DEFAULT_DEVICE_SCHEDULER_MAX_CONCURRENT_PER_DEVICE);
+	deviceSchedulerMaxConcurrentTotal = (int) parser.getPositiveLong(
+		Constants.PROPS_DEVICE_SCHEDULER_MAX_CONCURRENT_TOTAL, DEFAULT_DEVICE_SCHEDULER_MAX_CONCURRENT_TOTAL);
+	deviceSchedulerQueueWait = parser.getNonNegativeLong(Constants.PROPS_DEVICE_SCHEDULER_QUEUE_WAIT_MILLISEC,
+		DEFAULT_DEVICE_SCHEDULER_QUEUE_WAIT_MILLISECS);
+    }
+
+    /**
+     * Builds a configuration snapshot. Invalid values are replaced by their defaults and reported in the error list
+     * 
+     * @param propertyLookup
+     *            Returns the configured value of a property, null if not configured
+     * @param errors
+     *            List to which a message is added for every invalid value
+     * @return ProviderConfiguration instance
+     */
+    static ProviderConfiguration build(Function<String, String> propertyLookup, List<String> errors) {
+	return new ProviderConfiguration(new Parser(propertyLookup, errors));
+    }
+
+    /**
+     * @return wait time for command responses from RDK devices
+     */
+    public long getRdkResponseTimeout() {
+	return rdkResponseTimeout;
+    }
+
+    /**
+     * @return wait time for command responses from non-RDK devices, 0 if not configured
+     */
+    public long getNonRdkResponseTimeout() {
+	return nonRdkResponseTimeout;
+    }
+
+    /**
+     * @return number of attempts made to establish an ssh connection
+     */
+    public int getSshConnectionMaxAttempt() {
+	return sshConnectionMaxAttempt;
+    }
+
+    /**
+     * @return time after which a command executed on localhost is stopped
+     */
+    public long getLocalCommandTimeout() {
+	return localCommandTimeout;
+    }
+
+    public String getSnmpPort() {
+	return snmpPort;
+    }
+
+    public String getSnmpProtocol() {
+	return snmpProtocol;
+    }
+
+    public String getSnmpCommunity() {
+	return snmpCommunity;
+    }
+
+    /**
+     * @return SNMP V3 security level, null if not configured
+     */
+    public Snmpv3SecurityLevel getSnmpSecurityLevel() {
+	return snmpSecurityLevel;
+    }
+
+    /**
+     * @return SNMP V3 security name, null if not configured
+     */
+    public String getSnmpSecurityName() {
+	return snmpSecurityName;
+    }
+
+    /**
+     * @return SNMP V3 security options, null if not configured
+     */
+    public String getSnmpSecurityOptions() {
+	return snmpSecurityOptions;
+    }
+
+    /**
+     * @return time to wait for an SNMP response before sending the request again
+     */
+    public long getSnmpTimeout() {
+	return snmpTimeout;
+    }
+
+    /**
+     * @return number of times an unanswered SNMP request is sent again
+     */
+    public int getSnmpRetries() {
+	return snmpRetries;
+    }
+
+    /**
+     * @return maximum size in bytes of an SNMP request merged from concurrent requests
+     */
+    public int getSnmpMaxMessageSize() {
+	return snmpMaxMessageSize;
+    }
+
+    /**
+     * @return time a device accessibility verdict of the bulk validator is reused, 0 to not reuse verdicts
+     */
+    public long getDeviceAccessCacheTtl() {
+	return deviceAccessCacheTtl;
+    }
+
+    /**
+     * @return maximum number of SSH accessibility checks run in parallel
+     */
+    public int getDeviceAccessMaxParallelChecks() {
+	return deviceAccessMaxParallelChecks;
+    }
+
+    /**
+     * @return time to wait for the SSH port of a device to accept a TCP connection
+     */
+    public long getDeviceAccessProbeTimeout() {
+	return deviceAccessProbeTimeout;
+    }
+
+    /**
+     * @return how pipes in commands sent to non-RDK devices are rewritten
+     */
+    public PipeRewritePolicy getPipeRewritePolicy() {
+	return pipeRewritePolicy;
+    }
+
+    /**
+     * @return number of commands whose rewritten form is cached, 0 to not cache them
+     */
+    public int getPipeRewriteCacheSize() {
+	return pipeRewriteCacheSize;
+    }
+
+    /**
+     * @return time to wait for each prompt or end pattern of an interactive command
+     */
+    public long getExpectTimeout() {
+	return expectTimeout;
+    }
+
+    /**
+     * @return wait time before the first ssh connection retry
+     */
+    public long getSshRetryInitialDelay() {
+	return sshRetryInitialDelay;
+    }
+
+    /**
+     * @return upper bound of the wait time between ssh connection retries
+     */
+    public long getSshRetryMaxDelay() {
+	return sshRetryMaxDelay;
+    }
+
+    /**
+     * @return factor by which the wait time grows after each failed ssh connection attempt
+     */
+    public double getSshRetryBackoffMultiplier() {
+	return sshRetryBackoffMultiplier;
+    }
+
+    /**
+     * @return fraction of the wait time between ssh connection retries that is randomized
+     */
+    public double getSshRetryJitterFactor() {
+	return sshRetryJitterFactor;
+    }
+
+    public boolean isSshCircuitBreakerEnabled() {
+	return sshCircuitBreakerEnabled;
+    }
+
+    /**
+     * @return number of consecutive failed ssh connection attempts after which a host is considered down
+     */
+    public int getSshCircuitBreakerFailureThreshold() {
+	return sshCircuitBreakerFailureThreshold;
+    }
+
+    /**
+     * @return time between probes of a host considered down
+     */
+    public long getSshCircuitBreakerProbeInterval() {
+	return sshCircuitBreakerProbeInterval;
+    }
+
+    public boolean isSshPoolEnabled() {
+	return sshPoolEnabled;
+    }
+
+    /**
+     * @return maximum number of pooled ssh sessions per device
+     */
+    public int getSshPoolMaxSessionsPerHost() {
+	return sshPoolMaxSessionsPerHost;
+    }
+
+    /**
+     * @return time after which an unused pooled ssh session is closed, 0 to keep unused sessions open
+     */
+    public long getSshPoolIdleTimeout() {
+	return sshPoolIdleTimeout;
+    }
+
+    /**
+     * @return time to wait for the liveness check done before a pooled ssh session is reused
+     */
+    public long getSshPoolValidationTimeout() {
+	return sshPoolValidationTimeout;
+    }
+
+    /**
+     * @return time to wait for a free pooled ssh session when a device has reached its session limit
+     */
+    public long getSshPoolBorrowWait() {
+	return sshPoolBorrowWait;
+    }
+
+    public boolean isDeviceSchedulerEnabled() {
+	return deviceSchedulerEnabled;
+    }
+
+    /**
+     * @return maximum number of ssh sessions used concurrently per device
+     */
+    public int getDeviceSchedulerMaxConcurrentPerDevice() {
+	return deviceSchedulerMaxConcurrentPerDevice;
+    }
+
+    /**
+     * @return maximum number of ssh sessions used concurrently across all devices
+     */
+    public int getDeviceSchedulerMaxConcurrentTotal() {
+	return deviceSchedulerMaxConcurrentTotal;
+    }
+
+    /**
+     * @return time to wait in the queue of a device for a free session slot
+     */
+    public long getDeviceSchedulerQueueWait() {
+	return deviceSchedulerQueueWait;
+    }
+
+    /**
+     * Reads property values and validates them, falling back to defaults for invalid values
+     */
+    private static class Parser {
+
+	private final Function<String, String> propertyLookup;
+	private final List<String> errors;
+
+	Parser(Function<String, String> propertyLookup, List<String> errors) {
+	    this.propertyLookup = propertyLookup;
+	    this.errors = null != errors ? errors : new ArrayList<String>();
+	}
+
+	String getString(String propertyName, String defaultValue) {
+	    String value = propertyLookup.apply(propertyName);
+	    return CommonMethods.isNotNull(value) ? value.trim() : defaultValue;
+	}
+
+	long getPositiveLong(String propertyName, long defaultValue) {
+	    String value = getString(propertyName, null);
+	    if (null == value) {
+		return defaultValue;
+	    }
+	    try {
+		long parsedValue = Long.parseLong(value);
+		if (parsedValue > 0) {
+		    return parsedValue;
+		}
+	    } catch (NumberFormatException e) {
+		// reported below
+	    }
+	    errors.add(propertyName + " must be a positive number: " + value);
+	    return defaultValue;
+	}
+
+	long getNonNegativeLong(String propertyName, long defaultValue) {
+	    String value = getString(propertyName, null);
+	    if (null == value) {
+		return defaultValue;
+	    }
+	    try {
+		long parsedValue = Long.parseLong(value);
+		if (parsedValue >= 0) {
+		    return parsedValue;
+		}
+	    } catch (NumberFormatException e) {
+		// reported below
+	    }
+	    errors.add(propertyName + " must not be a negative number: " + value);
+	    return defaultValue;
+	}
+
+	long getLongInRange(String propertyName, long defaultValue, long minValue, long maxValue) {
+	    String value = getString(propertyName, null);
+	    if (null == value) {
+		return defaultValue;
+	    }
+	    try {
+		long parsedValue = Long.parseLong(value);
+		if (parsedValue >= minValue && parsedValue <= maxValue) {
+		    return parsedValue;
+		}
+	    } catch (NumberFormatException e) {
+		// reported below
+	    }
+	    errors.add(propertyName + " must be a number from " + minValue + " to " + maxValue + ": " + value);
+	    return defaultValue;
+	}
+
+	double getDoubleInRange(String propertyName, double defaultValue, double minValue, double maxValue) {
+	    String value = getString(propertyName, null);
+	    if (null == value) {
+		return defaultValue;
+	    }
+	    try {
+		double parsedValue = Double.parseDouble(value);
+		if (parsedValue >= minValue && parsedValue <= maxValue) {
+		    return parsedValue;
+		}
+	    } catch (NumberFormatException e) {
+		// reported below
+	    }
+	    errors.add(propertyName + " must be a number of at least " + minValue
+		    + (Double.isInfinite(maxValue) ? "" : " and at most " + maxValue) + ": " + value);
+	    return defaultValue;
+	}
+
+	boolean getBoolean(String propertyName, boolean defaultValue) {
+	    String value = getString(propertyName, null);
+	    if (null == value) {
+		return defaultValue;
+	    }
+	    if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
+		return Boolean.parseBoolean(value);
+	    }
+	    errors.add(propertyName + " must be true or false: " + value);
+	    return defaultValue;
+	}
+
+	String getPort(String propertyName, String defaultValue) {
+	    String value = getString(propertyName, null);
+	    if (null == value) {
+		return defaultValue;
+	    }
+	    try {
+		int port = Integer.parseInt(value);
+		if (port > 0 && port <= MAX_PORT) {
+		    return value;
+		}
+	    } catch (NumberFormatException e) {
+		// reported below
+	    }
+	    errors.add(propertyName + " must be a port number: " + value);
+	    return defaultValue;
+	}
+
+	String getSnmpProtocol(String propertyName, String defaultValue) {
+	    String value = getString(propertyName, null);
+	    if (null == value) {
+		return defaultValue;
+	    }
+	    if ("udp".equalsIgnoreCase(value) || "tcp".equalsIgnoreCase(value)) {
+		return value.toLowerCase();
+	    }
+	    errors.add(propertyName + " must be udp or tcp: " + value);
+	    return defaultValue;
+	}
+
+	Snmpv3SecurityLevel getSecurityLevel(String propertyName) {
+	    String value = getString(propertyName, null);
+	    if (null == value) {
+		return null;
+	    }
+	    try {
+		return Snmpv3SecurityLevel.valueOf(value);
+	    } catch (IllegalArgumentException e) {
+		errors.add(propertyName + " is not a valid security level: " + value);
+		return null;
+	    }
+	}
+
+	PipeRewritePolicy getPipeRewritePolicy(String propertyName, PipeRewritePolicy defaultValue) {
+	    String value = getString(propertyName, null);
+	    if (null == value) {
+		return defaultValue;
+	    }
+	    try {
+		return PipeRewritePolicy.valueOf(value.toUpperCase());
+	    } catch (IllegalArgumentException e) {
+		errors.add(propertyName + " must be NONE or PROCESS_SUBSTITUTION: " + value);
+		return defaultValue;
+	    }
+	}
+    }
+}
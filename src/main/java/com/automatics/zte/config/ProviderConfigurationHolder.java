@@ -0,0 +1,217 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.automatics.zte.config;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.automatics.utils.AutomaticsPropertyUtility;
+import com.automatics.zte.constants.Constants;
+import com.automatics.zte.utils.CommonMethods;
+
+/**
+ * Holds the current provider configuration snapshot. When the automatics properties file is a local file, it is
+ * checked for changes in the background and a new snapshot is swapped in once the changed file has been validated.
+ * A changed file with invalid values is rejected and the current snapshot is kept. Components holding state built from
+ * the settings register a listener to apply each new snapshot.
+ */
+public class ProviderConfigurationHolder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProviderConfigurationHolder.class);
+    private static final long DEFAULT_RELOAD_INTERVAL_MILLISECS = 30000;
+    private static final String FILE_URL_PREFIX = "file:";
+    private static final String URL_SCHEME_SEPARATOR = "://";
+
+    private static final List<Consumer<ProviderConfiguration>> LISTENERS =
+	    new CopyOnWriteArrayList<Consumer<ProviderConfiguration>>();
+    private static final AtomicReference<ProviderConfiguration> CURRENT = new AtomicReference<ProviderConfiguration>(
+	    loadInitial());
+    private static final File PROPERTIES_FILE = getLocalPropertiesFile();
+    private static volatile long lastModified = null != PROPERTIES_FILE ? PROPERTIES_FILE.lastModified() : 0;
+
+    static {
+	long reloadInterval = CommonMethods.getLongProperty(Constants.PROPS_CONFIG_RELOAD_INTERVAL_MILLISEC,
+		DEFAULT_RELOAD_INTERVAL_MILLISECS);
+	if (null != PROPERTIES_FILE && reloadInterval > 0) {
+	    ScheduledExecutorService watcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "provider-config-watcher");
+		thread.setDaemon(true);
+		return thread;
+	    });
+	    watcher.scheduleWithFixedDelay(ProviderConfigurationHolder::reloadIfModified, reloadInterval,
+		    reloadInterval, TimeUnit.MILLISECONDS);
+	    LOGGER.info("Watching {} for configuration changes every {} ms", PROPERTIES_FILE, reloadInterval);
+	}
+    }
+
+    private ProviderConfigurationHolder() {
+    }
+
+    /**
+     * @return current configuration snapshot
+     */
+    public static ProviderConfiguration get() {
+	return CURRENT.get();
+    }
+
+    /**
+     * Registers a listener called with every snapshot that replaces the current one
+     * 
+     * @param listener
+     */
+    public static void addListener(Consumer<ProviderConfiguration> listener) {
+	LISTENERS.add(listener);
+    }
+
+    /**
+     * @param listener
+     *            Listener to no longer call
+     */
+    public static void removeListener(Consumer<ProviderConfiguration> listener) {
+	LISTENERS.remove(listener);
+    }
+
+    /**
+     * Rebuilds the configuration snapshot, from the automatics properties file when it is a local file
+     * 
+     * @return true if the new snapshot was valid and replaced the current one
+     */
+    public static boolean reload() {
+	Properties properties = null;
+	if (null != PROPERTIES_FILE) {
+	    lastModified = PROPERTIES_FILE.lastModified();
+	    properties = readProperties(PROPERTIES_FILE);
+	    if (null == properties) {
+		return false;
+	    }
+	}
+	return update(toLookup(properties));
+    }
+
+    /**
+     * Replaces the current snapshot with one built from the given properties, unless any value is invalid
+     * 
+     * @param propertyLookup
+     * @return true if the snapshot was replaced
+     */
+    static boolean update(Function<String, String> propertyLookup) {
+	List<String> errors = new ArrayList<String>();
+	ProviderConfiguration configuration = ProviderConfiguration.build(propertyLookup, errors);
+	if (!errors.isEmpty()) {
+	    LOGGER.error("Rejected provider configuration change, keeping current configuration: {}", errors);
+	    return false;
+	}
+	set(configuration);
+	LOGGER.info("Provider configuration reloaded");
+	return true;
+    }
+
+    /**
+     * Replaces the current snapshot and notifies the listeners
+     * 
+     * @param configuration
+     */
+    static void set(ProviderConfiguration configuration) {
+	CURRENT.set(configuration);
+	for (Consumer<ProviderConfiguration> listener : LISTENERS) {
+	    try {
+		listener.accept(configuration);
+	    } catch (Exception e) {
+		LOGGER.error("Error applying provider configuration change: {}", e.getMessage());
+	    }
+	}
+    }
+
+    private static ProviderConfiguration loadInitial() {
+	List<String> errors = new ArrayList<String>();
+	ProviderConfiguration configuration = ProviderConfiguration
+		.build(AutomaticsPropertyUtility::getProperty, errors);
+	for (String error : errors) {
+	    LOGGER.error("Invalid provider configuration, using default value: {}", error);
+	}
+	return configuration;
+    }
+
+    private static void reloadIfModified() {
+	try {
+	    if (PROPERTIES_FILE.lastModified() != lastModified) {
+		LOGGER.info("Detected change in {}", PROPERTIES_FILE);
+		reload();
+	    }
+	} catch (Exception e) {
+	    LOGGER.error("Error reloading provider configuration: {}", e.getMessage());
+	}
+    }
+
+    /**
+     * Values missing from the properties file fall back to automatics properties, so that properties passed as
+     * system properties still apply
+     */
+    private static Function<String, String> toLookup(Properties properties) {
+	if (null == properties) {
+	    return AutomaticsPropertyUtility::getProperty;
+	}
+	return propertyName -> properties.containsKey(propertyName) ? properties.getProperty(propertyName)
+		: AutomaticsPropertyUtility.getProperty(propertyName);
+    }
+
+    private static Properties readProperties(File file) {
+	Properties properties = new Properties();
+	try (InputStream inputStream = new FileInputStream(file)) {
+	    properties.load(inputStream);
+	    return properties;
+	} catch (IOException e) {
+	    LOGGER.error("Error reading {}: {}", file, e.getMessage());
+	    return null;
+	}
+    }
+
+    private static File getLocalPropertiesFile() {
+	String location = System.getProperty(Constants.SYSTEM_PROPERTY_AUTOMATICS_PROPERTIES_FILE);
+	if (CommonMethods.isNull(location)) {
+	    return null;
+	}
+	File file = null;
+	try {
+	    if (location.startsWith(FILE_URL_PREFIX)) {
+		file = new File(URI.create(location));
+	    } else if (!location.contains(URL_SCHEME_SEPARATOR)) {
+		file = new File(location);
+	    }
+	} catch (IllegalArgumentException e) {
+	    LOGGER.error("Invalid automatics properties file location: {}", location);
+	}
+	return null != file && file.isFile() ? file : null;
+    }
+}
@@ -22,6 +22,7 @@ public class Constants {
     public static String END_OF_SSH_CONNECTION_PRIVACY_MESSAGE = "law enforcement.";
     public static final long TEN_SECONDS = 10000;
     public static final String NEW_LINE = "\n";
+    public static final int DEFAULT_SSH_PORT = 22;
 
     /**
      * Property to keep command execution response wait time for non-RDK devices during ssh connection
@@ -33,4 +34,287 @@ public class Constants {
      */
     public static final String PROPS_RDK_RESP_WAIT_TIME_MILLISEC = "rdk.resp.wait.time.millisecs";
 
+    /**
+     * Property to enable or disable reuse of SSH sessions across command executions
+     */
+    public static final String PROPS_SSH_POOL_ENABLED = "ssh.pool.enabled";
+
+    /**
+     * Property to keep the maximum number of SSH sessions kept open per host, port and user
+     */
+    public static final String PROPS_SSH_POOL_MAX_SESSIONS_PER_HOST = "ssh.pool.max.sessions.per.host";
+
+    /**
+     * Property to keep the time after which an unused pooled SSH session is closed
+     */
+    public static final String PROPS_SSH_POOL_IDLE_TIMEOUT_MILLISEC = "ssh.pool.idle.timeout.millisecs";
+
+    /**
+     * Property to keep the response wait time of the liveness check done before a pooled SSH session is reused
+     */
+    public static final String PROPS_SSH_POOL_VALIDATION_TIMEOUT_MILLISEC = "ssh.pool.validation.timeout.millisecs";
+
+    /**
+     * Property to keep the maximum time to wait for a free SSH session when the per host limit is reached
+     */
+    public static final String PROPS_SSH_POOL_BORROW_WAIT_MILLISEC = "ssh.pool.borrow.wait.millisecs";
+
+    /**
+     * Property to run independent commands of a command list concurrently over exec channels of one SSH session
+     */
+    public static final String PROPS_SSH_PARALLEL_EXECUTION_ENABLED = "ssh.parallel.execution.enabled";
+
+    /**
+     * Property to keep the maximum number of exec channels opened concurrently on one SSH session
+     */
+    public static final String PROPS_SSH_PARALLEL_MAX_CHANNELS = "ssh.parallel.max.channels";
+
+    /**
+     * Property to keep the ssh user name used for exec channel sessions to RDK devices
+     */
+    public static final String PROPS_RDK_SSH_USERNAME = "rdk.ssh.username";
+
+    /**
+     * Property to keep the ssh password used for exec channel sessions to RDK devices
+     */
+    public static final String PROPS_RDK_SSH_PASSWORD = "rdk.ssh.password";
+
+    /**
+     * Property to keep the private key file used for exec channel sessions to RDK devices
+     */
+    public static final String PROPS_RDK_SSH_PRIVATE_KEY_PATH = "rdk.ssh.private.key.path";
+
+    /**
+     * Property to keep the host key checking of exec channel sessions, yes, no or ask as understood by JSch
+     */
+    public static final String PROPS_SSH_STRICT_HOST_KEY_CHECKING = "ssh.strict.host.key.checking";
+
+    /**
+     * Property to keep the known hosts file against which host keys of exec channel sessions are checked
+     */
+    public static final String PROPS_SSH_KNOWN_HOSTS_PATH = "ssh.known.hosts.path";
+
+    /**
+     * Property to keep the number of threads executing asynchronous command requests
+     */
+    public static final String PROPS_ASYNC_EXECUTOR_POOL_SIZE = "async.executor.pool.size";
+
+    /**
+     * Property to keep the number of asynchronous command requests that can wait for a free thread
+     */
+    public static final String PROPS_ASYNC_EXECUTOR_QUEUE_CAPACITY = "async.executor.queue.capacity";
+
+    /**
+     * Property to keep the maximum number of devices a fleet execution runs commands on at the same time
+     */
+    public static final String PROPS_FLEET_MAX_CONCURRENT_DEVICES = "fleet.max.concurrent.devices";
+
+    /**
+     * Property to keep the maximum number of devices of one subnet a fleet execution runs commands on at the same time
+     */
+    public static final String PROPS_FLEET_MAX_CONCURRENT_DEVICES_PER_SUBNET = "fleet.max.concurrent.devices.per.subnet";
+
+    /**
+     * Property to keep the IPv4 prefix length used to group devices into subnets during fleet execution
+     */
+    public static final String PROPS_FLEET_SUBNET_PREFIX_LENGTH = "fleet.subnet.prefix.length";
+
+    /**
+     * Property to keep the wait time before the first retry of a failed ssh connection attempt
+     */
+    public static final String PROPS_SSH_RETRY_INITIAL_DELAY_MILLISEC = "ssh.retry.initial.delay.millisecs";
+
+    /**
+     * Property to keep the upper bound of the wait time between ssh connection attempts
+     */
+    public static final String PROPS_SSH_RETRY_MAX_DELAY_MILLISEC = "ssh.retry.max.delay.millisecs";
+
+    /**
+     * Property to keep the factor by which the wait time grows after every failed ssh connection attempt
+     */
+    public static final String PROPS_SSH_RETRY_BACKOFF_MULTIPLIER = "ssh.retry.backoff.multiplier";
+
+    /**
+     * Property to keep the fraction, between 0 and 1, of the retry wait time that is randomized
+     */
+    public static final String PROPS_SSH_RETRY_JITTER_FACTOR = "ssh.retry.jitter.factor";
+
+    /**
+     * Property to enable or disable failing fast on hosts known to be unreachable
+     */
+    public static final String PROPS_SSH_CIRCUIT_BREAKER_ENABLED = "ssh.circuit.breaker.enabled";
+
+    /**
+     * Property to keep the number of consecutive failed ssh connection attempts after which a host is considered down
+     */
+    public static final String PROPS_SSH_CIRCUIT_BREAKER_FAILURE_THRESHOLD = "ssh.circuit.breaker.failure.threshold";
+
+    /**
+     * Property to keep the interval at which a host considered down is probed in the background
+     */
+    public static final String PROPS_SSH_CIRCUIT_BREAKER_PROBE_INTERVAL_MILLISEC = "ssh.circuit.breaker.probe.interval.millisecs";
+
+    /**
+     * Property to select how the end of a command response is detected: timeout, sentinel or prompt
+     */
+    public static final String PROPS_SSH_RESPONSE_COMPLETION_MODE = "ssh.response.completion.mode";
+
+    /**
+     * Property to keep the interval at which response output is checked for completion
+     */
+    public static final String PROPS_SSH_RESPONSE_POLL_INTERVAL_MILLISEC = "ssh.response.poll.interval.millisecs";
+
+    /**
+     * Property to keep the regular expression matching the shell prompt, used by the prompt completion mode
+     */
+    public static final String PROPS_SSH_PROMPT_REGEX = "ssh.prompt.regex";
+
+    /**
+     * Property to enable or disable reuse of long lived local shells for commands executed on localhost
+     */
+    public static final String PROPS_LOCAL_SHELL_POOL_ENABLED = "local.shell.pool.enabled";
+
+    /**
+     * Property to keep the maximum number of long lived local shells
+     */
+    public static final String PROPS_LOCAL_SHELL_POOL_SIZE = "local.shell.pool.size";
+
+    /**
+     * Property to keep the time after which a command executed on localhost is stopped
+     */
+    public static final String PROPS_LOCAL_COMMAND_TIMEOUT_MILLISEC = "local.command.timeout.millisecs";
+
+    /**
+     * Property to keep the number of attempts made to establish an ssh connection
+     */
+    public static final String PROPS_SSH_CONNECTION_MAX_ATTEMPT = "SSH_CONNECTION_MAX_ATTEMPT";
+
+    /**
+     * Property to keep the port on which snmp agents listen
+     */
+    public static final String PROPS_SNMP_PORT = "snmp.port";
+
+    /**
+     * Property to keep the transport protocol used for snmp communication: udp or tcp
+     */
+    public static final String PROPS_SNMP_PROTOCOL = "snmp.protocol";
+
+    /**
+     * Property to keep the community string used for SNMP V2 communication
+     */
+    public static final String PROPS_SNMP_COMMUNITY = "snmp.community";
+
+    /**
+     * Property to keep the security level used for SNMP V3 communication
+     */
+    public static final String PROPS_SNMP_SECURITY_LEVEL = "snmp.securityLevel";
+
+    /**
+     * Property to keep the security name used for SNMP V3 communication
+     */
+    public static final String PROPS_SNMP_SECURITY_NAME = "snmp.securityName";
+
+    /**
+     * Property to keep the security options used for SNMP V3 communication
+     */
+    public static final String PROPS_SNMP_SECURITY_OPTIONS = "snmp.securityOptions";
+
+    /**
+     * Property to keep the maximum number of DUT and SNMP version combinations whose authorization data is cached
+     */
+    public static final String PROPS_SNMP_SECURITY_CACHE_MAX_ENTRIES = "snmp.security.cache.max.entries";
+
+    /**
+     * Property to enable executing net-snmp command lines with the in-process SNMP client instead of over ssh
+     */
+    public static final String PROPS_SNMP_NATIVE_ENABLED = "snmp.native.enabled";
+
+    /**
+     * Property to keep the time to wait for an SNMP response before sending the request again
+     */
+    public static final String PROPS_SNMP_TIMEOUT_MILLISEC = "snmp.timeout.millisecs";
+
+    /**
+     * Property to keep the number of times an unanswered SNMP request is sent again
+     */
+    public static final String PROPS_SNMP_RETRIES = "snmp.retries";
+
+    /**
+     * Property to keep the maximum size in bytes of an SNMP request merged from concurrent requests, by default the
+     * UDP payload of an Ethernet frame
+     */
+    public static final String PROPS_SNMP_MAX_MESSAGE_SIZE = "snmp.max.message.size";
+
+    /**
+     * Property to keep the time a device accessibility verdict of the bulk validator is reused
+     */
+    public static final String PROPS_DEVICE_ACCESS_CACHE_TTL_MILLISEC = "device.access.cache.ttl.millisecs";
+
+    /**
+     * Property to keep the maximum number of SSH accessibility checks run in parallel by the bulk validator
+     */
+    public static final String PROPS_DEVICE_ACCESS_MAX_PARALLEL_CHECKS = "device.access.max.parallel.checks";
+
+    /**
+     * Property to keep the time to wait for the SSH port of a device to accept a TCP connection
+     */
+    public static final String PROPS_DEVICE_ACCESS_PROBE_TIMEOUT_MILLISEC = "device.access.probe.timeout.millisecs";
+
+    /**
+     * Property to enable or disable limiting the number of concurrent SSH sessions opened to a device
+     */
+    public static final String PROPS_DEVICE_SCHEDULER_ENABLED = "device.scheduler.enabled";
+
+    /**
+     * Property to keep the maximum number of concurrent SSH sessions opened to a single device
+     */
+    public static final String PROPS_DEVICE_SCHEDULER_MAX_CONCURRENT_PER_DEVICE = "device.scheduler.max.concurrent.per.device";
+
+    /**
+     * Property to keep the maximum number of concurrent SSH sessions opened to all devices together
+     */
+    public static final String PROPS_DEVICE_SCHEDULER_MAX_CONCURRENT_TOTAL = "device.scheduler.max.concurrent.total";
+
+    /**
+     * Property to keep the time a request waits in the queue of a device for a free session slot
+     */
+    public static final String PROPS_DEVICE_SCHEDULER_QUEUE_WAIT_MILLISEC = "device.scheduler.queue.wait.millisecs";
+
+    /**
+     * Property to keep how pipes in commands sent to non-RDK devices are rewritten, NONE or PROCESS_SUBSTITUTION
+     */
+    public static final String PROPS_SSH_PIPE_REWRITE_POLICY = "ssh.pipe.rewrite.policy";
+
+    /**
+     * Property to keep the number of commands whose rewritten form is cached
+     */
+    public static final String PROPS_SSH_PIPE_REWRITE_CACHE_SIZE = "ssh.pipe.rewrite.cache.size";
+
+    /**
+     * Property to keep the texts ending the security banner shown at login, separated by |. A device model specific
+     * value is read from this property name followed by . and the model
+     */
+    public static final String PROPS_SSH_BANNER_END_MARKERS = "ssh.banner.end.markers";
+
+    /**
+     * Property to keep the time to wait for the security banner when a new SSH connection is set up
+     */
+    public static final String PROPS_SSH_BANNER_WAIT_MILLISEC = "ssh.banner.wait.millisecs";
+
+    /**
+     * Property to keep the time to wait for each prompt or end pattern of an interactive command
+     */
+    public static final String PROPS_SSH_EXPECT_TIMEOUT_MILLISEC = "ssh.expect.timeout.millisecs";
+
+    /**
+     * Property to keep the interval at which the automatics properties file is checked for changes, 0 to disable
+     * reloading
+     */
+    public static final String PROPS_CONFIG_RELOAD_INTERVAL_MILLISEC = "provider.config.reload.interval.millisecs";
+
+    /**
+     * System property holding the location of the automatics properties file
+     */
+    public static final String SYSTEM_PROPERTY_AUTOMATICS_PROPERTIES_FILE = "automatics.properties.file";
+
 }
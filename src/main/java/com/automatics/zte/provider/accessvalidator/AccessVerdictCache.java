@@ -0,0 +1,82 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.automatics.zte.provider.accessvalidator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.automatics.device.Dut;
+import com.automatics.utils.CommonMethods;
+
+/**
+ * Device accessibility verdicts, reused until they expire. Devices are identified by MAC address, or by IP address
+ * when the MAC address is not known.
+ */
+class AccessVerdictCache {
+
+    private final Map<String, Verdict> verdicts = new ConcurrentHashMap<String, Verdict>();
+
+    /**
+     * @param dut
+     * @return verdict of the device, null if not known or expired
+     */
+    Boolean get(Dut dut) {
+	String key = getKey(dut);
+	Verdict verdict = verdicts.get(key);
+	if (null == verdict) {
+	    return null;
+	}
+	if (System.nanoTime() - verdict.expiresAtNanos >= 0) {
+	    verdicts.remove(key, verdict);
+	    return null;
+	}
+	return verdict.isAccessible;
+    }
+
+    /**
+     * @param dut
+     * @param isAccessible
+     * @param ttlMillis
+     *            Time the verdict is reused, 0 to not cache it
+     */
+    void put(Dut dut, boolean isAccessible, long ttlMillis) {
+	if (ttlMillis > 0) {
+	    verdicts.put(getKey(dut), new Verdict(isAccessible, System.nanoTime() + ttlMillis * 1000000L));
+	}
+    }
+
+    void invalidate(Dut dut) {
+	verdicts.remove(getKey(dut));
+    }
+
+    private static String getKey(Dut dut) {
+	String macAddress = dut.getHostMacAddress();
+	return CommonMethods.isNotNull(macAddress) ? macAddress : String.valueOf(dut.getHostIpAddress());
+    }
+
+    private static final class Verdict {
+
+	private final boolean isAccessible;
+	private final long expiresAtNanos;
+
+	Verdict(boolean isAccessible, long expiresAtNanos) {
+	    this.isAccessible = isAccessible;
+	    this.expiresAtNanos = expiresAtNanos;
+	}
+    }
+}
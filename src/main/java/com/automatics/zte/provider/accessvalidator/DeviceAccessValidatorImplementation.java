@@ -19,6 +19,16 @@
 
 package com.automatics.zte.provider.accessvalidator;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,6 +37,8 @@ import com.automatics.device.Dut;
 import com.automatics.providers.connection.SshConnection;
 import com.automatics.providers.impl.DeviceAccessValidatorImpl;
 import com.automatics.utils.CommonMethods;
+import com.automatics.zte.config.ProviderConfiguration;
+import com.automatics.zte.config.ProviderConfigurationHolder;
 import com.connectionproviders.deviceconnectionprovider.DeviceConnectionProviderImpl;
 
 /**
@@ -38,6 +50,9 @@ import com.connectionproviders.deviceconnectionprovider.DeviceConnectionProvider
 public class DeviceAccessValidatorImplementation extends DeviceAccessValidatorImpl {
 
 private static final Logger LOGGER = LoggerFactory.getLogger(DeviceAccessValidatorImpl.class);
+    private static final int SSH_PORT = 22;
+    private static final AccessVerdictCache VERDICT_CACHE = new AccessVerdictCache();
+    private final TcpReachabilityProbe reachabilityProbe = new TcpReachabilityProbe();
 
     /**
      * Verify if device is accessible. Return true if device is accessible.
@@ -74,9 +89,92 @@ private static final Logger LOGGER = LoggerFactory.getLogger(DeviceAccessValidat
 	}
 	
 	LOGGER.info("Exiting method isDeviceAccessible. Status - " + isDeviceAccessible);
+	VERDICT_CACHE.put(dut, isDeviceAccessible, ProviderConfigurationHolder.get().getDeviceAccessCacheTtl());
 	return isDeviceAccessible;
 
     }
 
+    /**
+     * Verify which devices are accessible. The SSH port of all devices is first probed in parallel with non-blocking
+     * TCP connects, then the SSH check of {@link #isDeviceAccessible(Dut)} runs with bounded concurrency on the devices
+     * accepting connections. Verdicts younger than the configured TTL are reused.
+     * 
+     * @param duts
+     *            Devices to verify
+     * @return accessibility of each device, in the order of the devices
+     */
+    public Map<Dut, Boolean> areDevicesAccessible(Collection<? extends Dut> duts) {
+	ProviderConfiguration configuration = ProviderConfigurationHolder.get();
+	Map<Dut, Boolean> accessibility = new LinkedHashMap<Dut, Boolean>();
+	List<Dut> devicesToProbe = new ArrayList<Dut>();
+	List<String> hostsToProbe = new ArrayList<String>();
+	for (Dut dut : duts) {
+	    Boolean cachedVerdict = VERDICT_CACHE.get(dut);
+	    String sshAddress = dut.getHostIpAddress();
+	    if (null != cachedVerdict) {
+		accessibility.put(dut, cachedVerdict);
+	    } else if (CommonMethods.isNotNull(sshAddress) && !"UNAVAILABLE".equalsIgnoreCase(sshAddress)) {
+		accessibility.put(dut, false);
+		devicesToProbe.add(dut);
+		hostsToProbe.add(sshAddress);
+	    } else {
+		LOGGER.error("IP Address of {} is null , skipping connection check", dut.getHostMacAddress());
+		accessibility.put(dut, false);
+	    }
+	}
+	if (devicesToProbe.isEmpty()) {
+	    return accessibility;
+	}
+
+	Map<String, Boolean> reachability = reachabilityProbe.probe(hostsToProbe, SSH_PORT,
+		configuration.getDeviceAccessProbeTimeout());
+	List<Dut> reachableDevices = new ArrayList<Dut>();
+	for (Dut dut : devicesToProbe) {
+	    if (Boolean.TRUE.equals(reachability.get(dut.getHostIpAddress()))) {
+		reachableDevices.add(dut);
+	    } else {
+		LOGGER.error("SSH port of {} ({}) not reachable", dut.getHostMacAddress(), dut.getHostIpAddress());
+		VERDICT_CACHE.put(dut, false, configuration.getDeviceAccessCacheTtl());
+	    }
+	}
+	LOGGER.info("{} of {} devices accept SSH connections", reachableDevices.size(), devicesToProbe.size());
+	if (reachableDevices.isEmpty()) {
+	    return accessibility;
+	}
+
+	ExecutorService executor = Executors.newFixedThreadPool(
+		Math.min(configuration.getDeviceAccessMaxParallelChecks(), reachableDevices.size()));
+	try {
+	    Map<Dut, Future<Boolean>> checks = new LinkedHashMap<Dut, Future<Boolean>>();
+	    for (Dut dut : reachableDevices) {
+		checks.put(dut, executor.submit(() -> isDeviceAccessible(dut)));
+	    }
+	    for (Map.Entry<Dut, Future<Boolean>> check : checks.entrySet()) {
+		try {
+		    accessibility.put(check.getKey(), check.getValue().get());
+		} catch (ExecutionException e) {
+		    LOGGER.error("Exception occured while verifying accessibility of {} : {}",
+			    check.getKey().getHostMacAddress(), e.getCause().getMessage());
+		    accessibility.put(check.getKey(), false);
+		}
+	    }
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    LOGGER.error("Interrupted while verifying device accessibility");
+	} finally {
+	    executor.shutdownNow();
+	}
+	return accessibility;
+    }
+
+    /**
+     * Drops the cached accessibility verdict of a device, for example after rebooting it
+     * 
+     * @param dut
+     */
+    public void invalidateAccessVerdict(Dut dut) {
+	VERDICT_CACHE.invalidate(dut);
+    }
+
 }
 
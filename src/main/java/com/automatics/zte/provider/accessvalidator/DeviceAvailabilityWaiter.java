@@ -0,0 +1,352 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.automatics.zte.provider.accessvalidator;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.automatics.device.Dut;
+import com.automatics.zte.config.ProviderConfigurationHolder;
+
+/**
+ * Waits for many devices to become available without a thread per device. A single selector thread repeatedly probes
+ * the SSH port of each device with non-blocking connects and reads the SSH banner; once a device sends its banner, the
+ * command check runs on a small pool. A device is reported available as soon as the command check passes, otherwise
+ * it is probed again after the retry interval.
+ */
+public class DeviceAvailabilityWaiter implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeviceAvailabilityWaiter.class);
+    private static final int SSH_PORT = 22;
+    private static final long DEFAULT_RETRY_INTERVAL_MILLISECS = 1000;
+    private static final long CONNECT_TIMEOUT_MILLISECS = 3000;
+    private static final String SSH_BANNER_PREFIX = "SSH-";
+    private static final int MAX_BANNER_LENGTH = 255;
+
+    private final Predicate<Dut> commandCheck;
+    private final int sshPort;
+    private final long retryIntervalNanos;
+    private final ExecutorService checkExecutor;
+    private final Selector selector;
+    private final Thread selectorThread;
+    private final Queue<Runnable> selectorTasks = new ConcurrentLinkedQueue<Runnable>();
+    private final Set<Tracker> trackers = new HashSet<Tracker>();
+    private volatile boolean isOpen = true;
+
+    /**
+     * Creates a waiter checking devices with {@link DeviceAccessValidatorImplementation#isDeviceAccessible(Dut)}
+     */
+    public DeviceAvailabilityWaiter() {
+	this(new DeviceAccessValidatorImplementation()::isDeviceAccessible, SSH_PORT, DEFAULT_RETRY_INTERVAL_MILLISECS,
+		ProviderConfigurationHolder.get().getDeviceAccessMaxParallelChecks());
+    }
+
+    /**
+     * @param commandCheck
+     *            Check run once a device sends its SSH banner, true if the device is available
+     * @param sshPort
+     * @param retryIntervalMillis
+     *            Time between two probes of a device
+     * @param maxParallelChecks
+     *            Maximum number of command checks run at once
+     */
+    public DeviceAvailabilityWaiter(Predicate<Dut> commandCheck, int sshPort, long retryIntervalMillis,
+	    int maxParallelChecks) {
+	this.commandCheck = commandCheck;
+	this.sshPort = sshPort;
+	this.retryIntervalNanos = TimeUnit.MILLISECONDS.toNanos(retryIntervalMillis);
+	this.checkExecutor = Executors.newFixedThreadPool(Math.max(1, maxParallelChecks), runnable -> {
+	    Thread thread = new Thread(runnable, "device-availability-check");
+	    thread.setDaemon(true);
+	    return thread;
+	});
+	try {
+	    selector = Selector.open();
+	} catch (IOException e) {
+	    throw new IllegalStateException("Unable to open selector", e);
+	}
+	selectorThread = new Thread(this::run, "device-availability-waiter");
+	selectorThread.setDaemon(true);
+	selectorThread.start();
+    }
+
+    /**
+     * Waits for a device to become available
+     * 
+     * @param dut
+     * @param timeoutMillis
+     * @return future completed with true when the device is available, false if it did not become available in time;
+     *         cancel it to stop waiting
+     */
+    public CompletableFuture<Boolean> awaitAvailable(Dut dut, long timeoutMillis) {
+	return track(dut, timeoutMillis, false);
+    }
+
+    /**
+     * Waits for a device to go down and then to become available again, for use right after triggering a reboot
+     * 
+     * @param dut
+     * @param timeoutMillis
+     * @return future completed with true when the device is available again, false if it did not go down or come
+     *         back in time; cancel it to stop waiting
+     */
+    public CompletableFuture<Boolean> awaitReboot(Dut dut, long timeoutMillis) {
+	return track(dut, timeoutMillis, true);
+    }
+
+    /**
+     * Stops waiting. Pending futures complete with false
+     */
+    @Override
+    public void close() {
+	isOpen = false;
+	selector.wakeup();
+	checkExecutor.shutdownNow();
+    }
+
+    private CompletableFuture<Boolean> track(Dut dut, long timeoutMillis, boolean isWaitingForDown) {
+	Tracker tracker = new Tracker(dut, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis),
+		isWaitingForDown);
+	if (!isOpen) {
+	    tracker.future.complete(false);
+	    return tracker.future;
+	}
+	runOnSelector(() -> trackers.add(tracker));
+	return tracker.future;
+    }
+
+    private void runOnSelector(Runnable task) {
+	selectorTasks.add(task);
+	selector.wakeup();
+    }
+
+    private void run() {
+	while (isOpen) {
+	    try {
+		Runnable task;
+		while (null != (task = selectorTasks.poll())) {
+		    task.run();
+		}
+		long waitNanos = updateTrackers(System.nanoTime());
+		selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+		for (SelectionKey key : selector.selectedKeys()) {
+		    handleReady((Tracker) key.attachment());
+		}
+		selector.selectedKeys().clear();
+	    } catch (IOException | RuntimeException e) {
+		LOGGER.error("Error waiting for device availability: {}", e.getMessage());
+	    }
+	}
+	for (Tracker tracker : trackers) {
+	    closeChannel(tracker);
+	    tracker.future.complete(false);
+	}
+	trackers.clear();
+	try {
+	    selector.close();
+	} catch (IOException e) {
+	    LOGGER.debug("Error closing selector: {}", e.getMessage());
+	}
+    }
+
+    /**
+     * Starts due probes and ends timed out probes and waits
+     * 
+     * @return time until the next probe or timeout is due
+     */
+    private long updateTrackers(long now) {
+	long waitNanos = TimeUnit.SECONDS.toNanos(1);
+	for (Tracker tracker : new ArrayList<Tracker>(trackers)) {
+	    if (tracker.future.isDone() || now - tracker.deadlineNanos >= 0) {
+		if (!tracker.future.isDone()) {
+		    LOGGER.info("Device {} not available in time", tracker.dut.getHostMacAddress());
+		}
+		finish(tracker, false);
+		continue;
+	    }
+	    if (State.IDLE == tracker.state && now - tracker.nextEventNanos >= 0) {
+		startProbe(tracker, now);
+	    } else if ((State.CONNECTING == tracker.state || State.READING_BANNER == tracker.state)
+		    && now - tracker.nextEventNanos >= 0) {
+		probeFailed(tracker, now);
+	    }
+	    if (State.CHECKING != tracker.state) {
+		waitNanos = Math.min(waitNanos, tracker.nextEventNanos - now);
+	    }
+	    waitNanos = Math.min(waitNanos, tracker.deadlineNanos - now);
+	}
+	return waitNanos;
+    }
+
+    private void startProbe(Tracker tracker, long now) {
+	tracker.banner.clear();
+	try {
+	    SocketChannel channel = SocketChannel.open();
+	    tracker.channel = channel;
+	    channel.configureBlocking(false);
+	    tracker.state = State.CONNECTING;
+	    tracker.nextEventNanos = now + TimeUnit.MILLISECONDS.toNanos(CONNECT_TIMEOUT_MILLISECS);
+	    if (channel.connect(new InetSocketAddress(tracker.dut.getHostIpAddress(), sshPort))) {
+		connected(tracker);
+	    } else {
+		channel.register(selector, SelectionKey.OP_CONNECT, tracker);
+	    }
+	} catch (IOException | RuntimeException e) {
+	    probeFailed(tracker, now);
+	}
+    }
+
+    private void handleReady(Tracker tracker) {
+	try {
+	    if (State.CONNECTING == tracker.state) {
+		if (tracker.channel.finishConnect()) {
+		    connected(tracker);
+		}
+	    } else if (State.READING_BANNER == tracker.state) {
+		readBanner(tracker);
+	    }
+	} catch (IOException e) {
+	    probeFailed(tracker, System.nanoTime());
+	}
+    }
+
+    private void connected(Tracker tracker) throws IOException {
+	if (tracker.isWaitingForDown) {
+	    closeChannel(tracker);
+	    scheduleProbe(tracker, System.nanoTime());
+	    return;
+	}
+	tracker.state = State.READING_BANNER;
+	tracker.channel.register(selector, SelectionKey.OP_READ, tracker);
+    }
+
+    private void readBanner(Tracker tracker) throws IOException {
+	if (tracker.channel.read(tracker.banner) < 0) {
+	    throw new IOException("Connection closed before SSH banner");
+	}
+	String received = new String(tracker.banner.array(), 0, tracker.banner.position(), StandardCharsets.US_ASCII);
+	int lineEnd = received.indexOf('\n');
+	if (lineEnd < 0) {
+	    if (!tracker.banner.hasRemaining()) {
+		throw new IOException("No SSH banner received");
+	    }
+	    return;
+	}
+	if (!received.startsWith(SSH_BANNER_PREFIX)) {
+	    throw new IOException("Unexpected SSH banner: " + received.substring(0, lineEnd).trim());
+	}
+	closeChannel(tracker);
+	LOGGER.debug("Device {} sent SSH banner {}", tracker.dut.getHostMacAddress(),
+		received.substring(0, lineEnd).trim());
+	tracker.state = State.CHECKING;
+	checkExecutor.execute(() -> {
+	    boolean isAvailable = false;
+	    try {
+		isAvailable = !tracker.future.isDone() && commandCheck.test(tracker.dut);
+	    } catch (RuntimeException e) {
+		LOGGER.error("Command check of {} failed: {}", tracker.dut.getHostMacAddress(), e.getMessage());
+	    }
+	    boolean isCheckPassed = isAvailable;
+	    runOnSelector(() -> {
+		if (isCheckPassed) {
+		    LOGGER.info("Device {} is available", tracker.dut.getHostMacAddress());
+		    finish(tracker, true);
+		} else if (trackers.contains(tracker)) {
+		    scheduleProbe(tracker, System.nanoTime());
+		}
+	    });
+	});
+    }
+
+    private void probeFailed(Tracker tracker, long now) {
+	closeChannel(tracker);
+	if (tracker.isWaitingForDown) {
+	    LOGGER.info("Device {} went down", tracker.dut.getHostMacAddress());
+	    tracker.isWaitingForDown = false;
+	}
+	scheduleProbe(tracker, now);
+    }
+
+    private void scheduleProbe(Tracker tracker, long now) {
+	tracker.state = State.IDLE;
+	tracker.nextEventNanos = now + retryIntervalNanos;
+    }
+
+    private void finish(Tracker tracker, boolean isAvailable) {
+	closeChannel(tracker);
+	trackers.remove(tracker);
+	tracker.future.complete(isAvailable);
+    }
+
+    private static void closeChannel(Tracker tracker) {
+	if (null != tracker.channel) {
+	    try {
+		tracker.channel.close();
+	    } catch (IOException e) {
+		LOGGER.debug("Error closing probe connection: {}", e.getMessage());
+	    }
+	    tracker.channel = null;
+	}
+    }
+
+    private enum State {
+	IDLE,
+	CONNECTING,
+	READING_BANNER,
+	CHECKING
+    }
+
+    /**
+     * Progress of the wait for one device, only accessed by the selector thread
+     */
+    private static final class Tracker {
+
+	private final Dut dut;
+	private final long deadlineNanos;
+	private final CompletableFuture<Boolean> future = new CompletableFuture<Boolean>();
+	private final ByteBuffer banner = ByteBuffer.allocate(MAX_BANNER_LENGTH);
+	private boolean isWaitingForDown;
+	private State state = State.IDLE;
+	private long nextEventNanos = System.nanoTime();
+	private SocketChannel channel;
+
+	Tracker(Dut dut, long deadlineNanos, boolean isWaitingForDown) {
+	    this.dut = dut;
+	    this.deadlineNanos = deadlineNanos;
+	    this.isWaitingForDown = isWaitingForDown;
+	}
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.automatics.zte.provider.accessvalidator;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks with non-blocking TCP connects whether hosts accept connections on a port. All hosts are probed at once from
+ * the calling thread with one selector, so probing a rack takes as long as the slowest host up to the timeout.
+ */
+public class TcpReachabilityProbe {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TcpReachabilityProbe.class);
+
+    /**
+     * @param hosts
+     *            Host names or IP addresses
+     * @param port
+     * @param timeoutMillis
+     *            Time to wait for all connections to be accepted
+     * @return reachability per host, true if the host accepted the connection in time
+     */
+    public Map<String, Boolean> probe(Collection<String> hosts, int port, long timeoutMillis) {
+	Map<String, Boolean> reachability = new HashMap<String, Boolean>();
+	List<SocketChannel> channels = new ArrayList<SocketChannel>();
+	try (Selector selector = Selector.open()) {
+	    int pendingConnects = 0;
+	    for (String host : hosts) {
+		reachability.put(host, false);
+		if (startConnect(selector, host, port, reachability, channels)) {
+		    pendingConnects++;
+		}
+	    }
+	    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+	    while (pendingConnects > 0) {
+		long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+		if (remainingMillis <= 0) {
+		    break;
+		}
+		selector.select(remainingMillis);
+		for (SelectionKey key : selector.selectedKeys()) {
+		    if (finishConnect(key, reachability)) {
+			pendingConnects--;
+		    }
+		}
+		selector.selectedKeys().clear();
+	    }
+	} catch (IOException e) {
+	    LOGGER.error("Error probing port {}: {}", port, e.getMessage());
+	} finally {
+	    for (SocketChannel channel : channels) {
+		close(channel);
+	    }
+	}
+	return reachability;
+    }
+
+    /**
+     * @return true if the connect is pending and registered with the selector
+     */
+    private static boolean startConnect(Selector selector, String host, int port, Map<String, Boolean> reachability,
+	    List<SocketChannel> channels) {
+	SocketChannel channel = null;
+	try {
+	    channel = SocketChannel.open();
+	    channels.add(channel);
+	    channel.configureBlocking(false);
+	    InetSocketAddress address = new InetSocketAddress(host, port);
+	    if (address.isUnresolved()) {
+		LOGGER.debug("Unable to resolve {}", host);
+		return false;
+	    }
+	    if (channel.connect(address)) {
+		reachability.put(host, true);
+		return false;
+	    }
+	    channel.register(selector, SelectionKey.OP_CONNECT, host);
+	    return true;
+	} catch (IOException | RuntimeException e) {
+	    LOGGER.debug("Unable to connect to {}:{}: {}", host, port, e.getMessage());
+	    return false;
+	}
+    }
+
+    /**
+     * @return true if the connect finished, successfully or not
+     */
+    private static boolean finishConnect(SelectionKey key, Map<String, Boolean> reachability) {
+	String host = (String) key.attachment();
+	try {
+	    if (!((SocketChannel) key.channel()).finishConnect()) {
+		return false;
+	    }
+	    reachability.put(host, true);
+	} catch (IOException e) {
+	    LOGGER.debug("Unable to connect to {}: {}", host, e.getMessage());
+	}
+	key.cancel();
+	return true;
+    }
+
+    private static void close(SocketChannel channel) {
+	try {
+	    channel.close();
+	} catch (IOException e) {
+	    LOGGER.debug("Error closing probe connection: {}", e.getMessage());
+	}
+    }
+}
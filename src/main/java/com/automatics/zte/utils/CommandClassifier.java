@@ -0,0 +1,282 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.automatics.zte.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the features of a shell command that decide how it is executed, in a single pass over the command. Operators
+ * inside quotes are not counted. Each simple command is recognized by its name, skipping variable assignments and
+ * prefixes like {@code nohup}, so that e.g. {@code sed} is found after a pipe or list operator.
+ */
+public final class CommandClassifier {
+
+    private static final Set<String> COMMAND_PREFIXES = new HashSet<String>(
+	    Arrays.asList("busybox", "command", "exec", "nice", "nohup", "sudo", "time"));
+
+    private static final Set<String> LONG_RUNNING_COMMANDS = new HashSet<String>(
+	    Arrays.asList("tcpdump", "watch", "yes"));
+
+    private static final Set<String> SHELL_STATE_COMMANDS = new HashSet<String>(Arrays.asList(".", "alias", "cd",
+	    "declare", "export", "popd", "pushd", "readonly", "set", "shopt", "source", "trap", "typeset", "ulimit",
+	    "umask", "unalias", "unset"));
+
+    /**
+     * Commands running until stopped when one of the given options is present
+     */
+    private static final Map<String, String> FOLLOW_OPTIONS = new HashMap<String, String>();
+
+    /**
+     * Commands running until stopped unless one of the given options limits the number of iterations
+     */
+    private static final Map<String, String> COUNT_OPTIONS = new HashMap<String, String>();
+
+    static {
+	FOLLOW_OPTIONS.put("tail", "fF");
+	FOLLOW_OPTIONS.put("logread", "f");
+	FOLLOW_OPTIONS.put("journalctl", "f");
+	FOLLOW_OPTIONS.put("dmesg", "w");
+	COUNT_OPTIONS.put("ping", "c");
+	COUNT_OPTIONS.put("ping6", "c");
+	COUNT_OPTIONS.put("arping", "c");
+	COUNT_OPTIONS.put("top", "n");
+    }
+
+    private CommandClassifier() {
+    }
+
+    /**
+     * @param command
+     * @return features of the command, empty for a null command
+     */
+    public static EnumSet<CommandFeature> classify(String command) {
+	EnumSet<CommandFeature> features = EnumSet.noneOf(CommandFeature.class);
+	if (null == command) {
+	    return features;
+	}
+	List<String> words = new ArrayList<String>();
+	StringBuilder word = new StringBuilder();
+	int length = command.length();
+	for (int i = 0; i < length; i++) {
+	    char c = command.charAt(i);
+	    char next = i + 1 < length ? command.charAt(i + 1) : 0;
+	    switch (c) {
+	    case '\'':
+	    case '"':
+		if (isSedAt(command, i + 1)) {
+		    features.add(CommandFeature.SED);
+		}
+		int end = findClosingQuote(command, i);
+		word.append(command, i + 1, end);
+		i = end;
+		break;
+	    case '\\':
+		if (0 != next) {
+		    word.append(next);
+		    i++;
+		}
+		break;
+	    case '#':
+		if (0 == word.length() && (0 == i || isSeparator(command.charAt(i - 1)))) {
+		    i = length;
+		} else {
+		    word.append(c);
+		}
+		break;
+	    case '|':
+		endCommand(words, word, features);
+		if ('|' == next) {
+		    i++;
+		} else {
+		    features.add(CommandFeature.PIPE);
+		    i += '&' == next ? 1 : 0;
+		}
+		break;
+	    case '&':
+		char previous = i > 0 ? command.charAt(i - 1) : 0;
+		if ('>' == previous || '<' == previous) {
+		    break;
+		}
+		if ('>' == next) {
+		    features.add(CommandFeature.REDIRECTION);
+		    endWord(words, word);
+		    break;
+		}
+		endCommand(words, word, features);
+		if ('&' == next) {
+		    i++;
+		} else {
+		    features.add(CommandFeature.BACKGROUND);
+		}
+		break;
+	    case '<':
+	    case '>':
+		if ('(' == next) {
+		    endCommand(words, word, features);
+		    i++;
+		    break;
+		}
+		features.add(CommandFeature.REDIRECTION);
+		endWord(words, word);
+		while (i + 1 < length && ('<' == command.charAt(i + 1) || '>' == command.charAt(i + 1))) {
+		    i++;
+		}
+		break;
+	    case ';':
+	    case '\n':
+	    case '(':
+	    case ')':
+	    case '`':
+		endCommand(words, word, features);
+		break;
+	    default:
+		if (Character.isWhitespace(c)) {
+		    endWord(words, word);
+		} else {
+		    word.append(c);
+		}
+		break;
+	    }
+	}
+	endCommand(words, word, features);
+	return features;
+    }
+
+    /**
+     * Finds the start of a trailing comment, a {@code #} at the start of a word outside of quotes
+     * 
+     * @param command
+     * @return index of the {@code #} starting the comment, -1 if the command has none
+     */
+    public static int findCommentStart(String command) {
+	int length = command.length();
+	for (int i = 0; i < length; i++) {
+	    char c = command.charAt(i);
+	    if ('\\' == c) {
+		i++;
+	    } else if ('\'' == c || '"' == c) {
+		i = findClosingQuote(command, i);
+	    } else if ('#' == c && (0 == i || isSeparator(command.charAt(i - 1)))) {
+		return i;
+	    }
+	}
+	return -1;
+    }
+
+    /**
+     * Adds the features of a simple command, once all its words are known
+     */
+    private static void endCommand(List<String> words, StringBuilder word, EnumSet<CommandFeature> features) {
+	endWord(words, word);
+	int nameIndex = 0;
+	while (nameIndex < words.size() && (isAssignment(words.get(nameIndex))
+		|| COMMAND_PREFIXES.contains(getBaseName(words.get(nameIndex))))) {
+	    nameIndex++;
+	}
+	if (nameIndex < words.size()) {
+	    String name = getBaseName(words.get(nameIndex));
+	    List<String> arguments = words.subList(nameIndex + 1, words.size());
+	    if ("sed".equals(name)) {
+		features.add(CommandFeature.SED);
+	    }
+	    if (SHELL_STATE_COMMANDS.contains(name)) {
+		features.add(CommandFeature.SHELL_STATE);
+	    }
+	    if (LONG_RUNNING_COMMANDS.contains(name)
+		    || (FOLLOW_OPTIONS.containsKey(name) && hasOption(arguments, FOLLOW_OPTIONS.get(name), "--follow"))
+		    || (COUNT_OPTIONS.containsKey(name) && !hasOption(arguments, COUNT_OPTIONS.get(name), "--count"))) {
+		features.add(CommandFeature.LONG_RUNNING);
+	    }
+	} else if (nameIndex > 0 && isAssignment(words.get(0))) {
+	    features.add(CommandFeature.SHELL_STATE);
+	}
+	words.clear();
+    }
+
+    private static void endWord(List<String> words, StringBuilder word) {
+	if (word.length() > 0) {
+	    words.add(word.toString());
+	    word.setLength(0);
+	}
+    }
+
+    /**
+     * @param arguments
+     * @param shortOptions
+     *            Letters of the short options, also found inside option clusters like {@code -nf}
+     * @param longOption
+     * @return true if one of the options is among the arguments
+     */
+    private static boolean hasOption(List<String> arguments, String shortOptions, String longOption) {
+	for (String argument : arguments) {
+	    if (argument.startsWith("--")) {
+		if (argument.equals(longOption) || argument.startsWith(longOption + "=")) {
+		    return true;
+		}
+	    } else if (argument.startsWith("-")) {
+		for (int i = 1; i < argument.length() && Character.isLetter(argument.charAt(i)); i++) {
+		    if (shortOptions.indexOf(argument.charAt(i)) >= 0) {
+			return true;
+		    }
+		}
+	    }
+	}
+	return false;
+    }
+
+    private static boolean isSedAt(String command, int index) {
+	return command.startsWith("sed", index) && index + 3 < command.length()
+		&& Character.isWhitespace(command.charAt(index + 3));
+    }
+
+    /**
+     * @return index of the quote closing the one at the start index, the command length when it is not closed
+     */
+    private static int findClosingQuote(String command, int start) {
+	char quote = command.charAt(start);
+	for (int i = start + 1; i < command.length(); i++) {
+	    char c = command.charAt(i);
+	    if ('\\' == c && '"' == quote) {
+		i++;
+	    } else if (quote == c) {
+		return i;
+	    }
+	}
+	return command.length();
+    }
+
+    private static boolean isSeparator(char c) {
+	return Character.isWhitespace(c) || ";&|()`".indexOf(c) >= 0;
+    }
+
+    private static boolean isAssignment(String word) {
+	int equalsIndex = word.indexOf('=');
+	return equalsIndex > 0 && !word.startsWith("-");
+    }
+
+    private static String getBaseName(String word) {
+	return word.substring(word.lastIndexOf('/') + 1);
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.automatics.zte.utils;
+
+/**
+ * Features of a shell command found by {@link CommandClassifier}
+ */
+public enum CommandFeature {
+
+    /**
+     * sed is run, as a command or as the start of a quoted command string
+     */
+    SED,
+
+    /**
+     * Output of a command is piped into another command
+     */
+    PIPE,
+
+    /**
+     * A command is started as a background job
+     */
+    BACKGROUND,
+
+    /**
+     * Input or output of a command is redirected
+     */
+    REDIRECTION,
+
+    /**
+     * A command does not end by itself, like {@code tail -f} or {@code ping} without a count
+     */
+    LONG_RUNNING,
+
+    /**
+     * A command changes the state of the shell it runs in, like the working directory or variables
+     */
+    SHELL_STATE
+}
@@ -20,7 +20,8 @@ package com.automatics.zte.utils;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import com.automatics.zte.constants.Constants;
+
+import com.automatics.utils.AutomaticsPropertyUtility;
 
 public class CommonMethods {
     private static final Logger LOGGER = LoggerFactory.getLogger(CommonMethods.class);
@@ -34,17 +35,6 @@ public class CommonMethods {
 	}
     }
 
-    public static String removeSecurityBannerFromResponse(String response) {
-	if (isNotNull(response)) {
-	    int indexEndOfPrivacyMessage = response.lastIndexOf(Constants.END_OF_SSH_CONNECTION_PRIVACY_MESSAGE);
-	    if (indexEndOfPrivacyMessage > 0) {
-		response = response
-			.substring(indexEndOfPrivacyMessage + Constants.END_OF_SSH_CONNECTION_PRIVACY_MESSAGE.length());
-	    }
-	}
-	return response;
-    }
-
     public static boolean isNotNull(String value) {
 
 	boolean isNotNull = !isNull(value);
@@ -56,4 +46,50 @@ public class CommonMethods {
 	return ((value == null) || (value.trim().length() == 0));
     }
 
+    /**
+     * Reads a numeric property from automatics properties
+     * 
+     * @param propertyName
+     * @param defaultValue
+     *            Value returned when the property is not configured or is not a number
+     * @return configured value or default value
+     */
+    public static long getLongProperty(String propertyName, long defaultValue) {
+	long value = defaultValue;
+	String valueInString = AutomaticsPropertyUtility.getProperty(propertyName);
+	if (isNotNull(valueInString)) {
+	    try {
+		value = Long.parseLong(valueInString.trim());
+	    } catch (NumberFormatException e) {
+		LOGGER.error("Error parsing value for field: {}, {}", propertyName, e.getMessage());
+	    }
+	}
+	return value;
+    }
+
+    /**
+     * Reads a numeric property from automatics properties
+     * 
+     * @param propertyName
+     * @param defaultValue
+     *            Value returned when the property is not configured or is not a number
+     * @return configured value or default value
+     */
+    public static int getIntProperty(String propertyName, int defaultValue) {
+	return (int) getLongProperty(propertyName, defaultValue);
+    }
+
+    /**
+     * Reads a boolean property from automatics properties
+     * 
+     * @param propertyName
+     * @param defaultValue
+     *            Value returned when the property is not configured
+     * @return configured value or default value
+     */
+    public static boolean getBooleanProperty(String propertyName, boolean defaultValue) {
+	String valueInString = AutomaticsPropertyUtility.getProperty(propertyName);
+	return isNotNull(valueInString) ? Boolean.parseBoolean(valueInString.trim()) : defaultValue;
+    }
+
 }
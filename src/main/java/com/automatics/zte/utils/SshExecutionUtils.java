@@ -22,8 +22,6 @@ package com.automatics.zte.utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.automatics.utils.CommonMethods;
-
 /**
  * Utils APIs for SSH related execution
  *
@@ -33,24 +31,14 @@ public class SshExecutionUtils {
     private static final Logger LOGGER = LoggerFactory.getLogger(SshExecutionUtils.class);
 
     /**
-     * Executes regex validation identify supplied command contains 'sed' command
+     * Identifies whether supplied command contains 'sed' command
      * 
      * @param command
      * @return boolean based on whether input command has sed or not
      */
     public static boolean isSedCommandPresent(String command) {
 	LOGGER.debug("Checking for sed command");
-	boolean status = false;
-	String regexTypicalSedComand = "^sed\\s+";
-	String regexTypicalSedComandwithQuote = "\"sed\\s+";
-	String regexSedComandWithPipe = "\\|\\s*sed\\s+";
-	// LOGGER.debug("Checking for sed command of type " + regexTypicalSedComand);
-	boolean temp = CommonMethods.validateTextUsingRegularExpression(command, regexTypicalSedComand);
-	// LOGGER.debug("Checking for sed command of type " + regexSedComandWithPipe);
-	status = CommonMethods.validateTextUsingRegularExpression(command, regexSedComandWithPipe);
-	status = temp || status
-		|| CommonMethods.validateTextUsingRegularExpression(command, regexTypicalSedComandwithQuote);
-	return status;
+	return CommandClassifier.classify(command).contains(CommandFeature.SED);
     }
 
 }
@@ -0,0 +1,104 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.automatics.zte.constants.Constants;
+import com.automatics.zte.utils.CommonMethods;
+
+/**
+ * Bounded executor backing the asynchronous execute methods of the device connection provider. Requests beyond the
+ * thread count wait in a bounded queue; once the queue is full further requests complete exceptionally with a
+ * {@link RejectedExecutionException} instead of blocking the caller.
+ */
+public class AsyncCommandExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncCommandExecutor.class);
+
+    private static final int DEFAULT_POOL_SIZE = 16;
+    private static final int DEFAULT_QUEUE_CAPACITY = 256;
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final ThreadPoolExecutor executor;
+
+    public AsyncCommandExecutor(int poolSize, int queueCapacity) {
+	final AtomicInteger threadCount = new AtomicInteger();
+	executor = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+		new ArrayBlockingQueue<Runnable>(Math.max(1, queueCapacity)), runnable -> {
+		    Thread thread = new Thread(runnable, "async-command-executor-" + threadCount.incrementAndGet());
+		    thread.setDaemon(true);
+		    return thread;
+		});
+	executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Creates an executor using the pool size and queue capacity from automatics properties
+     * 
+     * @return AsyncCommandExecutor instance
+     */
+    public static AsyncCommandExecutor fromProperties() {
+	return new AsyncCommandExecutor(
+		CommonMethods.getIntProperty(Constants.PROPS_ASYNC_EXECUTOR_POOL_SIZE, DEFAULT_POOL_SIZE),
+		CommonMethods.getIntProperty(Constants.PROPS_ASYNC_EXECUTOR_QUEUE_CAPACITY, DEFAULT_QUEUE_CAPACITY));
+    }
+
+    /**
+     * Runs the task on the executor
+     * 
+     * @param task
+     * @return future completed with the result of the task, or exceptionally with the error it raised
+     */
+    public <T> CompletableFuture<T> submit(final Supplier<T> task) {
+	final CompletableFuture<T> future = new CompletableFuture<T>();
+	try {
+	    executor.execute(() -> {
+		if (future.isDone()) {
+		    return;
+		}
+		try {
+		    future.complete(task.get());
+		} catch (Throwable e) {
+		    future.completeExceptionally(e);
+		}
+	    });
+	} catch (RejectedExecutionException e) {
+	    LOGGER.error("Asynchronous command request rejected, {} requests are already waiting",
+		    executor.getQueue().size());
+	    future.completeExceptionally(e);
+	}
+	return future;
+    }
+
+    /**
+     * Stops accepting requests. Requests already accepted are still executed
+     */
+    public void shutdown() {
+	executor.shutdown();
+    }
+}
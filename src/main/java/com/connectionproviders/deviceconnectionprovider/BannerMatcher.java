@@ -0,0 +1,101 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the first occurrence of any of a few markers in output arriving in chunks. Every character is looked at once;
+ * a marker partly matched at the end of a chunk is continued with the next chunk.
+ */
+final class BannerMatcher {
+
+    private final char[][] markers;
+    private final int[][] fallbacks;
+    private final int[] matchedLengths;
+    private boolean isMatched;
+
+    /**
+     * @param markers
+     *            Markers to find, empty markers are ignored
+     */
+    BannerMatcher(List<String> markers) {
+	List<char[]> markerChars = new ArrayList<char[]>();
+	for (String marker : markers) {
+	    if (null != marker && !marker.isEmpty()) {
+		markerChars.add(marker.toCharArray());
+	    }
+	}
+	this.markers = markerChars.toArray(new char[markerChars.size()][]);
+	this.fallbacks = new int[this.markers.length][];
+	this.matchedLengths = new int[this.markers.length];
+	for (int i = 0; i < this.markers.length; i++) {
+	    fallbacks[i] = getFallbacks(this.markers[i]);
+	}
+    }
+
+    /**
+     * Continues the search with the next chunk of output
+     * 
+     * @param chunk
+     * @return index in the chunk right after the marker, -1 if no marker was completed in this chunk
+     */
+    int feed(CharSequence chunk) {
+	if (isMatched) {
+	    return -1;
+	}
+	for (int i = 0; i < chunk.length(); i++) {
+	    char c = chunk.charAt(i);
+	    for (int m = 0; m < markers.length; m++) {
+		char[] marker = markers[m];
+		int matchedLength = matchedLengths[m];
+		while (matchedLength > 0 && marker[matchedLength] != c) {
+		    matchedLength = fallbacks[m][matchedLength - 1];
+		}
+		if (marker[matchedLength] == c) {
+		    matchedLength++;
+		}
+		if (matchedLength == marker.length) {
+		    isMatched = true;
+		    return i + 1;
+		}
+		matchedLengths[m] = matchedLength;
+	    }
+	}
+	return -1;
+    }
+
+    /**
+     * @return for each prefix length of the marker, the length of its longest proper prefix that is also its suffix
+     */
+    private static int[] getFallbacks(char[] marker) {
+	int[] fallbacks = new int[marker.length];
+	int length = 0;
+	for (int i = 1; i < marker.length; i++) {
+	    while (length > 0 && marker[i] != marker[length]) {
+		length = fallbacks[length - 1];
+	    }
+	    if (marker[i] == marker[length]) {
+		length++;
+	    }
+	    fallbacks[i] = length;
+	}
+	return fallbacks;
+    }
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Output of an exec channel, written by the JSch session thread and read by the caller. Writes never block, so a slow
+ * reader cannot hold up the session thread and with it every other channel of the session. Instead the buffered
+ * output is bounded: output beyond the limit is dropped, and the overflow action is run once so that the command can
+ * be stopped.
+ */
+class ChannelOutputBuffer extends OutputStream {
+
+    private static final long READ_WAIT_MILLISECS = 1000;
+
+    private final int maxBufferedBytes;
+    private final Runnable overflowAction;
+    private final Deque<byte[]> chunks = new ArrayDeque<byte[]>();
+    private int bufferedBytes;
+    private boolean isClosed;
+    private boolean isOverflowed;
+
+    /**
+     * @param maxBufferedBytes
+     *            Maximum number of bytes written but not read yet
+     * @param overflowAction
+     *            Run on the writing thread when the limit is exceeded, may be null to only drop the excess output
+     */
+    ChannelOutputBuffer(int maxBufferedBytes, Runnable overflowAction) {
+	this.maxBufferedBytes = Math.max(1, maxBufferedBytes);
+	this.overflowAction = overflowAction;
+    }
+
+    @Override
+    public void write(int b) {
+	write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+	boolean isOverflowDetected = false;
+	synchronized (this) {
+	    if (isClosed || isOverflowed || length <= 0) {
+		return;
+	    }
+	    int acceptedLength = Math.min(length, maxBufferedBytes - bufferedBytes);
+	    if (acceptedLength > 0) {
+		chunks.addLast(Arrays.copyOfRange(bytes, offset, offset + acceptedLength));
+		bufferedBytes += acceptedLength;
+	    }
+	    if (acceptedLength < length) {
+		isOverflowed = true;
+		isOverflowDetected = true;
+	    }
+	    notifyAll();
+	}
+	if (isOverflowDetected && null != overflowAction) {
+	    overflowAction.run();
+	}
+    }
+
+    /**
+     * Marks the end of the output. Output buffered so far can still be read
+     */
+    @Override
+    public synchronized void close() {
+	isClosed = true;
+	notifyAll();
+    }
+
+    /**
+     * Takes the next chunk of output, waiting at most the given time for one to arrive
+     * 
+     * @param waitMillis
+     * @return chunk, or null if none arrived in time or the output ended
+     * @throws InterruptedException
+     */
+    synchronized byte[] poll(long waitMillis) throws InterruptedException {
+	long deadline = System.currentTimeMillis() + waitMillis;
+	long remaining = waitMillis;
+	while (chunks.isEmpty() && !isClosed && !isOverflowed && remaining > 0) {
+	    wait(remaining);
+	    remaining = deadline - System.currentTimeMillis();
+	}
+	byte[] chunk = chunks.pollFirst();
+	if (null != chunk) {
+	    bufferedBytes -= chunk.length;
+	}
+	return chunk;
+    }
+
+    /**
+     * @return true once all output was read and no more will be written
+     */
+    synchronized boolean isDrained() {
+	return chunks.isEmpty() && (isClosed || isOverflowed);
+    }
+
+    synchronized boolean isOverflowed() {
+	return isOverflowed;
+    }
+
+    int getMaxBufferedBytes() {
+	return maxBufferedBytes;
+    }
+
+    /**
+     * Takes all buffered output as text
+     * 
+     * @return buffered output
+     */
+    synchronized String drainText() {
+	ByteArrayOutputStream text = new ByteArrayOutputStream(bufferedBytes);
+	for (byte[] chunk : chunks) {
+	    text.write(chunk, 0, chunk.length);
+	}
+	chunks.clear();
+	bufferedBytes = 0;
+	return new String(text.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return stream reading the buffered output, failing once the output that fit into the buffer was read when the
+     *         limit was exceeded
+     */
+    InputStream asInputStream() {
+	return new InputStream() {
+	    private byte[] current;
+	    private int position;
+
+	    @Override
+	    public int read() throws IOException {
+		byte[] single = new byte[1];
+		return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+	    }
+
+	    @Override
+	    public int read(byte[] bytes, int offset, int length) throws IOException {
+		if (length == 0) {
+		    return 0;
+		}
+		while (null == current || position == current.length) {
+		    if (isDrained()) {
+			if (isOverflowed()) {
+			    throw new IOException(
+				    "Command output exceeded the buffer limit of " + maxBufferedBytes + " bytes");
+			}
+			return -1;
+		    }
+		    try {
+			current = poll(READ_WAIT_MILLISECS);
+		    } catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for command output", e);
+		    }
+		    position = 0;
+		}
+		int count = Math.min(length, current.length - position);
+		System.arraycopy(current, position, bytes, offset, count);
+		position += count;
+		return count;
+	    }
+	};
+    }
+}
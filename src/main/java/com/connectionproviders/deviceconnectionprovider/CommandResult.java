@@ -0,0 +1,199 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+/**
+ * Result of a single command execution: standard output and standard error kept apart, the exit status of the
+ * process, and where the time was spent. Commands executed over an interactive shell have their whole response as
+ * standard output and no exit status, their {@link #getStatus() status} is {@link Status#UNKNOWN}.
+ */
+public class CommandResult {
+
+    /**
+     * Exit status reported when the remote process did not report one, e.g. because it timed out
+     */
+    public static final int EXIT_STATUS_UNKNOWN = -1;
+
+    /**
+     * Whether a command succeeded, as far as it can be told from its result
+     */
+    public enum Status {
+	/** Command exited with exit status 0 */
+	SUCCEEDED,
+	/** Command could not be executed, timed out or exited with a non zero exit status */
+	FAILED,
+	/** Command completed but did not report an exit status, e.g. because it ran over an interactive shell */
+	UNKNOWN
+    }
+
+    private final String command;
+    private final String stdout;
+    private final String stderr;
+    private final int exitStatus;
+    private final boolean isTimedOut;
+    private final long sessionMillis;
+    private final long channelOpenMillis;
+    private final long executionMillis;
+    private final Throwable error;
+
+    public CommandResult(String command, String stdout, String stderr, int exitStatus, boolean isTimedOut,
+	    long sessionMillis, long channelOpenMillis, long executionMillis) {
+	this(command, stdout, stderr, exitStatus, isTimedOut, sessionMillis, channelOpenMillis, executionMillis,
+		null);
+    }
+
+    public CommandResult(String command, String stdout, String stderr, int exitStatus, boolean isTimedOut,
+	    long sessionMillis, long channelOpenMillis, long executionMillis, Throwable error) {
+	this.command = command;
+	this.stdout = stdout;
+	this.stderr = stderr;
+	this.exitStatus = exitStatus;
+	this.isTimedOut = isTimedOut;
+	this.sessionMillis = sessionMillis;
+	this.channelOpenMillis = channelOpenMillis;
+	this.executionMillis = executionMillis;
+	this.error = error;
+    }
+
+    public String getCommand() {
+	return command;
+    }
+
+    public String getStdout() {
+	return stdout;
+    }
+
+    public String getStderr() {
+	return stderr;
+    }
+
+    /**
+     * @return exit status of the remote process, {@link #EXIT_STATUS_UNKNOWN} if it did not report one
+     */
+    public int getExitStatus() {
+	return exitStatus;
+    }
+
+    public boolean isTimedOut() {
+	return isTimedOut;
+    }
+
+    /**
+     * @return error that prevented the command from being executed, null if it was executed
+     */
+    public Throwable getError() {
+	return error;
+    }
+
+    /**
+     * @return SUCCEEDED or FAILED when told by the error, time out or exit status of the command, UNKNOWN when the
+     *         command completed without reporting an exit status
+     */
+    public Status getStatus() {
+	if (null != error || isTimedOut) {
+	    return Status.FAILED;
+	}
+	if (EXIT_STATUS_UNKNOWN == exitStatus) {
+	    return Status.UNKNOWN;
+	}
+	return 0 == exitStatus ? Status.SUCCEEDED : Status.FAILED;
+    }
+
+    /**
+     * @return true if the command completed with exit status 0. False as well when the exit status is unknown, use
+     *         {@link #isFailure()} to tell failed commands apart
+     */
+    public boolean isSuccess() {
+	return Status.SUCCEEDED == getStatus();
+    }
+
+    /**
+     * @return true if the command could not be executed, timed out or exited with a non zero exit status
+     */
+    public boolean isFailure() {
+	return Status.FAILED == getStatus();
+    }
+
+    /**
+     * @return time spent getting a connected ssh session, close to 0 when an existing session was reused
+     */
+    public long getSessionMillis() {
+	return sessionMillis;
+    }
+
+    /**
+     * @return time spent opening the exec channel
+     */
+    public long getChannelOpenMillis() {
+	return channelOpenMillis;
+    }
+
+    /**
+     * @return time from the start of the remote process until it exited or timed out
+     */
+    public long getExecutionMillis() {
+	return executionMillis;
+    }
+
+    public long getTotalMillis() {
+	return sessionMillis + channelOpenMillis + executionMillis;
+    }
+
+    /**
+     * Result of a command whose response was read from an interactive shell, which does not report an exit status
+     * 
+     * @param command
+     * @param response
+     * @param sessionMillis
+     * @param executionMillis
+     * @return CommandResult instance with status {@link Status#UNKNOWN}
+     */
+    static CommandResult ofShellResponse(String command, String response, long sessionMillis, long executionMillis) {
+	return new CommandResult(command, response, "", EXIT_STATUS_UNKNOWN, false, sessionMillis, 0, executionMillis);
+    }
+
+    /**
+     * Result of a command that could not be executed
+     * 
+     * @param command
+     * @param error
+     * @param sessionMillis
+     * @param executionMillis
+     * @return CommandResult instance with status {@link Status#FAILED}
+     */
+    static CommandResult ofError(String command, Throwable error, long sessionMillis, long executionMillis) {
+	return new CommandResult(command, "", "", EXIT_STATUS_UNKNOWN, false, sessionMillis, 0, executionMillis, error);
+    }
+
+    /**
+     * Copy of this result with the time spent getting the session filled in
+     * 
+     * @param sessionMillis
+     * @return CommandResult instance
+     */
+    CommandResult withSessionMillis(long sessionMillis) {
+	return new CommandResult(command, stdout, stderr, exitStatus, isTimedOut, sessionMillis, channelOpenMillis,
+		executionMillis, error);
+    }
+
+    @Override
+    public String toString() {
+	return "CommandResult [command=" + command + ", status=" + getStatus() + ", exitStatus=" + exitStatus
+		+ ", isTimedOut=" + isTimedOut + ", totalMillis=" + getTotalMillis() + "]";
+    }
+}
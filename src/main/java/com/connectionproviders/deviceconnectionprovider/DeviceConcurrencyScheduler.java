@@ -0,0 +1,343 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.automatics.error.GeneralError;
+import com.automatics.exceptions.FailedTransitionException;
+import com.automatics.zte.config.ProviderConfiguration;
+import com.automatics.zte.config.ProviderConfigurationHolder;
+
+/**
+ * Limits the number of ssh sessions used concurrently per device and across all devices. Embedded devices accept only
+ * a few concurrent sessions and refuse the rest, so requests beyond the limit wait for a free slot instead of being
+ * refused and retried. Waiting requests are served in arrival order; a request only overtakes an earlier one when the
+ * earlier one waits for a different device that has no free slot. A thread already holding a slot of a device gets
+ * further slots of that device without waiting, so nested executions cannot block themselves.
+ */
+public class DeviceConcurrencyScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeviceConcurrencyScheduler.class);
+
+    private volatile boolean enabled;
+    private int maxConcurrentPerDevice;
+    private int maxConcurrentTotal;
+    private long queueWaitMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<Waiter> waiters = new ArrayDeque<Waiter>();
+    private final Map<String, DeviceState> deviceStates = new HashMap<String, DeviceState>();
+    private int totalActive;
+
+    public DeviceConcurrencyScheduler(boolean enabled, int maxConcurrentPerDevice, int maxConcurrentTotal,
+	    long queueWaitMillis) {
+	configure(enabled, maxConcurrentPerDevice, maxConcurrentTotal, queueWaitMillis);
+    }
+
+    private DeviceConcurrencyScheduler(ProviderConfiguration configuration) {
+	configure(configuration);
+    }
+
+    /**
+     * Creates a scheduler using the settings of the provider configuration, following later changes of the
+     * configuration
+     * 
+     * @return DeviceConcurrencyScheduler instance
+     */
+    public static DeviceConcurrencyScheduler fromProperties() {
+	DeviceConcurrencyScheduler scheduler = new DeviceConcurrencyScheduler(ProviderConfigurationHolder.get());
+	ProviderConfigurationHolder.addListener(scheduler::configure);
+	return scheduler;
+    }
+
+    /**
+     * Replaces the scheduler settings. Slots already granted are kept; raised limits are granted to waiting requests
+     * right away, and disabling the scheduler lets all waiting requests through
+     * 
+     * @param enabled
+     * @param maxConcurrentPerDevice
+     * @param maxConcurrentTotal
+     * @param queueWaitMillis
+     */
+    public void configure(boolean enabled, int maxConcurrentPerDevice, int maxConcurrentTotal, long queueWaitMillis) {
+	lock.lock();
+	try {
+	    this.enabled = enabled;
+	    this.maxConcurrentPerDevice = Math.max(1, maxConcurrentPerDevice);
+	    this.maxConcurrentTotal = Math.max(1, maxConcurrentTotal);
+	    this.queueWaitMillis = Math.max(0, queueWaitMillis);
+	    dispatch();
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    private void configure(ProviderConfiguration configuration) {
+	configure(configuration.isDeviceSchedulerEnabled(), configuration.getDeviceSchedulerMaxConcurrentPerDevice(),
+		configuration.getDeviceSchedulerMaxConcurrentTotal(), configuration.getDeviceSchedulerQueueWait());
+    }
+
+    /**
+     * Takes a session slot of a device, waiting in the queue of the device while all its slots are in use
+     * 
+     * @param host
+     * @param port
+     * @return permit to close once the session is no longer used
+     * @throws FailedTransitionException
+     *             when no slot became free within the queue wait time, or the wait was interrupted
+     */
+    public Permit acquire(String host, int port) {
+	if (!enabled) {
+	    return new Permit(this, null, null);
+	}
+	String key = getKey(host, port);
+	Thread thread = Thread.currentThread();
+	lock.lock();
+	try {
+	    DeviceState deviceState = deviceStates.computeIfAbsent(key, deviceKey -> new DeviceState(deviceKey));
+	    Integer holds = deviceState.holders.get(thread);
+	    if (null != holds) {
+		deviceState.holders.put(thread, holds + 1);
+		return new Permit(this, deviceState, thread);
+	    }
+
+	    Waiter waiter = new Waiter(deviceState, lock.newCondition());
+	    waiters.addLast(waiter);
+	    deviceState.queued++;
+	    deviceState.maxQueued = Math.max(deviceState.maxQueued, deviceState.queued);
+	    dispatch();
+	    if (!waiter.isGranted) {
+		LOGGER.info("All session slots of {} in use ({} active, {} queued, {} active in total), waiting", key,
+			deviceState.active, deviceState.queued, totalActive);
+		awaitGrant(waiter);
+	    }
+	    deviceState.holders.put(thread, 1);
+	    return new Permit(this, deviceState, thread);
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    /**
+     * @return statistics of the queue of each device, in no particular order
+     */
+    public Map<String, DeviceQueueStatistics> getStatistics() {
+	lock.lock();
+	try {
+	    Map<String, DeviceQueueStatistics> statistics = new LinkedHashMap<String, DeviceQueueStatistics>();
+	    for (DeviceState deviceState : deviceStates.values()) {
+		statistics.put(deviceState.key, deviceState.snapshot());
+	    }
+	    return statistics;
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    /**
+     * @param host
+     * @param port
+     * @return statistics of the queue of the device, null if no session slot of the device was requested yet
+     */
+    public DeviceQueueStatistics getStatistics(String host, int port) {
+	lock.lock();
+	try {
+	    DeviceState deviceState = deviceStates.get(getKey(host, port));
+	    return null == deviceState ? null : deviceState.snapshot();
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    /**
+     * @return number of session slots in use across all devices
+     */
+    public int getTotalActiveCount() {
+	lock.lock();
+	try {
+	    return totalActive;
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    /**
+     * @return number of requests waiting for a session slot across all devices
+     */
+    public int getTotalQueuedCount() {
+	lock.lock();
+	try {
+	    return waiters.size();
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    private void awaitGrant(Waiter waiter) {
+	DeviceState deviceState = waiter.deviceState;
+	long remainingNanos = TimeUnit.MILLISECONDS.toNanos(queueWaitMillis);
+	try {
+	    while (!waiter.isGranted) {
+		if (remainingNanos <= 0) {
+		    waiters.remove(waiter);
+		    deviceState.queued--;
+		    deviceState.timedOut++;
+		    throw new FailedTransitionException(GeneralError.SSH_CONNECTION_FAILURE,
+			    "Timed out after " + queueWaitMillis + " ms waiting for a free session slot of "
+				    + deviceState.key + " (" + deviceState.active + " active, " + deviceState.queued
+				    + " queued)");
+		}
+		remainingNanos = waiter.condition.awaitNanos(remainingNanos);
+	    }
+	} catch (InterruptedException e) {
+	    if (waiter.isGranted) {
+		releaseSlot(deviceState);
+	    } else {
+		waiters.remove(waiter);
+		deviceState.queued--;
+	    }
+	    Thread.currentThread().interrupt();
+	    throw new FailedTransitionException(GeneralError.SSH_CONNECTION_FAILURE,
+		    "Interrupted while waiting for a free session slot of " + deviceState.key);
+	}
+    }
+
+    /**
+     * Grants slots to waiting requests in arrival order, skipping requests for devices without a free slot. Grants all
+     * waiting requests while the scheduler is disabled. Must be called holding the lock
+     */
+    private void dispatch() {
+	Iterator<Waiter> iterator = waiters.iterator();
+	while (iterator.hasNext() && (!enabled || totalActive < maxConcurrentTotal)) {
+	    Waiter waiter = iterator.next();
+	    DeviceState deviceState = waiter.deviceState;
+	    if (!enabled || deviceState.active < maxConcurrentPerDevice) {
+		iterator.remove();
+		deviceState.queued--;
+		deviceState.active++;
+		deviceState.granted++;
+		deviceState.totalWaitNanos += System.nanoTime() - waiter.queuedAt;
+		totalActive++;
+		waiter.isGranted = true;
+		waiter.condition.signal();
+	    }
+	}
+    }
+
+    private void release(DeviceState deviceState, Thread thread) {
+	lock.lock();
+	try {
+	    Integer holds = deviceState.holders.get(thread);
+	    if (null == holds) {
+		return;
+	    }
+	    if (holds > 1) {
+		deviceState.holders.put(thread, holds - 1);
+		return;
+	    }
+	    deviceState.holders.remove(thread);
+	    releaseSlot(deviceState);
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    private void releaseSlot(DeviceState deviceState) {
+	deviceState.active--;
+	totalActive--;
+	dispatch();
+    }
+
+    private static String getKey(String host, int port) {
+	return host + ":" + port;
+    }
+
+    /**
+     * Session slot of a device, given back to the scheduler when closed. Closing more than once has no effect
+     */
+    public static final class Permit implements AutoCloseable {
+
+	private final DeviceConcurrencyScheduler scheduler;
+	private final DeviceState deviceState;
+	private final Thread thread;
+	private boolean isClosed;
+
+	private Permit(DeviceConcurrencyScheduler scheduler, DeviceState deviceState, Thread thread) {
+	    this.scheduler = scheduler;
+	    this.deviceState = deviceState;
+	    this.thread = thread;
+	}
+
+	@Override
+	public void close() {
+	    synchronized (this) {
+		if (isClosed) {
+		    return;
+		}
+		isClosed = true;
+	    }
+	    if (null != deviceState) {
+		scheduler.release(deviceState, thread);
+	    }
+	}
+    }
+
+    private static final class Waiter {
+	private final DeviceState deviceState;
+	private final Condition condition;
+	private final long queuedAt = System.nanoTime();
+	private boolean isGranted;
+
+	private Waiter(DeviceState deviceState, Condition condition) {
+	    this.deviceState = deviceState;
+	    this.condition = condition;
+	}
+    }
+
+    private static final class DeviceState {
+	private final String key;
+	private final Map<Thread, Integer> holders = new HashMap<Thread, Integer>();
+	private int active;
+	private int queued;
+	private int maxQueued;
+	private long granted;
+	private long timedOut;
+	private long totalWaitNanos;
+
+	private DeviceState(String key) {
+	    this.key = key;
+	}
+
+	private DeviceQueueStatistics snapshot() {
+	    return new DeviceQueueStatistics(key, active, queued, maxQueued, granted, timedOut,
+		    TimeUnit.NANOSECONDS.toMillis(totalWaitNanos));
+	}
+    }
+}
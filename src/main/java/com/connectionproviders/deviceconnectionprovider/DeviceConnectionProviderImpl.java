@@ -19,9 +19,17 @@ package com.connectionproviders.deviceconnectionprovider;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,10 +46,17 @@ import com.automatics.providers.connection.DeviceConsoleType;
 import com.automatics.providers.connection.ExecuteCommandType;
 import com.automatics.providers.connection.SshConnection;
 import com.automatics.resource.IServer;
+import com.automatics.zte.config.PipeRewritePolicy;
+import com.automatics.zte.config.ProviderConfigurationHolder;
 import com.automatics.zte.constants.Constants;
+import com.automatics.zte.utils.CommandClassifier;
+import com.automatics.zte.utils.CommandFeature;
 import com.automatics.zte.utils.CommonMethods;
 import com.automatics.utils.AutomaticsPropertyUtility;
 import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import com.snmp.NetSnmpCommandExecutor;
+import com.snmp.SnmpClient;
 
 /**
  * The class provides Device connection provider implementation as defined by the interface class
@@ -53,42 +68,67 @@ import com.jcraft.jsch.JSchException;
 public class DeviceConnectionProviderImpl implements DeviceConnectionProvider {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DeviceConnectionProviderImpl.class);
-    private static long defaultTimeout = 1000;
     private static final int SSH_CONNECTION_MAX_ATTEMPT = 4;
-
-    private int sshConnectMaxAttempt = SSH_CONNECTION_MAX_ATTEMPT;
+    private static final int DEFAULT_PARALLEL_MAX_CHANNELS = 4;
+    private static final SshSessionPool<SshConnection> SESSION_POOL = SshSessionPool.fromProperties();
+    private static final JschSessionRegistry JSCH_SESSIONS = JschSessionRegistry.fromProperties();
+    private static final RetryBackoffPolicy RETRY_BACKOFF_POLICY = RetryBackoffPolicy.fromProperties();
+    private static final HostCircuitBreaker CIRCUIT_BREAKER = HostCircuitBreaker.fromProperties();
+    private static final ResponseCompletionDetector COMPLETION_DETECTOR = ResponseCompletionDetector.fromProperties();
+    private static final LocalShellPool LOCAL_SHELL_POOL = LocalShellPool.fromProperties();
+    private static final NetSnmpCommandExecutor NATIVE_SNMP_EXECUTOR = createNativeSnmpExecutor();
+    private static final DeviceConcurrencyScheduler DEVICE_SCHEDULER = DeviceConcurrencyScheduler.fromProperties();
+    private static final Map<SshConnection, DeviceConcurrencyScheduler.Permit> CONNECTION_PERMITS = Collections
+	    .synchronizedMap(new IdentityHashMap<SshConnection, DeviceConcurrencyScheduler.Permit>());
+    private static final Set<SshConnection> UNREUSABLE_CONNECTIONS = Collections
+	    .newSetFromMap(Collections.synchronizedMap(new WeakHashMap<SshConnection, Boolean>()));
+    private static final SecurityBannerFilter BANNER_FILTER = SecurityBannerFilter.fromProperties();
+    private static final PipeRewriter PIPE_REWRITER = new PipeRewriter(
+	    ProviderConfigurationHolder.get().getPipeRewriteCacheSize());
+    private static final ExpectRunner EXPECT_RUNNER = ExpectRunner.fromProperties();
+    private static final AsyncCommandExecutor SHARED_ASYNC_EXECUTOR = AsyncCommandExecutor.fromProperties();
+
+    private boolean isParallelExecutionEnabled;
+    private ParallelCommandExecutor parallelExecutor;
+    private ExecChannelRunner execChannelRunner;
+    private String execUsername;
+    private String execPassword;
+    private String execPrivateKeyPath;
+    private volatile AsyncCommandExecutor asyncExecutor;
+    private FleetCommandExecutor fleetExecutor;
+    private boolean isLocalShellPoolEnabled;
 
     public DeviceConnectionProviderImpl() {
 
-	String timeOutInString = AutomaticsPropertyUtility.getProperty(Constants.PROPS_RDK_RESP_WAIT_TIME_MILLISEC);
-	if (CommonMethods.isNotNull(timeOutInString)) {
-	    try {
-		defaultTimeout = Long.parseLong(timeOutInString);
-
-	    } catch (NumberFormatException e) {
-		LOGGER.error("Error parsing value for field: {}, {}", Constants.PROPS_RDK_RESP_WAIT_TIME_MILLISEC,
-			e.getMessage());
-	    }
-	}
-	String maxAttempt = AutomaticsPropertyUtility.getProperty("SSH_CONNECTION_MAX_ATTEMPT",
-		Integer.toString(SSH_CONNECTION_MAX_ATTEMPT));
-	try {
-	    sshConnectMaxAttempt = Integer.parseInt(maxAttempt);
-	} catch (Exception e) {
-	    LOGGER.error("Error parsing ssh connection max attempt property: SSH_CONNECTION_MAX_ATTEMPT: {}",
-		    e.getMessage());
-	}
+	isParallelExecutionEnabled = CommonMethods.getBooleanProperty(Constants.PROPS_SSH_PARALLEL_EXECUTION_ENABLED,
+		false);
+	execChannelRunner = new ExecChannelRunner();
+	parallelExecutor = new ParallelCommandExecutor(execChannelRunner,
+		CommonMethods.getIntProperty(Constants.PROPS_SSH_PARALLEL_MAX_CHANNELS, DEFAULT_PARALLEL_MAX_CHANNELS));
+	execUsername = AutomaticsPropertyUtility.getProperty(Constants.PROPS_RDK_SSH_USERNAME);
+	execPassword = AutomaticsPropertyUtility.getProperty(Constants.PROPS_RDK_SSH_PASSWORD);
+	execPrivateKeyPath = AutomaticsPropertyUtility.getProperty(Constants.PROPS_RDK_SSH_PRIVATE_KEY_PATH);
+	asyncExecutor = SHARED_ASYNC_EXECUTOR;
+	isLocalShellPoolEnabled = CommonMethods.getBooleanProperty(Constants.PROPS_LOCAL_SHELL_POOL_ENABLED, true);
+    }
 
+    /**
+     * @return wait time for command responses from RDK devices, from the current configuration snapshot
+     */
+    private static long getDefaultTimeout() {
+	return ProviderConfigurationHolder.get().getRdkResponseTimeout();
     }
 
     public static String sendReceive(SshConnection conn, String command, long timeOutMilliSecs) {
 	LOGGER.info("Executing command: " + command);
 	String response = AutomaticsConstants.EMPTY_STRING;
+	markIfNotReusable(conn, CommandClassifier.classify(command));
 
 	try {
-	    conn.send(command, (int) (timeOutMilliSecs));
-	    response = conn.getSettopResponse(timeOutMilliSecs);
-	    response = CommonMethods.removeSecurityBannerFromResponse(response);
+	    String marker = COMPLETION_DETECTOR.newMarker();
+	    conn.send(COMPLETION_DETECTOR.decorate(command, marker), (int) (timeOutMilliSecs));
+	    response = COMPLETION_DETECTOR.readResponse(conn, command, marker, timeOutMilliSecs);
+	    response = BANNER_FILTER.strip(conn, response);
 	    LOGGER.info("\n<===========================  RESPONSE =======================> \n" + response
 		    + "\n<=============================================================>");
 	    return response;
@@ -121,10 +161,47 @@ public class DeviceConnectionProviderImpl implements DeviceConnectionProvider {
     public Connection getConnection(Device device) {
 	LOGGER.info("getConnection method invoked ");
 	Connection conn = null;
-	conn = createSshConnection(device.getHostIpAddress());
+	conn = createSshConnection(device.getHostIpAddress(), device.getModel());
 	return conn;
     }
 
+    /**
+     * Opens a session to the device that executes many commands over one ssh connection and shell, so that shell
+     * state like the working directory and environment variables is kept between commands. The session holds a
+     * session slot of the device until it is closed, preferably with try-with-resources
+     * 
+     * @param device
+     * @return DeviceSession instance
+     */
+    public DeviceSession openSession(final Device device) {
+	final SshEndpoint endpoint;
+	final SshConnection conn;
+	final DeviceSession.CommandSender sender;
+	if (SupportedModelHandler.isNonRDKDevice(device)) {
+	    endpoint = new SshEndpoint(device.getNatAddress(), Integer.parseInt(device.getNatPort()),
+		    device.getUsername());
+	    conn = borrowScheduledConnection(endpoint,
+		    () -> createSshConnectionWithoutRetry(device.getNatAddress(), device.getNatPort(),
+			    device.getUsername(), device.getPassword(), device.getModel()));
+	    sender = (connection, command, timeOutMilliSecs) -> sendReceiveOnNonRdk(connection,
+		    replaceAnyPipesInCommand(command, CommandClassifier.classify(command))
+			    + AutomaticsConstants.NEW_LINE,
+		    timeOutMilliSecs);
+	} else {
+	    endpoint = getRdkEndpoint(device.getHostIpAddress());
+	    conn = borrowSshConnection(endpoint, device.getModel());
+	    sender = DeviceConnectionProviderImpl::sendReceive;
+	}
+	LOGGER.info("Opened session to DeviceIP:{}", endpoint.getHost());
+	final boolean isNonRdk = SupportedModelHandler.isNonRDKDevice(device);
+	DeviceSession.DialogRunner dialogRunner = (connection, command, dialog, timeOutMilliSecs) -> EXPECT_RUNNER
+		.converse(createExpectChannel(connection, isNonRdk, timeOutMilliSecs), command, dialog, timeOutMilliSecs);
+	return new DeviceSession(device, conn, sender, dialogRunner, () -> {
+	    LOGGER.info("Closing session to DeviceIP:{}", endpoint.getHost());
+	    releaseSshConnection(endpoint, conn, false);
+	});
+    }
+
     /**
      * Execute commands in device
      * 
@@ -139,9 +216,9 @@ public class DeviceConnectionProviderImpl implements DeviceConnectionProvider {
 		LOGGER.info("============================ Debug ============================");
 		LOGGER.info("device IP Address: "+device.getHostIpAddress());
 		LOGGER.info("============================ Debug ============================");
-	    response = executeCommandOnNonRdkDevice(device, command, defaultTimeout);
+	    response = executeCommandOnNonRdkDevice(device, command, getDefaultTimeout());
 	} else {
-	    response = executeCommand(device.getHostIpAddress(), command, defaultTimeout);
+	    response = executeCommand(device.getHostIpAddress(), device.getModel(), command, getDefaultTimeout());
 	}
 
 	return response;
@@ -159,26 +236,26 @@ public class DeviceConnectionProviderImpl implements DeviceConnectionProvider {
 	SshConnection conn = null;
 
 	if (SupportedModelHandler.isNonRDKDevice(device)) {
-	    for (String command : commandList) {
-		LOGGER.info("Executing command on non-RDK device: {} {}", device.getHostMacAddress(), command);
-		response.append(executeCommandOnNonRdkDevice(device, command, defaultTimeout))
-			.append(AutomaticsConstants.NEW_LINE);
+	    for (CommandResult result : executeOnNonRdkDevice(device, commandList, getDefaultTimeout())) {
+		response.append(result.getStdout()).append(AutomaticsConstants.NEW_LINE);
 	    }
 
+	} else if (isParallelExecutionEnabled && commandList.size() > 1 && !hasBackgroundCommand(commandList)) {
+	    response.append(executeInParallel(device, commandList, getDefaultTimeout()));
 	} else {
+	    SshEndpoint endpoint = getRdkEndpoint(device.getHostIpAddress());
+	    boolean isHealthy = false;
 	    LOGGER.info("About to create SSH connection to DeviceIP:" + device.getHostIpAddress());
 	    try {
-		conn = createSshConnection(device.getHostIpAddress());
+		conn = borrowSshConnection(endpoint, device.getModel());
 		for (String idx : commandList) {
 
-		    response.append(sendReceive(conn, idx, defaultTimeout)).append(Constants.NEW_LINE);
+		    response.append(sendReceive(conn, idx, getDefaultTimeout())).append(Constants.NEW_LINE);
 		}
-
+		isHealthy = true;
 	    } finally {
-		if (null != conn) {
-		    LOGGER.info("Closing SSH connection from DeviceIP:" + device.getHostIpAddress());
-		    conn.disconnect();
-		}
+		LOGGER.info("Releasing SSH connection from DeviceIP:" + device.getHostIpAddress());
+		releaseSshConnection(endpoint, conn, isHealthy);
 	    }
 	}
 
@@ -187,6 +264,29 @@ public class DeviceConnectionProviderImpl implements DeviceConnectionProvider {
 	return response.toString();
     }
 
+    /**
+     * Execute commands in device like {@link #execute(Device, List)}, but fails instead of returning an empty response
+     * when a command could not be executed on a non-rdk device
+     * 
+     * @param device
+     * @param commandList
+     * @return response string
+     */
+    String executeFailingOnError(Device device, List<String> commandList) {
+	if (!SupportedModelHandler.isNonRDKDevice(device)) {
+	    return execute(device, commandList);
+	}
+	StringBuilder response = new StringBuilder();
+	for (CommandResult result : executeOnNonRdkDevice(device, commandList, getDefaultTimeout())) {
+	    if (null != result.getError()) {
+		throw new FailedTransitionException(GeneralError.SSH_CONNECTION_FAILURE, result.getError());
+	    }
+	    response.append(result.getStdout()).append(AutomaticsConstants.NEW_LINE);
+	}
+	LOGGER.info("Received response: " + response.toString());
+	return response.toString();
+    }
+
     /**
      * Execute commands in device
      * 
@@ -198,10 +298,21 @@ public class DeviceConnectionProviderImpl implements DeviceConnectionProvider {
     public String execute(Device device, ExecuteCommandType executeCommandType, List<String> commandList) {
 	StringBuilder response = new StringBuilder();
 	SshConnection conn = null;
+	SshEndpoint endpoint = getRdkEndpoint(device.getHostIpAddress());
+	boolean isHealthy = false;
 	LOGGER.info("About to create SSH connection to DeviceIP:" + device.getHostIpAddress());
 	try {
-	    conn = createSshConnection(device.getHostIpAddress());
 	    for (String idx : commandList) {
+		String snmpResponse = ExecuteCommandType.SNMP_COMMAND == executeCommandType
+			? executeSnmpCommandNatively(idx)
+			: null;
+		if (null != snmpResponse) {
+		    response.append(snmpResponse).append(Constants.NEW_LINE);
+		    continue;
+		}
+		if (null == conn) {
+		    conn = borrowSshConnection(endpoint, device.getModel());
+		}
 
 		switch (executeCommandType) {
 		case REV_SSH_DEVICE_VERIFY: {
@@ -217,24 +328,22 @@ public class DeviceConnectionProviderImpl implements DeviceConnectionProvider {
 		    break;
 		}
 		case SNMP_COMMAND: {
-		    response.append(sendReceive(conn, idx, defaultTimeout)).append(Constants.NEW_LINE);
+		    response.append(sendReceive(conn, idx, getDefaultTimeout())).append(Constants.NEW_LINE);
 		    break;
 		}
 		case XCONF_CONFIG_UPDATE: {
 		    break;
 		}
 		default: {
-		    response.append(sendReceive(conn, idx, defaultTimeout)).append(Constants.NEW_LINE);
+		    response.append(sendReceive(conn, idx, getDefaultTimeout())).append(Constants.NEW_LINE);
 		}
 		}
 
 	    }
-
+	    isHealthy = true;
 	} finally {
-	    if (null != conn) {
-		LOGGER.info("Closing SSH connection from DeviceIP:" + device.getHostIpAddress());
-		conn.disconnect();
-	    }
+	    LOGGER.info("Releasing SSH connection from DeviceIP:" + device.getHostIpAddress());
+	    releaseSshConnection(endpoint, conn, isHealthy);
 	}
 
 	LOGGER.info("Received response: " + response.toString());
@@ -252,25 +361,63 @@ public class DeviceConnectionProviderImpl implements DeviceConnectionProvider {
      * @return response string
      */
     public String execute(Dut dut, String command, String expectStr, String[] options) {
-	String response = "";
 	SshConnection conn = null;
+	SshEndpoint endpoint = getRdkEndpoint(dut.getHostIpAddress());
+	ExpectResult result;
 	LOGGER.info("About to create SSH connection to DutIP:" + dut.getHostIpAddress());
 	try {
-	    conn = createSshConnection(dut.getHostIpAddress());
-	    response = conn.send(command, expectStr, options);
+	    conn = borrowSshConnection(endpoint, dut.getModel());
+	    long timeOutMilliSecs = ProviderConfigurationHolder.get().getExpectTimeout();
+	    ExpectDialog dialog = new ExpectDialog().until(expectStr);
+	    if (null != options) {
+		dialog.until(options);
+	    }
+	    result = EXPECT_RUNNER.converse(createExpectChannel(conn, false, timeOutMilliSecs), command, dialog,
+		    timeOutMilliSecs);
+	} catch (FailedTransitionException ex) {
+	    LOGGER.info("Exception occurred while executing command " + ex.getMessage(), ex);
+	    throw ex;
 	} catch (Exception ex) {
 	    LOGGER.info("Exception occurred while executing command " + ex.getMessage(), ex);
 	    throw new FailedTransitionException(GeneralError.SSH_CONNECTION_FAILURE, ex);
 	} finally {
-	    if (null != conn) {
-		LOGGER.info("Closing SSH connection from DutIP:" + dut.getHostIpAddress());
-		conn.disconnect();
-	    }
+	    // The dialog may leave the shell waiting for input, so the connection is not reused
+	    LOGGER.info("Releasing SSH connection from DutIP:" + dut.getHostIpAddress());
+	    releaseSshConnection(endpoint, conn, false);
 	}
 
-	LOGGER.info("Received response: " + response);
+	LOGGER.info("Received response: " + result);
 
-	return response;
+	return result.getOutput();
+    }
+
+    /**
+     * Creates the channel over which an interactive dialog is held with the shell of the connection
+     * 
+     * @param conn
+     * @param isNonRdk
+     *            true to send lines the way commands are sent to non-RDK devices
+     * @param timeOutMilliSecs
+     * @return ExpectChannel instance
+     */
+    private static ExpectRunner.ExpectChannel createExpectChannel(final SshConnection conn, final boolean isNonRdk,
+	    final long timeOutMilliSecs) {
+	return new ExpectRunner.ExpectChannel() {
+
+	    @Override
+	    public void write(String line) throws Exception {
+		if (isNonRdk) {
+		    conn.sendCommand(line + AutomaticsConstants.NEW_LINE, (int) timeOutMilliSecs);
+		} else {
+		    conn.send(line, (int) timeOutMilliSecs);
+		}
+	    }
+
+	    @Override
+	    public String read(long readTimeOutMilliSecs) throws Exception {
+		return conn.getSettopResponse(readTimeOutMilliSecs);
+	    }
+	};
     }
 
     /**
@@ -317,16 +464,19 @@ public class DeviceConnectionProviderImpl implements DeviceConnectionProvider {
 	SshConnection conn = null;
 
 	if (SupportedModelHandler.isNonRDKDevice(device)) {
-	    for (String command : commandList) {
-		LOGGER.info("Executing command on non-RDK device: {} {}", device.getHostMacAddress(), command);
-		response.append(executeCommandOnNonRdkDevice(device, command, timeOutMilliSecs))
-			.append(AutomaticsConstants.NEW_LINE);
+	    for (CommandResult result : executeOnNonRdkDevice(device, commandList, timeOutMilliSecs)) {
+		response.append(result.getStdout()).append(AutomaticsConstants.NEW_LINE);
 	    }
 
+	} else if (isParallelExecutionEnabled && commandList.size() > 1 && DeviceConsoleType.ATOM != consoleType
+		&& !hasBackgroundCommand(commandList)) {
+	    response.append(executeInParallel(device, commandList, timeOutMilliSecs));
 	} else {
+	    SshEndpoint endpoint = getRdkEndpoint(device.getHostIpAddress());
+	    boolean isHealthy = false;
 	    LOGGER.info("About to create SSH connection to DutIP:" + device.getHostIpAddress());
 	    try {
-		conn = createSshConnection(device.getHostIpAddress());
+		conn = borrowSshConnection(endpoint, device.getModel());
 		for (String idx : commandList) {
 
 		    switch (consoleType) {
@@ -343,10 +493,9 @@ public class DeviceConnectionProviderImpl implements DeviceConnectionProvider {
 		    }
 
 		}
+		isHealthy = true;
 	    } finally {
-		if (null != conn) {
-		    conn.disconnect();
-		}
+		releaseSshConnection(endpoint, conn, isHealthy);
 	    }
 	}
 
@@ -364,40 +513,32 @@ public class DeviceConnectionProviderImpl implements DeviceConnectionProvider {
      * @return response string
      */
     public String execute(Device device, List<String> commandList, DeviceConsoleType consoleType) {
-	return execute(device, commandList, consoleType, defaultTimeout);
+	return execute(device, commandList, consoleType, getDefaultTimeout());
 
     }
 
     /**
-     * Execute commands using given device connection
+     * Execute commands using given device connection. The connection stays open, so that it can be used for further
+     * commands; it is disconnected by the caller
      * 
      * @param device
      * @param deviceConnnection
+     *            Connection from {@link #getConnection(Device)}
      * @param command
      * @return response string
      */
     public String execute(Device device, Connection deviceConnnection, String command) {
-	String response = AutomaticsConstants.EMPTY_STRING;
-	SshConnection conn = null;
-
-	try {
-	    conn = (SshConnection) conn;
-
-	    response = sendReceive(conn, command, defaultTimeout);
-	} finally {
-	    if (null != conn) {
-		LOGGER.info("Closing SSH connection from DeviceIP:" + device);
-		conn.disconnect();
-	    }
-	}
-	return response;
+	LOGGER.info("Executing command on given connection to DeviceIP:" + device.getHostIpAddress());
+	return sendReceive((SshConnection) deviceConnnection, command, getDefaultTimeout());
     }
 
     /**
-     * Execute commands using given device connection
+     * Execute commands using given device connection. As with {@link #execute(Device, Connection, String)} the
+     * connection stays open and is disconnected by the caller
      * 
      * @param device
      * @param deviceConnnection
+     *            Connection from {@link #getConnection(Device)}
      * @param executeCommandType
      * @param command
      * @return response string
@@ -405,41 +546,40 @@ public class DeviceConnectionProviderImpl implements DeviceConnectionProvider {
     public String execute(Device device, Connection deviceConnnection, ExecuteCommandType executeCommandType,
 	    String command) {
 	String response = AutomaticsConstants.EMPTY_STRING;
-	SshConnection conn = null;
-	LOGGER.info("About to create SSH connection to DeviceIP:" + device.getHostIpAddress());
 
-	try {
-	    conn = createSshConnection(device.getHostIpAddress());
-	    switch (executeCommandType) {
-	    case REV_SSH_DEVICE_VERIFY: {
-		break;
-	    }
-	    case TRACE_INIT_COMMAND_GATEWAY: {
-		break;
-	    }
-	    case ADDLN_TRACE_INIT_COMMAND_GATEWAY: {
-		break;
-	    }
-	    case SNMP_CODE_DOWNLOAD: {
-		break;
-	    }
-	    case SNMP_COMMAND: {
-		response = sendReceive(conn, command, defaultTimeout);
-		break;
-	    }
-	    case XCONF_CONFIG_UPDATE: {
-		break;
-	    }
-	    default: {
-		response = sendReceive(conn, command, defaultTimeout);
-	    }
+	if (ExecuteCommandType.SNMP_COMMAND == executeCommandType) {
+	    String snmpResponse = executeSnmpCommandNatively(command);
+	    if (null != snmpResponse) {
+		LOGGER.info("Received response: " + snmpResponse);
+		return snmpResponse;
 	    }
+	}
+	LOGGER.info("Executing command on given connection to DeviceIP:" + device.getHostIpAddress());
 
-	} finally {
-	    if (null != conn) {
-		LOGGER.info("Closing SSH connection from DeviceIP:" + device.getHostIpAddress());
-		conn.disconnect();
-	    }
+	SshConnection conn = (SshConnection) deviceConnnection;
+	switch (executeCommandType) {
+	case REV_SSH_DEVICE_VERIFY: {
+	    break;
+	}
+	case TRACE_INIT_COMMAND_GATEWAY: {
+	    break;
+	}
+	case ADDLN_TRACE_INIT_COMMAND_GATEWAY: {
+	    break;
+	}
+	case SNMP_CODE_DOWNLOAD: {
+	    break;
+	}
+	case SNMP_COMMAND: {
+	    response = sendReceive(conn, command, getDefaultTimeout());
+	    break;
+	}
+	case XCONF_CONFIG_UPDATE: {
+	    break;
+	}
+	default: {
+	    response = sendReceive(conn, command, getDefaultTimeout());
+	}
 	}
 
 	LOGGER.info("Received response: " + response);
@@ -459,44 +599,10 @@ public class DeviceConnectionProviderImpl implements DeviceConnectionProvider {
      *
      * @return The SSH connection.
      */
-    private static SshConnection getSshConnection(String userName, String password, String hostIp) {
-	SshConnection connection = null;
-	String sshFailureMesaage = "";
-	String trying = "trying for";
-	LOGGER.debug("SSH Host IP : " + hostIp);
-
-	for (int retryCount = 1; retryCount <= SSH_CONNECTION_MAX_ATTEMPT; retryCount++) {
-	    try {
-		LOGGER.debug("SSh connection attempet : " + retryCount);
-		connection = new SshConnection(userName, password, hostIp);
-	    } catch (Exception e) {
-
-		// Trying once more
-
-		if (SSH_CONNECTION_MAX_ATTEMPT == retryCount) {
-		    trying = "";
-		}
-
-		LOGGER.info("SSh connection attempet : " + retryCount + " failed due to " + e.getMessage() + " for "
-			+ hostIp + ". " + trying);
-		sshFailureMesaage = e.getMessage();
-		connection = null;
-		if (SSH_CONNECTION_MAX_ATTEMPT != retryCount) {
-		    CommonMethods.sleep(Constants.TEN_SECONDS);
-		}
-
-	    }
-
-	    if (null != connection) {
-		break;
-	    }
-	}
-
-	if (null == connection) {
-	    throw new FailedTransitionException(GeneralError.SSH_CONNECTION_FAILURE, sshFailureMesaage);
-	}
-
-	return connection;
+    private static SshConnection getSshConnection(final String userName, final String password,
+	    final String hostIp) {
+	return connectWithRetry(hostIp, Constants.DEFAULT_SSH_PORT, SSH_CONNECTION_MAX_ATTEMPT, null,
+		() -> new SshConnection(userName, password, hostIp));
     }
 
     /**
@@ -507,36 +613,37 @@ public class DeviceConnectionProviderImpl implements DeviceConnectionProvider {
      * @param timeOutMilliSecs
      * @return response string
      */
-    public String execute(IServer hostDetails, List<String> commands, long timeOutMilliSecs) {
+    public String execute(final IServer hostDetails, List<String> commands, long timeOutMilliSecs) {
 	StringBuilder response = new StringBuilder();
 	SshConnection sshConnection = null;
+	SshEndpoint endpoint = new SshEndpoint(hostDetails.getHostIp(), Constants.DEFAULT_SSH_PORT,
+		hostDetails.getUserId());
+	boolean isHealthy = false;
 
 	try {
 
 	    if ("localhost".equals(hostDetails.getHostIp())) {
 		for (String command : commands) {
 		    LOGGER.info("About to execute the command : " + command);
-		    response.append(execute(command)).append(Constants.NEW_LINE);
+		    response.append(executeLocally(command, timeOutMilliSecs)).append(Constants.NEW_LINE);
 		}
 	    } else {
 		LOGGER.info("Creating ssh connection to server: {}", hostDetails.getHostIp());
-		sshConnection = getSshConnection(hostDetails.getUserId(), hostDetails.getPassword(),
-			hostDetails.getHostIp());
+		sshConnection = borrowScheduledConnection(endpoint, () -> getSshConnection(hostDetails.getUserId(),
+			hostDetails.getPassword(), hostDetails.getHostIp()));
 		LOGGER.info("Success fully established the SSH connection with server.");
 
 		for (String command : commands) {
 		    LOGGER.info("About to execute the command : " + command);
 		    response.append(sendReceive(sshConnection, command, 50000)).append(Constants.NEW_LINE);
 		}
+		isHealthy = true;
 	    }
 
 	} catch (Exception e) {
 	    LOGGER.error("Exception occured while executing command: " + hostDetails + " " + e.getMessage());
 	} finally {
-
-	    if (null != sshConnection) {
-		sshConnection.disconnect();
-	    }
+	    releaseSshConnection(endpoint, sshConnection, isHealthy);
 	}
 
 	LOGGER.info("Successfully executed commands  = \n " + response.toString());
@@ -552,9 +659,51 @@ public class DeviceConnectionProviderImpl implements DeviceConnectionProvider {
      * @return response string 
      */
     public String execute(String command) {
+	return executeLocally(command, ProviderConfigurationHolder.get().getLocalCommandTimeout());
+    }
+
+    /**
+     * Execute command on localhost using a long lived shell of the local shell pool
+     *
+     * @param command
+     * @param timeOutMilliSecs
+     * @return standard output of the command, null if it could not be executed
+     */
+    private String executeLocally(String command, long timeOutMilliSecs) {
+	if (!isLocalShellPoolEnabled) {
+	    return executeInNewProcess(command);
+	}
+	String response = null;
+	try {
+	    LOGGER.info("Command execution Started ....");
+	    CommandResult result = LOCAL_SHELL_POOL.execute(command, timeOutMilliSecs);
+	    if (CommonMethods.isNotNull(result.getStderr())) {
+		LOGGER.info("Command error output: {}", result.getStderr());
+	    }
+	    if (result.getExitStatus() == 0) {
+		LOGGER.info("Command execution Completed");
+	    }
+	    response = result.getStdout();
+	    if (!response.isEmpty() && !response.endsWith(Constants.NEW_LINE)) {
+		response += Constants.NEW_LINE;
+	    }
+	} catch (IOException e) {
+	    LOGGER.error("Exception occured while executing commands on localhost :  " + e.getMessage());
+	}
+	return response;
+    }
+
+    /**
+     * Execute command on localhost in a new bash process
+     *
+     * @param command
+     * @return response string
+     */
+    private String executeInNewProcess(String command) {
 	String response = null;
 	ProcessBuilder processBuilder = new ProcessBuilder();
 	processBuilder.command("bash", "-c", command);
+	processBuilder.redirectError(ProcessBuilder.Redirect.INHERIT);
 
 	try {
 	    LOGGER.info("Command execution Started ....");
@@ -592,28 +741,142 @@ public class DeviceConnectionProviderImpl implements DeviceConnectionProvider {
      */
 
     public String execute(String hostIp, String command, long timeOutMilliSecs, String connectionType) {
-	return executeCommand(hostIp, command, timeOutMilliSecs);
+	return executeCommand(hostIp, null, command, timeOutMilliSecs);
     }
 
-    private String executeCommand(String device, String command, long timeOutMilliSecs) {
+    /**
+     * Replaces the executor running the asynchronous execute methods. The replaced executor is not shut down, an
+     * executor passed in stays owned by the caller
+     * 
+     * @param asyncExecutor
+     */
+    public void setAsyncExecutor(AsyncCommandExecutor asyncExecutor) {
+	this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * Execute commands in device asynchronously
+     * 
+     * @param device
+     * @param command
+     * @return future completed with the response string
+     */
+    public CompletableFuture<String> executeAsync(final Device device, final String command) {
+	return asyncExecutor.submit(() -> execute(device, command));
+    }
+
+    /**
+     * Execute commands in device asynchronously
+     * 
+     * @param device
+     * @param commandList
+     * @return future completed with the response string
+     */
+    public CompletableFuture<String> executeAsync(final Device device, final List<String> commandList) {
+	return asyncExecutor.submit(() -> execute(device, commandList));
+    }
+
+    /**
+     * Execute commands in given device console asynchronously
+     * 
+     * @param device
+     * @param commandList
+     * @param consoleType
+     * @param timeOutMilliSecs
+     * @return future completed with the response string
+     */
+    public CompletableFuture<String> executeAsync(final Device device, final List<String> commandList,
+	    final DeviceConsoleType consoleType, final long timeOutMilliSecs) {
+	return asyncExecutor.submit(() -> execute(device, commandList, consoleType, timeOutMilliSecs));
+    }
+
+    /**
+     * Execute commands on given host asynchronously
+     * 
+     * @param hostDetails
+     * @param commands
+     * @param timeOutMilliSecs
+     * @return future completed with the response string
+     */
+    public CompletableFuture<String> executeAsync(final IServer hostDetails, final List<String> commands,
+	    final long timeOutMilliSecs) {
+	return asyncExecutor.submit(() -> execute(hostDetails, commands, timeOutMilliSecs));
+    }
+
+    /**
+     * Execute commands on given host asynchronously
+     * 
+     * @param hostIp
+     * @param command
+     * @param timeOutMilliSecs
+     * @param connectionType
+     * @return future completed with the response string
+     */
+    public CompletableFuture<String> executeAsync(final String hostIp, final String command,
+	    final long timeOutMilliSecs, final String connectionType) {
+	return asyncExecutor.submit(() -> execute(hostIp, command, timeOutMilliSecs, connectionType));
+    }
+
+    /**
+     * Execute commands on all given devices concurrently, limited globally and per subnet. Returns immediately; the
+     * result of each device is delivered to the listener and the returned handle as soon as that device completes
+     * 
+     * @param devices
+     * @param commandList
+     * @param listener
+     *            may be null
+     * @return handle of the fleet execution
+     */
+    public FleetExecution executeOnFleet(Collection<? extends Device> devices, List<String> commandList,
+	    FleetCommandExecutor.FleetResultListener listener) {
+	synchronized (this) {
+	    if (null == fleetExecutor) {
+		fleetExecutor = FleetCommandExecutor.fromProperties(this);
+	    }
+	}
+	return fleetExecutor.execute(devices, commandList, listener);
+    }
+
+    private String executeCommand(String device, String model, String command, long timeOutMilliSecs) {
 	SshConnection conn = null;
 	String response = AutomaticsConstants.EMPTY_STRING;
+	SshEndpoint endpoint = getRdkEndpoint(device);
+	boolean isHealthy = false;
 
 	LOGGER.info("About to create SSH connection to DeviceIP:" + device);
 	try {
-	    conn = createSshConnection(device);
+	    conn = borrowSshConnection(endpoint, model);
 
 	    response = sendReceive(conn, command, timeOutMilliSecs);
+	    isHealthy = true;
 	} finally {
-	    if (null != conn) {
-		LOGGER.info("Closing SSH connection from DeviceIP:" + device);
-		conn.disconnect();
-	    }
+	    LOGGER.info("Releasing SSH connection from DeviceIP:" + device);
+	    releaseSshConnection(endpoint, conn, isHealthy);
 	}
 	LOGGER.info("Received response: " + response);
 	return response;
     }
 
+    /**
+     * Executes a net-snmp command line with the in-process SNMP client, when enabled and supported
+     * 
+     * @param command
+     * @return command output, null if the command has to be executed over ssh
+     */
+    private static String executeSnmpCommandNatively(String command) {
+	return null != NATIVE_SNMP_EXECUTOR ? NATIVE_SNMP_EXECUTOR.execute(command) : null;
+    }
+
+    /**
+     * @return executor for net-snmp command lines, null if in-process SNMP execution is disabled
+     */
+    private static NetSnmpCommandExecutor createNativeSnmpExecutor() {
+	if (!CommonMethods.getBooleanProperty(Constants.PROPS_SNMP_NATIVE_ENABLED, false)) {
+	    return null;
+	}
+	return new NetSnmpCommandExecutor(SnmpClient.getSharedInstance());
+    }
+
     /**
      * Executes commands on non-rdk device
      * 
@@ -623,43 +886,357 @@ public class DeviceConnectionProviderImpl implements DeviceConnectionProvider {
      * @return Command execution response
      */
     private String executeCommandOnNonRdkDevice(Device device, String command, long timeOutMilliSecs) {
+	List<String> commandList = new ArrayList<String>();
+	commandList.add(command);
+	String response = executeOnNonRdkDevice(device, commandList, timeOutMilliSecs).get(0).getStdout();
+	LOGGER.info("Received response: {}", response);
+	return response;
+    }
+
+    /**
+     * Executes a list of commands on non-rdk device, authenticating once for the whole list. A failed command does not
+     * stop the list: its connection is dropped and the next command connects again
+     * 
+     * @param device
+     * @param commandList
+     * @param timeOutMilliSecs
+     * @return result of each command in the order of the command list. The shell does not report exit statuses, so
+     *         executed commands have status {@link CommandResult.Status#UNKNOWN}. A failed command has an empty
+     *         response and the error that caused the failure
+     */
+    public List<CommandResult> executeOnNonRdkDevice(Device device, List<String> commandList,
+	    long timeOutMilliSecs) {
+	List<CommandResult> results = new ArrayList<CommandResult>(commandList.size());
 	SshConnection conn = null;
-	String response = AutomaticsConstants.EMPTY_STRING;
 
-	String hostIpAddress = device.getNatAddress();
-	String username = device.getUsername();
-	String password = device.getPassword();
-	String sshPort = device.getNatPort();
+	final String hostIpAddress = device.getNatAddress();
+	final String username = device.getUsername();
+	final String password = device.getPassword();
+	final String sshPort = device.getNatPort();
+	SshEndpoint endpoint = null;
 	LOGGER.info("++++++++++++++++++++++++++++++++ DEBUG execute ++++++++++++++++++++++++++++++++");
 	LOGGER.info("device.getHostIpAddress: " + device.getHostIpAddress());
 	LOGGER.info("device.getNatAddress: " + device.getNatAddress());
 	LOGGER.info("++++++++++++++++++++++++++++++++ DEBUG execute ++++++++++++++++++++++++++++++++");
-	LOGGER.info("About to create SSH connection to DeviceIP:{}", hostIpAddress);
+
+	for (String command : commandList) {
+	    long startTime = System.currentTimeMillis();
+	    long sessionMillis = 0;
+	    try {
+		if (null == conn) {
+		    LOGGER.info("About to create SSH connection to DeviceIP:{}", hostIpAddress);
+		    endpoint = new SshEndpoint(hostIpAddress, Integer.parseInt(sshPort), username);
+		    conn = borrowScheduledConnection(endpoint,
+			    () -> createSshConnectionWithoutRetry(hostIpAddress, sshPort, username, password,
+				    device.getModel()));
+		    sessionMillis = System.currentTimeMillis() - startTime;
+		}
+
+		Set<CommandFeature> features = CommandClassifier.classify(command);
+		String commandToExecute = replaceAnyPipesInCommand(command, features);
+		markIfNotReusable(conn, features);
+
+		LOGGER.info(
+			"\n(SSH EXECUTION) : Executing command {}  on client : Mac Address [{}] , User Name [{}], IP Address [{}] and Port Number [{}]",
+			commandToExecute, device.getHostMacAddress(), username, hostIpAddress, sshPort);
+
+		String response = sendReceiveOnNonRdk(conn, commandToExecute + AutomaticsConstants.NEW_LINE,
+			timeOutMilliSecs);
+		results.add(CommandResult.ofShellResponse(command, response, sessionMillis,
+			System.currentTimeMillis() - startTime - sessionMillis));
+		if (features.contains(CommandFeature.LONG_RUNNING)) {
+		    LOGGER.info("Command keeps running, next command connects again: {}", command);
+		    releaseSshConnection(endpoint, conn, true);
+		    conn = null;
+		}
+	    } catch (Exception e) {
+		LOGGER.error("[SSH FAILED] : " + hostIpAddress + ":" + sshPort + e.getMessage(), e);
+		LOGGER.error("[SSH FAILED] : " + hostIpAddress + ":" + sshPort
+			+ " Looks like this device is not properly configured");
+		releaseSshConnection(endpoint, conn, false);
+		conn = null;
+		results.add(CommandResult.ofError(command, e, sessionMillis,
+			System.currentTimeMillis() - startTime - sessionMillis));
+	    }
+	}
+
+	LOGGER.info("Releasing SSH connection from DeviceIP:{}", hostIpAddress);
+	releaseSshConnection(endpoint, conn, true);
+	return results;
+    }
+
+    /**
+     * Executes independent commands concurrently, each over its own exec channel of one shared ssh session to the
+     * device. Responses are returned in the order of the command list
+     * 
+     * @param device
+     * @param commandList
+     * @param timeOutMilliSecs
+     * @return response string
+     */
+    private String executeInParallel(Device device, List<String> commandList, long timeOutMilliSecs) {
+	StringBuilder response = new StringBuilder();
+	SshEndpoint endpoint = getExecEndpoint(device);
+	LOGGER.info("About to execute {} commands in parallel on DeviceIP:{}", commandList.size(),
+		device.getHostIpAddress());
+	DeviceConcurrencyScheduler.Permit permit = acquireSessionSlot(endpoint);
 	try {
-	    conn = createSshConnectionWithoutRetry(hostIpAddress, sshPort, username, password);
+	    Session session = getExecSession(device, endpoint);
+	    for (String commandResponse : parallelExecutor.execute(session, commandList, timeOutMilliSecs)) {
+		response.append(commandResponse).append(Constants.NEW_LINE);
+	    }
+	} catch (FailedTransitionException e) {
+	    JSCH_SESSIONS.invalidate(endpoint);
+	    throw e;
+	} finally {
+	    permit.close();
+	}
+	return response.toString();
+    }
 
-	    command = replaceAnyPipesInCommand(command);
+    /**
+     * An exec channel stays open as long as a background job started on it writes to its output, so commands starting
+     * background jobs are executed over the interactive shell instead
+     * 
+     * @param commandList
+     * @return true if a command of the list starts a background job
+     */
+    private static boolean hasBackgroundCommand(List<String> commandList) {
+	for (String command : commandList) {
+	    if (CommandClassifier.classify(command).contains(CommandFeature.BACKGROUND)) {
+		LOGGER.info("Not executing commands in parallel, command starts a background job: {}", command);
+		return true;
+	    }
+	}
+	return false;
+    }
 
-	    LOGGER.info(
-		    "\n(SSH EXECUTION) : Executing command {}  on client : Mac Address [{}] , User Name [{}], IP Address [{}] and Port Number [{}]",
-		    command, device.getHostMacAddress(), username, hostIpAddress, sshPort);
+    /**
+     * Execute command in device over an exec channel and return the result with stdout, stderr and exit status kept
+     * apart. The call completes exactly when the remote command exits, without prompt polling or banner stripping
+     * 
+     * @param device
+     * @param command
+     * @return CommandResult instance
+     */
+    public CommandResult executeWithResult(Device device, String command) {
+	return executeWithResult(device, command, getDefaultTimeout());
+    }
 
-	    command += AutomaticsConstants.NEW_LINE;
-	    response = sendReceiveOnNonRdk(conn, command, timeOutMilliSecs);
-	} catch (Exception e) {
-	    LOGGER.error("[SSH FAILED] : " + hostIpAddress + ":" + sshPort + e.getMessage(), e);
-	    LOGGER.error("[SSH FAILED] : " + hostIpAddress + ":" + sshPort
-		    + " Looks like this device is not properly configured");
+    /**
+     * Execute command in device over an exec channel and return the result with stdout, stderr and exit status kept
+     * apart. The call completes exactly when the remote command exits, or when the time out elapses
+     * 
+     * @param device
+     * @param command
+     * @param timeOutMilliSecs
+     * @return CommandResult instance
+     */
+    public CommandResult executeWithResult(Device device, String command, long timeOutMilliSecs) {
+	SshEndpoint endpoint = getExecEndpoint(device);
+	LOGGER.info("Executing command over exec channel on DeviceIP:{} {}", endpoint.getHost(), command);
+	long startTime = System.currentTimeMillis();
+	try (DeviceConcurrencyScheduler.Permit permit = acquireSessionSlot(endpoint)) {
+	    Session session = getExecSession(device, endpoint);
+	    long sessionMillis = System.currentTimeMillis() - startTime;
+	    CommandResult result = execChannelRunner.run(session, command, timeOutMilliSecs)
+		    .withSessionMillis(sessionMillis);
+	    LOGGER.info("Received result: {}", result);
+	    return result;
+	} catch (JSchException | IOException e) {
+	    JSCH_SESSIONS.invalidate(endpoint);
+	    throw new FailedTransitionException(GeneralError.SSH_CONNECTION_FAILURE, e);
+	}
+    }
+
+    /**
+     * Execute command in device and deliver its output line by line while it is produced, instead of buffering the
+     * whole response. The listener can stop the command early once it found what it needs
+     * 
+     * @param device
+     * @param command
+     * @param listener
+     * @param timeOutMilliSecs
+     * @return true if the command ran to completion, false if the listener stopped it or it timed out
+     */
+    public boolean executeStreaming(Device device, String command, ResponseLineListener listener,
+	    long timeOutMilliSecs) {
+	SshEndpoint endpoint = getExecEndpoint(device);
+	LOGGER.info("Executing command with streamed response on DeviceIP:{} {}", endpoint.getHost(), command);
+	try (DeviceConcurrencyScheduler.Permit permit = acquireSessionSlot(endpoint)) {
+	    return execChannelRunner.execute(getExecSession(device, endpoint), command, listener, timeOutMilliSecs);
+	} catch (JSchException | IOException e) {
+	    JSCH_SESSIONS.invalidate(endpoint);
+	    throw new FailedTransitionException(GeneralError.SSH_CONNECTION_FAILURE, e);
+	}
+    }
+
+    /**
+     * Start command in device and return its output as a stream. Closing the stream stops the command
+     * 
+     * @param device
+     * @param command
+     * @return standard output of the command
+     */
+    public InputStream openResponseStream(Device device, String command) {
+	SshEndpoint endpoint = getExecEndpoint(device);
+	LOGGER.info("Opening response stream of command on DeviceIP:{} {}", endpoint.getHost(), command);
+	try {
+	    return execChannelRunner.openStream(getExecSession(device, endpoint), command);
+	} catch (JSchException | IOException e) {
+	    JSCH_SESSIONS.invalidate(endpoint);
+	    throw new FailedTransitionException(GeneralError.SSH_CONNECTION_FAILURE, e);
+	}
+    }
+
+    /**
+     * Gets the shared exec channel session to a device, connecting it when needed
+     * 
+     * @param device
+     * @param endpoint
+     *            Endpoint from {@link #getExecEndpoint(Device)}
+     * @return connected session
+     */
+    private Session getExecSession(Device device, SshEndpoint endpoint) {
+	try {
+	    return JSCH_SESSIONS.getSession(endpoint, getExecPassword(device), execPrivateKeyPath);
+	} catch (JSchException e) {
+	    JSCH_SESSIONS.invalidate(endpoint);
+	    throw new FailedTransitionException(GeneralError.SSH_CONNECTION_FAILURE, e);
 	}
+    }
 
-	finally {
-	    if (null != conn) {
-		LOGGER.info("Closing SSH connection from DeviceIP:{}", hostIpAddress);
-		conn.disconnect();
+    /**
+     * Gets the exec channel session key of a device. Non-RDK devices are reached through their NAT address with the
+     * device credentials. For RDK devices the credentials configured for RDK devices take precedence over the
+     * credentials of the device
+     * 
+     * @param device
+     * @return SshEndpoint instance
+     */
+    private SshEndpoint getExecEndpoint(Device device) {
+	if (SupportedModelHandler.isNonRDKDevice(device)) {
+	    return new SshEndpoint(device.getNatAddress(), Integer.parseInt(device.getNatPort()), device.getUsername());
+	}
+	String username = CommonMethods.isNotNull(execUsername) ? execUsername : device.getUsername();
+	return new SshEndpoint(device.getHostIpAddress(), Constants.DEFAULT_SSH_PORT, username);
+    }
+
+    /**
+     * Gets the exec channel session password of a device
+     * 
+     * @param device
+     * @return password
+     */
+    private String getExecPassword(Device device) {
+	if (SupportedModelHandler.isNonRDKDevice(device)) {
+	    return device.getPassword();
+	}
+	return CommonMethods.isNotNull(execPassword) ? execPassword : device.getPassword();
+    }
+
+    /**
+     * Gets the pool key for a device reached with the default ssh credentials
+     * 
+     * @param hostIp
+     * @return SshEndpoint instance
+     */
+    private static SshEndpoint getRdkEndpoint(String hostIp) {
+	return new SshEndpoint(hostIp, Constants.DEFAULT_SSH_PORT, null);
+    }
+
+    /**
+     * Takes an ssh connection to given device from the session pool. A new connection is created, with retry, when
+     * no idle pooled connection is available
+     * 
+     * @param endpoint
+     * @param model
+     *            Model of the device, selects the security banner consumed from a new connection
+     * @return SshConnection instance
+     */
+    private SshConnection borrowSshConnection(final SshEndpoint endpoint, final String model) {
+	return borrowScheduledConnection(endpoint, () -> createSshConnection(endpoint.getHost(), model));
+    }
+
+    /**
+     * Takes an ssh connection from the session pool once a session slot of the device is free. The slot is held until
+     * the connection is released
+     * 
+     * @param endpoint
+     * @param factory
+     *            Creates the connection when no idle pooled connection is available
+     * @return SshConnection instance
+     */
+    private static SshConnection borrowScheduledConnection(SshEndpoint endpoint,
+	    SshSessionPool.SessionFactory<SshConnection> factory) {
+	DeviceConcurrencyScheduler.Permit permit = acquireSessionSlot(endpoint);
+	try {
+	    SshConnection conn = SESSION_POOL.borrow(endpoint, factory);
+	    CONNECTION_PERMITS.put(conn, permit);
+	    return conn;
+	} catch (RuntimeException e) {
+	    permit.close();
+	    throw e;
+	}
+    }
+
+    /**
+     * Waits for a free session slot of the device, so that no more sessions are opened to it than it accepts
+     * 
+     * @param endpoint
+     * @return permit to close once the session is no longer used
+     */
+    private static DeviceConcurrencyScheduler.Permit acquireSessionSlot(SshEndpoint endpoint) {
+	return DEVICE_SCHEDULER.acquire(endpoint.getHost(), endpoint.getPort());
+    }
+
+    /**
+     * @return session slot usage and queue statistics of each device
+     */
+    public static Map<String, DeviceQueueStatistics> getDeviceQueueStatistics() {
+	return DEVICE_SCHEDULER.getStatistics();
+    }
+
+    /**
+     * Gives back an ssh connection taken from the session pool. Connection is closed instead of being reused when the
+     * command execution on it failed, when its shell is still running a command that does not end by itself, or when a
+     * command changed the state of its shell, so that the next caller starts from a fresh shell
+     * 
+     * @param endpoint
+     * @param conn
+     * @param isHealthy
+     */
+    private static void releaseSshConnection(SshEndpoint endpoint, SshConnection conn, boolean isHealthy) {
+	if (null == conn) {
+	    return;
+	}
+	boolean isReusable = !UNREUSABLE_CONNECTIONS.remove(conn);
+	try {
+	    if (isHealthy && isReusable) {
+		SESSION_POOL.release(endpoint, conn);
+	    } else {
+		SESSION_POOL.invalidate(endpoint, conn);
+	    }
+	} finally {
+	    DeviceConcurrencyScheduler.Permit permit = CONNECTION_PERMITS.remove(conn);
+	    if (null != permit) {
+		permit.close();
 	    }
 	}
-	LOGGER.info("Received response: {}", response);
-	return response;
+    }
+
+    /**
+     * Remembers a connection whose shell keeps running the command or has its state changed by the command, so that
+     * it is not handed out to another caller
+     * 
+     * @param conn
+     * @param features
+     *            Features of the command sent over the connection
+     */
+    private static void markIfNotReusable(SshConnection conn, Set<CommandFeature> features) {
+	if (features.contains(CommandFeature.LONG_RUNNING) || features.contains(CommandFeature.SHELL_STATE)) {
+	    UNREUSABLE_CONNECTIONS.add(conn);
+	}
     }
 
     /**
@@ -669,12 +1246,14 @@ public class DeviceConnectionProviderImpl implements DeviceConnectionProvider {
      * @param sshPort
      * @param username
      * @param password
+     * @param model
      * @return SshConnection instance
      */
-    private SshConnection createSshConnectionWithoutRetry(String hostIp, String sshPort, String username,
-	    String password) {
-
-	return new SshConnection(hostIp, Integer.parseInt(sshPort), username, password, null);
+    private SshConnection createSshConnectionWithoutRetry(final String hostIp, String sshPort, final String username,
+	    final String password, String model) {
+	final int port = Integer.parseInt(sshPort);
+	return connectWithRetry(hostIp, port, 1, model,
+		() -> new SshConnection(hostIp, port, username, password, null));
 
     }
 
@@ -682,11 +1261,13 @@ public class DeviceConnectionProviderImpl implements DeviceConnectionProvider {
      * Creates ssh connection. Retry if connection failed to create
      * 
      * @param hostIp
+     * @param model
      * @return SshConnection instance
      */
-    private SshConnection createSshConnection(String hostIp) {
+    private SshConnection createSshConnection(String hostIp, String model) {
 	SshConnection connection = null;
-	connection = createSshConnection(hostIp, sshConnectMaxAttempt);
+	connection = createSshConnection(hostIp, ProviderConfigurationHolder.get().getSshConnectionMaxAttempt(),
+		model);
 
 	return connection;
     }
@@ -696,19 +1277,48 @@ public class DeviceConnectionProviderImpl implements DeviceConnectionProvider {
      * 
      * @param hostIp
      * @param retryCount
+     * @param model
+     * @return SshConnection instance
+     */
+    private SshConnection createSshConnection(final String hostIp, int retryCount, String model) {
+	return connectWithRetry(hostIp, Constants.DEFAULT_SSH_PORT, retryCount, model,
+		() -> new SshConnection(hostIp));
+    }
+
+    /**
+     * Creates ssh connection. Retry with exponential backoff if connection failed to create. Fails without connecting
+     * when the host is known to be down. The security banner of a new connection is consumed before it is returned
+     * 
+     * @param hostIp
+     * @param port
+     * @param retryCount
+     * @param model
+     *            Model of the device, null if not known
+     * @param connectionFactory
+     *            Makes one connection attempt
      * @return SshConnection instance
      */
-    private SshConnection createSshConnection(String hostIp, int retryCount) {
+    private static SshConnection connectWithRetry(String hostIp, int port, int retryCount, String model,
+	    SshSessionPool.SessionFactory<SshConnection> connectionFactory) {
 	SshConnection connection = null;
 	String sshFailureMesaage = "";
 	String trying = "Trying once more..";
 	LOGGER.info("SSH Host IP : " + hostIp);
 
 	for (int retryIndex = 1; retryIndex <= retryCount; retryIndex++) {
+	    if (!CIRCUIT_BREAKER.allowRequest(hostIp, port)) {
+		LOGGER.info("Host {}:{} is known to be unreachable, skipping ssh connection attempt", hostIp, port);
+		if (CommonMethods.isNull(sshFailureMesaage)) {
+		    sshFailureMesaage = "Host " + hostIp + ":" + port + " is unreachable";
+		}
+		break;
+	    }
 	    try {
 		LOGGER.info("SSh connection attempet : " + retryIndex);
-		connection = new SshConnection(hostIp);
+		connection = connectionFactory.create();
+		CIRCUIT_BREAKER.recordSuccess(hostIp, port);
 	    } catch (Exception e) {
+		CIRCUIT_BREAKER.recordFailure(hostIp, port);
 
 		// Trying once more
 
@@ -720,8 +1330,8 @@ public class DeviceConnectionProviderImpl implements DeviceConnectionProvider {
 			+ hostIp + ". " + trying);
 		sshFailureMesaage = e.getMessage();
 		connection = null;
-		if (retryIndex != retryCount) {
-		    CommonMethods.sleep(Constants.TEN_SECONDS);
+		if (retryIndex != retryCount && !CIRCUIT_BREAKER.isOpen(hostIp, port)) {
+		    CommonMethods.sleep(RETRY_BACKOFF_POLICY.getDelayMillis(retryIndex));
 		}
 
 	    }
@@ -734,56 +1344,27 @@ public class DeviceConnectionProviderImpl implements DeviceConnectionProvider {
 	if (null == connection) {
 	    throw new FailedTransitionException(GeneralError.SSH_CONNECTION_FAILURE, sshFailureMesaage);
 	}
+	BANNER_FILTER.consumeBanner(connection, model);
 
 	return connection;
     }
 
     /**
-     * 
-     * WHen pip symbol is present, at times the ssh connection is not able to read the about. To resolve this issue, pip
-     * is being replaced with another operator which has same capability.But their internal operation is different that
-     * of pip
+     * When a pipe symbol is present, at times the ssh connection is not able to read the output. To resolve this issue,
+     * pipes are replaced with process substitutions, which have the same capability but a different internal operation.
+     * Done according to the configured {@link PipeRewritePolicy}, only for commands having a pipe
      * 
      * @param command
-     * @return
+     * @param features
+     *            Features of the command from {@link CommandClassifier#classify(String)}
+     * @return command to send to the device
      */
-    private static String replaceAnyPipesInCommand(String command) {
-	boolean isAndPresent = false;
-
-	StringBuffer commandToExecute = new StringBuffer();
-	if (CommonMethods.isNotNull(command) && command.contains("|")) {
-	    if (command.lastIndexOf("&") == command.length() - 1) {
-		isAndPresent = true;
-		command = command.substring(0, command.length() - 2);
-	    }
-	    String[] commands = command.split("\\|");
-	    int numberOfCommands = 0;
-	    for (int i = commands.length - 1; i >= 0; i--) {
-		numberOfCommands++;
-		commandToExecute.append(commands[i]);
-		if (i != commands.length - 1) {
-		    commandToExecute.append(")");
-		}
-		if (i != 0) {
-		    commandToExecute.append("< <");
-		    commandToExecute.append("(");
-		    if (commands.length - numberOfCommands > 1) {
-			commandToExecute.append("(");
-		    }
-		}
-	    }
-	    if (commands.length - 2 > 0) {
-		for (int j = 0; j < commands.length - 2; j++) {
-		    commandToExecute.append(")");
-		}
-	    }
-	    if (isAndPresent) {
-		commandToExecute.append(" &");
-	    }
-	} else {
-	    commandToExecute.append(command);
+    private static String replaceAnyPipesInCommand(String command, Set<CommandFeature> features) {
+	if (PipeRewritePolicy.NONE == ProviderConfigurationHolder.get().getPipeRewritePolicy()
+		|| !features.contains(CommandFeature.PIPE)) {
+	    return command;
 	}
-	return commandToExecute.toString();
+	return PIPE_REWRITER.rewrite(command);
     }
 
     /**
@@ -797,20 +1378,15 @@ public class DeviceConnectionProviderImpl implements DeviceConnectionProvider {
     private String sendReceiveOnNonRdk(SshConnection conn, String command, long timeOutMilliSecs) {
 	LOGGER.info("Executing command: {}", command);
 	String response = AutomaticsConstants.EMPTY_STRING;
-	String timeOutInString = AutomaticsPropertyUtility.getProperty(Constants.PROPS_NON_RDK_RESP_WAIT_TIME_MILLISEC);
-	if (CommonMethods.isNotNull(timeOutInString)) {
-	    try {
-		timeOutMilliSecs = Integer.parseInt(timeOutInString);
-		LOGGER.info("Using configured response timeout: {}", timeOutMilliSecs);
-
-	    } catch (NumberFormatException e) {
-		LOGGER.error("Error parsing value for field: {}, {}", Constants.PROPS_NON_RDK_RESP_WAIT_TIME_MILLISEC,
-			e.getMessage());
-	    }
+	long configuredTimeout = ProviderConfigurationHolder.get().getNonRdkResponseTimeout();
+	if (configuredTimeout > 0) {
+	    timeOutMilliSecs = configuredTimeout;
+	    LOGGER.info("Using configured response timeout: {}", timeOutMilliSecs);
 	}
 	try {
-	    conn.sendCommand(command, (int) (timeOutMilliSecs));
-	    response = conn.getSettopResponse(timeOutMilliSecs);
+	    String marker = COMPLETION_DETECTOR.newMarker();
+	    conn.sendCommand(COMPLETION_DETECTOR.decorate(command, marker), (int) (timeOutMilliSecs));
+	    response = COMPLETION_DETECTOR.readResponse(conn, command, marker, timeOutMilliSecs);
 
 	    LOGGER.info("\n<===========================  RESPONSE =======================> \n" + response
 		    + "\n<=============================================================>");
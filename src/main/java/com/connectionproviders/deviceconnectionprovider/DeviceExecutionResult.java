@@ -0,0 +1,81 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import com.automatics.device.Device;
+
+/**
+ * Outcome of running a command list on one device of a fleet execution
+ */
+public class DeviceExecutionResult {
+
+    private final Device device;
+    private final String response;
+    private final Throwable error;
+    private final long startTimeMillis;
+    private final long endTimeMillis;
+
+    public DeviceExecutionResult(Device device, String response, Throwable error, long startTimeMillis,
+	    long endTimeMillis) {
+	this.device = device;
+	this.response = response;
+	this.error = error;
+	this.startTimeMillis = startTimeMillis;
+	this.endTimeMillis = endTimeMillis;
+    }
+
+    public Device getDevice() {
+	return device;
+    }
+
+    /**
+     * @return response of the command list, null when the execution failed
+     */
+    public String getResponse() {
+	return response;
+    }
+
+    /**
+     * @return error raised by the execution, null when it succeeded
+     */
+    public Throwable getError() {
+	return error;
+    }
+
+    public boolean isSuccess() {
+	return null == error;
+    }
+
+    public long getStartTimeMillis() {
+	return startTimeMillis;
+    }
+
+    public long getEndTimeMillis() {
+	return endTimeMillis;
+    }
+
+    public long getDurationMillis() {
+	return endTimeMillis - startTimeMillis;
+    }
+
+    @Override
+    public String toString() {
+	return "DeviceExecutionResult [device=" + device.getHostMacAddress() + ", success=" + isSuccess()
+		+ ", durationMillis=" + getDurationMillis() + "]";
+    }
+}
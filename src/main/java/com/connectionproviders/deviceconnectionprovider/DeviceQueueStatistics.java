@@ -0,0 +1,100 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+/**
+ * Snapshot of the session slot usage and queue of one device, as tracked by {@link DeviceConcurrencyScheduler}
+ */
+public class DeviceQueueStatistics {
+
+    private final String deviceKey;
+    private final int activeCount;
+    private final int queuedCount;
+    private final int maxQueuedCount;
+    private final long grantedCount;
+    private final long timedOutCount;
+    private final long totalWaitMillis;
+
+    public DeviceQueueStatistics(String deviceKey, int activeCount, int queuedCount, int maxQueuedCount,
+	    long grantedCount, long timedOutCount, long totalWaitMillis) {
+	this.deviceKey = deviceKey;
+	this.activeCount = activeCount;
+	this.queuedCount = queuedCount;
+	this.maxQueuedCount = maxQueuedCount;
+	this.grantedCount = grantedCount;
+	this.timedOutCount = timedOutCount;
+	this.totalWaitMillis = totalWaitMillis;
+    }
+
+    /**
+     * @return host and port of the device
+     */
+    public String getDeviceKey() {
+	return deviceKey;
+    }
+
+    /**
+     * @return number of session slots of the device in use
+     */
+    public int getActiveCount() {
+	return activeCount;
+    }
+
+    /**
+     * @return number of requests waiting for a session slot of the device
+     */
+    public int getQueuedCount() {
+	return queuedCount;
+    }
+
+    /**
+     * @return highest number of requests that waited for a session slot of the device at the same time
+     */
+    public int getMaxQueuedCount() {
+	return maxQueuedCount;
+    }
+
+    /**
+     * @return number of session slots of the device handed out, not counting nested requests of a thread already
+     *         holding a slot
+     */
+    public long getGrantedCount() {
+	return grantedCount;
+    }
+
+    /**
+     * @return number of requests that gave up waiting for a session slot of the device
+     */
+    public long getTimedOutCount() {
+	return timedOutCount;
+    }
+
+    /**
+     * @return average time a granted request spent waiting for its session slot
+     */
+    public long getAverageWaitMillis() {
+	return 0 == grantedCount ? 0 : totalWaitMillis / grantedCount;
+    }
+
+    @Override
+    public String toString() {
+	return "DeviceQueueStatistics [deviceKey=" + deviceKey + ", active=" + activeCount + ", queued=" + queuedCount
+		+ ", maxQueued=" + maxQueuedCount + ", granted=" + grantedCount + ", timedOut=" + timedOutCount
+		+ ", averageWaitMillis=" + getAverageWaitMillis() + "]";
+    }
+}
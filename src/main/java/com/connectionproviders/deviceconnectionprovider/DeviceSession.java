@@ -0,0 +1,135 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import com.automatics.device.Device;
+import com.automatics.error.GeneralError;
+import com.automatics.exceptions.FailedTransitionException;
+import com.automatics.providers.connection.SshConnection;
+import com.automatics.zte.config.ProviderConfigurationHolder;
+
+/**
+ * Ssh session to a device, opened with {@link DeviceConnectionProviderImpl#openSession(Device)}. All commands run in
+ * the same shell, one after another, so the working directory or environment variables set by one command are seen by
+ * the next. The session can be handed to helper methods and used from several threads. Closing the session
+ * disconnects its shell, so that its state does not leak into pooled connections.
+ */
+public class DeviceSession implements AutoCloseable {
+
+    /**
+     * Sends a command over the shell of the session and reads its response
+     */
+    interface CommandSender {
+	String send(SshConnection conn, String command, long timeOutMilliSecs);
+    }
+
+    /**
+     * Holds an interactive dialog over the shell of the session
+     */
+    interface DialogRunner {
+	ExpectResult converse(SshConnection conn, String command, ExpectDialog dialog, long timeOutMilliSecs);
+    }
+
+    private final Device device;
+    private final SshConnection conn;
+    private final CommandSender sender;
+    private final DialogRunner dialogRunner;
+    private final Runnable releaser;
+    private boolean isClosed;
+
+    DeviceSession(Device device, SshConnection conn, CommandSender sender, DialogRunner dialogRunner,
+	    Runnable releaser) {
+	this.device = device;
+	this.conn = conn;
+	this.sender = sender;
+	this.dialogRunner = dialogRunner;
+	this.releaser = releaser;
+    }
+
+    public Device getDevice() {
+	return device;
+    }
+
+    /**
+     * Execute command in the shell of the session
+     * 
+     * @param command
+     * @return response string
+     */
+    public String execute(String command) {
+	return execute(command, ProviderConfigurationHolder.get().getRdkResponseTimeout());
+    }
+
+    /**
+     * Execute command in the shell of the session
+     * 
+     * @param command
+     * @param timeOutMilliSecs
+     * @return response string
+     * @throws FailedTransitionException
+     *             when the session is closed or the command could not be executed
+     */
+    public synchronized String execute(String command, long timeOutMilliSecs) {
+	ensureOpen();
+	return sender.send(conn, command, timeOutMilliSecs);
+    }
+
+    /**
+     * Execute an interactive command in the shell of the session, answering its prompts as given by the dialog. The
+     * same dialog can be used for many commands
+     * 
+     * @param command
+     *            Command starting the dialog, null to continue a dialog started by an earlier call
+     * @param dialog
+     * @param timeOutMilliSecs
+     *            Time to wait for each prompt or end pattern
+     * @return output of the dialog and the end pattern that completed it
+     * @throws FailedTransitionException
+     *             when the session is closed or the command could not be executed
+     */
+    public synchronized ExpectResult converse(String command, ExpectDialog dialog, long timeOutMilliSecs) {
+	ensureOpen();
+	return dialogRunner.converse(conn, command, dialog, timeOutMilliSecs);
+    }
+
+    private void ensureOpen() {
+	if (isClosed) {
+	    throw new FailedTransitionException(GeneralError.SSH_CONNECTION_FAILURE,
+		    "Session to " + device.getHostIpAddress() + " is closed");
+	}
+    }
+
+    /**
+     * @return true once the session is closed
+     */
+    public synchronized boolean isClosed() {
+	return isClosed;
+    }
+
+    /**
+     * Closes the session, waiting for a command in progress to complete. Closing more than once has no effect
+     */
+    @Override
+    public synchronized void close() {
+	if (isClosed) {
+	    return;
+	}
+	isClosed = true;
+	releaser.run();
+    }
+}
@@ -0,0 +1,341 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+/**
+ * Runs a single command on its own exec channel of a connected JSch session. The call returns as soon as the remote
+ * process exits; the timeout only bounds commands that do not finish, in which case the channel is closed and the
+ * output collected so far is returned.
+ */
+public class ExecChannelRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExecChannelRunner.class);
+
+    private static final int CHANNEL_CONNECT_TIMEOUT_MILLISECS = 10000;
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final long READ_WAIT_MILLISECS = 1000;
+    private static final long EXIT_STATUS_POLL_INTERVAL_MILLISECS = 10;
+    private static final int DEFAULT_MAX_BUFFERED_OUTPUT_BYTES = 8 * 1024 * 1024;
+    private static final int MAX_STDERR_BYTES = 64 * 1024;
+
+    private static final ScheduledExecutorService TIMEOUT_SCHEDULER = Executors
+	    .newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "exec-channel-timeout");
+		thread.setDaemon(true);
+		return thread;
+	    });
+
+    private final int maxBufferedOutputBytes;
+
+    public ExecChannelRunner() {
+	this(DEFAULT_MAX_BUFFERED_OUTPUT_BYTES);
+    }
+
+    /**
+     * @param maxBufferedOutputBytes
+     *            Maximum output of a streamed command buffered while the listener or reader has not consumed it
+     */
+    public ExecChannelRunner(int maxBufferedOutputBytes) {
+	this.maxBufferedOutputBytes = maxBufferedOutputBytes;
+    }
+
+    /**
+     * Executes the command and returns its standard output followed by its standard error
+     * 
+     * @param session
+     * @param command
+     * @param timeOutMilliSecs
+     * @return command output
+     * @throws JSchException
+     *             when the channel could not be opened
+     * @throws IOException
+     */
+    public String execute(Session session, String command, long timeOutMilliSecs) throws JSchException, IOException {
+	CommandResult result = run(session, command, timeOutMilliSecs);
+	return result.getStdout() + result.getStderr();
+    }
+
+    /**
+     * Executes the command and returns its output, exit status and timing. Returns exactly when the remote process
+     * exits, or when the time out elapses
+     * 
+     * @param session
+     * @param command
+     * @param timeOutMilliSecs
+     * @return CommandResult instance
+     * @throws JSchException
+     *             when the channel could not be opened
+     * @throws IOException
+     */
+    public CommandResult run(Session session, String command, long timeOutMilliSecs)
+	    throws JSchException, IOException {
+	ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+	ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+	AtomicBoolean isTimedOut = new AtomicBoolean();
+	long startTime = System.currentTimeMillis();
+	ChannelExec channel = createChannel(session, command, stderr);
+	ScheduledFuture<?> timeout = null;
+	long channelOpenMillis = 0;
+	int exitStatus = CommandResult.EXIT_STATUS_UNKNOWN;
+
+	try {
+	    InputStream in = channel.getInputStream();
+	    channel.connect(CHANNEL_CONNECT_TIMEOUT_MILLISECS);
+	    channelOpenMillis = System.currentTimeMillis() - startTime;
+	    timeout = scheduleTimeout(channel, command, timeOutMilliSecs, isTimedOut);
+
+	    byte[] buffer = new byte[READ_BUFFER_SIZE];
+	    int read;
+	    try {
+		while ((read = in.read(buffer)) != -1) {
+		    stdout.write(buffer, 0, read);
+		}
+	    } catch (IOException e) {
+		if (channel.isConnected()) {
+		    throw e;
+		}
+	    }
+	    if (!isTimedOut.get()) {
+		exitStatus = awaitExitStatus(channel::isClosed, channel::getExitStatus,
+			startTime + channelOpenMillis + timeOutMilliSecs);
+	    }
+	} finally {
+	    if (null != timeout) {
+		timeout.cancel(false);
+	    }
+	    channel.disconnect();
+	}
+
+	long executionMillis = System.currentTimeMillis() - startTime - channelOpenMillis;
+	return new CommandResult(command, new String(stdout.toByteArray(), StandardCharsets.UTF_8),
+		new String(stderr.toByteArray(), StandardCharsets.UTF_8), exitStatus, isTimedOut.get(), 0,
+		channelOpenMillis, executionMillis);
+    }
+
+    /**
+     * Waits for the channel to close before reading the exit status, JSch sets the exit status only when the remote
+     * side closes the channel, which may be after the end of the output was read
+     * 
+     * @param isClosed
+     * @param exitStatus
+     * @param deadline
+     * @return exit status, {@link CommandResult#EXIT_STATUS_UNKNOWN} if the channel did not close before the deadline
+     */
+    static int awaitExitStatus(BooleanSupplier isClosed, IntSupplier exitStatus, long deadline) {
+	while (!isClosed.getAsBoolean()) {
+	    if (System.currentTimeMillis() >= deadline) {
+		LOGGER.info("Channel did not close in time, exit status of command is unknown");
+		return CommandResult.EXIT_STATUS_UNKNOWN;
+	    }
+	    try {
+		Thread.sleep(EXIT_STATUS_POLL_INTERVAL_MILLISECS);
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+		return CommandResult.EXIT_STATUS_UNKNOWN;
+	    }
+	}
+	return exitStatus.getAsInt();
+    }
+
+    /**
+     * Executes the command and delivers its standard output line by line while it is produced. The listener is called
+     * on the calling thread, never on the thread of the shared ssh session, so a slow listener does not hold up other
+     * channels of the session. Output the listener did not consume yet is buffered up to a limit; a command producing
+     * output faster than the listener consumes it beyond that limit is stopped. Standard error is not delivered to the
+     * listener, it is logged once the command completed, truncated to a limit.
+     * 
+     * @param session
+     * @param command
+     * @param listener
+     * @param timeOutMilliSecs
+     * @return true if the command ran to completion, false if the listener stopped it, it timed out or its output
+     *         exceeded the buffer limit
+     * @throws JSchException
+     *             when the channel could not be opened
+     * @throws IOException
+     */
+    public boolean execute(Session session, String command, ResponseLineListener listener, long timeOutMilliSecs)
+	    throws JSchException, IOException {
+	ChannelOutputBuffer stderr = new ChannelOutputBuffer(MAX_STDERR_BYTES, null);
+	ChannelExec channel = createChannel(session, command, stderr);
+	ChannelOutputBuffer stdout = new ChannelOutputBuffer(maxBufferedOutputBytes,
+		() -> disconnectOnOverflow(channel, command));
+	channel.setOutputStream(stdout);
+	AtomicBoolean isTimedOut = new AtomicBoolean();
+	ScheduledFuture<?> timeout = null;
+	boolean isStopped = false;
+
+	try {
+	    channel.connect(CHANNEL_CONNECT_TIMEOUT_MILLISECS);
+	    timeout = scheduleTimeout(channel, command, timeOutMilliSecs, isTimedOut);
+	    isStopped = !deliverLines(stdout, listener, isTimedOut);
+	} finally {
+	    if (null != timeout) {
+		timeout.cancel(false);
+	    }
+	    channel.disconnect();
+	}
+
+	logStderr(command, stderr);
+	if (isStopped) {
+	    LOGGER.info("Streaming of command output stopped by listener: {}", command);
+	}
+	return !isStopped && !isTimedOut.get() && !stdout.isOverflowed();
+    }
+
+    /**
+     * Starts the command and returns its standard output as a stream. The command runs until it exits or the stream
+     * is closed, closing the stream early stops the command. Output not read yet is buffered up to a limit, so a slow
+     * reader does not hold up other channels of the shared ssh session; when the limit is exceeded the command is
+     * stopped and reading fails once the buffered output was read. Standard error is logged when the stream is closed,
+     * truncated to a limit.
+     * 
+     * @param session
+     * @param command
+     * @return standard output of the command
+     * @throws JSchException
+     *             when the channel could not be opened
+     * @throws IOException
+     */
+    public InputStream openStream(Session session, final String command) throws JSchException, IOException {
+	final ChannelOutputBuffer stderr = new ChannelOutputBuffer(MAX_STDERR_BYTES, null);
+	final ChannelExec channel = createChannel(session, command, stderr);
+	ChannelOutputBuffer stdout = new ChannelOutputBuffer(maxBufferedOutputBytes,
+		() -> disconnectOnOverflow(channel, command));
+	channel.setOutputStream(stdout);
+	channel.connect(CHANNEL_CONNECT_TIMEOUT_MILLISECS);
+	return new FilterInputStream(stdout.asInputStream()) {
+	    @Override
+	    public void close() throws IOException {
+		try {
+		    super.close();
+		} finally {
+		    channel.disconnect();
+		    logStderr(command, stderr);
+		}
+	    }
+	};
+    }
+
+    /**
+     * Splits the output into lines and hands them to the listener until the output ends, the command timed out or the
+     * listener asks to stop. A last line without line terminator is delivered as well
+     * 
+     * @param output
+     * @param listener
+     * @param isTimedOut
+     * @return false if the listener asked to stop
+     * @throws IOException
+     */
+    static boolean deliverLines(ChannelOutputBuffer output, ResponseLineListener listener, AtomicBoolean isTimedOut)
+	    throws IOException {
+	ByteArrayOutputStream line = new ByteArrayOutputStream();
+	while (true) {
+	    byte[] chunk;
+	    try {
+		chunk = output.poll(READ_WAIT_MILLISECS);
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+		throw new IOException("Interrupted while waiting for command output", e);
+	    }
+	    if (null == chunk) {
+		if (output.isDrained() || isTimedOut.get()) {
+		    break;
+		}
+		continue;
+	    }
+	    int lineStart = 0;
+	    for (int index = 0; index < chunk.length; index++) {
+		if ('\n' == chunk[index]) {
+		    line.write(chunk, lineStart, index - lineStart);
+		    lineStart = index + 1;
+		    if (!listener.onLine(toLine(line))) {
+			return false;
+		    }
+		}
+	    }
+	    line.write(chunk, lineStart, chunk.length - lineStart);
+	}
+	if (output.isOverflowed()) {
+	    LOGGER.error("Command output exceeded the buffer limit of {} bytes", output.getMaxBufferedBytes());
+	}
+	return line.size() == 0 || listener.onLine(toLine(line));
+    }
+
+    private static String toLine(ByteArrayOutputStream line) {
+	byte[] bytes = line.toByteArray();
+	line.reset();
+	int length = bytes.length > 0 && '\r' == bytes[bytes.length - 1] ? bytes.length - 1 : bytes.length;
+	return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static void disconnectOnOverflow(final ChannelExec channel, final String command) {
+	// Called on the session thread, which must not be blocked by closing the channel
+	TIMEOUT_SCHEDULER.execute(() -> {
+	    LOGGER.error("Output of command is not consumed fast enough, closing channel: {}", command);
+	    channel.disconnect();
+	});
+    }
+
+    private static void logStderr(String command, ChannelOutputBuffer stderr) {
+	String error = stderr.drainText();
+	if (!error.isEmpty()) {
+	    LOGGER.info("Error output of command {}{}: {}", command,
+		    stderr.isOverflowed() ? " (truncated to " + MAX_STDERR_BYTES + " bytes)" : "", error);
+	}
+    }
+
+    private static ChannelExec createChannel(Session session, String command, OutputStream stderr)
+	    throws JSchException {
+	ChannelExec channel = (ChannelExec) session.openChannel("exec");
+	channel.setCommand(command);
+	channel.setInputStream(null);
+	channel.setErrStream(stderr, true);
+	return channel;
+    }
+
+    private static ScheduledFuture<?> scheduleTimeout(final ChannelExec channel, final String command,
+	    final long timeOutMilliSecs, final AtomicBoolean isTimedOut) {
+	return TIMEOUT_SCHEDULER.schedule(() -> {
+	    LOGGER.info("Command did not complete within {} ms, closing channel: {}", timeOutMilliSecs, command);
+	    isTimedOut.set(true);
+	    channel.disconnect();
+	}, timeOutMilliSecs, TimeUnit.MILLISECONDS);
+    }
+}
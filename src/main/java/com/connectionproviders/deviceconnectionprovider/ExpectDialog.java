@@ -0,0 +1,82 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Interactive dialog with a device shell: prompts to answer, like password prompts or confirmations, and the output
+ * that ends the dialog, like the shell prompt. All prompts and end patterns are searched for at the same time. The
+ * dialog can be reused for many conversations.
+ */
+public class ExpectDialog {
+
+    private final List<String> patterns = new ArrayList<String>();
+    private final List<String> replies = new ArrayList<String>();
+    private volatile ExpectPatternSet patternSet;
+
+    /**
+     * Answers a prompt each time it shows up
+     * 
+     * @param prompt
+     * @param reply
+     *            Line sent when the prompt shows up
+     * @return this dialog
+     */
+    public synchronized ExpectDialog respond(String prompt, String reply) {
+	patterns.add(prompt);
+	replies.add(null == reply ? "" : reply);
+	patternSet = null;
+	return this;
+    }
+
+    /**
+     * Ends the dialog when one of the patterns shows up
+     * 
+     * @param endPatterns
+     * @return this dialog
+     */
+    public synchronized ExpectDialog until(String... endPatterns) {
+	if (null != endPatterns) {
+	    patterns.addAll(Arrays.asList(endPatterns));
+	    replies.addAll(Arrays.asList(new String[endPatterns.length]));
+	}
+	patternSet = null;
+	return this;
+    }
+
+    /**
+     * @return prompts and end patterns, in the order they were added
+     */
+    synchronized ExpectPatternSet getPatternSet() {
+	if (null == patternSet) {
+	    patternSet = new ExpectPatternSet(patterns);
+	}
+	return patternSet;
+    }
+
+    /**
+     * @param patternIndex
+     * @return reply to the pattern, null if the pattern ends the dialog
+     */
+    synchronized String getReply(int patternIndex) {
+	return replies.get(patternIndex);
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set of literal patterns searched for simultaneously in output arriving character by character. The patterns are
+ * compiled once into an Aho-Corasick automaton, so every output character is looked at once no matter how many
+ * patterns there are. The set is immutable and can be shared; the search state is kept by a {@link Scanner}.
+ */
+public final class ExpectPatternSet {
+
+    private static final int NO_MATCH = -1;
+    private static final int ROOT = 0;
+
+    private final List<String> patterns;
+    private final List<Map<Character, Integer>> transitions = new ArrayList<Map<Character, Integer>>();
+    private final List<Integer> failures = new ArrayList<Integer>();
+    private final List<Integer> matches = new ArrayList<Integer>();
+
+    /**
+     * @param patterns
+     *            Patterns to search for. When several patterns end at the same character, the one given first is
+     *            reported. Null and empty patterns never match
+     */
+    public ExpectPatternSet(List<String> patterns) {
+	this.patterns = Collections.unmodifiableList(new ArrayList<String>(patterns));
+	addNode();
+	for (int i = 0; i < this.patterns.size(); i++) {
+	    String pattern = this.patterns.get(i);
+	    if (null != pattern && !pattern.isEmpty()) {
+		addPattern(pattern, i);
+	    }
+	}
+	linkFailures();
+    }
+
+    /**
+     * @param index
+     * @return pattern at the index, as given when the set was created
+     */
+    public String getPattern(int index) {
+	return patterns.get(index);
+    }
+
+    /**
+     * @return new search state, starting before the first character
+     */
+    public Scanner newScanner() {
+	return new Scanner();
+    }
+
+    private int addNode() {
+	transitions.add(new HashMap<Character, Integer>(4));
+	failures.add(ROOT);
+	matches.add(NO_MATCH);
+	return transitions.size() - 1;
+    }
+
+    private void addPattern(String pattern, int index) {
+	int node = ROOT;
+	for (int i = 0; i < pattern.length(); i++) {
+	    Integer next = transitions.get(node).get(pattern.charAt(i));
+	    if (null == next) {
+		next = addNode();
+		transitions.get(node).put(pattern.charAt(i), next);
+	    }
+	    node = next;
+	}
+	if (NO_MATCH == matches.get(node)) {
+	    matches.set(node, index);
+	}
+    }
+
+    /**
+     * Links every node to the node of its longest proper suffix that is a pattern prefix, and lets each node report
+     * the first pattern ending there, either its own or one of its suffixes
+     */
+    private void linkFailures() {
+	Deque<Integer> queue = new ArrayDeque<Integer>(transitions.get(ROOT).values());
+	while (!queue.isEmpty()) {
+	    int node = queue.poll();
+	    for (Map.Entry<Character, Integer> transition : transitions.get(node).entrySet()) {
+		int child = transition.getValue();
+		int failure = node == ROOT ? ROOT : step(failures.get(node), transition.getKey());
+		failures.set(child, failure);
+		matches.set(child, firstMatch(matches.get(child), matches.get(failure)));
+		queue.add(child);
+	    }
+	}
+    }
+
+    private int step(int node, char c) {
+	while (true) {
+	    Integer next = transitions.get(node).get(c);
+	    if (null != next) {
+		return next;
+	    }
+	    if (ROOT == node) {
+		return ROOT;
+	    }
+	    node = failures.get(node);
+	}
+    }
+
+    private static int firstMatch(int match, int otherMatch) {
+	if (NO_MATCH == match) {
+	    return otherMatch;
+	}
+	return NO_MATCH == otherMatch ? match : Math.min(match, otherMatch);
+    }
+
+    /**
+     * Search state over one stream of output
+     */
+    public final class Scanner {
+
+	private int node = ROOT;
+
+	private Scanner() {
+	}
+
+	/**
+	 * Continues the search with the next output character
+	 * 
+	 * @param c
+	 * @return index of the pattern ending at the character, -1 if none
+	 */
+	public int feed(char c) {
+	    node = step(node, c);
+	    return matches.get(node);
+	}
+
+	/**
+	 * Forgets the characters seen so far, e.g. after a reply was sent to a matched prompt
+	 */
+	public void reset() {
+	    node = ROOT;
+	}
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+/**
+ * Outcome of an {@link ExpectDialog}: the output read, and the end pattern that completed the dialog
+ */
+public class ExpectResult {
+
+    private final String output;
+    private final String matchedPattern;
+
+    public ExpectResult(String output, String matchedPattern) {
+	this.output = output;
+	this.matchedPattern = matchedPattern;
+    }
+
+    /**
+     * @return output read during the dialog, up to and including the end pattern
+     */
+    public String getOutput() {
+	return output;
+    }
+
+    /**
+     * @return end pattern that completed the dialog, null if the dialog timed out
+     */
+    public String getMatchedPattern() {
+	return matchedPattern;
+    }
+
+    public boolean isTimedOut() {
+	return null == matchedPattern;
+    }
+
+    @Override
+    public String toString() {
+	return "ExpectResult [matchedPattern=" + matchedPattern + ", outputLength=" + output.length() + "]";
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.automatics.error.GeneralError;
+import com.automatics.exceptions.FailedTransitionException;
+import com.automatics.zte.constants.Constants;
+import com.automatics.zte.utils.CommonMethods;
+
+/**
+ * Runs {@link ExpectDialog}s over a device shell. Output is scanned as it arrives, so a prompt is answered, or the
+ * dialog ends, as soon as the pattern shows up instead of after a fixed wait.
+ */
+public class ExpectRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExpectRunner.class);
+
+    private static final long DEFAULT_POLL_INTERVAL_MILLISECS = 50;
+    private static final int MAX_REPLIES = 64;
+
+    /**
+     * Shell of a device the dialog is held with
+     */
+    public interface ExpectChannel {
+
+	/**
+	 * Sends a line to the shell
+	 */
+	void write(String line) throws Exception;
+
+	/**
+	 * Reads the output that arrived, waiting at most the given time for some to arrive
+	 */
+	String read(long timeOutMilliSecs) throws Exception;
+    }
+
+    private final long pollIntervalMillis;
+
+    public ExpectRunner(long pollIntervalMillis) {
+	this.pollIntervalMillis = Math.max(1, pollIntervalMillis);
+    }
+
+    /**
+     * Creates an expect runner using the settings from automatics properties
+     * 
+     * @return ExpectRunner instance
+     */
+    public static ExpectRunner fromProperties() {
+	return new ExpectRunner(CommonMethods.getLongProperty(Constants.PROPS_SSH_RESPONSE_POLL_INTERVAL_MILLISEC,
+		DEFAULT_POLL_INTERVAL_MILLISECS));
+    }
+
+    /**
+     * Sends a command and holds the dialog until one of its end patterns shows up
+     * 
+     * @param channel
+     * @param command
+     *            Command starting the dialog, null to only wait for the output of a dialog already started
+     * @param dialog
+     * @param timeOutMilliSecs
+     *            Time to wait for each prompt or end pattern
+     * @return output of the dialog; when it timed out, the output received so far
+     * @throws FailedTransitionException
+     *             when the shell failed, or the dialog kept prompting
+     */
+    public ExpectResult converse(ExpectChannel channel, String command, ExpectDialog dialog, long timeOutMilliSecs) {
+	ExpectPatternSet patternSet = dialog.getPatternSet();
+	ExpectPatternSet.Scanner scanner = patternSet.newScanner();
+	StringBuilder output = new StringBuilder();
+	String unscanned = null;
+	int replyCount = 0;
+	try {
+	    if (null != command) {
+		channel.write(command);
+	    }
+	    long deadline = System.currentTimeMillis() + timeOutMilliSecs;
+	    while (true) {
+		String chunk = unscanned;
+		unscanned = null;
+		if (null == chunk) {
+		    long remaining = deadline - System.currentTimeMillis();
+		    if (remaining <= 0) {
+			LOGGER.info("None of the expected patterns showed up within {} ms", timeOutMilliSecs);
+			return new ExpectResult(output.toString(), null);
+		    }
+		    chunk = channel.read(Math.min(pollIntervalMillis, remaining));
+		    if (null == chunk) {
+			continue;
+		    }
+		}
+		int matchedIndex = -1;
+		int scannedLength = 0;
+		while (scannedLength < chunk.length() && matchedIndex < 0) {
+		    matchedIndex = scanner.feed(chunk.charAt(scannedLength++));
+		}
+		output.append(chunk, 0, scannedLength);
+		if (matchedIndex < 0) {
+		    continue;
+		}
+
+		String reply = dialog.getReply(matchedIndex);
+		if (null == reply) {
+		    return new ExpectResult(output.toString(), patternSet.getPattern(matchedIndex));
+		}
+		if (++replyCount > MAX_REPLIES) {
+		    throw new FailedTransitionException(GeneralError.SSH_CONNECTION_FAILURE,
+			    "Dialog did not end after " + MAX_REPLIES + " replies, last prompt: "
+				    + patternSet.getPattern(matchedIndex));
+		}
+		LOGGER.debug("Answering prompt {}", patternSet.getPattern(matchedIndex));
+		channel.write(reply);
+		scanner.reset();
+		unscanned = scannedLength < chunk.length() ? chunk.substring(scannedLength) : null;
+		deadline = System.currentTimeMillis() + timeOutMilliSecs;
+	    }
+	} catch (FailedTransitionException e) {
+	    throw e;
+	} catch (Exception e) {
+	    throw new FailedTransitionException(GeneralError.SSH_CONNECTION_FAILURE, e);
+	}
+    }
+}
@@ -0,0 +1,253 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.automatics.core.SupportedModelHandler;
+import com.automatics.device.Device;
+import com.automatics.zte.constants.Constants;
+import com.automatics.zte.utils.CommonMethods;
+
+/**
+ * Runs the same command list on many devices concurrently. The number of devices handled at the same time is limited
+ * globally and per subnet, so that a rack behind one switch or NAT gateway is not flooded with connections. Devices
+ * waiting for a free slot are served round robin across subnets, and results are delivered per device as soon as
+ * they complete.
+ */
+public class FleetCommandExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FleetCommandExecutor.class);
+
+    private static final int DEFAULT_MAX_CONCURRENT_DEVICES = 64;
+    private static final int DEFAULT_MAX_CONCURRENT_DEVICES_PER_SUBNET = 16;
+    private static final int DEFAULT_SUBNET_PREFIX_LENGTH = 24;
+    private static final String IPV4_ADDRESS_REGEX = "\\d{1,3}(\\.\\d{1,3}){3}";
+
+    /**
+     * Receives the result of each device as soon as it completes. Called from the worker thread of the device
+     */
+    public interface FleetResultListener {
+	void onResult(DeviceExecutionResult result);
+    }
+
+    /**
+     * Executes the command list on one device
+     */
+    public interface DeviceCommandRunner {
+	String execute(Device device, List<String> commandList);
+    }
+
+    private final DeviceCommandRunner commandRunner;
+    private final int maxConcurrentDevices;
+    private final int maxConcurrentDevicesPerSubnet;
+    private final int subnetPrefixLength;
+    private final ExecutorService workers;
+
+    /* Scheduling state, guarded by this */
+    private final Map<String, Deque<FleetTask>> pendingTasks = new HashMap<String, Deque<FleetTask>>();
+    private final Deque<String> subnetOrder = new ArrayDeque<String>();
+    private final Map<String, Integer> runningPerSubnet = new HashMap<String, Integer>();
+    private int running;
+
+    public FleetCommandExecutor(DeviceConnectionProviderImpl connectionProvider, int maxConcurrentDevices,
+	    int maxConcurrentDevicesPerSubnet, int subnetPrefixLength) {
+	this(connectionProvider::executeFailingOnError, maxConcurrentDevices, maxConcurrentDevicesPerSubnet,
+		subnetPrefixLength);
+    }
+
+    public FleetCommandExecutor(DeviceCommandRunner commandRunner, int maxConcurrentDevices,
+	    int maxConcurrentDevicesPerSubnet, int subnetPrefixLength) {
+	this.commandRunner = commandRunner;
+	this.maxConcurrentDevices = Math.max(1, maxConcurrentDevices);
+	this.maxConcurrentDevicesPerSubnet = Math.max(1, maxConcurrentDevicesPerSubnet);
+	this.subnetPrefixLength = Math.min(32, Math.max(0, subnetPrefixLength));
+	final AtomicInteger threadCount = new AtomicInteger();
+	this.workers = Executors.newCachedThreadPool(runnable -> {
+	    Thread thread = new Thread(runnable, "fleet-executor-" + threadCount.incrementAndGet());
+	    thread.setDaemon(true);
+	    return thread;
+	});
+    }
+
+    /**
+     * Creates a fleet executor using the concurrency limits from automatics properties
+     * 
+     * @param connectionProvider
+     * @return FleetCommandExecutor instance
+     */
+    public static FleetCommandExecutor fromProperties(DeviceConnectionProviderImpl connectionProvider) {
+	return new FleetCommandExecutor(connectionProvider,
+		CommonMethods.getIntProperty(Constants.PROPS_FLEET_MAX_CONCURRENT_DEVICES,
+			DEFAULT_MAX_CONCURRENT_DEVICES),
+		CommonMethods.getIntProperty(Constants.PROPS_FLEET_MAX_CONCURRENT_DEVICES_PER_SUBNET,
+			DEFAULT_MAX_CONCURRENT_DEVICES_PER_SUBNET),
+		CommonMethods.getIntProperty(Constants.PROPS_FLEET_SUBNET_PREFIX_LENGTH, DEFAULT_SUBNET_PREFIX_LENGTH));
+    }
+
+    /**
+     * Starts executing the command list on all devices and returns immediately
+     * 
+     * @param devices
+     * @param commandList
+     * @param listener
+     *            Notified for every device as it completes, may be null
+     * @return handle to consume results and wait for completion
+     */
+    public FleetExecution execute(Collection<? extends Device> devices, List<String> commandList,
+	    FleetResultListener listener) {
+	FleetExecution execution = new FleetExecution(devices.size(), listener);
+	LOGGER.info("Starting fleet execution of {} commands on {} devices", commandList.size(), devices.size());
+	synchronized (this) {
+	    for (Device device : devices) {
+		String subnet = getSubnet(device);
+		Deque<FleetTask> subnetTasks = pendingTasks.get(subnet);
+		if (null == subnetTasks) {
+		    subnetTasks = new ArrayDeque<FleetTask>();
+		    pendingTasks.put(subnet, subnetTasks);
+		    subnetOrder.addLast(subnet);
+		}
+		subnetTasks.addLast(new FleetTask(device, commandList, subnet, execution));
+	    }
+	}
+	dispatch();
+	return execution;
+    }
+
+    /**
+     * Stops the worker threads once all started device executions finished
+     */
+    public void shutdown() {
+	workers.shutdown();
+    }
+
+    /**
+     * Starts pending tasks while global and subnet limits allow, taking one task per subnet in turn
+     */
+    private void dispatch() {
+	List<FleetTask> tasksToStart = new ArrayList<FleetTask>();
+	synchronized (this) {
+	    boolean isTaskStarted = true;
+	    while (isTaskStarted && running < maxConcurrentDevices) {
+		isTaskStarted = false;
+		int subnetCount = subnetOrder.size();
+		for (int index = 0; index < subnetCount && running < maxConcurrentDevices; index++) {
+		    String subnet = subnetOrder.pollFirst();
+		    Deque<FleetTask> subnetTasks = pendingTasks.get(subnet);
+		    Integer subnetRunning = runningPerSubnet.get(subnet);
+		    int activeInSubnet = null == subnetRunning ? 0 : subnetRunning;
+		    if (activeInSubnet < maxConcurrentDevicesPerSubnet) {
+			tasksToStart.add(subnetTasks.pollFirst());
+			runningPerSubnet.put(subnet, activeInSubnet + 1);
+			running++;
+			isTaskStarted = true;
+		    }
+		    if (subnetTasks.isEmpty()) {
+			pendingTasks.remove(subnet);
+		    } else {
+			subnetOrder.addLast(subnet);
+		    }
+		}
+	    }
+	}
+	for (FleetTask task : tasksToStart) {
+	    workers.execute(task);
+	}
+    }
+
+    private void onTaskFinished(String subnet) {
+	synchronized (this) {
+	    running--;
+	    int activeInSubnet = runningPerSubnet.get(subnet) - 1;
+	    if (activeInSubnet == 0) {
+		runningPerSubnet.remove(subnet);
+	    } else {
+		runningPerSubnet.put(subnet, activeInSubnet);
+	    }
+	}
+	dispatch();
+    }
+
+    /**
+     * Gets the subnet of the address the device is connected through. Addresses other than IPv4 form their own group
+     * 
+     * @param device
+     * @return subnet key
+     */
+    private String getSubnet(Device device) {
+	String address = SupportedModelHandler.isNonRDKDevice(device) ? device.getNatAddress()
+		: device.getHostIpAddress();
+	if (null == address || !address.matches(IPV4_ADDRESS_REGEX)) {
+	    return String.valueOf(address);
+	}
+	String[] octets = address.split("\\.");
+	long value = 0;
+	for (String octet : octets) {
+	    value = (value << 8) | (Integer.parseInt(octet) & 0xFF);
+	}
+	long mask = subnetPrefixLength == 0 ? 0 : (0xFFFFFFFFL << (32 - subnetPrefixLength)) & 0xFFFFFFFFL;
+	long network = value & mask;
+	return ((network >> 24) & 0xFF) + "." + ((network >> 16) & 0xFF) + "." + ((network >> 8) & 0xFF) + "."
+		+ (network & 0xFF) + "/" + subnetPrefixLength;
+    }
+
+    private class FleetTask implements Runnable {
+	private final Device device;
+	private final List<String> commandList;
+	private final String subnet;
+	private final FleetExecution execution;
+
+	private FleetTask(Device device, List<String> commandList, String subnet, FleetExecution execution) {
+	    this.device = device;
+	    this.commandList = commandList;
+	    this.subnet = subnet;
+	    this.execution = execution;
+	}
+
+	@Override
+	public void run() {
+	    long startTime = System.currentTimeMillis();
+	    String response = null;
+	    Throwable error = null;
+	    try {
+		response = commandRunner.execute(device, commandList);
+	    } catch (Throwable e) {
+		LOGGER.error("Fleet execution failed on device {}: {}", device.getHostMacAddress(), e.getMessage());
+		error = e;
+	    }
+	    try {
+		execution.complete(
+			new DeviceExecutionResult(device, response, error, startTime, System.currentTimeMillis()));
+	    } finally {
+		onTaskFinished(subnet);
+	    }
+	}
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Handle of a running fleet execution. Per device results can be consumed as they complete, either through the
+ * listener given when starting the execution or by polling this handle, and the caller can wait for the whole fleet to
+ * finish.
+ */
+public class FleetExecution {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FleetExecution.class);
+
+    private final int deviceCount;
+    private final FleetCommandExecutor.FleetResultListener listener;
+    private final CountDownLatch pendingDevices;
+    private final BlockingQueue<DeviceExecutionResult> unconsumedResults = new LinkedBlockingQueue<DeviceExecutionResult>();
+    private final List<DeviceExecutionResult> results;
+
+    FleetExecution(int deviceCount, FleetCommandExecutor.FleetResultListener listener) {
+	this.deviceCount = deviceCount;
+	this.listener = listener;
+	this.pendingDevices = new CountDownLatch(deviceCount);
+	this.results = Collections.synchronizedList(new ArrayList<DeviceExecutionResult>(deviceCount));
+    }
+
+    /**
+     * Waits until all devices of the fleet finished
+     * 
+     * @param timeout
+     * @param unit
+     * @return true if all devices finished within the time out
+     * @throws InterruptedException
+     */
+    public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+	return pendingDevices.await(timeout, unit);
+    }
+
+    /**
+     * Takes the next completed device result that was not consumed yet
+     * 
+     * @param timeout
+     * @param unit
+     * @return next result, or null if none completed within the time out
+     * @throws InterruptedException
+     */
+    public DeviceExecutionResult poll(long timeout, TimeUnit unit) throws InterruptedException {
+	return unconsumedResults.poll(timeout, unit);
+    }
+
+    /**
+     * @return results of all devices completed so far, in completion order
+     */
+    public List<DeviceExecutionResult> getResults() {
+	synchronized (results) {
+	    return new ArrayList<DeviceExecutionResult>(results);
+	}
+    }
+
+    public int getDeviceCount() {
+	return deviceCount;
+    }
+
+    public boolean isDone() {
+	return 0 == pendingDevices.getCount();
+    }
+
+    void complete(DeviceExecutionResult result) {
+	results.add(result);
+	unconsumedResults.add(result);
+	try {
+	    if (null != listener) {
+		listener.onResult(result);
+	    }
+	} catch (Exception e) {
+	    LOGGER.error("Fleet result listener failed for device {}", result.getDevice().getHostMacAddress(), e);
+	} finally {
+	    pendingDevices.countDown();
+	}
+    }
+}
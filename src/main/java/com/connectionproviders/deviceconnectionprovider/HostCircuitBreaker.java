@@ -0,0 +1,268 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.automatics.zte.config.ProviderConfiguration;
+import com.automatics.zte.config.ProviderConfigurationHolder;
+
+/**
+ * Per host circuit breaker for ssh connection attempts. After a number of consecutive failed attempts the host is
+ * considered down and further attempts fail immediately instead of waiting out the retries. While a host is down it is
+ * probed in the background; once the probe reaches it, a single trial connection is let through, and its outcome
+ * decides whether the host is considered up again.
+ */
+public class HostCircuitBreaker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HostCircuitBreaker.class);
+
+    private static final int MAX_PROBE_CONNECT_TIMEOUT_MILLISECS = 3000;
+
+    private static final ScheduledExecutorService PROBE_SCHEDULER = Executors.newScheduledThreadPool(2, runnable -> {
+	Thread thread = new Thread(runnable, "ssh-host-probe");
+	thread.setDaemon(true);
+	return thread;
+    });
+
+    /**
+     * Checks whether a host accepts connections on a port
+     */
+    public interface HostProbe {
+	boolean isReachable(String host, int port);
+    }
+
+    enum State {
+	CLOSED,
+	OPEN,
+	HALF_OPEN
+    }
+
+    private volatile boolean enabled;
+    private volatile int failureThreshold;
+    private volatile long probeIntervalMillis;
+    private final HostProbe probe;
+    private final Map<String, HostState> hostStates = new ConcurrentHashMap<String, HostState>();
+
+    public HostCircuitBreaker(boolean enabled, int failureThreshold, long probeIntervalMillis, HostProbe probe) {
+	this.probe = probe;
+	configure(enabled, failureThreshold, probeIntervalMillis);
+    }
+
+    /**
+     * Creates a circuit breaker using the settings of the provider configuration, probing hosts with a TCP connect.
+     * The breaker follows later changes of the configuration
+     * 
+     * @return HostCircuitBreaker instance
+     */
+    public static HostCircuitBreaker fromProperties() {
+	HostCircuitBreaker breaker = new HostCircuitBreaker(ProviderConfigurationHolder.get());
+	ProviderConfigurationHolder.addListener(breaker::configure);
+	return breaker;
+    }
+
+    private HostCircuitBreaker(ProviderConfiguration configuration) {
+	this(configuration.isSshCircuitBreakerEnabled(), configuration.getSshCircuitBreakerFailureThreshold(),
+		configuration.getSshCircuitBreakerProbeInterval(), (host, port) -> isTcpPortOpen(host, port,
+			(int) Math.min(ProviderConfigurationHolder.get().getSshCircuitBreakerProbeInterval(),
+				MAX_PROBE_CONNECT_TIMEOUT_MILLISECS)));
+    }
+
+    /**
+     * Replaces the breaker settings. Disabling the breaker forgets the failures recorded so far, so hosts considered
+     * down are tried again
+     * 
+     * @param enabled
+     * @param failureThreshold
+     * @param probeIntervalMillis
+     */
+    public void configure(boolean enabled, int failureThreshold, long probeIntervalMillis) {
+	this.failureThreshold = Math.max(1, failureThreshold);
+	this.probeIntervalMillis = probeIntervalMillis;
+	this.enabled = enabled;
+	if (!enabled) {
+	    for (HostState hostState : hostStates.values()) {
+		synchronized (hostState) {
+		    hostState.state = State.CLOSED;
+		    hostState.consecutiveFailures = 0;
+		    hostState.isTrialInProgress = false;
+		}
+	    }
+	    hostStates.clear();
+	}
+    }
+
+    private void configure(ProviderConfiguration configuration) {
+	configure(configuration.isSshCircuitBreakerEnabled(), configuration.getSshCircuitBreakerFailureThreshold(),
+		configuration.getSshCircuitBreakerProbeInterval());
+    }
+
+    /**
+     * Checks whether a connection attempt to the host may be made
+     * 
+     * @param host
+     * @param port
+     * @return false while the host is considered down
+     */
+    public boolean allowRequest(String host, int port) {
+	if (!enabled) {
+	    return true;
+	}
+	HostState hostState = hostStates.get(getKey(host, port));
+	if (null == hostState) {
+	    return true;
+	}
+	synchronized (hostState) {
+	    switch (hostState.state) {
+	    case OPEN:
+		return false;
+	    case HALF_OPEN:
+		if (hostState.isTrialInProgress) {
+		    return false;
+		}
+		hostState.isTrialInProgress = true;
+		return true;
+	    default:
+		return true;
+	    }
+	}
+    }
+
+    /**
+     * Records a successful connection attempt, the host is considered up
+     * 
+     * @param host
+     * @param port
+     */
+    public void recordSuccess(String host, int port) {
+	if (!enabled) {
+	    return;
+	}
+	HostState hostState = hostStates.get(getKey(host, port));
+	if (null != hostState) {
+	    synchronized (hostState) {
+		if (State.CLOSED != hostState.state) {
+		    LOGGER.info("Host {}:{} is reachable again", host, port);
+		}
+		hostState.state = State.CLOSED;
+		hostState.consecutiveFailures = 0;
+		hostState.isTrialInProgress = false;
+	    }
+	}
+    }
+
+    /**
+     * Records a failed connection attempt. Opens the circuit when the failure threshold is reached, or when the trial
+     * attempt after a successful probe failed
+     * 
+     * @param host
+     * @param port
+     */
+    public void recordFailure(String host, int port) {
+	if (!enabled) {
+	    return;
+	}
+	String key = getKey(host, port);
+	HostState hostState = hostStates.computeIfAbsent(key, hostKey -> new HostState());
+	boolean isOpened = false;
+	synchronized (hostState) {
+	    hostState.consecutiveFailures++;
+	    hostState.isTrialInProgress = false;
+	    if (State.HALF_OPEN == hostState.state
+		    || (State.CLOSED == hostState.state && hostState.consecutiveFailures >= failureThreshold)) {
+		hostState.state = State.OPEN;
+		isOpened = true;
+	    }
+	}
+	if (isOpened) {
+	    LOGGER.info("Host {}:{} considered down after {} failed ssh connection attempts, failing fast", host, port,
+		    hostState.consecutiveFailures);
+	    scheduleProbe(host, port, hostState);
+	}
+    }
+
+    /**
+     * @param host
+     * @param port
+     * @return true while the host is considered down
+     */
+    public boolean isOpen(String host, int port) {
+	return State.OPEN == getState(host, port);
+    }
+
+    State getState(String host, int port) {
+	HostState hostState = hostStates.get(getKey(host, port));
+	if (null == hostState) {
+	    return State.CLOSED;
+	}
+	synchronized (hostState) {
+	    return hostState.state;
+	}
+    }
+
+    private void scheduleProbe(final String host, final int port, final HostState hostState) {
+	PROBE_SCHEDULER.schedule(() -> {
+	    boolean isReachable = false;
+	    try {
+		isReachable = probe.isReachable(host, port);
+	    } catch (Exception e) {
+		LOGGER.debug("Probe of {}:{} failed: {}", host, port, e.getMessage());
+	    }
+	    synchronized (hostState) {
+		if (State.OPEN != hostState.state) {
+		    return;
+		}
+		if (isReachable) {
+		    LOGGER.info("Host {}:{} answered probe, allowing a trial ssh connection", host, port);
+		    hostState.state = State.HALF_OPEN;
+		    return;
+		}
+	    }
+	    scheduleProbe(host, port, hostState);
+	}, probeIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static String getKey(String host, int port) {
+	return host + ":" + port;
+    }
+
+    private static boolean isTcpPortOpen(String host, int port, int timeOutMilliSecs) {
+	try (Socket socket = new Socket()) {
+	    socket.connect(new InetSocketAddress(host, port), timeOutMilliSecs);
+	    return true;
+	} catch (IOException e) {
+	    return false;
+	}
+    }
+
+    private static class HostState {
+	private State state = State.CLOSED;
+	private int consecutiveFailures;
+	private boolean isTrialInProgress;
+    }
+}
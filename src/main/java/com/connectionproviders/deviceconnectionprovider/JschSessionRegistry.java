@@ -0,0 +1,256 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.automatics.utils.AutomaticsPropertyUtility;
+import com.automatics.zte.constants.Constants;
+import com.automatics.zte.utils.CommonMethods;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+/**
+ * Keeps one authenticated JSch session per {@link SshEndpoint}. Unlike the interactive shells of
+ * {@link SshSessionPool}, a JSch session is shared by all callers at the same time: every command runs on its own
+ * channel multiplexed over the session, so concurrent callers do not need exclusive access.
+ * 
+ * Host keys are not checked unless configured otherwise, matching the interactive shell connections to the same
+ * devices, whose host keys change with every reflash.
+ */
+public class JschSessionRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JschSessionRegistry.class);
+
+    private static final long DEFAULT_IDLE_TIMEOUT_MILLISECS = 60000;
+    private static final int CONNECT_TIMEOUT_MILLISECS = 30000;
+    private static final int SERVER_ALIVE_INTERVAL_MILLISECS = 15000;
+    private static final String DEFAULT_STRICT_HOST_KEY_CHECKING = "no";
+
+    private static final ScheduledExecutorService EVICTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+	Thread thread = new Thread(runnable, "jsch-session-evictor");
+	thread.setDaemon(true);
+	return thread;
+    });
+
+    private final JSch jsch = new JSch();
+    private final Set<String> identities = ConcurrentHashMap.newKeySet();
+    private final long idleTimeoutMillis;
+    private final String strictHostKeyChecking;
+    private final SessionConnector connector;
+    private final Map<SshEndpoint, SharedSession> sessions = new ConcurrentHashMap<SshEndpoint, SharedSession>();
+
+    /**
+     * Opens and closes the JSch sessions of the registry
+     */
+    interface SessionConnector {
+	Session connect(SshEndpoint endpoint, String password, String privateKeyPath) throws JSchException;
+
+	boolean isConnected(Session session);
+
+	void disconnect(Session session);
+    }
+
+    public JschSessionRegistry(long idleTimeoutMillis) {
+	this(idleTimeoutMillis, DEFAULT_STRICT_HOST_KEY_CHECKING, null);
+    }
+
+    /**
+     * @param idleTimeoutMillis
+     * @param strictHostKeyChecking
+     *            JSch StrictHostKeyChecking value, yes, no or ask
+     * @param knownHostsPath
+     *            Known hosts file the host keys are checked against, may be null
+     */
+    public JschSessionRegistry(long idleTimeoutMillis, String strictHostKeyChecking, String knownHostsPath) {
+	this.idleTimeoutMillis = idleTimeoutMillis;
+	this.strictHostKeyChecking = CommonMethods.isNotNull(strictHostKeyChecking) ? strictHostKeyChecking.trim()
+		: DEFAULT_STRICT_HOST_KEY_CHECKING;
+	this.connector = new JschConnector();
+	if (CommonMethods.isNotNull(knownHostsPath)) {
+	    try {
+		jsch.setKnownHosts(knownHostsPath);
+	    } catch (JSchException e) {
+		LOGGER.error("Could not read known hosts file {}: {}", knownHostsPath, e.getMessage());
+	    }
+	}
+	scheduleEviction();
+    }
+
+    /**
+     * Creates a registry opening its sessions with the given connector, idle sessions are closed by
+     * {@link #closeIdleSessions()} only
+     * 
+     * @param idleTimeoutMillis
+     * @param connector
+     */
+    JschSessionRegistry(long idleTimeoutMillis, SessionConnector connector) {
+	this.idleTimeoutMillis = idleTimeoutMillis;
+	this.strictHostKeyChecking = DEFAULT_STRICT_HOST_KEY_CHECKING;
+	this.connector = connector;
+    }
+
+    private void scheduleEviction() {
+	if (idleTimeoutMillis > 0) {
+	    long sweepInterval = Math.max(1000, idleTimeoutMillis / 2);
+	    EVICTOR.scheduleWithFixedDelay(this::closeIdleSessions, sweepInterval, sweepInterval,
+		    TimeUnit.MILLISECONDS);
+	}
+    }
+
+    /**
+     * Creates a session registry closing sessions after the pool idle time out and checking host keys as configured
+     * in automatics properties
+     * 
+     * @return JschSessionRegistry instance
+     */
+    public static JschSessionRegistry fromProperties() {
+	JschSessionRegistry registry = new JschSessionRegistry(
+		CommonMethods.getLongProperty(Constants.PROPS_SSH_POOL_IDLE_TIMEOUT_MILLISEC,
+			DEFAULT_IDLE_TIMEOUT_MILLISECS),
+		AutomaticsPropertyUtility.getProperty(Constants.PROPS_SSH_STRICT_HOST_KEY_CHECKING),
+		AutomaticsPropertyUtility.getProperty(Constants.PROPS_SSH_KNOWN_HOSTS_PATH));
+	Runtime.getRuntime().addShutdownHook(new Thread(registry::close, "jsch-session-registry-shutdown"));
+	return registry;
+    }
+
+    /**
+     * Gets the connected session for the endpoint, connecting it first when there is none or the previous one was
+     * dropped
+     * 
+     * @param endpoint
+     * @param password
+     *            Password of the endpoint user, may be null when a private key is given
+     * @param privateKeyPath
+     *            Private key file of the endpoint user, may be null
+     * @return connected JSch session
+     * @throws JSchException
+     */
+    public Session getSession(SshEndpoint endpoint, String password, String privateKeyPath) throws JSchException {
+	while (true) {
+	    SharedSession shared = sessions.computeIfAbsent(endpoint, key -> new SharedSession());
+	    synchronized (shared) {
+		// An entry invalidated while waiting for the lock is no longer in the map, a session connected into it
+		// would never be closed
+		if (sessions.get(endpoint) != shared) {
+		    continue;
+		}
+		if (null == shared.session || !connector.isConnected(shared.session)) {
+		    shared.session = connector.connect(endpoint, password, privateKeyPath);
+		}
+		shared.lastUsed = System.currentTimeMillis();
+		return shared.session;
+	    }
+	}
+    }
+
+    /**
+     * Disconnects the session of the endpoint after a failure so that the next caller connects again
+     * 
+     * @param endpoint
+     */
+    public void invalidate(SshEndpoint endpoint) {
+	SharedSession shared = sessions.remove(endpoint);
+	if (null != shared) {
+	    synchronized (shared) {
+		disconnect(shared.session);
+		shared.session = null;
+	    }
+	}
+    }
+
+    /**
+     * Disconnects all sessions
+     */
+    public void close() {
+	for (SshEndpoint endpoint : sessions.keySet()) {
+	    invalidate(endpoint);
+	}
+    }
+
+    /**
+     * Disconnects the sessions not used for the idle time out, their entries stay to be connected again on demand
+     */
+    void closeIdleSessions() {
+	long now = System.currentTimeMillis();
+	for (Map.Entry<SshEndpoint, SharedSession> entry : sessions.entrySet()) {
+	    SharedSession shared = entry.getValue();
+	    synchronized (shared) {
+		if (null != shared.session && now - shared.lastUsed >= idleTimeoutMillis) {
+		    LOGGER.debug("Closing idle SSH session to {}", entry.getKey());
+		    disconnect(shared.session);
+		    shared.session = null;
+		}
+	    }
+	}
+    }
+
+    private void disconnect(Session session) {
+	if (null != session) {
+	    connector.disconnect(session);
+	}
+    }
+
+    private static class SharedSession {
+	private Session session;
+	private long lastUsed;
+    }
+
+    private class JschConnector implements SessionConnector {
+
+	@Override
+	public Session connect(SshEndpoint endpoint, String password, String privateKeyPath) throws JSchException {
+	    LOGGER.info("Opening SSH session to {}", endpoint);
+	    if (CommonMethods.isNotNull(privateKeyPath) && !identities.contains(privateKeyPath)) {
+		synchronized (identities) {
+		    if (!identities.contains(privateKeyPath)) {
+			jsch.addIdentity(privateKeyPath);
+			identities.add(privateKeyPath);
+		    }
+		}
+	    }
+	    Session session = jsch.getSession(endpoint.getUser(), endpoint.getHost(), endpoint.getPort());
+	    if (null != password) {
+		session.setPassword(password);
+	    }
+	    session.setConfig("StrictHostKeyChecking", strictHostKeyChecking);
+	    session.setServerAliveInterval(SERVER_ALIVE_INTERVAL_MILLISECS);
+	    session.connect(CONNECT_TIMEOUT_MILLISECS);
+	    return session;
+	}
+
+	@Override
+	public boolean isConnected(Session session) {
+	    return session.isConnected();
+	}
+
+	@Override
+	public void disconnect(Session session) {
+	    session.disconnect();
+	}
+    }
+}
@@ -0,0 +1,310 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.automatics.zte.constants.Constants;
+import com.automatics.zte.utils.CommonMethods;
+
+/**
+ * Pool of long lived local bash processes executing commands on localhost, so that a command does not pay for forking
+ * and starting a new shell. Commands are written to the standard input of a worker shell and run in a subshell, which
+ * keeps directory and variable changes of one command from leaking into the next. The end of each command is framed
+ * by a unique marker written to both standard output and standard error after the command, followed on standard
+ * output by its exit status.
+ * 
+ * Standard output and standard error of every worker are drained continuously by their own threads, so a command
+ * writing a lot to either stream cannot block on a full pipe. A command that does not complete within its time out
+ * has its worker destroyed and replaced. Output a worker produces outside of a command frame, e.g. from a background
+ * job the command started, is discarded when the worker is returned to the pool and again before its next command,
+ * so that it is never read as the output of another command.
+ */
+public class LocalShellPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalShellPool.class);
+
+    private static final String[] SHELL_COMMAND = { "bash", "--noprofile", "--norc" };
+    private static final String MARKER_PREFIX = "__LOCAL_SHELL_DONE_";
+    private static final String MARKER_SUFFIX = "__";
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final int DEFAULT_POOL_SIZE = 4;
+
+    private final int maxWorkers;
+    private final BlockingQueue<LocalShellWorker> idleWorkers = new LinkedBlockingQueue<LocalShellWorker>();
+    private final AtomicInteger workerCount = new AtomicInteger();
+    private final AtomicLong markerSequence = new AtomicLong();
+    private volatile boolean isClosed;
+
+    public LocalShellPool(int maxWorkers) {
+	this.maxWorkers = Math.max(1, maxWorkers);
+    }
+
+    /**
+     * Creates a local shell pool sized from automatics properties
+     * 
+     * @return LocalShellPool instance
+     */
+    public static LocalShellPool fromProperties() {
+	LocalShellPool pool = new LocalShellPool(
+		CommonMethods.getIntProperty(Constants.PROPS_LOCAL_SHELL_POOL_SIZE, DEFAULT_POOL_SIZE));
+	Runtime.getRuntime().addShutdownHook(new Thread(pool::close, "local-shell-pool-shutdown"));
+	return pool;
+    }
+
+    /**
+     * Executes the command on an idle worker shell, starting one when below the pool size
+     * 
+     * @param command
+     * @param timeOutMilliSecs
+     * @return CommandResult with the standard output, standard error and exit status of the command
+     * @throws IOException
+     *             when no worker shell could be started or none became free within the time out
+     */
+    public CommandResult execute(String command, long timeOutMilliSecs) throws IOException {
+	long startTime = System.currentTimeMillis();
+	LocalShellWorker worker = borrowWorker(startTime + timeOutMilliSecs);
+	long acquireMillis = System.currentTimeMillis() - startTime;
+	boolean isReusable = false;
+
+	try {
+	    String marker = MARKER_PREFIX + markerSequence.incrementAndGet() + MARKER_SUFFIX;
+	    CommandResult result = worker.execute(command, marker, Math.max(1, timeOutMilliSecs - acquireMillis),
+		    acquireMillis);
+	    isReusable = !result.isTimedOut();
+	    return result;
+	} finally {
+	    if (isReusable && !isClosed && worker.isAlive()) {
+		worker.discardPendingOutput();
+		idleWorkers.offer(worker);
+	    } else {
+		discardWorker(worker);
+	    }
+	}
+    }
+
+    /**
+     * Stops all idle worker shells. Workers executing a command are stopped when the command completes
+     */
+    public void close() {
+	isClosed = true;
+	LocalShellWorker worker;
+	while (null != (worker = idleWorkers.poll())) {
+	    discardWorker(worker);
+	}
+    }
+
+    private LocalShellWorker borrowWorker(long deadline) throws IOException {
+	while (true) {
+	    LocalShellWorker worker = idleWorkers.poll();
+	    if (null == worker) {
+		if (workerCount.incrementAndGet() <= maxWorkers) {
+		    try {
+			return new LocalShellWorker();
+		    } catch (IOException e) {
+			workerCount.decrementAndGet();
+			throw e;
+		    }
+		}
+		workerCount.decrementAndGet();
+		try {
+		    worker = idleWorkers.poll(Math.max(0, deadline - System.currentTimeMillis()),
+			    TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+		    Thread.currentThread().interrupt();
+		    throw new IOException("Interrupted while waiting for a local shell", e);
+		}
+		if (null == worker) {
+		    throw new IOException("No local shell became free within the time out");
+		}
+	    }
+	    if (worker.isAlive()) {
+		return worker;
+	    }
+	    discardWorker(worker);
+	}
+    }
+
+    private void discardWorker(LocalShellWorker worker) {
+	worker.destroy();
+	workerCount.decrementAndGet();
+    }
+
+    /**
+     * One long lived bash process with its stream drainers
+     */
+    private static class LocalShellWorker {
+	private final Process process;
+	private final Writer stdin;
+	private final StreamDrainer stdout;
+	private final StreamDrainer stderr;
+
+	private LocalShellWorker() throws IOException {
+	    process = new ProcessBuilder(SHELL_COMMAND).start();
+	    stdin = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+	    stdout = new StreamDrainer(process.getInputStream(), "local-shell-stdout");
+	    stderr = new StreamDrainer(process.getErrorStream(), "local-shell-stderr");
+	    LOGGER.debug("Started local shell worker");
+	}
+
+	private CommandResult execute(String command, String marker, long timeOutMilliSecs, long acquireMillis)
+		throws IOException {
+	    long startTime = System.currentTimeMillis();
+	    long deadline = startTime + timeOutMilliSecs;
+	    discardPendingOutput();
+	    stdin.write("(\n" + command + "\n) < /dev/null; printf '\\n%s:%d\\n' '" + marker
+		    + "' $?; printf '\\n%s\\n' '" + marker + "' >&2\n");
+	    stdin.flush();
+
+	    String[] output = stdout.awaitFrame("\n" + marker + ":", true, deadline);
+	    String[] error = null == output ? null : stderr.awaitFrame("\n" + marker + "\n", false, deadline);
+	    long executionMillis = System.currentTimeMillis() - startTime;
+
+	    if (null == output || null == error) {
+		LOGGER.error("Local command did not complete within {} ms: {}", timeOutMilliSecs, command);
+		return new CommandResult(command, stdout.getPending(), stderr.getPending(),
+			CommandResult.EXIT_STATUS_UNKNOWN, true, acquireMillis, 0, executionMillis);
+	    }
+	    int exitStatus = CommandResult.EXIT_STATUS_UNKNOWN;
+	    try {
+		exitStatus = Integer.parseInt(output[1].trim());
+	    } catch (NumberFormatException e) {
+		LOGGER.error("Unexpected exit status of local command: {}", output[1]);
+	    }
+	    return new CommandResult(command, output[0], error[0], exitStatus, false, acquireMillis, 0,
+		    executionMillis);
+	}
+
+	/**
+	 * Drops output that does not belong to a command frame
+	 */
+	private void discardPendingOutput() {
+	    String output = stdout.getPending();
+	    String error = stderr.getPending();
+	    if (!output.isEmpty() || !error.isEmpty()) {
+		LOGGER.debug("Discarded {} characters of stray local shell output", output.length() + error.length());
+	    }
+	}
+
+	private boolean isAlive() {
+	    return process.isAlive() && !stdout.isEndOfStream() && !stderr.isEndOfStream();
+	}
+
+	private void destroy() {
+	    process.destroyForcibly();
+	}
+    }
+
+    /**
+     * Continuously reads a process stream into a buffer from which command frames are taken
+     */
+    private static class StreamDrainer implements Runnable {
+	private final Reader reader;
+	private final StringBuilder buffer = new StringBuilder();
+	private boolean isEndOfStream;
+
+	private StreamDrainer(InputStream stream, String threadName) {
+	    this.reader = new InputStreamReader(stream, StandardCharsets.UTF_8);
+	    Thread thread = new Thread(this, threadName);
+	    thread.setDaemon(true);
+	    thread.start();
+	}
+
+	@Override
+	public void run() {
+	    char[] chunk = new char[READ_BUFFER_SIZE];
+	    try {
+		int read;
+		while ((read = reader.read(chunk)) != -1) {
+		    synchronized (this) {
+			buffer.append(chunk, 0, read);
+			notifyAll();
+		    }
+		}
+	    } catch (IOException e) {
+		LOGGER.debug("Local shell stream closed: {}", e.getMessage());
+	    }
+	    synchronized (this) {
+		isEndOfStream = true;
+		notifyAll();
+	    }
+	}
+
+	/**
+	 * Waits for the terminator and takes the frame before it out of the buffer
+	 * 
+	 * @param terminator
+	 * @param hasStatusLine
+	 *            Whether the terminator is followed by a value up to the end of its line
+	 * @param deadline
+	 * @return frame content and, when requested, the status value; null if the terminator did not arrive in time
+	 */
+	private synchronized String[] awaitFrame(String terminator, boolean hasStatusLine, long deadline) {
+	    int searchFrom = 0;
+	    while (true) {
+		int terminatorIndex = buffer.indexOf(terminator, searchFrom);
+		if (terminatorIndex >= 0) {
+		    int frameEnd = terminatorIndex + terminator.length();
+		    int statusEnd = hasStatusLine ? buffer.indexOf("\n", frameEnd) : frameEnd;
+		    if (statusEnd >= 0) {
+			String[] frame = { buffer.substring(0, terminatorIndex),
+				buffer.substring(frameEnd, statusEnd) };
+			buffer.delete(0, hasStatusLine ? statusEnd + 1 : statusEnd);
+			return frame;
+		    }
+		} else {
+		    searchFrom = Math.max(0, buffer.length() - terminator.length());
+		}
+		long remaining = deadline - System.currentTimeMillis();
+		if (remaining <= 0 || isEndOfStream) {
+		    return null;
+		}
+		try {
+		    wait(remaining);
+		} catch (InterruptedException e) {
+		    Thread.currentThread().interrupt();
+		    return null;
+		}
+	    }
+	}
+
+	private synchronized String getPending() {
+	    String pending = buffer.toString();
+	    buffer.setLength(0);
+	    return pending;
+	}
+
+	private synchronized boolean isEndOfStream() {
+	    return isEndOfStream;
+	}
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.automatics.error.GeneralError;
+import com.automatics.exceptions.FailedTransitionException;
+import com.jcraft.jsch.Session;
+
+/**
+ * Runs a list of independent commands concurrently, each on its own exec channel of one SSH session, and returns the
+ * responses in the order of the input list. The number of channels open at the same time is limited, since embedded
+ * SSH servers only accept a few sessions per connection.
+ */
+public class ParallelCommandExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelCommandExecutor.class);
+
+    private static final ExecutorService WORKERS = Executors.newCachedThreadPool(runnable -> {
+	Thread thread = new Thread(runnable, "ssh-exec-channel-worker");
+	thread.setDaemon(true);
+	return thread;
+    });
+
+    private final ExecChannelRunner channelRunner;
+    private final int maxChannels;
+
+    public ParallelCommandExecutor(ExecChannelRunner channelRunner, int maxChannels) {
+	this.channelRunner = channelRunner;
+	this.maxChannels = Math.max(1, maxChannels);
+    }
+
+    /**
+     * Executes the commands concurrently
+     * 
+     * @param session
+     *            Connected session shared by all commands
+     * @param commands
+     * @param timeOutMilliSecs
+     *            Time out of each command
+     * @return responses in the order of the commands
+     */
+    public List<String> execute(final Session session, final List<String> commands, final long timeOutMilliSecs) {
+	final String[] responses = new String[commands.size()];
+	final AtomicInteger nextCommand = new AtomicInteger();
+	int workerCount = Math.min(maxChannels, commands.size());
+	List<Future<?>> workers = new ArrayList<Future<?>>(workerCount);
+
+	LOGGER.info("Executing {} commands over {} parallel channels", commands.size(), workerCount);
+	for (int index = 0; index < workerCount; index++) {
+	    workers.add(WORKERS.submit(() -> {
+		int commandIndex;
+		while ((commandIndex = nextCommand.getAndIncrement()) < commands.size()) {
+		    String command = commands.get(commandIndex);
+		    LOGGER.info("Executing command: " + command);
+		    responses[commandIndex] = channelRunner.execute(session, command, timeOutMilliSecs);
+		}
+		return null;
+	    }));
+	}
+
+	Throwable failure = null;
+	for (Future<?> worker : workers) {
+	    try {
+		worker.get();
+	    } catch (ExecutionException e) {
+		failure = e.getCause();
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+		failure = e;
+	    }
+	}
+	if (null != failure) {
+	    LOGGER.error("Exception occurred while executing commands in parallel ", failure);
+	    throw new FailedTransitionException(GeneralError.SSH_CONNECTION_FAILURE, failure);
+	}
+
+	return Arrays.asList(responses);
+    }
+}
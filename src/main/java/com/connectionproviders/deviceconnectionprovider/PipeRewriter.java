@@ -0,0 +1,342 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rewrites the pipelines of a shell command into nested process substitutions, e.g. {@code a | b | c} into
+ * {@code c < <((b) < <(a))}. The command is split into pipelines and pipeline stages by a lexer that knows about
+ * quoting, escaping, command substitution, grouping and list operators, so that {@code ||}, quoted pipes and trailing
+ * {@code &} are kept as they are. Commands using constructs the rewriter cannot handle safely, like here-documents or
+ * {@code |&}, are left unchanged. Rewritten commands are kept in a bounded cache, as the same commands are executed
+ * over and over again.
+ */
+public class PipeRewriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipeRewriter.class);
+
+    private static final String WORD_START_CHARACTERS = ";&|(){}<>";
+
+    private final int cacheSize;
+    private final Map<String, CompiledCommand> cache;
+
+    /**
+     * @param cacheSize
+     *            Number of rewritten commands to keep, 0 to not keep any
+     */
+    public PipeRewriter(int cacheSize) {
+	this.cacheSize = Math.max(0, cacheSize);
+	this.cache = new LinkedHashMap<String, CompiledCommand>(16, 0.75f, true) {
+	    private static final long serialVersionUID = 1L;
+
+	    @Override
+	    protected boolean removeEldestEntry(Map.Entry<String, CompiledCommand> eldest) {
+		return size() > PipeRewriter.this.cacheSize;
+	    }
+	};
+    }
+
+    /**
+     * @param command
+     * @return command with its pipelines replaced by process substitutions, the command itself when it has no pipes or
+     *         cannot be rewritten safely
+     */
+    public String rewrite(String command) {
+	if (null == command || command.indexOf('|') < 0) {
+	    return command;
+	}
+	return compile(command).getRewrittenCommand();
+    }
+
+    /**
+     * Gets the rewritten form of a command, from the cache when the command was rewritten before
+     * 
+     * @param command
+     * @return CompiledCommand instance
+     */
+    public CompiledCommand compile(String command) {
+	if (0 == cacheSize) {
+	    return compileCommand(command);
+	}
+	CompiledCommand compiledCommand;
+	synchronized (cache) {
+	    compiledCommand = cache.get(command);
+	}
+	if (null == compiledCommand) {
+	    compiledCommand = compileCommand(command);
+	    synchronized (cache) {
+		cache.put(command, compiledCommand);
+	    }
+	}
+	return compiledCommand;
+    }
+
+    /**
+     * @return number of rewritten commands in the cache
+     */
+    int getCachedCount() {
+	synchronized (cache) {
+	    return cache.size();
+	}
+    }
+
+    static CompiledCommand compileCommand(String command) {
+	List<Operator> operators = new ArrayList<Operator>();
+	String unsupportedReason = tokenize(command, operators);
+	if (null != unsupportedReason) {
+	    LOGGER.debug("Not rewriting pipes of command, {}: {}", unsupportedReason, command);
+	    return new CompiledCommand(command, command, 0);
+	}
+
+	StringBuilder rewrittenCommand = new StringBuilder(command.length() + 16);
+	List<String> stages = new ArrayList<String>();
+	int pipelineCount = 0;
+	int stageStart = 0;
+	for (Operator operator : operators) {
+	    stages.add(command.substring(stageStart, operator.start));
+	    stageStart = operator.end;
+	    if (operator.isPipe) {
+		continue;
+	    }
+	    if (!appendPipeline(rewrittenCommand, stages)) {
+		return new CompiledCommand(command, command, 0);
+	    }
+	    pipelineCount += stages.size() > 1 ? 1 : 0;
+	    rewrittenCommand.append(command, operator.start, operator.end);
+	    stages.clear();
+	}
+	return new CompiledCommand(command, rewrittenCommand.toString(), pipelineCount);
+    }
+
+    /**
+     * Finds the pipe and list operators outside of quotes, substitutions and groups
+     * 
+     * @param command
+     * @param operators
+     *            List to which the operators are added in the order of the command, ending with an operator for the
+     *            end of the command or the start of a trailing comment
+     * @return reason why the command cannot be rewritten, null if it can
+     */
+    private static String tokenize(String command, List<Operator> operators) {
+	int length = command.length();
+	int depth = 0;
+	boolean isWordStart = true;
+	int i = 0;
+	for (; i < length; i++) {
+	    char c = command.charAt(i);
+	    if ('#' == c && isWordStart) {
+		break;
+	    }
+	    switch (c) {
+	    case '\\':
+		i++;
+		break;
+	    case '\'':
+		i = command.indexOf('\'', i + 1);
+		if (i < 0) {
+		    return "unterminated quote";
+		}
+		break;
+	    case '"':
+	    case '`':
+		i = skipQuoted(command, i);
+		if (i < 0) {
+		    return "unterminated quote";
+		}
+		break;
+	    case '(':
+	    case '{':
+		depth++;
+		break;
+	    case ')':
+	    case '}':
+		if (--depth < 0) {
+		    return "unbalanced parenthesis or brace";
+		}
+		break;
+	    case '<':
+		if (i + 1 < length && '<' == command.charAt(i + 1)) {
+		    if (i + 2 < length && '<' == command.charAt(i + 2)) {
+			i += 2;
+		    } else {
+			return "here-document";
+		    }
+		}
+		break;
+	    case '|':
+		if (0 == depth) {
+		    char next = i + 1 < length ? command.charAt(i + 1) : 0;
+		    if ('&' == next) {
+			return "pipe of standard error";
+		    }
+		    if ('|' == next) {
+			operators.add(new Operator(i, i + 2, false));
+			i++;
+		    } else {
+			operators.add(new Operator(i, i + 1, true));
+		    }
+		}
+		break;
+	    case '&':
+		if (0 == depth && !isRedirection(command, i)) {
+		    boolean isAnd = i + 1 < length && '&' == command.charAt(i + 1);
+		    operators.add(new Operator(i, isAnd ? i + 2 : i + 1, false));
+		    i += isAnd ? 1 : 0;
+		}
+		break;
+	    case ';':
+	    case '\n':
+		if (0 == depth) {
+		    operators.add(new Operator(i, i + 1, false));
+		}
+		break;
+	    default:
+		break;
+	    }
+	    isWordStart = Character.isWhitespace(c) || WORD_START_CHARACTERS.indexOf(c) >= 0;
+	}
+	if (0 != depth) {
+	    return "unbalanced parenthesis or brace";
+	}
+	operators.add(new Operator(Math.min(i, length), length, false));
+	return null;
+    }
+
+    /**
+     * @param command
+     * @param start
+     *            Index of the opening double quote or backtick
+     * @return index of the closing quote, -1 if there is none
+     */
+    private static int skipQuoted(String command, int start) {
+	char quote = command.charAt(start);
+	for (int i = start + 1; i < command.length(); i++) {
+	    char c = command.charAt(i);
+	    if ('\\' == c) {
+		i++;
+	    } else if (quote == c) {
+		return i;
+	    }
+	}
+	return -1;
+    }
+
+    /**
+     * @return true if the ampersand at the index is part of a redirection like {@code 2>&1} or {@code &>}
+     */
+    private static boolean isRedirection(String command, int index) {
+	char previous = index > 0 ? command.charAt(index - 1) : 0;
+	char next = index + 1 < command.length() ? command.charAt(index + 1) : 0;
+	return '>' == previous || '<' == previous || '>' == next;
+    }
+
+    /**
+     * Appends a pipeline, rewritten when it has more than one stage. Whitespace around the pipeline is kept
+     * 
+     * @return false if a stage of the pipeline is empty
+     */
+    private static boolean appendPipeline(StringBuilder rewrittenCommand, List<String> stages) {
+	if (1 == stages.size()) {
+	    rewrittenCommand.append(stages.get(0));
+	    return true;
+	}
+	String first = stages.get(0);
+	String last = stages.get(stages.size() - 1);
+	String nested = null;
+	for (int i = 0; i < stages.size(); i++) {
+	    String stage = stages.get(i).trim();
+	    if (stage.isEmpty()) {
+		return false;
+	    }
+	    if (null == nested) {
+		nested = stage;
+	    } else {
+		nested = (i == stages.size() - 1 ? stage : "(" + stage + ")") + " < <(" + nested + ")";
+	    }
+	}
+	rewrittenCommand.append(first, 0, first.length() - trimLeading(first).length()).append(nested)
+		.append(last, trimTrailing(last).length(), last.length());
+	return true;
+    }
+
+    private static String trimLeading(String text) {
+	int i = 0;
+	while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+	    i++;
+	}
+	return text.substring(i);
+    }
+
+    private static String trimTrailing(String text) {
+	int i = text.length();
+	while (i > 0 && Character.isWhitespace(text.charAt(i - 1))) {
+	    i--;
+	}
+	return text.substring(0, i);
+    }
+
+    private static final class Operator {
+	private final int start;
+	private final int end;
+	private final boolean isPipe;
+
+	private Operator(int start, int end, boolean isPipe) {
+	    this.start = start;
+	    this.end = end;
+	    this.isPipe = isPipe;
+	}
+    }
+
+    /**
+     * Command together with its rewritten form
+     */
+    public static final class CompiledCommand {
+
+	private final String command;
+	private final String rewrittenCommand;
+	private final int rewrittenPipelineCount;
+
+	CompiledCommand(String command, String rewrittenCommand, int rewrittenPipelineCount) {
+	    this.command = command;
+	    this.rewrittenCommand = rewrittenCommand;
+	    this.rewrittenPipelineCount = rewrittenPipelineCount;
+	}
+
+	public String getCommand() {
+	    return command;
+	}
+
+	public String getRewrittenCommand() {
+	    return rewrittenCommand;
+	}
+
+	/**
+	 * @return number of pipelines replaced by process substitutions, 0 if the command was left unchanged
+	 */
+	public int getRewrittenPipelineCount() {
+	    return rewrittenPipelineCount;
+	}
+    }
+}
@@ -0,0 +1,229 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.automatics.constants.AutomaticsConstants;
+import com.automatics.providers.connection.SshConnection;
+import com.automatics.utils.AutomaticsPropertyUtility;
+import com.automatics.zte.constants.Constants;
+import com.automatics.zte.utils.CommandClassifier;
+import com.automatics.zte.utils.CommonMethods;
+
+/**
+ * Detects when the response of a command sent over an interactive ssh shell is complete, so that the response can be
+ * returned as soon as the command finished instead of after the full response wait time. The wait time is kept as an
+ * upper bound for commands that do not complete.
+ * 
+ * In {@link Mode#SENTINEL} mode an echo of a unique end marker is appended to the command, and the response is
+ * complete once the marker shows up in the output. The marker is split by an empty quote in the command itself so that
+ * the echo of the typed command line never matches. In {@link Mode#PROMPT} mode the response is complete once its
+ * last line matches the shell prompt. {@link Mode#TIMEOUT} keeps waiting for the full response wait time.
+ */
+public class ResponseCompletionDetector {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResponseCompletionDetector.class);
+
+    private static final String MARKER_PREFIX = "__CMD_DONE_";
+    private static final String MARKER_SUFFIX = "__";
+    private static final long DEFAULT_POLL_INTERVAL_MILLISECS = 50;
+    static final String DEFAULT_PROMPT_REGEX = "[#$>]\\s*$";
+
+    private static final AtomicLong MARKER_SEQUENCE = new AtomicLong();
+
+    public enum Mode {
+	TIMEOUT,
+	SENTINEL,
+	PROMPT
+    }
+
+    private final Mode mode;
+    private final long pollIntervalMillis;
+    private final Pattern promptPattern;
+
+    public ResponseCompletionDetector(Mode mode, long pollIntervalMillis, String promptRegex) {
+	this.mode = mode;
+	this.pollIntervalMillis = Math.max(1, pollIntervalMillis);
+	this.promptPattern = Pattern.compile(promptRegex);
+    }
+
+    /**
+     * Creates a detector using the completion settings from automatics properties
+     * 
+     * @return ResponseCompletionDetector instance
+     */
+    public static ResponseCompletionDetector fromProperties() {
+	Mode mode = Mode.TIMEOUT;
+	String modeInString = AutomaticsPropertyUtility.getProperty(Constants.PROPS_SSH_RESPONSE_COMPLETION_MODE);
+	if (CommonMethods.isNotNull(modeInString)) {
+	    try {
+		mode = Mode.valueOf(modeInString.trim().toUpperCase());
+	    } catch (IllegalArgumentException e) {
+		LOGGER.error("Invalid value for field: {}, {}", Constants.PROPS_SSH_RESPONSE_COMPLETION_MODE,
+			modeInString);
+	    }
+	}
+	String promptRegex = AutomaticsPropertyUtility.getProperty(Constants.PROPS_SSH_PROMPT_REGEX);
+	return new ResponseCompletionDetector(mode,
+		CommonMethods.getLongProperty(Constants.PROPS_SSH_RESPONSE_POLL_INTERVAL_MILLISEC,
+			DEFAULT_POLL_INTERVAL_MILLISECS),
+		CommonMethods.isNotNull(promptRegex) ? promptRegex : DEFAULT_PROMPT_REGEX);
+    }
+
+    public Mode getMode() {
+	return mode;
+    }
+
+    /**
+     * Creates a new end marker for a command
+     * 
+     * @return marker, or null when the detector does not use markers
+     */
+    public String newMarker() {
+	return Mode.SENTINEL == mode ? MARKER_PREFIX + MARKER_SEQUENCE.incrementAndGet() + MARKER_SUFFIX : null;
+    }
+
+    /**
+     * Appends the echo of the end marker to the command, in front of a trailing comment so that the comment does not
+     * swallow it. A trailing new line of the command is kept at the end
+     * 
+     * @param command
+     * @param marker
+     *            Marker from {@link #newMarker()}, the command is returned unchanged when null
+     * @return command to send
+     */
+    public String decorate(String command, String marker) {
+	if (null == marker) {
+	    return command;
+	}
+	String newLine = AutomaticsConstants.EMPTY_STRING;
+	String commandToDecorate = command;
+	if (commandToDecorate.endsWith(Constants.NEW_LINE)) {
+	    newLine = Constants.NEW_LINE;
+	    commandToDecorate = commandToDecorate.substring(0, commandToDecorate.length() - 1);
+	}
+	String commandBody = getCommandBody(commandToDecorate);
+	String comment = commandToDecorate.substring(commandBody.length());
+	return commandBody + getMarkerEcho(commandBody, marker) + comment + newLine;
+    }
+
+    /**
+     * Reads the response of a command sent with {@link #decorate(String, String)}, returning as soon as it is complete
+     * or when the time out elapses
+     * 
+     * @param conn
+     * @param command
+     *            Command as given before decoration
+     * @param marker
+     *            Marker of the command, null when no marker was appended
+     * @param timeOutMilliSecs
+     *            Upper bound of the wait
+     * @return response without the end marker
+     * @throws Exception
+     */
+    public String readResponse(SshConnection conn, String command, String marker, long timeOutMilliSecs)
+	    throws Exception {
+	return readResponse(conn::getSettopResponse, command, marker, timeOutMilliSecs);
+    }
+
+    String readResponse(ResponseReader reader, String command, String marker, long timeOutMilliSecs)
+	    throws Exception {
+	if (Mode.TIMEOUT == mode) {
+	    return reader.read(timeOutMilliSecs);
+	}
+
+	StringBuilder response = new StringBuilder();
+	long startTime = System.currentTimeMillis();
+	long deadline = startTime + timeOutMilliSecs;
+	int markerIndex = -1;
+	boolean isComplete = false;
+
+	while (!isComplete) {
+	    long remaining = deadline - System.currentTimeMillis();
+	    if (remaining <= 0) {
+		LOGGER.info("Response not complete within {} ms, returning output received so far", timeOutMilliSecs);
+		break;
+	    }
+	    int checkedLength = response.length();
+	    String chunk = reader.read(Math.min(pollIntervalMillis, remaining));
+	    if (null == chunk || chunk.isEmpty()) {
+		continue;
+	    }
+	    response.append(chunk);
+
+	    if (null != marker) {
+		markerIndex = response.indexOf(marker, Math.max(0, checkedLength - marker.length()));
+		isComplete = markerIndex >= 0;
+	    } else {
+		isComplete = isPromptAtEnd(response);
+	    }
+	}
+	LOGGER.debug("Response read in {} ms", System.currentTimeMillis() - startTime);
+
+	return null == marker ? response.toString() : removeMarker(response, command, marker, markerIndex);
+    }
+
+    private boolean isPromptAtEnd(StringBuilder response) {
+	int lastLineStart = response.lastIndexOf(Constants.NEW_LINE) + 1;
+	return promptPattern.matcher(response.subSequence(lastLineStart, response.length())).find();
+    }
+
+    /**
+     * Removes the marker output line and everything after it, and the marker echo from the echoed command line
+     */
+    private static String removeMarker(StringBuilder response, String command, String marker, int markerIndex) {
+	if (markerIndex >= 0) {
+	    int markerLineStart = response.lastIndexOf(Constants.NEW_LINE, markerIndex) + 1;
+	    response.setLength(markerLineStart);
+	}
+	String commandLine = command.endsWith(Constants.NEW_LINE) ? command.substring(0, command.length() - 1)
+		: command;
+	return response.toString().replace(getMarkerEcho(getCommandBody(commandLine), marker),
+		AutomaticsConstants.EMPTY_STRING);
+    }
+
+    /**
+     * @param command
+     * @return command without its trailing comment and the white space in front of it
+     */
+    private static String getCommandBody(String command) {
+	int commentStart = CommandClassifier.findCommentStart(command);
+	if (commentStart < 0) {
+	    return command;
+	}
+	int bodyEnd = commentStart;
+	while (bodyEnd > 0 && Character.isWhitespace(command.charAt(bodyEnd - 1))) {
+	    bodyEnd--;
+	}
+	return command.substring(0, bodyEnd);
+    }
+
+    private static String getMarkerEcho(String command, String marker) {
+	String trimmedCommand = command.trim();
+	String separator = trimmedCommand.isEmpty() || trimmedCommand.endsWith("&") || trimmedCommand.endsWith(";")
+		? " "
+		: "; ";
+	String markerBody = marker.substring(MARKER_PREFIX.length());
+	return separator + "echo " + MARKER_PREFIX + "\"\"" + markerBody;
+    }
+}
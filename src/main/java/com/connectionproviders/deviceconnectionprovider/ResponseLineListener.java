@@ -0,0 +1,33 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+/**
+ * Receives the output of a streamed command execution one line at a time, as the remote command produces it.
+ */
+public interface ResponseLineListener {
+
+    /**
+     * Called for every output line
+     * 
+     * @param line
+     *            Output line without line terminator
+     * @return true to keep receiving output, false to stop the command
+     */
+    boolean onLine(String line);
+}
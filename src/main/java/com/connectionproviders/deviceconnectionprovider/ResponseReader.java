@@ -0,0 +1,33 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+/**
+ * Source of the output of an interactive ssh shell
+ */
+interface ResponseReader {
+
+    /**
+     * Reads the output that arrived, waiting at most the given time for some to arrive
+     * 
+     * @param timeOutMilliSecs
+     * @return output read, empty or null if none arrived in time
+     * @throws Exception
+     */
+    String read(long timeOutMilliSecs) throws Exception;
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.automatics.zte.config.ProviderConfiguration;
+import com.automatics.zte.config.ProviderConfigurationHolder;
+
+/**
+ * Exponential backoff with jitter between ssh connection attempts. The wait before retry n is
+ * initialDelay * multiplier^(n-1), capped at the maximum delay, of which the jitter fraction is randomized so that
+ * threads retrying the same device do not reconnect in lock step.
+ */
+public class RetryBackoffPolicy {
+
+    private volatile long initialDelayMillis;
+    private volatile long maxDelayMillis;
+    private volatile double multiplier;
+    private volatile double jitterFactor;
+
+    public RetryBackoffPolicy(long initialDelayMillis, long maxDelayMillis, double multiplier, double jitterFactor) {
+	configure(initialDelayMillis, maxDelayMillis, multiplier, jitterFactor);
+    }
+
+    private RetryBackoffPolicy(ProviderConfiguration configuration) {
+	configure(configuration);
+    }
+
+    /**
+     * Creates a backoff policy using the retry settings of the provider configuration, following later changes of
+     * the configuration
+     * 
+     * @return RetryBackoffPolicy instance
+     */
+    public static RetryBackoffPolicy fromProperties() {
+	RetryBackoffPolicy policy = new RetryBackoffPolicy(ProviderConfigurationHolder.get());
+	ProviderConfigurationHolder.addListener(policy::configure);
+	return policy;
+    }
+
+    /**
+     * Replaces the retry settings, affecting delays computed from now on
+     * 
+     * @param initialDelayMillis
+     * @param maxDelayMillis
+     * @param multiplier
+     * @param jitterFactor
+     */
+    public void configure(long initialDelayMillis, long maxDelayMillis, double multiplier, double jitterFactor) {
+	this.initialDelayMillis = Math.max(0, initialDelayMillis);
+	this.maxDelayMillis = Math.max(this.initialDelayMillis, maxDelayMillis);
+	this.multiplier = Math.max(1.0, multiplier);
+	this.jitterFactor = Math.min(1.0, Math.max(0.0, jitterFactor));
+    }
+
+    private void configure(ProviderConfiguration configuration) {
+	configure(configuration.getSshRetryInitialDelay(), configuration.getSshRetryMaxDelay(),
+		configuration.getSshRetryBackoffMultiplier(), configuration.getSshRetryJitterFactor());
+    }
+
+    /**
+     * Gets the time to wait after the given failed attempt
+     * 
+     * @param failedAttempt
+     *            Number of the attempt that failed, starting at 1
+     * @return wait time in milliseconds
+     */
+    public long getDelayMillis(int failedAttempt) {
+	double delay = initialDelayMillis * Math.pow(multiplier, Math.max(0, failedAttempt - 1));
+	long cappedDelay = (long) Math.min(delay, maxDelayMillis);
+	long jitter = (long) (cappedDelay * jitterFactor * ThreadLocalRandom.current().nextDouble());
+	return cappedDelay - jitter;
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.automatics.providers.connection.SshConnection;
+import com.automatics.utils.AutomaticsPropertyUtility;
+import com.automatics.zte.constants.Constants;
+import com.automatics.zte.utils.CommonMethods;
+
+/**
+ * Removes the security banner shown at login from the output of ssh connections. The banner is read and dropped once,
+ * right after the connection is set up, so command responses do not have to be searched for it. Reading stops early
+ * when the shell prompt shows up or no output arrives, so devices without banner do not wait for the full wait time.
+ * When the banner did not show up completely, the search continues in the first response read from the connection.
+ * The text ending the banner can be configured per device model.
+ */
+public class SecurityBannerFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SecurityBannerFilter.class);
+
+    static final long DEFAULT_BANNER_WAIT_MILLISECS = 2000;
+    private static final long POLL_INTERVAL_MILLISECS = 100;
+    private static final long FIRST_OUTPUT_WAIT_MILLISECS = 500;
+    private static final String DEFAULT_MODEL_KEY = "";
+    private static final Pattern MARKER_SEPARATOR = Pattern.compile("\\|");
+
+    private final Function<String, String> propertyLookup;
+    private final long bannerWaitMillis;
+    private final Pattern promptPattern;
+    private final Map<String, List<String>> markersByModel = new ConcurrentHashMap<String, List<String>>();
+    private final Map<Object, BannerMatcher> pendingMatchers = Collections
+	    .synchronizedMap(new WeakHashMap<Object, BannerMatcher>());
+
+    /**
+     * @param propertyLookup
+     *            Returns the configured value of a property, null if not configured
+     * @param bannerWaitMillis
+     *            Time to wait for the banner when a connection is set up
+     */
+    public SecurityBannerFilter(Function<String, String> propertyLookup, long bannerWaitMillis) {
+	this.propertyLookup = propertyLookup;
+	this.bannerWaitMillis = Math.max(0, bannerWaitMillis);
+	String promptRegex = propertyLookup.apply(Constants.PROPS_SSH_PROMPT_REGEX);
+	this.promptPattern = Pattern.compile(CommonMethods.isNotNull(promptRegex) ? promptRegex
+		: ResponseCompletionDetector.DEFAULT_PROMPT_REGEX);
+    }
+
+    /**
+     * Creates a banner filter using the settings from automatics properties
+     * 
+     * @return SecurityBannerFilter instance
+     */
+    public static SecurityBannerFilter fromProperties() {
+	return new SecurityBannerFilter(AutomaticsPropertyUtility::getProperty,
+		CommonMethods.getLongProperty(Constants.PROPS_SSH_BANNER_WAIT_MILLISEC, DEFAULT_BANNER_WAIT_MILLISECS));
+    }
+
+    /**
+     * Reads the login output of a new connection until the end of the banner, until the prompt shows up, until the
+     * output stops or does not start, or until the wait time elapses
+     * 
+     * @param conn
+     * @param model
+     *            Model of the device, null if not known
+     */
+    public void consumeBanner(SshConnection conn, String model) {
+	consumeBanner(conn, conn::getSettopResponse, model);
+    }
+
+    /**
+     * @param connectionKey
+     *            Connection the output is read from, identifying it in {@link #strip(Object, String)}
+     * @param reader
+     *            Reads the output of the connection
+     * @param model
+     *            Model of the device, null if not known
+     */
+    void consumeBanner(Object connectionKey, ResponseReader reader, String model) {
+	BannerMatcher matcher = new BannerMatcher(getMarkers(model));
+	long startTime = System.currentTimeMillis();
+	long deadline = startTime + bannerWaitMillis;
+	boolean isOutputReceived = false;
+	StringBuilder lastLine = new StringBuilder();
+	try {
+	    long remaining;
+	    while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+		String chunk = reader.read(Math.min(POLL_INTERVAL_MILLISECS, remaining));
+		if (null == chunk || chunk.isEmpty()) {
+		    if (isOutputReceived || System.currentTimeMillis() - startTime >= FIRST_OUTPUT_WAIT_MILLISECS) {
+			break;
+		    }
+		    continue;
+		}
+		isOutputReceived = true;
+		if (matcher.feed(chunk) >= 0) {
+		    LOGGER.debug("Security banner consumed at connection setup");
+		    return;
+		}
+		int lineEnd = chunk.lastIndexOf(Constants.NEW_LINE);
+		if (lineEnd >= 0) {
+		    lastLine.setLength(0);
+		}
+		lastLine.append(chunk, lineEnd + 1, chunk.length());
+		if (promptPattern.matcher(lastLine).find()) {
+		    LOGGER.debug("Prompt shown before the end of the security banner");
+		    break;
+		}
+	    }
+	} catch (Exception e) {
+	    LOGGER.debug("Failed to read login output: {}", e.getMessage());
+	}
+	pendingMatchers.put(connectionKey, matcher);
+    }
+
+    /**
+     * Removes the rest of the banner from the first response of a connection whose banner was not consumed completely
+     * at setup. Later responses are returned unchanged
+     * 
+     * @param conn
+     * @param response
+     * @return response without banner
+     */
+    public String strip(SshConnection conn, String response) {
+	return strip((Object) conn, response);
+    }
+
+    /**
+     * @param connectionKey
+     *            Connection passed to {@link #consumeBanner(Object, ResponseReader, String)}
+     * @param response
+     * @return response without banner
+     */
+    String strip(Object connectionKey, String response) {
+	BannerMatcher matcher = pendingMatchers.remove(connectionKey);
+	if (null == matcher || null == response) {
+	    return response;
+	}
+	int bannerEnd = matcher.feed(response);
+	return bannerEnd < 0 ? response : response.substring(bannerEnd);
+    }
+
+    /**
+     * @param model
+     * @return texts ending the banner of the device model, falling back to the texts configured for all models
+     */
+    List<String> getMarkers(String model) {
+	return markersByModel.computeIfAbsent(null == model ? DEFAULT_MODEL_KEY : model, this::readMarkers);
+    }
+
+    private List<String> readMarkers(String model) {
+	String value = DEFAULT_MODEL_KEY.equals(model) ? null
+		: propertyLookup.apply(Constants.PROPS_SSH_BANNER_END_MARKERS + "." + model);
+	if (CommonMethods.isNull(value)) {
+	    value = propertyLookup.apply(Constants.PROPS_SSH_BANNER_END_MARKERS);
+	}
+	if (CommonMethods.isNull(value)) {
+	    return Collections.singletonList(Constants.END_OF_SSH_CONNECTION_PRIVACY_MESSAGE);
+	}
+	List<String> markers = new ArrayList<String>();
+	for (String marker : MARKER_SEPARATOR.split(value)) {
+	    if (CommonMethods.isNotNull(marker)) {
+		markers.add(marker.trim());
+	    }
+	}
+	return markers;
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import com.automatics.constants.AutomaticsConstants;
+
+/**
+ * Identifies the target of an SSH session by host, port and user. Sessions opened with the default credentials
+ * configured in automatics core are keyed with an empty user.
+ */
+public final class SshEndpoint {
+
+    private final String host;
+    private final int port;
+    private final String user;
+
+    public SshEndpoint(String host, int port, String user) {
+	this.host = host;
+	this.port = port;
+	this.user = null == user ? AutomaticsConstants.EMPTY_STRING : user;
+    }
+
+    public String getHost() {
+	return host;
+    }
+
+    public int getPort() {
+	return port;
+    }
+
+    public String getUser() {
+	return user;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+	if (this == other) {
+	    return true;
+	}
+	if (!(other instanceof SshEndpoint)) {
+	    return false;
+	}
+	SshEndpoint endpoint = (SshEndpoint) other;
+	return port == endpoint.port && user.equals(endpoint.user)
+		&& (null == host ? null == endpoint.host : host.equals(endpoint.host));
+    }
+
+    @Override
+    public int hashCode() {
+	int result = null == host ? 0 : host.hashCode();
+	result = 31 * result + port;
+	return 31 * result + user.hashCode();
+    }
+
+    @Override
+    public String toString() {
+	return (user.isEmpty() ? AutomaticsConstants.EMPTY_STRING : user + "@") + host + ":" + port;
+    }
+}
@@ -0,0 +1,468 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.automatics.error.GeneralError;
+import com.automatics.exceptions.FailedTransitionException;
+import com.automatics.providers.connection.SshConnection;
+import com.automatics.zte.config.ProviderConfiguration;
+import com.automatics.zte.config.ProviderConfigurationHolder;
+
+/**
+ * Keyed pool of authenticated SSH sessions. Sessions are kept per {@link SshEndpoint} so that consecutive commands to
+ * the same device reuse the TCP connection, key exchange and authentication of an earlier command instead of paying
+ * for a new handshake every time.
+ * 
+ * A session is handed to one caller at a time. Callers must give it back with {@link #release(SshEndpoint, Object)}
+ * after a successful exchange, or with {@link #invalidate(SshEndpoint, Object)} when the exchange failed or left the
+ * session in a state the next caller must not see, so that such a session is never handed out again. Before an idle
+ * session is handed out again it is checked with the {@link SessionHandler}: for interactive shells this reads away
+ * output left over from the previous caller and proves that the shell answers. Sessions that stay unused for longer
+ * than the idle timeout are closed in the background.
+ * 
+ * @param <C>
+ *            Type of the pooled sessions
+ */
+public class SshSessionPool<C> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SshSessionPool.class);
+
+    private static final ScheduledExecutorService EVICTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+	Thread thread = new Thread(runnable, "ssh-session-pool-evictor");
+	thread.setDaemon(true);
+	return thread;
+    });
+
+    private final SessionHandler<C> handler;
+    private volatile boolean enabled;
+    private volatile int maxSessionsPerHost;
+    private volatile long idleTimeoutMillis;
+    private volatile long validationTimeoutMillis;
+    private volatile long borrowWaitMillis;
+    private ScheduledFuture<?> evictionTask;
+
+    private final Map<SshEndpoint, HostSessions<C>> hostSessions =
+	    new ConcurrentHashMap<SshEndpoint, HostSessions<C>>();
+
+    /**
+     * Creates the session used by the pool when no idle session is available
+     */
+    public interface SessionFactory<C> {
+	C create();
+    }
+
+    /**
+     * Session type specific operations of the pool
+     */
+    public interface SessionHandler<C> {
+
+	/**
+	 * Makes an idle session ready to be handed out again
+	 * 
+	 * @param session
+	 * @param timeoutMillis
+	 *            Upper bound of the wait for the session to answer
+	 * @return true if the session can be used, false to close it
+	 */
+	boolean prepareForReuse(C session, long timeoutMillis);
+
+	void close(C session);
+    }
+
+    public SshSessionPool(SessionHandler<C> handler, boolean enabled, int maxSessionsPerHost, long idleTimeoutMillis,
+	    long validationTimeoutMillis, long borrowWaitMillis) {
+	this.handler = handler;
+	configure(enabled, maxSessionsPerHost, idleTimeoutMillis, validationTimeoutMillis, borrowWaitMillis);
+    }
+
+    private SshSessionPool(SessionHandler<C> handler, ProviderConfiguration configuration) {
+	this.handler = handler;
+	configure(configuration);
+    }
+
+    /**
+     * Creates a pool of interactive ssh shells using the pool settings of the provider configuration, following later
+     * changes of the configuration
+     * 
+     * @return SshSessionPool instance
+     */
+    public static SshSessionPool<SshConnection> fromProperties() {
+	SshSessionPool<SshConnection> pool = new SshSessionPool<SshConnection>(new ShellSessionHandler(),
+		ProviderConfigurationHolder.get());
+	ProviderConfigurationHolder.addListener(pool::configure);
+	Runtime.getRuntime().addShutdownHook(new Thread(pool::close, "ssh-session-pool-shutdown"));
+	return pool;
+    }
+
+    /**
+     * Replaces the pool settings. Sessions in use are not affected; a lowered session limit is reached as sessions are
+     * given back. Disabling the pool closes its idle sessions, and sessions given back afterwards are closed
+     * 
+     * @param enabled
+     * @param maxSessionsPerHost
+     * @param idleTimeoutMillis
+     * @param validationTimeoutMillis
+     * @param borrowWaitMillis
+     */
+    public synchronized void configure(boolean enabled, int maxSessionsPerHost, long idleTimeoutMillis,
+	    long validationTimeoutMillis, long borrowWaitMillis) {
+	boolean isEvictionChanged = enabled != this.enabled || idleTimeoutMillis != this.idleTimeoutMillis
+		|| null == evictionTask;
+	this.enabled = enabled;
+	this.maxSessionsPerHost = Math.max(1, maxSessionsPerHost);
+	this.idleTimeoutMillis = idleTimeoutMillis;
+	this.validationTimeoutMillis = validationTimeoutMillis;
+	this.borrowWaitMillis = borrowWaitMillis;
+
+	if (isEvictionChanged) {
+	    if (null != evictionTask) {
+		evictionTask.cancel(false);
+		evictionTask = null;
+	    }
+	    if (enabled && idleTimeoutMillis > 0) {
+		long sweepInterval = Math.max(1000, idleTimeoutMillis / 2);
+		evictionTask = EVICTOR.scheduleWithFixedDelay(this::evictIdleSessions, sweepInterval, sweepInterval,
+			TimeUnit.MILLISECONDS);
+	    }
+	}
+	if (!enabled) {
+	    close();
+	}
+	for (HostSessions<C> sessions : hostSessions.values()) {
+	    synchronized (sessions) {
+		sessions.notifyAll();
+	    }
+	}
+    }
+
+    private void configure(ProviderConfiguration configuration) {
+	configure(configuration.isSshPoolEnabled(), configuration.getSshPoolMaxSessionsPerHost(),
+		configuration.getSshPoolIdleTimeout(), configuration.getSshPoolValidationTimeout(),
+		configuration.getSshPoolBorrowWait());
+    }
+
+    /**
+     * Hands out an idle session for the endpoint, or creates one when the endpoint is below its session limit. When
+     * the limit is reached, waits for another caller to return a session.
+     * 
+     * @param endpoint
+     * @param factory
+     *            Used to open a new session
+     * @return session owned by the caller until released or invalidated
+     */
+    public C borrow(SshEndpoint endpoint, SessionFactory<C> factory) {
+	if (!enabled) {
+	    return factory.create();
+	}
+
+	HostSessions<C> sessions = hostSessions.computeIfAbsent(endpoint, key -> new HostSessions<C>());
+	long deadline = System.currentTimeMillis() + borrowWaitMillis;
+
+	while (true) {
+	    PooledSession<C> candidate = null;
+	    synchronized (sessions) {
+		candidate = sessions.idle.pollFirst();
+		if (null == candidate) {
+		    if (sessions.total < maxSessionsPerHost) {
+			sessions.total++;
+		    } else {
+			long remaining = deadline - System.currentTimeMillis();
+			if (remaining <= 0) {
+			    throw new FailedTransitionException(GeneralError.SSH_CONNECTION_FAILURE,
+				    "Timed out waiting for a free SSH session to " + endpoint);
+			}
+			try {
+			    sessions.wait(remaining);
+			} catch (InterruptedException e) {
+			    Thread.currentThread().interrupt();
+			    throw new FailedTransitionException(GeneralError.SSH_CONNECTION_FAILURE, e);
+			}
+			continue;
+		    }
+		}
+	    }
+
+	    if (null == candidate) {
+		return openSession(endpoint, sessions, factory);
+	    }
+	    if (isReusable(candidate)) {
+		synchronized (sessions) {
+		    sessions.inUse.put(candidate.session, candidate);
+		}
+		LOGGER.debug("Reusing pooled SSH session to {}", endpoint);
+		return candidate.session;
+	    }
+	    LOGGER.info("Discarding stale pooled SSH session to {}", endpoint);
+	    discard(sessions, candidate.session);
+	}
+    }
+
+    /**
+     * Returns a healthy session to the pool for reuse
+     * 
+     * @param endpoint
+     * @param session
+     */
+    public void release(SshEndpoint endpoint, C session) {
+	if (null == session) {
+	    return;
+	}
+	HostSessions<C> sessions = hostSessions.get(endpoint);
+	if (null == sessions) {
+	    closeSession(session);
+	    return;
+	}
+	PooledSession<C> pooledSession;
+	synchronized (sessions) {
+	    pooledSession = sessions.inUse.remove(session);
+	    if (null != pooledSession && enabled) {
+		pooledSession.lastUsed = System.currentTimeMillis();
+		sessions.idle.addFirst(pooledSession);
+		sessions.notifyAll();
+		return;
+	    }
+	}
+	if (null != pooledSession) {
+	    discard(sessions, session);
+	} else {
+	    closeSession(session);
+	}
+    }
+
+    /**
+     * Closes a session that must not be used again and removes it from the pool
+     * 
+     * @param endpoint
+     * @param session
+     */
+    public void invalidate(SshEndpoint endpoint, C session) {
+	if (null == session) {
+	    return;
+	}
+	HostSessions<C> sessions = hostSessions.get(endpoint);
+	if (null == sessions) {
+	    closeSession(session);
+	    return;
+	}
+	boolean pooled;
+	synchronized (sessions) {
+	    pooled = null != sessions.inUse.remove(session)
+		    || sessions.idle.removeIf(pooledSession -> pooledSession.session == session);
+	}
+	LOGGER.info("Invalidated SSH session to {}", endpoint);
+	if (pooled) {
+	    discard(sessions, session);
+	} else {
+	    closeSession(session);
+	}
+    }
+
+    /**
+     * Closes all idle sessions of the pool
+     */
+    public void close() {
+	for (HostSessions<C> sessions : hostSessions.values()) {
+	    List<PooledSession<C>> idleSessions;
+	    synchronized (sessions) {
+		idleSessions = new ArrayList<PooledSession<C>>(sessions.idle);
+		sessions.idle.clear();
+	    }
+	    for (PooledSession<C> pooledSession : idleSessions) {
+		discard(sessions, pooledSession.session);
+	    }
+	}
+    }
+
+    /**
+     * @param endpoint
+     * @return number of open sessions of the endpoint, idle or in use
+     */
+    int getSessionCount(SshEndpoint endpoint) {
+	HostSessions<C> sessions = hostSessions.get(endpoint);
+	if (null == sessions) {
+	    return 0;
+	}
+	synchronized (sessions) {
+	    return sessions.total;
+	}
+    }
+
+    private C openSession(SshEndpoint endpoint, HostSessions<C> sessions, SessionFactory<C> factory) {
+	C session = null;
+	try {
+	    session = factory.create();
+	} finally {
+	    synchronized (sessions) {
+		if (null == session) {
+		    sessions.total--;
+		    sessions.notifyAll();
+		} else {
+		    sessions.inUse.put(session, new PooledSession<C>(session));
+		}
+	    }
+	}
+	LOGGER.debug("Opened new pooled SSH session to {}", endpoint);
+	return session;
+    }
+
+    private boolean isReusable(PooledSession<C> pooledSession) {
+	try {
+	    return handler.prepareForReuse(pooledSession.session, validationTimeoutMillis);
+	} catch (Exception e) {
+	    LOGGER.debug("Check of pooled SSH session failed: {}", e.getMessage());
+	    return false;
+	}
+    }
+
+    private void discard(HostSessions<C> sessions, C session) {
+	synchronized (sessions) {
+	    sessions.total--;
+	    sessions.notifyAll();
+	}
+	closeSession(session);
+    }
+
+    private void closeSession(C session) {
+	try {
+	    handler.close(session);
+	} catch (Exception e) {
+	    LOGGER.debug("Error closing SSH session: {}", e.getMessage());
+	}
+    }
+
+    /**
+     * Closes the sessions that stayed unused for longer than the idle timeout
+     */
+    void evictIdleSessions() {
+	long now = System.currentTimeMillis();
+	for (Map.Entry<SshEndpoint, HostSessions<C>> entry : hostSessions.entrySet()) {
+	    HostSessions<C> sessions = entry.getValue();
+	    List<PooledSession<C>> expired = new ArrayList<PooledSession<C>>();
+	    synchronized (sessions) {
+		Iterator<PooledSession<C>> iterator = sessions.idle.iterator();
+		while (iterator.hasNext()) {
+		    PooledSession<C> pooledSession = iterator.next();
+		    if (now - pooledSession.lastUsed >= idleTimeoutMillis) {
+			iterator.remove();
+			expired.add(pooledSession);
+		    }
+		}
+	    }
+	    for (PooledSession<C> pooledSession : expired) {
+		LOGGER.debug("Closing idle SSH session to {}", entry.getKey());
+		discard(sessions, pooledSession.session);
+	    }
+	}
+    }
+
+    /**
+     * Checks an interactive shell by echoing a unique marker. Output the previous caller left behind, e.g. from a
+     * command still writing after its response was read, arrives before the marker and is dropped with it. A shell
+     * still busy with a command does not echo the marker in time and is closed
+     */
+    static class ShellSessionHandler implements SessionHandler<SshConnection> {
+
+	private static final String MARKER_PREFIX = "__POOL_READY_";
+	private static final String MARKER_SUFFIX = "__";
+	private static final long POLL_INTERVAL_MILLISECS = 50;
+
+	private static final AtomicLong MARKER_SEQUENCE = new AtomicLong();
+
+	@Override
+	public boolean prepareForReuse(SshConnection session, long timeoutMillis) {
+	    String markerBody = MARKER_SEQUENCE.incrementAndGet() + MARKER_SUFFIX;
+	    try {
+		session.send("echo " + MARKER_PREFIX + "\"\"" + markerBody, (int) timeoutMillis);
+		return awaitMarker(session::getSettopResponse, MARKER_PREFIX + markerBody, timeoutMillis);
+	    } catch (Exception e) {
+		LOGGER.debug("Liveness check of pooled SSH session failed: {}", e.getMessage());
+		return false;
+	    }
+	}
+
+	@Override
+	public void close(SshConnection session) {
+	    session.disconnect();
+	}
+
+	/**
+	 * Reads output until the marker shows up or the time out elapses
+	 * 
+	 * @param reader
+	 * @param marker
+	 * @param timeoutMillis
+	 * @return true if the marker was read
+	 * @throws Exception
+	 */
+	static boolean awaitMarker(ResponseReader reader, String marker, long timeoutMillis) throws Exception {
+	    StringBuilder output = new StringBuilder();
+	    long deadline = System.currentTimeMillis() + timeoutMillis;
+	    long remaining;
+	    while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+		int checkedLength = output.length();
+		String chunk = reader.read(Math.min(POLL_INTERVAL_MILLISECS, remaining));
+		if (null == chunk || chunk.isEmpty()) {
+		    continue;
+		}
+		output.append(chunk);
+		if (output.indexOf(marker, Math.max(0, checkedLength - marker.length())) >= 0) {
+		    LOGGER.debug("Dropped {} characters of output before the liveness check marker",
+			    output.indexOf(marker));
+		    return true;
+		}
+	    }
+	    return false;
+	}
+    }
+
+    /**
+     * Sessions of one endpoint. Guarded by its own monitor.
+     */
+    private static class HostSessions<C> {
+	private final Deque<PooledSession<C>> idle = new ArrayDeque<PooledSession<C>>();
+	private final Map<C, PooledSession<C>> inUse = new IdentityHashMap<C, PooledSession<C>>();
+	private int total;
+    }
+
+    private static class PooledSession<C> {
+	private final C session;
+	private long lastUsed;
+
+	private PooledSession(C session) {
+	    this.session = session;
+	    this.lastUsed = System.currentTimeMillis();
+	}
+    }
+}
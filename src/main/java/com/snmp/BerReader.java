@@ -0,0 +1,182 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+/**
+ * Reads BER encoded data. Malformed input is reported with SnmpException.
+ */
+final class BerReader {
+
+    private final byte[] data;
+    private int position;
+    private final int limit;
+
+    BerReader(byte[] data) {
+	this(data, 0, data.length);
+    }
+
+    BerReader(byte[] data, int offset, int length) {
+	this.data = data;
+	this.position = offset;
+	this.limit = offset + length;
+    }
+
+    int position() {
+	return position;
+    }
+
+    boolean hasMore(int end) {
+	return position < end;
+    }
+
+    int peekTag() {
+	checkAvailable(1);
+	return data[position] & 0xFF;
+    }
+
+    int readTag() {
+	checkAvailable(1);
+	return data[position++] & 0xFF;
+    }
+
+    int readLength() {
+	checkAvailable(1);
+	int first = data[position++] & 0xFF;
+	if (first < 0x80) {
+	    return first;
+	}
+	int lengthBytes = first & 0x7F;
+	if (0 == lengthBytes || lengthBytes > 4) {
+	    throw new SnmpException("Unsupported BER length encoding");
+	}
+	checkAvailable(lengthBytes);
+	int length = 0;
+	for (int index = 0; index < lengthBytes; index++) {
+	    length = (length << 8) | (data[position++] & 0xFF);
+	}
+	if (length < 0) {
+	    throw new SnmpException("Invalid BER length");
+	}
+	return length;
+    }
+
+    /**
+     * Reads the header of a constructed value
+     * 
+     * @param expectedTag
+     * @return position at which the contents end
+     */
+    int readSequence(int expectedTag) {
+	expectTag(expectedTag);
+	int length = readLength();
+	checkAvailable(length);
+	return position + length;
+    }
+
+    long readInteger() {
+	expectTag(BerTags.INTEGER);
+	return decodeSigned(readLength());
+    }
+
+    byte[] readOctetString() {
+	expectTag(BerTags.OCTET_STRING);
+	return readBytes(readLength());
+    }
+
+    String readOid() {
+	expectTag(BerTags.OBJECT_IDENTIFIER);
+	return decodeOid(readLength());
+    }
+
+    long decodeSigned(int length) {
+	if (0 == length || length > 8) {
+	    throw new SnmpException("Invalid BER integer length: " + length);
+	}
+	checkAvailable(length);
+	long value = data[position++];
+	for (int index = 1; index < length; index++) {
+	    value = (value << 8) | (data[position++] & 0xFF);
+	}
+	return value;
+    }
+
+    long decodeUnsigned(int length) {
+	if (0 == length || length > 9) {
+	    throw new SnmpException("Invalid BER unsigned length: " + length);
+	}
+	checkAvailable(length);
+	long value = 0;
+	for (int index = 0; index < length; index++) {
+	    value = (value << 8) | (data[position++] & 0xFF);
+	}
+	return value;
+    }
+
+    String decodeOid(int length) {
+	checkAvailable(length);
+	int end = position + length;
+	StringBuilder oid = new StringBuilder();
+	boolean isFirst = true;
+	while (position < end) {
+	    long value = 0;
+	    int current;
+	    do {
+		if (position >= end) {
+		    throw new SnmpException("Truncated object identifier");
+		}
+		current = data[position++] & 0xFF;
+		value = (value << 7) | (current & 0x7F);
+	    } while (0 != (current & 0x80));
+	    if (isFirst) {
+		long first = Math.min(2, value / 40);
+		oid.append(first).append('.').append(value - first * 40);
+		isFirst = false;
+	    } else {
+		oid.append('.').append(value);
+	    }
+	}
+	return oid.toString();
+    }
+
+    byte[] readBytes(int length) {
+	checkAvailable(length);
+	byte[] bytes = new byte[length];
+	System.arraycopy(data, position, bytes, 0, length);
+	position += length;
+	return bytes;
+    }
+
+    void skip(int length) {
+	checkAvailable(length);
+	position += length;
+    }
+
+    private void expectTag(int expectedTag) {
+	int tag = readTag();
+	if (tag != expectedTag) {
+	    throw new SnmpException(
+		    String.format("Unexpected BER tag 0x%02x, expected 0x%02x", tag, expectedTag));
+	}
+    }
+
+    private void checkAvailable(int length) {
+	if (length < 0 || position + length > limit) {
+	    throw new SnmpException("Truncated SNMP message");
+	}
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+/**
+ * Writes BER encoded data back to front, so that the length of a constructed value is known when its header is
+ * written. Offsets measured from the end of the encoding stay valid while more data is prepended.
+ */
+final class BerWriter {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * @return number of bytes written so far, usable as a mark for {@link #writeHeader(int, int)}
+     */
+    int size() {
+	return size;
+    }
+
+    void writeByte(int value) {
+	ensureCapacity(1);
+	size++;
+	buffer[buffer.length - size] = (byte) value;
+    }
+
+    void writeBytes(byte[] bytes) {
+	ensureCapacity(bytes.length);
+	size += bytes.length;
+	System.arraycopy(bytes, 0, buffer, buffer.length - size, bytes.length);
+    }
+
+    /**
+     * Writes tag and length of a constructed value whose contents were written after the mark was taken
+     * 
+     * @param tag
+     * @param mark
+     *            Size of the writer before the contents were written
+     */
+    void writeHeader(int tag, int mark) {
+	writeLength(size - mark);
+	writeByte(tag);
+    }
+
+    void writeInteger(int tag, long value) {
+	int mark = size;
+	long remaining = value;
+	while (true) {
+	    int current = (int) (remaining & 0xFF);
+	    writeByte(current);
+	    remaining >>= 8;
+	    if ((0 == remaining && 0 == (current & 0x80)) || (-1 == remaining && 0 != (current & 0x80))) {
+		break;
+	    }
+	}
+	writeHeader(tag, mark);
+    }
+
+    /**
+     * Writes an unsigned 32 or 64 bit value, e.g. Counter64 values beyond the signed long range
+     */
+    void writeUnsigned(int tag, long value) {
+	int mark = size;
+	long remaining = value;
+	int current;
+	do {
+	    current = (int) (remaining & 0xFF);
+	    writeByte(current);
+	    remaining >>>= 8;
+	} while (0 != remaining);
+	if (0 != (current & 0x80)) {
+	    writeByte(0);
+	}
+	writeHeader(tag, mark);
+    }
+
+    void writeOctetString(int tag, byte[] value) {
+	int mark = size;
+	writeBytes(value);
+	writeHeader(tag, mark);
+    }
+
+    void writeNull(int tag) {
+	writeByte(0);
+	writeByte(tag);
+    }
+
+    void writeOid(String oid) {
+	long[] arcs = SnmpOids.parse(oid);
+	int mark = size;
+	for (int index = arcs.length - 1; index >= 2; index--) {
+	    writeSubIdentifier(arcs[index]);
+	}
+	writeSubIdentifier(arcs[0] * 40 + (arcs.length > 1 ? arcs[1] : 0));
+	writeHeader(BerTags.OBJECT_IDENTIFIER, mark);
+    }
+
+    byte[] toByteArray() {
+	byte[] bytes = new byte[size];
+	System.arraycopy(buffer, buffer.length - size, bytes, 0, size);
+	return bytes;
+    }
+
+    private void writeSubIdentifier(long value) {
+	writeByte((int) (value & 0x7F));
+	long remaining = value >>> 7;
+	while (0 != remaining) {
+	    writeByte((int) (0x80 | (remaining & 0x7F)));
+	    remaining >>>= 7;
+	}
+    }
+
+    private void writeLength(int length) {
+	if (length < 0x80) {
+	    writeByte(length);
+	    return;
+	}
+	int lengthBytes = 0;
+	int remaining = length;
+	while (0 != remaining) {
+	    writeByte(remaining & 0xFF);
+	    remaining >>>= 8;
+	    lengthBytes++;
+	}
+	writeByte(0x80 | lengthBytes);
+    }
+
+    private void ensureCapacity(int extra) {
+	if (size + extra > buffer.length) {
+	    byte[] newBuffer = new byte[Math.max(buffer.length * 2, size + extra)];
+	    System.arraycopy(buffer, buffer.length - size, newBuffer, newBuffer.length - size, size);
+	    buffer = newBuffer;
+	}
+    }
+}
@@ -0,0 +1,442 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.automatics.snmp.Snmpv3SecurityLevel;
+
+/**
+ * net-snmp command line (snmpget, snmpgetnext, snmpbulkget, snmpset, snmpwalk, snmpbulkwalk) parsed for in-process
+ * execution. Only numeric object identifiers and udp agents are supported, since resolving MIB names requires the MIB
+ * files net-snmp loads. For the same reason the output must either print numeric object identifiers (-On) or values
+ * only (-Ov), as net-snmp otherwise prints object identifiers with MIB names.
+ */
+final class NetSnmpCommand {
+
+    enum Tool {
+	GET,
+	GET_NEXT,
+	GET_BULK,
+	SET,
+	WALK,
+	BULK_WALK
+    }
+
+    private static final String DEFAULT_WALK_ROOT = "1.3.6.1.2.1";
+    private static final String UDP_TRANSPORT = "udp";
+    private static final String UDP6_TRANSPORT = "udp6";
+    private static final Pattern UNSUPPORTED_TRANSPORT = Pattern.compile("(tcp6?|unix|tls\\w*|dtls\\w*|ipx|ssh):.*");
+    private static final String SHELL_SPECIAL_CHARACTERS = "|;&<>`$()\\";
+    private static final String SUPPORTED_OUTPUT_OPTIONS = "nqQvteUf";
+    private static final int DEFAULT_MAX_REPETITIONS = 10;
+    private static final double MILLISECS_PER_SECOND = 1000;
+
+    private Tool tool;
+    private String agent;
+    private SnmpTarget target;
+    private final List<SnmpVarbind> varbinds = new ArrayList<SnmpVarbind>();
+    private String outputOptions = "";
+    private int nonRepeaters;
+    private int maxRepetitions = DEFAULT_MAX_REPETITIONS;
+
+    private NetSnmpCommand() {
+    }
+
+    Tool getTool() {
+	return tool;
+    }
+
+    String getAgent() {
+	return agent;
+    }
+
+    SnmpTarget getTarget() {
+	return target;
+    }
+
+    List<SnmpVarbind> getVarbinds() {
+	return varbinds;
+    }
+
+    String[] getOids() {
+	String[] oids = new String[varbinds.size()];
+	for (int index = 0; index < oids.length; index++) {
+	    oids[index] = varbinds.get(index).getOid();
+	}
+	return oids;
+    }
+
+    boolean hasOutputOption(char option) {
+	return outputOptions.indexOf(option) >= 0;
+    }
+
+    int getNonRepeaters() {
+	return nonRepeaters;
+    }
+
+    int getMaxRepetitions() {
+	return maxRepetitions;
+    }
+
+    /**
+     * @param commandLine
+     * @return parsed command, null if the command line cannot be executed in process
+     */
+    static NetSnmpCommand parse(String commandLine) {
+	List<String> tokens = tokenize(commandLine);
+	if (null == tokens || tokens.isEmpty()) {
+	    return null;
+	}
+	NetSnmpCommand command = new NetSnmpCommand();
+	command.tool = toTool(tokens.get(0));
+	if (null == command.tool) {
+	    return null;
+	}
+
+	String version = null;
+	String community = null;
+	String securityName = null;
+	String securityLevel = null;
+	SnmpAuthProtocol authProtocol = null;
+	String authPassphrase = null;
+	SnmpPrivProtocol privProtocol = null;
+	String privPassphrase = null;
+	long timeoutMillis = SnmpTarget.DEFAULT_TIMEOUT_MILLISECS;
+	int retries = SnmpTarget.DEFAULT_RETRIES;
+
+	int index = 1;
+	try {
+	    for (; index < tokens.size() && tokens.get(index).startsWith("-"); index++) {
+		String token = tokens.get(index);
+		if (token.length() < 2) {
+		    return null;
+		}
+		String value;
+		if (token.length() > 2) {
+		    value = token.substring(2);
+		} else if (index + 1 < tokens.size()) {
+		    value = tokens.get(++index);
+		} else {
+		    return null;
+		}
+		switch (token.charAt(1)) {
+		case 'v':
+		    version = value;
+		    break;
+		case 'c':
+		    community = value;
+		    break;
+		case 'u':
+		    securityName = value;
+		    break;
+		case 'l':
+		    securityLevel = value;
+		    break;
+		case 'a':
+		    authProtocol = SnmpAuthProtocol.fromName(value);
+		    break;
+		case 'A':
+		    authPassphrase = value;
+		    break;
+		case 'x':
+		    privProtocol = SnmpPrivProtocol.fromName(value);
+		    break;
+		case 'X':
+		    privPassphrase = value;
+		    break;
+		case 't':
+		    timeoutMillis = (long) (Double.parseDouble(value) * MILLISECS_PER_SECOND);
+		    break;
+		case 'r':
+		    retries = Integer.parseInt(value);
+		    break;
+		case 'O':
+		    if (!containsOnly(value, SUPPORTED_OUTPUT_OPTIONS)) {
+			return null;
+		    }
+		    command.outputOptions += value;
+		    break;
+		case 'C':
+		    if (!command.parseApplicationOption(value)) {
+			return null;
+		    }
+		    break;
+		case 'm':
+		case 'M':
+		    break;
+		default:
+		    return null;
+		}
+	    }
+	} catch (SnmpException | NumberFormatException e) {
+	    return null;
+	}
+
+	if (index >= tokens.size()) {
+	    return null;
+	}
+	if (!command.isOutputReproducible()) {
+	    return null;
+	}
+	command.agent = tokens.get(index++);
+	InetSocketAddress address = parseAgent(command.agent);
+	if (null == address) {
+	    return null;
+	}
+	if ("1".equals(version) || null == version) {
+	    return null;
+	}
+	try {
+	    if ("3".equals(version)) {
+		command.target = SnmpTarget.usm(address, securityName,
+			null != securityLevel ? Snmpv3SecurityLevel.valueOf(securityLevel) : null, authProtocol,
+			authPassphrase, privProtocol, privPassphrase);
+	    } else if ("2c".equals(version) && null != community) {
+		command.target = SnmpTarget.community(address, community);
+	    } else {
+		return null;
+	    }
+	} catch (SnmpException | IllegalArgumentException e) {
+	    return null;
+	}
+	command.target = command.target.withTimeout(timeoutMillis, retries);
+
+	return command.parseVariables(tokens.subList(index, tokens.size())) ? command : null;
+    }
+
+    /**
+     * @return true if the output can be printed without MIB information
+     */
+    private boolean isOutputReproducible() {
+	return hasOutputOption('v') || (hasOutputOption('n') && !hasOutputOption('f'));
+    }
+
+    private boolean parseApplicationOption(String value) {
+	if (value.isEmpty()) {
+	    return false;
+	}
+	char option = value.charAt(0);
+	if (Tool.GET_BULK == tool || Tool.BULK_WALK == tool) {
+	    if ('n' == option) {
+		nonRepeaters = Integer.parseInt(value.substring(1));
+		return true;
+	    }
+	    if ('r' == option) {
+		maxRepetitions = Integer.parseInt(value.substring(1));
+		return true;
+	    }
+	}
+	return (Tool.WALK == tool || Tool.BULK_WALK == tool) && "c".equals(value);
+    }
+
+    private boolean parseVariables(List<String> variables) {
+	if (Tool.SET == tool) {
+	    if (variables.isEmpty() || 0 != variables.size() % 3) {
+		return false;
+	    }
+	    for (int index = 0; index < variables.size(); index += 3) {
+		SnmpVarbind varbind = toSetVarbind(variables.get(index), variables.get(index + 1),
+			variables.get(index + 2));
+		if (null == varbind) {
+		    return false;
+		}
+		varbinds.add(varbind);
+	    }
+	    return true;
+	}
+	if (Tool.WALK == tool || Tool.BULK_WALK == tool) {
+	    if (variables.size() > 1) {
+		return false;
+	    }
+	    String root = variables.isEmpty() ? DEFAULT_WALK_ROOT : variables.get(0);
+	    if (!SnmpOids.isNumeric(root)) {
+		return false;
+	    }
+	    varbinds.add(SnmpVarbind.forRequest(root));
+	    return true;
+	}
+	if (variables.isEmpty()) {
+	    return false;
+	}
+	for (String oid : variables) {
+	    if (!SnmpOids.isNumeric(oid)) {
+		return false;
+	    }
+	    varbinds.add(SnmpVarbind.forRequest(oid));
+	}
+	return true;
+    }
+
+    private static SnmpVarbind toSetVarbind(String oid, String type, String value) {
+	if (!SnmpOids.isNumeric(oid) || 1 != type.length()) {
+	    return null;
+	}
+	try {
+	    switch (type.charAt(0)) {
+	    case 'i':
+		return SnmpVarbind.ofInteger(oid, Long.parseLong(value));
+	    case 'u':
+		return new SnmpVarbind(oid, SnmpValueType.GAUGE32, Long.parseLong(value));
+	    case 'c':
+		return new SnmpVarbind(oid, SnmpValueType.COUNTER32, Long.parseLong(value));
+	    case 't':
+		return new SnmpVarbind(oid, SnmpValueType.TIMETICKS, Long.parseLong(value));
+	    case 'U':
+		return new SnmpVarbind(oid, SnmpValueType.COUNTER64, Long.parseUnsignedLong(value));
+	    case 'a':
+		return new SnmpVarbind(oid, SnmpValueType.IP_ADDRESS, value);
+	    case 'o':
+		return SnmpOids.isNumeric(value)
+			? new SnmpVarbind(oid, SnmpValueType.OBJECT_IDENTIFIER, SnmpOids.normalize(value))
+			: null;
+	    case 's':
+		return new SnmpVarbind(oid, SnmpValueType.OCTET_STRING, value.getBytes(StandardCharsets.UTF_8));
+	    case 'x':
+		return new SnmpVarbind(oid, SnmpValueType.OCTET_STRING, parseHex(value));
+	    default:
+		return null;
+	    }
+	} catch (NumberFormatException e) {
+	    return null;
+	}
+    }
+
+    private static byte[] parseHex(String value) {
+	String hex = value.replaceAll("\\s", "");
+	if (hex.startsWith("0x") || hex.startsWith("0X")) {
+	    hex = hex.substring(2);
+	}
+	if (0 != hex.length() % 2) {
+	    throw new NumberFormatException("Odd number of hex digits: " + value);
+	}
+	byte[] bytes = new byte[hex.length() / 2];
+	for (int index = 0; index < bytes.length; index++) {
+	    bytes[index] = (byte) Integer.parseInt(hex.substring(index * 2, index * 2 + 2), 16);
+	}
+	return bytes;
+    }
+
+    private static Tool toTool(String commandName) {
+	String name = commandName.substring(commandName.lastIndexOf('/') + 1);
+	switch (name) {
+	case "snmpget":
+	    return Tool.GET;
+	case "snmpgetnext":
+	    return Tool.GET_NEXT;
+	case "snmpbulkget":
+	    return Tool.GET_BULK;
+	case "snmpset":
+	    return Tool.SET;
+	case "snmpwalk":
+	    return Tool.WALK;
+	case "snmpbulkwalk":
+	    return Tool.BULK_WALK;
+	default:
+	    return null;
+	}
+    }
+
+    /**
+     * Parses agent addresses such as 192.168.0.1, udp:192.168.0.1:161 or udp6:[::1]:161
+     */
+    private static InetSocketAddress parseAgent(String agent) {
+	String address = agent;
+	String lowerCaseAddress = agent.toLowerCase();
+	if (lowerCaseAddress.startsWith(UDP_TRANSPORT + ":") || lowerCaseAddress.startsWith(UDP6_TRANSPORT + ":")) {
+	    address = address.substring(address.indexOf(':') + 1);
+	} else if (UNSUPPORTED_TRANSPORT.matcher(lowerCaseAddress).matches()) {
+	    return null;
+	}
+	String host = address;
+	int port = SnmpTarget.DEFAULT_PORT;
+	try {
+	    if (address.startsWith("[")) {
+		int hostEnd = address.indexOf(']');
+		if (hostEnd < 0) {
+		    return null;
+		}
+		host = address.substring(1, hostEnd);
+		if (address.length() > hostEnd + 1) {
+		    port = Integer.parseInt(address.substring(hostEnd + 2));
+		}
+	    } else if (1 == address.length() - address.replace(":", "").length()) {
+		host = address.substring(0, address.indexOf(':'));
+		port = Integer.parseInt(address.substring(address.indexOf(':') + 1));
+	    }
+	} catch (NumberFormatException | IndexOutOfBoundsException e) {
+	    return null;
+	}
+	return host.isEmpty() ? null : new InetSocketAddress(host, port);
+    }
+
+    /**
+     * Splits the command line into words, honouring quotes
+     * 
+     * @return words, null if the command line uses shell features such as pipes or redirections
+     */
+    private static List<String> tokenize(String commandLine) {
+	List<String> tokens = new ArrayList<String>();
+	StringBuilder current = new StringBuilder();
+	boolean isInToken = false;
+	char quote = 0;
+	for (char character : commandLine.trim().toCharArray()) {
+	    if (0 != quote) {
+		if (character == quote) {
+		    quote = 0;
+		} else {
+		    current.append(character);
+		}
+	    } else if ('\'' == character || '"' == character) {
+		quote = character;
+		isInToken = true;
+	    } else if (Character.isWhitespace(character)) {
+		if (isInToken) {
+		    tokens.add(current.toString());
+		    current.setLength(0);
+		    isInToken = false;
+		}
+	    } else if (SHELL_SPECIAL_CHARACTERS.indexOf(character) >= 0) {
+		return null;
+	    } else {
+		current.append(character);
+		isInToken = true;
+	    }
+	}
+	if (0 != quote) {
+	    return null;
+	}
+	if (isInToken) {
+	    tokens.add(current.toString());
+	}
+	return tokens;
+    }
+
+    private static boolean containsOnly(String value, String allowedCharacters) {
+	for (char character : value.toCharArray()) {
+	    if (allowedCharacters.indexOf(character) < 0) {
+		return false;
+	    }
+	}
+	return true;
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes net-snmp command lines with the in-process SNMP client instead of spawning net-snmp tools. Output follows
+ * the net-snmp format for variables without MIB information, so only command lines printing numeric object
+ * identifiers (-On) or values only (-Ov) are executed in process.
+ * 
+ * Command lines are normally meant to run on the host the ssh connection leads to, where a loopback or unresolvable
+ * agent address names that host or its network rather than this one. Such command lines are left to net-snmp unless
+ * the executor is told that command lines run on this host.
+ */
+public class NetSnmpCommandExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NetSnmpCommandExecutor.class);
+    private static final String TYPE_SEPARATOR = ": ";
+
+    private final SnmpClient client;
+    private final boolean isLocalAgentAllowed;
+
+    public NetSnmpCommandExecutor(SnmpClient client) {
+	this(client, false);
+    }
+
+    /**
+     * @param client
+     * @param isLocalAgentAllowed
+     *            true if command lines run on this host, so that loopback agent addresses may be executed in process
+     */
+    public NetSnmpCommandExecutor(SnmpClient client, boolean isLocalAgentAllowed) {
+	this.client = client;
+	this.isLocalAgentAllowed = isLocalAgentAllowed;
+    }
+
+    /**
+     * Executes snmpget, snmpgetnext, snmpbulkget, snmpset, snmpwalk and snmpbulkwalk command lines
+     * 
+     * @param commandLine
+     * @return command output, null if the command line is not supported in process and has to be executed by
+     *         net-snmp
+     */
+    public String execute(String commandLine) {
+	NetSnmpCommand command = NetSnmpCommand.parse(commandLine);
+	if (null == command) {
+	    LOGGER.debug("SNMP command not supported in process: {}", commandLine);
+	    return null;
+	}
+	if (!isLocalAgentAllowed && isLocalAgent(command.getTarget().getAddress())) {
+	    LOGGER.debug("SNMP agent {} is local to the remote host, not executing in process", command.getAgent());
+	    return null;
+	}
+	LOGGER.info("Executing SNMP command in process: {} {}", command.getTool(), command.getTarget());
+	try {
+	    return format(command, execute(command));
+	} catch (SnmpException e) {
+	    if (e.isTimeout()) {
+		return "Timeout: No Response from " + command.getAgent() + ".";
+	    }
+	    return e.getMessage();
+	}
+    }
+
+    /**
+     * @return true if the address is a loopback or wildcard address, or could not be resolved on this host
+     */
+    private static boolean isLocalAgent(InetSocketAddress address) {
+	return address.isUnresolved() || address.getAddress().isLoopbackAddress()
+		|| address.getAddress().isAnyLocalAddress();
+    }
+
+    private List<SnmpVarbind> execute(NetSnmpCommand command) {
+	SnmpTarget target = command.getTarget();
+	switch (command.getTool()) {
+	case GET:
+	    return client.get(target, command.getOids());
+	case GET_NEXT:
+	    return client.getNext(target, command.getOids());
+	case GET_BULK:
+	    return client.getBulk(target, command.getNonRepeaters(), command.getMaxRepetitions(),
+		    command.getOids());
+	case SET:
+	    return client.set(target, command.getVarbinds().toArray(new SnmpVarbind[0]));
+	case WALK:
+	    return client.walk(target, command.getOids()[0], false);
+	default:
+	    return client.walk(target, command.getOids()[0], true);
+	}
+    }
+
+    private static String format(NetSnmpCommand command, List<SnmpVarbind> varbinds) {
+	boolean isQuick = command.hasOutputOption('q');
+	boolean isQuickEquals = command.hasOutputOption('Q');
+	boolean isValueOnly = command.hasOutputOption('v');
+	boolean isTicksNumeric = command.hasOutputOption('t');
+	StringBuilder output = new StringBuilder();
+	for (SnmpVarbind varbind : varbinds) {
+	    String value = varbind.formatValue();
+	    if (isTicksNumeric && SnmpValueType.TIMETICKS == varbind.getType()) {
+		value = varbind.getType().getDisplayName() + TYPE_SEPARATOR + varbind.getStringValue();
+	    }
+	    if ((isQuick || isQuickEquals) && value.contains(TYPE_SEPARATOR) && !varbind.isException()) {
+		value = value.substring(value.indexOf(TYPE_SEPARATOR) + TYPE_SEPARATOR.length());
+	    }
+	    if (output.length() > 0) {
+		output.append('\n');
+	    }
+	    if (isValueOnly) {
+		output.append(value);
+	    } else {
+		output.append('.').append(varbind.getOid()).append(isQuick && !isQuickEquals ? " " : " = ")
+			.append(value);
+	    }
+	}
+	return output.toString();
+    }
+}
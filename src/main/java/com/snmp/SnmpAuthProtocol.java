@@ -0,0 +1,66 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SNMPv3 user based security model authentication protocols
+ */
+public enum SnmpAuthProtocol {
+
+    MD5("MD5", "HmacMD5"),
+    SHA("SHA-1", "HmacSHA1");
+
+    private final String digestAlgorithm;
+    private final String macAlgorithm;
+
+    private SnmpAuthProtocol(String digestAlgorithm, String macAlgorithm) {
+	this.digestAlgorithm = digestAlgorithm;
+	this.macAlgorithm = macAlgorithm;
+    }
+
+    String getMacAlgorithm() {
+	return macAlgorithm;
+    }
+
+    MessageDigest newDigest() {
+	try {
+	    return MessageDigest.getInstance(digestAlgorithm);
+	} catch (NoSuchAlgorithmException e) {
+	    throw new SnmpException("Digest not available: " + digestAlgorithm, e);
+	}
+    }
+
+    /**
+     * @param name
+     *            Protocol name as given to net-snmp -a option, e.g. MD5 or SHA
+     * @return SnmpAuthProtocol instance
+     */
+    public static SnmpAuthProtocol fromName(String name) {
+	String normalized = name.trim().toUpperCase().replace("-", "");
+	if ("MD5".equals(normalized)) {
+	    return MD5;
+	}
+	if ("SHA".equals(normalized) || "SHA1".equals(normalized)) {
+	    return SHA;
+	}
+	throw new SnmpException("Unsupported SNMPv3 authentication protocol: " + name);
+    }
+}
@@ -0,0 +1,581 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * SNMP v2c/v3 client. All requests share one non-blocking datagram channel: a single selector thread receives
+ * responses and matches them to requests by id, and timeouts and retransmissions are driven by a shared timer, so no
+ * thread waits per request. A message completes a request only if it is a response sent from the address the request
+ * was sent to.
+ */
+public class SnmpClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnmpClient.class);
+    private static final int BULK_WALK_MAX_VARBINDS = 50;
+    private static final String USM_STATS_OID_PREFIX = "1.3.6.1.6.3.15.1.1.";
+    private static final String USM_STATS_NOT_IN_TIME_WINDOWS = USM_STATS_OID_PREFIX + "2.0";
+    private static final String USM_STATS_UNKNOWN_ENGINE_IDS = USM_STATS_OID_PREFIX + "4.0";
+    private static final int USM_CACHE_MAX_ENTRIES = 256;
+    private static final String[] USM_STATS_NAMES = { "", "unsupportedSecLevels", "notInTimeWindows",
+	    "unknownUserNames", "unknownEngineIDs", "wrongDigests", "decryptionErrors" };
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+	Thread thread = new Thread(runnable, "snmp-client-timer");
+	thread.setDaemon(true);
+	return thread;
+    });
+
+    private final DatagramChannel channel;
+    private final Selector selector;
+    private final Thread receiver;
+    private final Map<Integer, PendingRequest> pendingRequests = new ConcurrentHashMap<Integer, PendingRequest>();
+    private final AtomicInteger nextId = new AtomicInteger(new SecureRandom().nextInt());
+    private final UsmCache usmCache = new UsmCache(USM_CACHE_MAX_ENTRIES);
+    private final Map<InetSocketAddress, CompletableFuture<UsmEngineInfo>> engineDiscoveries =
+	    new ConcurrentHashMap<InetSocketAddress, CompletableFuture<UsmEngineInfo>>();
+    private volatile boolean isOpen = true;
+
+    public SnmpClient() {
+	this(new InetSocketAddress(0));
+    }
+
+    /**
+     * @param localAddress
+     *            Address the client socket is bound to
+     */
+    public SnmpClient(InetSocketAddress localAddress) {
+	try {
+	    channel = DatagramChannel.open();
+	    channel.configureBlocking(false);
+	    channel.bind(localAddress);
+	    selector = Selector.open();
+	    channel.register(selector, SelectionKey.OP_READ);
+	} catch (IOException e) {
+	    throw new SnmpException("Unable to open SNMP client socket", e);
+	}
+	receiver = new Thread(this::receiveResponses, "snmp-client-receiver");
+	receiver.setDaemon(true);
+	receiver.start();
+    }
+
+    /**
+     * @return client shared by the provider, created on first use
+     */
+    public static SnmpClient getSharedInstance() {
+	return SharedInstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Sends a request. For SNMPv3 targets the authoritative engine is discovered and the user keys are localized
+     * first, unless already known from an earlier request to the agent
+     * 
+     * @param target
+     * @param pdu
+     * @return future completed with the response PDU, or exceptionally with SnmpException
+     */
+    public CompletableFuture<SnmpPdu> sendAsync(SnmpTarget target, SnmpPdu pdu) {
+	if (!target.isUsm()) {
+	    int id = nextId();
+	    byte[] message = SnmpMessage.encodeCommunity(target.getCommunity(), pdu.withRequestId(id));
+	    return exchange(target, id, message).thenApply(SnmpMessage::getPdu);
+	}
+	return sendUsm(target, pdu, true);
+    }
+
+    /**
+     * Drops the SNMPv3 engine learned for an agent, so that it is discovered again with the next request
+     * 
+     * @param address
+     */
+    public void invalidateEngine(InetSocketAddress address) {
+	usmCache.invalidateEngine(address);
+    }
+
+    public List<SnmpVarbind> get(SnmpTarget target, String... oids) {
+	return execute(target, SnmpPdu.request(SnmpPdu.GET, toVarbinds(oids)));
+    }
+
+    public List<SnmpVarbind> getNext(SnmpTarget target, String... oids) {
+	return execute(target, SnmpPdu.request(SnmpPdu.GET_NEXT, toVarbinds(oids)));
+    }
+
+    public List<SnmpVarbind> getBulk(SnmpTarget target, int nonRepeaters, int maxRepetitions, String... oids) {
+	return execute(target, SnmpPdu.getBulk(nonRepeaters, maxRepetitions, toVarbinds(oids)));
+    }
+
+    public List<SnmpVarbind> set(SnmpTarget target, SnmpVarbind... varbinds) {
+	return execute(target, SnmpPdu.request(SnmpPdu.SET, Arrays.asList(varbinds)));
+    }
+
+    /**
+     * Retrieves all variables below the root object identifier. A root without variables below it is retrieved with
+     * a get request, as net-snmp does
+     * 
+     * @param target
+     * @param rootOid
+     * @param isBulk
+     *            true to walk with GETBULK requests, false to walk with GETNEXT requests
+     * @return variables in lexicographic order
+     */
+    public List<SnmpVarbind> walk(SnmpTarget target, String rootOid, boolean isBulk) {
+	String root = SnmpOids.normalize(rootOid);
+	List<SnmpVarbind> result = isBulk ? walkColumns(target, root).get(root) : walkNext(target, root);
+	if (result.isEmpty()) {
+	    for (SnmpVarbind varbind : get(target, root)) {
+		if (!varbind.isException()) {
+		    result.add(varbind);
+		}
+	    }
+	}
+	return result;
+    }
+
+    /**
+     * Retrieves all variables below each root object identifier, typically the columns of a table, with GETBULK
+     * requests. The columns are walked together: each request carries one repeater per column not yet exhausted and
+     * the repetitions are shared between them, so walking a whole table takes about as many requests as walking one
+     * column. A tooBig error halves the repetitions
+     * 
+     * @param target
+     * @param rootOids
+     * @return variables below each root in lexicographic order, keyed by the normalized root in argument order
+     */
+    public Map<String, List<SnmpVarbind>> walkColumns(SnmpTarget target, String... rootOids) {
+	Map<String, List<SnmpVarbind>> result = new LinkedHashMap<String, List<SnmpVarbind>>();
+	List<String> roots = new ArrayList<String>();
+	List<String> cursors = new ArrayList<String>();
+	for (String rootOid : rootOids) {
+	    String root = SnmpOids.normalize(rootOid);
+	    if (!result.containsKey(root)) {
+		result.put(root, new ArrayList<SnmpVarbind>());
+		roots.add(root);
+		cursors.add(root);
+	    }
+	}
+	int maxVarbinds = BULK_WALK_MAX_VARBINDS;
+	while (!roots.isEmpty()) {
+	    int maxRepetitions = Math.max(1, maxVarbinds / roots.size());
+	    SnmpPdu request = SnmpPdu.getBulk(0, maxRepetitions, toVarbinds(cursors.toArray(new String[0])));
+	    SnmpPdu response = await(sendAsync(target, request));
+	    if (SnmpPdu.ERROR_TOO_BIG == response.getErrorStatus() && maxRepetitions > 1) {
+		maxVarbinds = maxRepetitions * roots.size() / 2;
+		continue;
+	    }
+	    List<SnmpVarbind> varbinds = checkResponse(request, response);
+	    boolean[] isDone = new boolean[roots.size()];
+	    for (int index = 0; index < varbinds.size(); index++) {
+		int column = index % roots.size();
+		SnmpVarbind varbind = varbinds.get(index);
+		if (isDone[column]) {
+		    continue;
+		}
+		if (varbind.isException() || !SnmpOids.isDescendant(varbind.getOid(), roots.get(column))) {
+		    isDone[column] = true;
+		    continue;
+		}
+		if (SnmpOids.compare(varbind.getOid(), cursors.get(column)) <= 0) {
+		    throw new SnmpException("OID not increasing: " + cursors.get(column) + " >= " + varbind.getOid());
+		}
+		result.get(roots.get(column)).add(varbind);
+		cursors.set(column, varbind.getOid());
+	    }
+	    for (int column = roots.size() - 1; column >= 0; column--) {
+		if (isDone[column] || varbinds.isEmpty()) {
+		    roots.remove(column);
+		    cursors.remove(column);
+		}
+	    }
+	}
+	return result;
+    }
+
+    /**
+     * Sends a request and waits for the response
+     * 
+     * @param target
+     * @param pdu
+     * @return variable bindings of the response
+     * @throws SnmpException
+     *             if the agent does not respond or responds with an error status
+     */
+    public List<SnmpVarbind> execute(SnmpTarget target, SnmpPdu pdu) {
+	return checkResponse(pdu, await(sendAsync(target, pdu)));
+    }
+
+    /**
+     * @param pdu
+     *            Request the response was received for
+     * @param response
+     * @return variable bindings of the response
+     * @throws SnmpException
+     *             if the response carries an error status
+     */
+    static List<SnmpVarbind> checkResponse(SnmpPdu pdu, SnmpPdu response) {
+	if (0 != response.getErrorStatus()) {
+	    int errorIndex = response.getErrorIndex();
+	    String failedOid = errorIndex > 0 && errorIndex <= pdu.getVarbinds().size()
+		    ? pdu.getVarbinds().get(errorIndex - 1).getOid()
+		    : "";
+	    throw new SnmpException(
+		    "Error in packet. Reason: " + SnmpPdu.getErrorStatusName(response.getErrorStatus())
+			    + ", failed object: " + failedOid,
+		    response.getErrorStatus(), false);
+	}
+	return response.getVarbinds();
+    }
+
+    private List<SnmpVarbind> walkNext(SnmpTarget target, String root) {
+	List<SnmpVarbind> result = new ArrayList<SnmpVarbind>();
+	String current = root;
+	boolean isDone = false;
+	while (!isDone) {
+	    List<SnmpVarbind> varbinds = getNext(target, current);
+	    isDone = varbinds.isEmpty();
+	    for (SnmpVarbind varbind : varbinds) {
+		if (varbind.isException() || !SnmpOids.isDescendant(varbind.getOid(), root)) {
+		    isDone = true;
+		    break;
+		}
+		if (SnmpOids.compare(varbind.getOid(), current) <= 0) {
+		    throw new SnmpException("OID not increasing: " + current + " >= " + varbind.getOid());
+		}
+		result.add(varbind);
+		current = varbind.getOid();
+	    }
+	}
+	return result;
+    }
+
+    /**
+     * Closes the client socket. Pending requests fail
+     */
+    public void close() {
+	isOpen = false;
+	selector.wakeup();
+	try {
+	    channel.close();
+	    selector.close();
+	} catch (IOException e) {
+	    LOGGER.error("Error closing SNMP client socket: {}", e.getMessage());
+	}
+	for (PendingRequest request : pendingRequests.values()) {
+	    request.future.completeExceptionally(new SnmpException("SNMP client closed"));
+	}
+	pendingRequests.clear();
+    }
+
+    /**
+     * Sends a discovery request, answered by the agent with a report carrying its engine id, boots and time
+     */
+    CompletableFuture<UsmEngineInfo> discoverEngine(SnmpTarget target) {
+	int id = nextId();
+	SnmpPdu discovery = SnmpPdu.request(SnmpPdu.GET, new ArrayList<SnmpVarbind>()).withRequestId(id);
+	byte[] message = SnmpMessage.encodeUsm(id, SnmpMessage.FLAG_REPORTABLE, null, "", UsmKeys.NONE, discovery);
+	return exchange(target, id, message).thenApply(response -> {
+	    if (0 == response.getEngineId().length) {
+		throw new SnmpException("SNMPv3 engine discovery failed for " + target.getAddress());
+	    }
+	    LOGGER.debug("Discovered SNMPv3 engine of {}", target.getAddress());
+	    return new UsmEngineInfo(response.getEngineId(), response.getEngineBoots(), response.getEngineTime());
+	});
+    }
+
+    /**
+     * Sends a v3 request with the cached engine and keys of the agent, discovering the engine and localizing the keys
+     * on a pool thread if not cached. Concurrent requests to an agent share one discovery
+     */
+    private CompletableFuture<SnmpPdu> sendUsm(SnmpTarget target, SnmpPdu pdu, boolean isRetryAllowed) {
+	UsmEngineInfo engine = usmCache.getEngine(target.getAddress());
+	if (null != engine) {
+	    UsmKeys keys = usmCache.peekKeys(target, engine.getEngineId());
+	    if (null != keys) {
+		return sendUsm(target, engine, keys, pdu, isRetryAllowed);
+	    }
+	}
+	CompletableFuture<UsmEngineInfo> engineFuture = null != engine ? CompletableFuture.completedFuture(engine)
+		: discoverEngineOnce(target);
+	return engineFuture.thenComposeAsync(discovered -> sendUsm(target, discovered,
+		usmCache.getKeys(target, discovered.getEngineId()), pdu, isRetryAllowed));
+    }
+
+    private CompletableFuture<UsmEngineInfo> discoverEngineOnce(SnmpTarget target) {
+	InetSocketAddress address = target.getAddress();
+	CompletableFuture<UsmEngineInfo> discovery = new CompletableFuture<UsmEngineInfo>();
+	CompletableFuture<UsmEngineInfo> running = engineDiscoveries.putIfAbsent(address, discovery);
+	if (null != running) {
+	    return running;
+	}
+	discoverEngine(target).whenComplete((engine, error) -> {
+	    engineDiscoveries.remove(address, discovery);
+	    if (null != error) {
+		discovery.completeExceptionally(error);
+	    } else {
+		usmCache.putEngine(address, engine);
+		discovery.complete(engine);
+	    }
+	});
+	return discovery;
+    }
+
+    /**
+     * Sends a v3 request to a discovered engine. A report that the request was outside the time window of the engine
+     * is answered by resending once with the engine clock from the report, and a report that the engine id is unknown
+     * by discovering the engine again. The engine clock of authenticated responses updates the cached engine
+     */
+    CompletableFuture<SnmpPdu> sendUsm(SnmpTarget target, UsmEngineInfo engine, UsmKeys keys, SnmpPdu pdu,
+	    boolean isRetryAllowed) {
+	int id = nextId();
+	int flags = SnmpMessage.FLAG_REPORTABLE | (target.isAuthenticated() ? SnmpMessage.FLAG_AUTH : 0)
+		| (target.isEncrypted() ? SnmpMessage.FLAG_PRIV : 0);
+	byte[] message = SnmpMessage.encodeUsm(id, flags, engine, target.getSecurityName(), keys,
+		pdu.withRequestId(id));
+	return exchange(target, id, message).thenCompose(response -> {
+	    response.unprotect(keys);
+	    SnmpPdu responsePdu = response.getPdu();
+	    if (!isResponse(response.getVersion(), responsePdu.getType())) {
+		throw new SnmpException("Unexpected SNMPv3 message from " + target.getAddress() + ", not a response");
+	    }
+	    if (SnmpPdu.REPORT == responsePdu.getType()) {
+		String reportOid = responsePdu.getVarbinds().isEmpty() ? ""
+			: responsePdu.getVarbinds().get(0).getOid();
+		if (isRetryAllowed && USM_STATS_NOT_IN_TIME_WINDOWS.equals(reportOid)
+			&& response.isAuthenticated()) {
+		    UsmEngineInfo synchronizedEngine = new UsmEngineInfo(response.getEngineId(),
+			    response.getEngineBoots(), response.getEngineTime());
+		    usmCache.putEngine(target.getAddress(), synchronizedEngine);
+		    return sendUsm(target, synchronizedEngine, keys, pdu, false);
+		}
+		if (isRetryAllowed && USM_STATS_UNKNOWN_ENGINE_IDS.equals(reportOid)) {
+		    usmCache.invalidateEngine(target.getAddress());
+		    return sendUsm(target, pdu, false);
+		}
+		throw new SnmpException("SNMPv3 request rejected by " + target.getAddress() + ": "
+			+ getReportName(reportOid));
+	    }
+	    if (target.isAuthenticated() && !response.isAuthenticated()) {
+		throw new SnmpException("Unauthenticated SNMPv3 response from " + target.getAddress());
+	    }
+	    if (response.isAuthenticated() && response.getEngineBoots() != engine.getEngineBoots()) {
+		usmCache.putEngine(target.getAddress(), new UsmEngineInfo(response.getEngineId(),
+			response.getEngineBoots(), response.getEngineTime()));
+	    }
+	    return CompletableFuture.completedFuture(responsePdu);
+	});
+    }
+
+    /**
+     * Sends an encoded message and completes with the message received with the same id, resending the message on
+     * timeout as configured for the target
+     */
+    private CompletableFuture<SnmpMessage> exchange(SnmpTarget target, int id, byte[] message) {
+	PendingRequest request = new PendingRequest(id, target, message);
+	if (!isOpen) {
+	    request.future.completeExceptionally(new SnmpException("SNMP client closed"));
+	    return request.future;
+	}
+	pendingRequests.put(id, request);
+	transmit(request);
+	return request.future;
+    }
+
+    private void transmit(PendingRequest request) {
+	try {
+	    channel.send(ByteBuffer.wrap(request.message), request.target.getAddress());
+	} catch (IOException e) {
+	    LOGGER.debug("Error sending SNMP request to {}: {}", request.target.getAddress(), e.getMessage());
+	}
+	request.timeout = TIMER.schedule(() -> onTimeout(request), request.target.getTimeoutMillis(),
+		TimeUnit.MILLISECONDS);
+    }
+
+    private void onTimeout(PendingRequest request) {
+	if (request.future.isDone()) {
+	    return;
+	}
+	if (request.attempts++ < request.target.getRetries()) {
+	    transmit(request);
+	    return;
+	}
+	pendingRequests.remove(request.id);
+	request.future.completeExceptionally(
+		new SnmpException("Timeout: No Response from " + request.target.getAddress(), 0, true));
+    }
+
+    private void receiveResponses() {
+	ByteBuffer buffer = ByteBuffer.allocate(SnmpMessage.MAX_MESSAGE_SIZE);
+	while (isOpen) {
+	    try {
+		selector.select();
+		selector.selectedKeys().clear();
+		SocketAddress sender;
+		while (isOpen && null != (sender = channel.receive(buffer))) {
+		    buffer.flip();
+		    byte[] data = new byte[buffer.remaining()];
+		    buffer.get(data);
+		    buffer.clear();
+		    dispatch(sender, data);
+		}
+	    } catch (IOException e) {
+		if (isOpen) {
+		    LOGGER.error("Error receiving SNMP responses: {}", e.getMessage());
+		}
+	    } catch (RuntimeException e) {
+		LOGGER.error("Error dispatching SNMP response: {}", e.getMessage());
+	    }
+	}
+    }
+
+    private void dispatch(SocketAddress sender, byte[] data) {
+	SnmpMessage response;
+	try {
+	    response = SnmpMessage.decode(data);
+	} catch (SnmpException e) {
+	    LOGGER.debug("Ignoring malformed SNMP message from {}: {}", sender, e.getMessage());
+	    return;
+	}
+	PendingRequest request = pendingRequests.get(response.getCorrelationId());
+	if (null == request) {
+	    LOGGER.debug("Ignoring unexpected SNMP message from {}", sender);
+	    return;
+	}
+	if (!request.target.getAddress().equals(sender)) {
+	    LOGGER.debug("Ignoring SNMP message from {} matching a request to {}", sender, request.target.getAddress());
+	    return;
+	}
+	if (!isResponse(response)) {
+	    LOGGER.debug("Ignoring SNMP message from {} that is not a response", sender);
+	    return;
+	}
+	if (!pendingRequests.remove(response.getCorrelationId(), request)) {
+	    return;
+	}
+	if (null != request.timeout) {
+	    request.timeout.cancel(false);
+	}
+	request.future.complete(response);
+    }
+
+    /**
+     * Checks that a message answers a request: a response, or a report for SNMPv3. The PDU of an encrypted message is
+     * checked once decrypted
+     */
+    private static boolean isResponse(SnmpMessage message) {
+	if (message.isEncrypted()) {
+	    return true;
+	}
+	return isResponse(message.getVersion(), message.getPdu().getType());
+    }
+
+    private static boolean isResponse(int version, int pduType) {
+	return SnmpPdu.RESPONSE == pduType || (SnmpMessage.VERSION_3 == version && SnmpPdu.REPORT == pduType);
+    }
+
+    private int nextId() {
+	return nextId.incrementAndGet() & Integer.MAX_VALUE;
+    }
+
+    private static List<SnmpVarbind> toVarbinds(String... oids) {
+	List<SnmpVarbind> varbinds = new ArrayList<SnmpVarbind>(oids.length);
+	for (String oid : oids) {
+	    varbinds.add(SnmpVarbind.forRequest(oid));
+	}
+	return varbinds;
+    }
+
+    private static String getReportName(String reportOid) {
+	if (reportOid.startsWith(USM_STATS_OID_PREFIX)) {
+	    String[] arcs = reportOid.substring(USM_STATS_OID_PREFIX.length()).split("\\.");
+	    int index = Integer.parseInt(arcs[0]);
+	    if (index > 0 && index < USM_STATS_NAMES.length) {
+		return USM_STATS_NAMES[index];
+	    }
+	}
+	return reportOid;
+    }
+
+    static <T> T await(CompletableFuture<T> future) {
+	try {
+	    return future.get();
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new SnmpException("Interrupted while waiting for SNMP response", e);
+	} catch (ExecutionException e) {
+	    Throwable cause = e.getCause();
+	    if (cause instanceof CompletionException && null != cause.getCause()) {
+		cause = cause.getCause();
+	    }
+	    if (cause instanceof SnmpException) {
+		throw (SnmpException) cause;
+	    }
+	    throw new SnmpException("SNMP request failed: " + cause.getMessage(), cause);
+	}
+    }
+
+    private static final class PendingRequest {
+
+	private final int id;
+	private final SnmpTarget target;
+	private final byte[] message;
+	private final CompletableFuture<SnmpMessage> future = new CompletableFuture<SnmpMessage>();
+	private volatile ScheduledFuture<?> timeout;
+	private int attempts;
+
+	PendingRequest(int id, SnmpTarget target, byte[] message) {
+	    this.id = id;
+	    this.target = target;
+	    this.message = message;
+	}
+    }
+
+    private static final class SharedInstanceHolder {
+
+	private static final SnmpClient INSTANCE = createSharedInstance();
+
+	private static SnmpClient createSharedInstance() {
+	    SnmpClient client = new SnmpClient();
+	    Runtime.getRuntime().addShutdownHook(new Thread(client::close, "snmp-client-shutdown"));
+	    return client;
+	}
+    }
+}
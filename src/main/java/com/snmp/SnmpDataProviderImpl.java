@@ -17,6 +17,12 @@
 
 package com.snmp;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,8 +31,11 @@ import com.automatics.snmp.SnmpParams;
 import com.automatics.snmp.SnmpProtocol;
 import com.automatics.snmp.SnmpSecurityDetails;
 import com.automatics.snmp.Snmpv3SecurityLevel;
-import com.automatics.utils.AutomaticsPropertyUtility;
 import com.automatics.providers.snmp.SnmpDataProvider;
+import com.automatics.zte.config.ProviderConfiguration;
+import com.automatics.zte.config.ProviderConfigurationHolder;
+import com.automatics.zte.constants.Constants;
+import com.automatics.zte.utils.CommonMethods;
 
 /*
 * The class SnmpDataProviderImpl provides implementation
@@ -51,12 +60,16 @@ import com.automatics.providers.snmp.SnmpDataProvider;
 public class SnmpDataProviderImpl implements SnmpDataProvider {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SnmpDataProviderImpl.class);
-    private static final String DEFAULT_SNMP_PORT = "161";
-    private static final String DEFAULT_SNMP_PROTOCOL = "udp";
-    private static final String DEFAULT_SNMP_COMMUNITY = "private";
+    private static final int DEFAULT_SECURITY_CACHE_MAX_ENTRIES = 256;
+    private static final String MASKED_VALUE = "****";
+    private static final Pattern SECURITY_OPTIONS_PASSPHRASE = Pattern.compile("(-[AX]\\s*)\\S+");
+    private static final SnmpSecurityDetailsCache SECURITY_DETAILS_CACHE = new SnmpSecurityDetailsCache(
+	    CommonMethods.getIntProperty(Constants.PROPS_SNMP_SECURITY_CACHE_MAX_ENTRIES,
+		    DEFAULT_SECURITY_CACHE_MAX_ENTRIES));
 
     /**
-     * Get authorization data required for snmp communication.
+     * Get authorization data required for snmp communication. Authorization data is cached per DUT and SNMP version
+     * until the provider configuration changes or the cache entry is invalidated. Each call returns its own instance.
      * 
      * @param dut
      *            Device on snmp commands are executed
@@ -67,46 +80,75 @@ public class SnmpDataProviderImpl implements SnmpDataProvider {
 
     public SnmpSecurityDetails getSnmpAuthorization(Dut dut, SnmpParams snmpParams) {
 
+	ProviderConfiguration configuration = ProviderConfigurationHolder.get();
+	SnmpSecurityDetails autObj = SECURITY_DETAILS_CACHE.get(dut, snmpParams.getSnmpVersion(), configuration);
+	if (null != autObj) {
+	    LOGGER.debug("Using cached SNMP authorization for version {}", snmpParams.getSnmpVersion());
+	    return autObj;
+	}
+	autObj = createSnmpAuthorization(snmpParams, configuration);
+	SECURITY_DETAILS_CACHE.put(dut, snmpParams.getSnmpVersion(), configuration, autObj);
+	return autObj;
+    }
+
+    /**
+     * Removes cached authorization data of the DUT, so that it is built again on the next request
+     * 
+     * @param dut
+     */
+    public void invalidateSnmpAuthorization(Dut dut) {
+	SECURITY_DETAILS_CACHE.invalidate(dut);
+    }
+
+    /**
+     * Removes cached authorization data of all DUTs
+     */
+    public void invalidateSnmpAuthorization() {
+	SECURITY_DETAILS_CACHE.invalidateAll();
+    }
+
+    /**
+     * Builds authorization data from the provider configuration
+     * 
+     * @param snmpParams
+     * @param configuration
+     * @return Authentication data for snmp communication
+     */
+    private SnmpSecurityDetails createSnmpAuthorization(SnmpParams snmpParams, ProviderConfiguration configuration) {
+
 	/* Creation of SnmpSecurityDetails Object */
 	SnmpSecurityDetails autObj = new SnmpSecurityDetails();
 	LOGGER.info(" SNMP PROVIDER version" + snmpParams.getSnmpVersion());
 
-	/* Setting SNMP Port if default value is null */
-	String snmpPort = AutomaticsPropertyUtility.getProperty("snmp.port");
-	if (snmpPort == null) {
-	    snmpPort = DEFAULT_SNMP_PORT;
-	}
+	/* Setting SNMP Port, default value is used if not configured */
+	String snmpPort = configuration.getSnmpPort();
 	autObj.setSnmpPort(snmpPort);
 	LOGGER.info(" SNMP PROVIDER port " + snmpPort);
 
-	/* Setting protocol if default value is null */
-	String snmpProtocol = AutomaticsPropertyUtility.getProperty("snmp.protocol");
-	if (snmpProtocol == null) {
-	    snmpProtocol = DEFAULT_SNMP_PROTOCOL;
-	}
+	/* Setting protocol, default value is used if not configured */
+	String snmpProtocol = configuration.getSnmpProtocol();
 	autObj.setSnmpProtocol(snmpProtocol);
 	LOGGER.info(" SNMP PROVIDER protocol " + snmpProtocol);
 
 	/*
-	 * Extracting SNMP Params i.e, SecurityName and SecurityOptions from AutomaticsPropertyUtility for running SNMP
-	 * V3 communication
+	 * Extracting SNMP Params i.e, SecurityName and SecurityOptions from provider configuration for running SNMP V3
+	 * communication
 	 */
 	if (snmpParams.getSnmpVersion() == SnmpProtocol.SNMP_V3) {
 	    LOGGER.info(" SNMP PROVIDER V3");
 
 	    /* Get securityLevel e.g. snmp.securityLevel= authPriv */
-	    String PropSecLvl = AutomaticsPropertyUtility.getProperty("snmp.securityLevel");
+	    Snmpv3SecurityLevel securityLevel = configuration.getSnmpSecurityLevel();
 
-	    if (null == PropSecLvl) {
+	    if (null == securityLevel) {
 		LOGGER.error("Security level is null");
 	    } else {
-		Snmpv3SecurityLevel securityLevel = Snmpv3SecurityLevel.valueOf(PropSecLvl);
 		autObj.setSecurityLevel(securityLevel);
 		LOGGER.info("Security level is set " + securityLevel);
 	    }
 
 	    /* Get securityName e.g. snmp.securityName= linuser */
-	    String securityName = AutomaticsPropertyUtility.getProperty("snmp.securityName");
+	    String securityName = configuration.getSnmpSecurityName();
 	    if (null == securityName) {
 		LOGGER.error("Security Name is null");
 	    } else {
@@ -115,32 +157,39 @@ public class SnmpDataProviderImpl implements SnmpDataProvider {
 	    }
 
 	    /* Get securityOptions e.g. snmp.securityOptions= -a SHA -A linuserpass -x DES -X linprivpass */
-	    String securityOptions = AutomaticsPropertyUtility.getProperty("snmp.securityOptions");
+	    String securityOptions = configuration.getSnmpSecurityOptions();
 	    if (null == securityOptions) {
 		LOGGER.error("Security Options are null");
 	    } else {
 		autObj.setSecurityOptions(securityOptions);
-		LOGGER.info("Security Options are set " + securityOptions);
+		LOGGER.info("Security Options are set " + maskSecurityOptions(securityOptions));
 	    }
 	}
 
 	/*
-	 * Extracting SNMP Param i.e, Community String from AutomaticsPropertyUtility and setting it's value, if no
-	 * value configured default "private" will be configured as through which both get/set can be performed
+	 * Extracting SNMP Param i.e, Community String from provider configuration and setting it's value, if no value
+	 * configured default "private" will be configured as through which both get/set can be performed
 	 */
 	else if (snmpParams.getSnmpVersion() == SnmpProtocol.SNMP_V2) {
 	    LOGGER.info(" SNMP PROVIDER V2");
-	    String snmpCommunity = AutomaticsPropertyUtility.getProperty("snmp.community");
-	    if (snmpCommunity == null) {
-		snmpCommunity = DEFAULT_SNMP_COMMUNITY;
-	    }
+	    String snmpCommunity = configuration.getSnmpCommunity();
 	    autObj.setCommunity(snmpCommunity);
-	    LOGGER.info(" SNMP PROVIDER community " + snmpCommunity);
+	    LOGGER.info(" SNMP PROVIDER community " + MASKED_VALUE);
 	}
 
 	return autObj;
     }
 
+    /**
+     * Hides the passphrases of net-snmp style security options, e.g. -A linuserpass -X linprivpass
+     * 
+     * @param securityOptions
+     * @return security options safe to log
+     */
+    static String maskSecurityOptions(String securityOptions) {
+	return SECURITY_OPTIONS_PASSPHRASE.matcher(securityOptions).replaceAll("$1" + MASKED_VALUE);
+    }
+
     /**
      * Update snmp params data required for snmp communication.
      * 
@@ -158,7 +207,122 @@ public class SnmpDataProviderImpl implements SnmpDataProvider {
 
 	    }
 	}
-	LOGGER.info("Target IP is " + dut.getHostIpAddress());
+	LOGGER.debug("Target IP is {}", dut.getHostIpAddress());
 	return snmpParams;
     }
+
+    /**
+     * Gets the target for in-process SNMP requests, built from the snmp params and authorization data of the DUT
+     * 
+     * @param dut
+     *            Device on snmp commands are executed
+     * @param snmpParams
+     *            Snmp params
+     * @return SnmpTarget instance
+     */
+    public SnmpTarget getSnmpTarget(Dut dut, SnmpParams snmpParams) {
+	SnmpParams params = updateSnmpParams(dut, snmpParams);
+	ProviderConfiguration configuration = ProviderConfigurationHolder.get();
+	return SnmpTarget.from(params, getSnmpAuthorization(dut, params))
+		.withTimeout(configuration.getSnmpTimeout(), configuration.getSnmpRetries());
+    }
+
+    /**
+     * Gets the values of the object identifiers from the DUT with the in-process SNMP client. Concurrent requests for
+     * the same DUT are merged into one request
+     * 
+     * @param dut
+     * @param snmpParams
+     * @param oids
+     * @return variable bindings in the order of the object identifiers
+     */
+    public List<SnmpVarbind> get(Dut dut, SnmpParams snmpParams, String... oids) {
+	return RequestCoalescerHolder.INSTANCE.get(getSnmpTarget(dut, snmpParams), oids);
+    }
+
+    /**
+     * Starts getting the values of the object identifiers from the DUT. Requests started together for the same DUT
+     * are merged into as few requests as fit into the configured maximum message size
+     * 
+     * @param dut
+     * @param snmpParams
+     * @param oids
+     * @return future completed with the variable bindings in the order of the object identifiers
+     */
+    public CompletableFuture<List<SnmpVarbind>> getAsync(Dut dut, SnmpParams snmpParams, String... oids) {
+	return RequestCoalescerHolder.INSTANCE.getAsync(getSnmpTarget(dut, snmpParams), oids);
+    }
+
+    /**
+     * Gets the variables following the object identifiers from the DUT with the in-process SNMP client. Concurrent
+     * requests for the same DUT are merged into one request
+     * 
+     * @param dut
+     * @param snmpParams
+     * @param oids
+     * @return variable bindings in the order of the object identifiers
+     */
+    public List<SnmpVarbind> getNext(Dut dut, SnmpParams snmpParams, String... oids) {
+	return RequestCoalescerHolder.INSTANCE.getNext(getSnmpTarget(dut, snmpParams), oids);
+    }
+
+    /**
+     * Gets multiple variables following the object identifiers from the DUT in one GETBULK request
+     * 
+     * @param dut
+     * @param snmpParams
+     * @param nonRepeaters
+     * @param maxRepetitions
+     * @param oids
+     * @return variable bindings
+     */
+    public List<SnmpVarbind> getBulk(Dut dut, SnmpParams snmpParams, int nonRepeaters, int maxRepetitions,
+	    String... oids) {
+	return SnmpClient.getSharedInstance().getBulk(getSnmpTarget(dut, snmpParams), nonRepeaters, maxRepetitions,
+		oids);
+    }
+
+    /**
+     * Sets variables on the DUT with the in-process SNMP client
+     * 
+     * @param dut
+     * @param snmpParams
+     * @param varbinds
+     * @return variable bindings returned by the DUT
+     */
+    public List<SnmpVarbind> set(Dut dut, SnmpParams snmpParams, SnmpVarbind... varbinds) {
+	LOGGER.info("Setting SNMP variables {}", Arrays.asList(varbinds));
+	return SnmpClient.getSharedInstance().set(getSnmpTarget(dut, snmpParams), varbinds);
+    }
+
+    /**
+     * Gets all variables below the root object identifier from the DUT with GETBULK requests
+     * 
+     * @param dut
+     * @param snmpParams
+     * @param rootOid
+     * @return variable bindings in lexicographic order
+     */
+    public List<SnmpVarbind> walk(Dut dut, SnmpParams snmpParams, String rootOid) {
+	return SnmpClient.getSharedInstance().walk(getSnmpTarget(dut, snmpParams), rootOid, true);
+    }
+
+    /**
+     * Gets all variables below each root object identifier from the DUT, walking the columns of a table together
+     * 
+     * @param dut
+     * @param snmpParams
+     * @param rootOids
+     *            Object identifiers of the table columns
+     * @return variable bindings of each column in lexicographic order, keyed by the normalized column identifier
+     */
+    public Map<String, List<SnmpVarbind>> walkColumns(Dut dut, SnmpParams snmpParams, String... rootOids) {
+	return SnmpClient.getSharedInstance().walkColumns(getSnmpTarget(dut, snmpParams), rootOids);
+    }
+
+    private static final class RequestCoalescerHolder {
+
+	private static final SnmpRequestCoalescer INSTANCE = new SnmpRequestCoalescer(SnmpClient.getSharedInstance(),
+		() -> ProviderConfigurationHolder.get().getSnmpMaxMessageSize());
+    }
 }
@@ -0,0 +1,59 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+/**
+ * Runtime exception for SNMP failures: malformed messages, error responses and timeouts
+ */
+public class SnmpException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int errorStatus;
+    private final boolean isTimeout;
+
+    public SnmpException(String message) {
+	this(message, 0, false);
+    }
+
+    public SnmpException(String message, Throwable cause) {
+	super(message, cause);
+	this.errorStatus = 0;
+	this.isTimeout = false;
+    }
+
+    public SnmpException(String message, int errorStatus, boolean isTimeout) {
+	super(message);
+	this.errorStatus = errorStatus;
+	this.isTimeout = isTimeout;
+    }
+
+    /**
+     * @return error status of the response that caused the failure, 0 if the failure was not an error response
+     */
+    public int getErrorStatus() {
+	return errorStatus;
+    }
+
+    /**
+     * @return true if the agent did not respond
+     */
+    public boolean isTimeout() {
+	return isTimeout;
+    }
+}
@@ -0,0 +1,280 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Encodes and decodes SNMP messages: community based v2c messages and v3 messages secured with the user based
+ * security model.
+ */
+final class SnmpMessage {
+
+    static final int VERSION_2C = 1;
+    static final int VERSION_3 = 3;
+    static final int FLAG_AUTH = 0x01;
+    static final int FLAG_PRIV = 0x02;
+    static final int FLAG_REPORTABLE = 0x04;
+    static final int MAX_MESSAGE_SIZE = 65507;
+    private static final int USM_SECURITY_MODEL = 3;
+    private static final byte[] EMPTY = new byte[0];
+    private static final AtomicLong SALT = new AtomicLong(new SecureRandom().nextLong());
+
+    private final byte[] raw;
+    private int version;
+    private String community;
+    private int messageId;
+    private int flags;
+    private byte[] engineId = EMPTY;
+    private int engineBoots;
+    private int engineTime;
+    private String userName = "";
+    private int authParametersOffset = -1;
+    private byte[] privParameters = EMPTY;
+    private byte[] encryptedScopedPdu;
+    private SnmpPdu pdu;
+
+    private SnmpMessage(byte[] raw) {
+	this.raw = raw;
+    }
+
+    /**
+     * Encodes a community based v2c message
+     */
+    static byte[] encodeCommunity(String community, SnmpPdu pdu) {
+	BerWriter writer = new BerWriter();
+	pdu.encode(writer);
+	writer.writeOctetString(BerTags.OCTET_STRING,
+		(null != community ? community : "").getBytes(StandardCharsets.UTF_8));
+	writer.writeInteger(BerTags.INTEGER, VERSION_2C);
+	writer.writeHeader(BerTags.SEQUENCE, 0);
+	return writer.toByteArray();
+    }
+
+    /**
+     * Encodes a v3 message, authenticated and encrypted as requested by the flags
+     * 
+     * @param messageId
+     * @param flags
+     * @param engine
+     *            Authoritative engine, null for engine discovery
+     * @param userName
+     * @param keys
+     *            Keys localized to the engine, required if the flags request authentication
+     * @param pdu
+     * @return encoded message
+     */
+    static byte[] encodeUsm(int messageId, int flags, UsmEngineInfo engine, String userName, UsmKeys keys,
+	    SnmpPdu pdu) {
+	boolean isAuthenticated = 0 != (flags & FLAG_AUTH);
+	boolean isEncrypted = 0 != (flags & FLAG_PRIV);
+	byte[] engineId = null != engine ? engine.getEngineId() : EMPTY;
+	int boots = null != engine ? engine.getEngineBoots() : 0;
+	int time = null != engine ? engine.getCurrentEngineTime() : 0;
+
+	BerWriter writer = new BerWriter();
+	byte[] privParameters = EMPTY;
+	if (isEncrypted) {
+	    BerWriter scopedPduWriter = new BerWriter();
+	    writeScopedPdu(scopedPduWriter, engineId, pdu);
+	    privParameters = UsmSecurity.privParameters(keys.getPrivProtocol(), boots, SALT.incrementAndGet());
+	    writer.writeOctetString(BerTags.OCTET_STRING, UsmSecurity.encrypt(keys.getPrivProtocol(),
+		    keys.getPrivKey(), boots, time, privParameters, scopedPduWriter.toByteArray()));
+	} else {
+	    writeScopedPdu(writer, engineId, pdu);
+	}
+
+	int securityParametersMark = writer.size();
+	writer.writeOctetString(BerTags.OCTET_STRING, privParameters);
+	int authParametersMark = writer.size();
+	writer.writeOctetString(BerTags.OCTET_STRING,
+		isAuthenticated ? new byte[UsmSecurity.AUTH_PARAMETERS_LENGTH] : EMPTY);
+	writer.writeOctetString(BerTags.OCTET_STRING, userName.getBytes(StandardCharsets.UTF_8));
+	writer.writeInteger(BerTags.INTEGER, time);
+	writer.writeInteger(BerTags.INTEGER, boots);
+	writer.writeOctetString(BerTags.OCTET_STRING, engineId);
+	writer.writeHeader(BerTags.SEQUENCE, securityParametersMark);
+	writer.writeHeader(BerTags.OCTET_STRING, securityParametersMark);
+
+	int headerMark = writer.size();
+	writer.writeInteger(BerTags.INTEGER, USM_SECURITY_MODEL);
+	writer.writeOctetString(BerTags.OCTET_STRING, new byte[] { (byte) flags });
+	writer.writeInteger(BerTags.INTEGER, MAX_MESSAGE_SIZE);
+	writer.writeInteger(BerTags.INTEGER, messageId);
+	writer.writeHeader(BerTags.SEQUENCE, headerMark);
+	writer.writeInteger(BerTags.INTEGER, VERSION_3);
+	writer.writeHeader(BerTags.SEQUENCE, 0);
+
+	byte[] message = writer.toByteArray();
+	if (isAuthenticated) {
+	    byte[] authParameters = UsmSecurity.sign(keys.getAuthProtocol(), keys.getAuthKey(), message);
+	    System.arraycopy(authParameters, 0, message,
+		    message.length - authParametersMark - UsmSecurity.AUTH_PARAMETERS_LENGTH,
+		    UsmSecurity.AUTH_PARAMETERS_LENGTH);
+	}
+	return message;
+    }
+
+    /**
+     * Decodes a message. The PDU of an encrypted v3 message is available after {@link #unprotect(UsmKeys)}
+     * 
+     * @param raw
+     * @return SnmpMessage instance
+     */
+    static SnmpMessage decode(byte[] raw) {
+	SnmpMessage message = new SnmpMessage(raw);
+	BerReader reader = new BerReader(raw);
+	reader.readSequence(BerTags.SEQUENCE);
+	message.version = (int) reader.readInteger();
+	if (VERSION_3 != message.version) {
+	    message.community = new String(reader.readOctetString(), StandardCharsets.UTF_8);
+	    message.pdu = SnmpPdu.decode(reader);
+	    return message;
+	}
+
+	reader.readSequence(BerTags.SEQUENCE);
+	message.messageId = (int) reader.readInteger();
+	reader.readInteger();
+	byte[] flags = reader.readOctetString();
+	message.flags = flags.length > 0 ? flags[0] & 0xFF : 0;
+	long securityModel = reader.readInteger();
+	if (USM_SECURITY_MODEL != securityModel) {
+	    throw new SnmpException("Unsupported SNMPv3 security model: " + securityModel);
+	}
+
+	reader.readSequence(BerTags.OCTET_STRING);
+	reader.readSequence(BerTags.SEQUENCE);
+	message.engineId = reader.readOctetString();
+	message.engineBoots = (int) reader.readInteger();
+	message.engineTime = (int) reader.readInteger();
+	message.userName = new String(reader.readOctetString(), StandardCharsets.UTF_8);
+	int authParametersEnd = reader.readSequence(BerTags.OCTET_STRING);
+	message.authParametersOffset = reader.position();
+	if (message.isAuthenticated() && UsmSecurity.AUTH_PARAMETERS_LENGTH != authParametersEnd - reader.position()) {
+	    throw new SnmpException("Invalid SNMPv3 authentication parameters");
+	}
+	reader.skip(authParametersEnd - reader.position());
+	message.privParameters = reader.readOctetString();
+
+	if (message.isEncrypted()) {
+	    message.encryptedScopedPdu = reader.readOctetString();
+	} else {
+	    message.pdu = readScopedPdu(reader);
+	}
+	return message;
+    }
+
+    /**
+     * Verifies and decrypts a v3 message as requested by its flags
+     * 
+     * @param keys
+     *            Keys localized to the authoritative engine
+     */
+    void unprotect(UsmKeys keys) {
+	if (isAuthenticated()) {
+	    if (null == keys.getAuthKey()) {
+		throw new SnmpException("Received authenticated SNMPv3 message without authentication key");
+	    }
+	    if (!UsmSecurity.verify(keys.getAuthProtocol(), keys.getAuthKey(), raw, authParametersOffset)) {
+		throw new SnmpException("SNMPv3 authentication failure");
+	    }
+	}
+	if (isEncrypted() && null == pdu) {
+	    if (null == keys.getPrivKey()) {
+		throw new SnmpException("Received encrypted SNMPv3 message without privacy key");
+	    }
+	    byte[] scopedPdu = UsmSecurity.decrypt(keys.getPrivProtocol(), keys.getPrivKey(), engineBoots,
+		    engineTime, privParameters, encryptedScopedPdu);
+	    pdu = readScopedPdu(new BerReader(scopedPdu));
+	}
+    }
+
+    /**
+     * @return id matching responses to requests: the message id of v3 messages, the request id otherwise
+     */
+    int getCorrelationId() {
+	return VERSION_3 == version ? messageId : pdu.getRequestId();
+    }
+
+    int getVersion() {
+	return version;
+    }
+
+    String getCommunity() {
+	return community;
+    }
+
+    int getMessageId() {
+	return messageId;
+    }
+
+    boolean isAuthenticated() {
+	return 0 != (flags & FLAG_AUTH);
+    }
+
+    boolean isEncrypted() {
+	return 0 != (flags & FLAG_PRIV);
+    }
+
+    boolean isReportable() {
+	return 0 != (flags & FLAG_REPORTABLE);
+    }
+
+    byte[] getEngineId() {
+	return engineId;
+    }
+
+    int getEngineBoots() {
+	return engineBoots;
+    }
+
+    int getEngineTime() {
+	return engineTime;
+    }
+
+    String getUserName() {
+	return userName;
+    }
+
+    /**
+     * @return PDU of the message
+     */
+    SnmpPdu getPdu() {
+	if (null == pdu) {
+	    throw new SnmpException("SNMPv3 message has not been decrypted");
+	}
+	return pdu;
+    }
+
+    private static void writeScopedPdu(BerWriter writer, byte[] contextEngineId, SnmpPdu pdu) {
+	int mark = writer.size();
+	pdu.encode(writer);
+	writer.writeOctetString(BerTags.OCTET_STRING, EMPTY);
+	writer.writeOctetString(BerTags.OCTET_STRING, contextEngineId);
+	writer.writeHeader(BerTags.SEQUENCE, mark);
+    }
+
+    private static SnmpPdu readScopedPdu(BerReader reader) {
+	reader.readSequence(BerTags.SEQUENCE);
+	reader.readOctetString();
+	reader.readOctetString();
+	return SnmpPdu.decode(reader);
+    }
+}
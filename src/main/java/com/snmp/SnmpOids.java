@@ -0,0 +1,99 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+/**
+ * Helpers for dotted object identifiers
+ */
+public final class SnmpOids {
+
+    private SnmpOids() {
+    }
+
+    /**
+     * Removes the leading dot that net-snmp prints in front of numeric object identifiers
+     * 
+     * @param oid
+     * @return object identifier without leading dot
+     */
+    public static String normalize(String oid) {
+	String trimmed = oid.trim();
+	return trimmed.startsWith(".") ? trimmed.substring(1) : trimmed;
+    }
+
+    /**
+     * @param oid
+     * @return true if the object identifier is numeric, e.g. 1.3.6.1.2.1.1.3.0
+     */
+    public static boolean isNumeric(String oid) {
+	String normalized = normalize(oid);
+	if (normalized.isEmpty()) {
+	    return false;
+	}
+	boolean isDigitExpected = true;
+	for (int index = 0; index < normalized.length(); index++) {
+	    char current = normalized.charAt(index);
+	    if (Character.isDigit(current)) {
+		isDigitExpected = false;
+	    } else if ('.' != current || isDigitExpected) {
+		return false;
+	    }
+	}
+	return !isDigitExpected;
+    }
+
+    /**
+     * @param oid
+     * @param rootOid
+     * @return true if the object identifier lies below the root object identifier
+     */
+    public static boolean isDescendant(String oid, String rootOid) {
+	String normalizedRoot = normalize(rootOid);
+	return oid.startsWith(normalizedRoot) && oid.length() > normalizedRoot.length()
+		&& '.' == oid.charAt(normalizedRoot.length());
+    }
+
+    /**
+     * Compares object identifiers arc by arc, as in lexicographic MIB order
+     * 
+     * @return negative, zero or positive value as the first object identifier is before, equal to or after the second
+     */
+    public static int compare(String oid, String otherOid) {
+	long[] arcs = parse(oid);
+	long[] otherArcs = parse(otherOid);
+	for (int index = 0; index < Math.min(arcs.length, otherArcs.length); index++) {
+	    if (arcs[index] != otherArcs[index]) {
+		return Long.compare(arcs[index], otherArcs[index]);
+	    }
+	}
+	return Integer.compare(arcs.length, otherArcs.length);
+    }
+
+    static long[] parse(String oid) {
+	String normalized = normalize(oid);
+	if (!isNumeric(normalized)) {
+	    throw new SnmpException("Not a numeric object identifier: " + oid);
+	}
+	String[] parts = normalized.split("\\.");
+	long[] arcs = new long[parts.length];
+	for (int index = 0; index < parts.length; index++) {
+	    arcs[index] = Long.parseLong(parts[index]);
+	}
+	return arcs;
+    }
+}
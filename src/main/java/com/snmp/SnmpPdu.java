@@ -0,0 +1,155 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SNMP v2 protocol data unit. For GETBULK requests the error status and error index fields carry non-repeaters and
+ * max-repetitions.
+ */
+public class SnmpPdu {
+
+    public static final int GET = 0xA0;
+    public static final int GET_NEXT = 0xA1;
+    public static final int RESPONSE = 0xA2;
+    public static final int SET = 0xA3;
+    public static final int GET_BULK = 0xA5;
+    public static final int INFORM = 0xA6;
+    public static final int TRAP = 0xA7;
+    public static final int REPORT = 0xA8;
+    public static final int ERROR_TOO_BIG = 1;
+
+    private static final String[] ERROR_STATUS_NAMES = { "noError", "tooBig", "noSuchName", "badValue", "readOnly",
+	    "genErr", "noAccess", "wrongType", "wrongLength", "wrongEncoding", "wrongValue", "noCreation",
+	    "inconsistentValue", "resourceUnavailable", "commitFailed", "undoFailed", "authorizationError",
+	    "notWritable", "inconsistentName" };
+
+    private final int type;
+    private final int requestId;
+    private final int errorStatus;
+    private final int errorIndex;
+    private final List<SnmpVarbind> varbinds;
+
+    public SnmpPdu(int type, int requestId, int errorStatus, int errorIndex, List<SnmpVarbind> varbinds) {
+	this.type = type;
+	this.requestId = requestId;
+	this.errorStatus = errorStatus;
+	this.errorIndex = errorIndex;
+	this.varbinds = Collections.unmodifiableList(new ArrayList<SnmpVarbind>(varbinds));
+    }
+
+    /**
+     * Creates a GET, GETNEXT or SET request. The request id is assigned when the request is sent
+     * 
+     * @param type
+     * @param varbinds
+     * @return SnmpPdu instance
+     */
+    public static SnmpPdu request(int type, List<SnmpVarbind> varbinds) {
+	return new SnmpPdu(type, 0, 0, 0, varbinds);
+    }
+
+    /**
+     * Creates a GETBULK request. The request id is assigned when the request is sent
+     * 
+     * @param nonRepeaters
+     * @param maxRepetitions
+     * @param varbinds
+     * @return SnmpPdu instance
+     */
+    public static SnmpPdu getBulk(int nonRepeaters, int maxRepetitions, List<SnmpVarbind> varbinds) {
+	return new SnmpPdu(GET_BULK, 0, nonRepeaters, maxRepetitions, varbinds);
+    }
+
+    public int getType() {
+	return type;
+    }
+
+    public int getRequestId() {
+	return requestId;
+    }
+
+    public int getErrorStatus() {
+	return errorStatus;
+    }
+
+    public int getErrorIndex() {
+	return errorIndex;
+    }
+
+    public int getNonRepeaters() {
+	return errorStatus;
+    }
+
+    public int getMaxRepetitions() {
+	return errorIndex;
+    }
+
+    public List<SnmpVarbind> getVarbinds() {
+	return varbinds;
+    }
+
+    /**
+     * @param newRequestId
+     * @return copy of this PDU with the given request id
+     */
+    public SnmpPdu withRequestId(int newRequestId) {
+	return new SnmpPdu(type, newRequestId, errorStatus, errorIndex, varbinds);
+    }
+
+    /**
+     * @param errorStatus
+     * @return name of the error status as defined in RFC 3416
+     */
+    public static String getErrorStatusName(int errorStatus) {
+	if (errorStatus >= 0 && errorStatus < ERROR_STATUS_NAMES.length) {
+	    return ERROR_STATUS_NAMES[errorStatus];
+	}
+	return "error(" + errorStatus + ")";
+    }
+
+    void encode(BerWriter writer) {
+	int mark = writer.size();
+	int varbindsMark = writer.size();
+	for (int index = varbinds.size() - 1; index >= 0; index--) {
+	    varbinds.get(index).encode(writer);
+	}
+	writer.writeHeader(BerTags.SEQUENCE, varbindsMark);
+	writer.writeInteger(BerTags.INTEGER, errorIndex);
+	writer.writeInteger(BerTags.INTEGER, errorStatus);
+	writer.writeInteger(BerTags.INTEGER, requestId);
+	writer.writeHeader(type, mark);
+    }
+
+    static SnmpPdu decode(BerReader reader) {
+	int type = reader.peekTag();
+	reader.readSequence(type);
+	int requestId = (int) reader.readInteger();
+	int errorStatus = (int) reader.readInteger();
+	int errorIndex = (int) reader.readInteger();
+	int end = reader.readSequence(BerTags.SEQUENCE);
+	List<SnmpVarbind> varbinds = new ArrayList<SnmpVarbind>();
+	while (reader.hasMore(end)) {
+	    varbinds.add(SnmpVarbind.decode(reader));
+	}
+	return new SnmpPdu(type, requestId, errorStatus, errorIndex, varbinds);
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.automatics.device.Dut;
+
+/**
+ * Outcome of one scheduled SNMP poll of a DUT
+ */
+public class SnmpPollResult {
+
+    private final Dut dut;
+    private final List<SnmpVarbind> varbinds;
+    private final SnmpException error;
+    private final long polledAtMillis;
+    private final long latencyMillis;
+
+    SnmpPollResult(Dut dut, List<SnmpVarbind> varbinds, SnmpException error, long polledAtMillis,
+	    long latencyMillis) {
+	this.dut = dut;
+	this.varbinds = null != varbinds ? varbinds : Collections.<SnmpVarbind> emptyList();
+	this.error = error;
+	this.polledAtMillis = polledAtMillis;
+	this.latencyMillis = latencyMillis;
+    }
+
+    public Dut getDut() {
+	return dut;
+    }
+
+    /**
+     * @return polled variables in the order of the scheduled object identifiers, empty if the poll failed
+     */
+    public List<SnmpVarbind> getVarbinds() {
+	return varbinds;
+    }
+
+    /**
+     * @return error the poll failed with, null if successful
+     */
+    public SnmpException getError() {
+	return error;
+    }
+
+    public boolean isSuccess() {
+	return null == error;
+    }
+
+    /**
+     * @return time the poll was sent, in milliseconds since the epoch
+     */
+    public long getPolledAtMillis() {
+	return polledAtMillis;
+    }
+
+    /**
+     * @return time from sending the poll to receiving the response or giving up
+     */
+    public long getLatencyMillis() {
+	return latencyMillis;
+    }
+}
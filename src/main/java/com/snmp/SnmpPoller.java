@@ -0,0 +1,218 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.automatics.device.Dut;
+import com.automatics.snmp.SnmpParams;
+
+/**
+ * Polls object identifiers on many DUTs at fixed intervals. Polls are sent through one {@link SnmpClient}, which
+ * multiplexes all agents over a single datagram channel, so polling takes one scheduler thread however many DUTs are
+ * polled. The first poll of each DUT is delayed by a random part of its interval to spread the polls, and a poll is
+ * skipped while the previous poll of the same DUT is still waiting for its response.
+ */
+public class SnmpPoller implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnmpPoller.class);
+
+    private final SnmpDataProviderImpl snmpDataProvider;
+    private final SnmpClient client;
+    private final ScheduledExecutorService scheduler;
+    private final Map<Dut, Poll> polls = new ConcurrentHashMap<Dut, Poll>();
+    private final List<SnmpPollListener> listeners = new CopyOnWriteArrayList<SnmpPollListener>();
+
+    public SnmpPoller() {
+	this(new SnmpDataProviderImpl(), SnmpClient.getSharedInstance());
+    }
+
+    /**
+     * @param snmpDataProvider
+     *            Provider resolving the SNMP target of a DUT
+     * @param client
+     *            Client the polls are sent with
+     */
+    public SnmpPoller(SnmpDataProviderImpl snmpDataProvider, SnmpClient client) {
+	this.snmpDataProvider = snmpDataProvider;
+	this.client = client;
+	this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+	    Thread thread = new Thread(runnable, "snmp-poller");
+	    thread.setDaemon(true);
+	    return thread;
+	});
+    }
+
+    public void addListener(SnmpPollListener listener) {
+	listeners.add(listener);
+    }
+
+    public void removeListener(SnmpPollListener listener) {
+	listeners.remove(listener);
+    }
+
+    /**
+     * Starts polling a DUT, replacing an earlier schedule of the same DUT. The SNMP target is resolved with
+     * {@link SnmpDataProviderImpl#getSnmpTarget(Dut, SnmpParams)} now and again after a failed poll
+     * 
+     * @param dut
+     * @param snmpParams
+     * @param intervalMillis
+     *            Time between two polls
+     * @param oids
+     *            Object identifiers to get with each poll
+     */
+    public void schedule(Dut dut, SnmpParams snmpParams, long intervalMillis, String... oids) {
+	schedule(dut, () -> snmpDataProvider.getSnmpTarget(dut, snmpParams), intervalMillis, oids);
+    }
+
+    /**
+     * Starts polling a DUT at a known target
+     */
+    void schedule(Dut dut, TargetResolver targetResolver, long intervalMillis, String... oids) {
+	if (intervalMillis <= 0) {
+	    throw new IllegalArgumentException("Poll interval must be positive: " + intervalMillis);
+	}
+	Poll poll = new Poll(dut, targetResolver, SnmpPdu.request(SnmpPdu.GET, toVarbinds(oids)));
+	long initialDelay = ThreadLocalRandom.current().nextLong(intervalMillis);
+	poll.schedule = scheduler.scheduleAtFixedRate(() -> run(poll), initialDelay, intervalMillis,
+		TimeUnit.MILLISECONDS);
+	Poll previous = polls.put(dut, poll);
+	if (null != previous) {
+	    previous.schedule.cancel(false);
+	}
+	LOGGER.info("Polling {} every {} ms: {}", dut.getHostMacAddress(), intervalMillis, Arrays.asList(oids));
+    }
+
+    /**
+     * Stops polling a DUT
+     * 
+     * @param dut
+     */
+    public void unschedule(Dut dut) {
+	Poll poll = polls.remove(dut);
+	if (null != poll) {
+	    poll.schedule.cancel(false);
+	}
+    }
+
+    /**
+     * Stops all polls. The client is left open
+     */
+    @Override
+    public void close() {
+	scheduler.shutdownNow();
+	polls.clear();
+    }
+
+    private void run(Poll poll) {
+	if (poll.isOutstanding) {
+	    LOGGER.debug("Skipping poll of {}, previous poll still outstanding", poll.dut.getHostMacAddress());
+	    return;
+	}
+	long polledAt = System.currentTimeMillis();
+	long startNanos = System.nanoTime();
+	try {
+	    if (null == poll.target) {
+		poll.target = poll.targetResolver.resolve();
+	    }
+	} catch (RuntimeException e) {
+	    publish(new SnmpPollResult(poll.dut, null, toSnmpException(e), polledAt, 0));
+	    return;
+	}
+	poll.isOutstanding = true;
+	client.sendAsync(poll.target, poll.request).whenCompleteAsync((response, error) -> {
+	    poll.isOutstanding = false;
+	    long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+	    SnmpPollResult result;
+	    try {
+		if (null != error) {
+		    throw toSnmpException(error);
+		}
+		result = new SnmpPollResult(poll.dut, SnmpClient.checkResponse(poll.request, response), null,
+			polledAt, latency);
+	    } catch (SnmpException e) {
+		poll.target = null;
+		result = new SnmpPollResult(poll.dut, null, e, polledAt, latency);
+	    }
+	    publish(result);
+	}, scheduler);
+    }
+
+    private void publish(SnmpPollResult result) {
+	for (SnmpPollListener listener : listeners) {
+	    try {
+		listener.onPoll(result);
+	    } catch (RuntimeException e) {
+		LOGGER.error("SNMP poll listener failed: {}", e.getMessage());
+	    }
+	}
+    }
+
+    private static SnmpException toSnmpException(Throwable error) {
+	Throwable cause = error instanceof CompletionException && null != error.getCause() ? error.getCause()
+		: error;
+	return cause instanceof SnmpException ? (SnmpException) cause
+		: new SnmpException("SNMP poll failed: " + cause.getMessage(), cause);
+    }
+
+    private static List<SnmpVarbind> toVarbinds(String... oids) {
+	SnmpVarbind[] varbinds = new SnmpVarbind[oids.length];
+	for (int index = 0; index < oids.length; index++) {
+	    varbinds[index] = SnmpVarbind.forRequest(oids[index]);
+	}
+	return Arrays.asList(varbinds);
+    }
+
+    /**
+     * Resolves the SNMP target of a polled DUT
+     */
+    interface TargetResolver {
+
+	SnmpTarget resolve();
+    }
+
+    private static final class Poll {
+
+	private final Dut dut;
+	private final TargetResolver targetResolver;
+	private final SnmpPdu request;
+	private volatile ScheduledFuture<?> schedule;
+	private volatile SnmpTarget target;
+	private volatile boolean isOutstanding;
+
+	Poll(Dut dut, TargetResolver targetResolver, SnmpPdu request) {
+	    this.dut = dut;
+	    this.targetResolver = targetResolver;
+	    this.request = request;
+	}
+    }
+}
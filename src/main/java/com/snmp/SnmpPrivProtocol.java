@@ -0,0 +1,43 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+/**
+ * SNMPv3 user based security model privacy protocols
+ */
+public enum SnmpPrivProtocol {
+
+    DES,
+    AES;
+
+    /**
+     * @param name
+     *            Protocol name as given to net-snmp -x option, e.g. DES or AES
+     * @return SnmpPrivProtocol instance
+     */
+    public static SnmpPrivProtocol fromName(String name) {
+	String normalized = name.trim().toUpperCase().replace("-", "");
+	if ("DES".equals(normalized)) {
+	    return DES;
+	}
+	if ("AES".equals(normalized) || "AES128".equals(normalized)) {
+	    return AES;
+	}
+	throw new SnmpException("Unsupported SNMPv3 privacy protocol: " + name);
+    }
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Merges concurrent GET and GETNEXT requests for the same target into multi-varbind requests. A request is sent at
+ * once when no request is outstanding for its target; requests arriving while one is outstanding are queued and sent
+ * together, as many as fit into the maximum message size, when the response arrives. A single caller therefore sees no
+ * added latency, and concurrent callers share round trips. Each caller receives the variable bindings of its own
+ * object identifiers.
+ */
+public class SnmpRequestCoalescer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnmpRequestCoalescer.class);
+
+    /** Room left in a message for the header, community or USM security parameters and PDU fields */
+    static final int MESSAGE_OVERHEAD = 200;
+
+    private final SnmpClient client;
+    private final IntSupplier maxMessageSize;
+    private final Map<SnmpTarget, TargetQueue> queues = new ConcurrentHashMap<SnmpTarget, TargetQueue>();
+
+    /**
+     * @param client
+     *            Client the merged requests are sent with
+     * @param maxMessageSize
+     *            Maximum size in bytes of a merged request, read for every request
+     */
+    public SnmpRequestCoalescer(SnmpClient client, IntSupplier maxMessageSize) {
+	this.client = client;
+	this.maxMessageSize = maxMessageSize;
+    }
+
+    public CompletableFuture<List<SnmpVarbind>> getAsync(SnmpTarget target, String... oids) {
+	return submit(target, SnmpPdu.GET, oids);
+    }
+
+    public CompletableFuture<List<SnmpVarbind>> getNextAsync(SnmpTarget target, String... oids) {
+	return submit(target, SnmpPdu.GET_NEXT, oids);
+    }
+
+    public List<SnmpVarbind> get(SnmpTarget target, String... oids) {
+	return SnmpClient.await(getAsync(target, oids));
+    }
+
+    public List<SnmpVarbind> getNext(SnmpTarget target, String... oids) {
+	return SnmpClient.await(getNextAsync(target, oids));
+    }
+
+    private CompletableFuture<List<SnmpVarbind>> submit(SnmpTarget target, int type, String... oids) {
+	List<SnmpVarbind> varbinds = new ArrayList<SnmpVarbind>(oids.length);
+	for (String oid : oids) {
+	    varbinds.add(SnmpVarbind.forRequest(oid));
+	}
+	Request request = new Request(type, varbinds);
+	while (true) {
+	    TargetQueue queue = queues.computeIfAbsent(target, TargetQueue::new);
+	    synchronized (queue) {
+		if (!queue.isRetired) {
+		    queue.waiting.add(request);
+		    if (!queue.isInFlight) {
+			sendNextBatch(queue);
+		    }
+		    return request.future;
+		}
+	    }
+	}
+    }
+
+    /**
+     * Sends the oldest waiting request together with the later waiting requests of the same type that fit into the
+     * message, or retires the queue when nothing is waiting. Called with the queue locked
+     */
+    private void sendNextBatch(TargetQueue queue) {
+	if (queue.waiting.isEmpty()) {
+	    queue.isInFlight = false;
+	    queue.isRetired = true;
+	    queues.remove(queue.target, queue);
+	    return;
+	}
+	List<Request> batch = new ArrayList<Request>();
+	List<SnmpVarbind> varbinds = new ArrayList<SnmpVarbind>();
+	int type = queue.waiting.getFirst().type;
+	int budget = maxMessageSize.getAsInt() - MESSAGE_OVERHEAD;
+	Iterator<Request> iterator = queue.waiting.iterator();
+	while (iterator.hasNext()) {
+	    Request request = iterator.next();
+	    if (request.type != type) {
+		continue;
+	    }
+	    if (!batch.isEmpty() && request.encodedSize > budget) {
+		break;
+	    }
+	    iterator.remove();
+	    batch.add(request);
+	    varbinds.addAll(request.varbinds);
+	    budget -= request.encodedSize;
+	}
+	queue.isInFlight = true;
+	SnmpPdu pdu = SnmpPdu.request(type, varbinds);
+	if (batch.size() > 1) {
+	    LOGGER.debug("Coalesced {} SNMP requests with {} variables for {}", batch.size(), varbinds.size(),
+		    queue.target);
+	}
+	client.sendAsync(queue.target, pdu).whenComplete((response, error) -> {
+	    complete(queue.target, batch, pdu, response, error);
+	    synchronized (queue) {
+		sendNextBatch(queue);
+	    }
+	});
+    }
+
+    /**
+     * Hands each request of a batch its part of the response. When the merged request failed with an error status,
+     * the requests of the batch are resent one by one so that the error is reported to the request that caused it
+     */
+    private void complete(SnmpTarget target, List<Request> batch, SnmpPdu pdu, SnmpPdu response, Throwable error) {
+	if (null != error) {
+	    for (Request request : batch) {
+		request.future.completeExceptionally(error);
+	    }
+	    return;
+	}
+	if (batch.size() > 1 && (0 != response.getErrorStatus()
+		|| response.getVarbinds().size() != pdu.getVarbinds().size())) {
+	    LOGGER.debug("Coalesced SNMP request for {} failed with {}, resending requests separately", target,
+		    SnmpPdu.getErrorStatusName(response.getErrorStatus()));
+	    for (Request request : batch) {
+		SnmpPdu single = SnmpPdu.request(request.type, request.varbinds);
+		client.sendAsync(target, single).whenComplete((singleResponse, singleError) -> complete(target,
+			Arrays.asList(request), single, singleResponse, singleError));
+	    }
+	    return;
+	}
+	try {
+	    List<SnmpVarbind> varbinds = SnmpClient.checkResponse(pdu, response);
+	    int offset = 0;
+	    for (Request request : batch) {
+		int end = Math.min(offset + request.varbinds.size(), varbinds.size());
+		request.future.complete(new ArrayList<SnmpVarbind>(varbinds.subList(offset, end)));
+		offset = end;
+	    }
+	} catch (SnmpException e) {
+	    batch.get(0).future.completeExceptionally(e);
+	}
+    }
+
+    private static final class Request {
+
+	private final int type;
+	private final List<SnmpVarbind> varbinds;
+	private final int encodedSize;
+	private final CompletableFuture<List<SnmpVarbind>> future = new CompletableFuture<List<SnmpVarbind>>();
+
+	Request(int type, List<SnmpVarbind> varbinds) {
+	    this.type = type;
+	    this.varbinds = varbinds;
+	    BerWriter writer = new BerWriter();
+	    for (SnmpVarbind varbind : varbinds) {
+		varbind.encode(writer);
+	    }
+	    this.encodedSize = writer.size();
+	}
+    }
+
+    private static final class TargetQueue {
+
+	private final SnmpTarget target;
+	private final LinkedList<Request> waiting = new LinkedList<Request>();
+	private boolean isInFlight;
+	private boolean isRetired;
+
+	TargetQueue(SnmpTarget target) {
+	    this.target = target;
+	}
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import com.automatics.device.Dut;
+import com.automatics.snmp.SnmpProtocol;
+import com.automatics.snmp.SnmpSecurityDetails;
+import com.automatics.zte.config.ProviderConfiguration;
+
+/**
+ * Bounded cache of SNMP authorization data per DUT and SNMP version. The least recently used entry is dropped when the
+ * cache is full. An entry built from an older provider configuration snapshot is treated as missing, so that a reload
+ * of the configuration takes effect on the next request. The cache keeps its own copy of the authorization data and
+ * hands out copies, so callers may modify what they get without affecting other callers.
+ */
+public class SnmpSecurityDetailsCache {
+
+    private final Map<CacheKey, CacheEntry> entries;
+
+    public SnmpSecurityDetailsCache(final int maxEntries) {
+	final int capacity = Math.max(1, maxEntries);
+	entries = new LinkedHashMap<CacheKey, CacheEntry>(16, 0.75f, true) {
+	    private static final long serialVersionUID = 1L;
+
+	    @Override
+	    protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest) {
+		return size() > capacity;
+	    }
+	};
+    }
+
+    /**
+     * Gets cached authorization data
+     * 
+     * @param dut
+     * @param snmpVersion
+     * @param configuration
+     *            Configuration snapshot the authorization data must have been built from
+     * @return copy of the cached authorization data, null if not cached or built from another configuration snapshot
+     */
+    public synchronized SnmpSecurityDetails get(Dut dut, SnmpProtocol snmpVersion,
+	    ProviderConfiguration configuration) {
+	CacheKey key = new CacheKey(dut, snmpVersion);
+	CacheEntry entry = entries.get(key);
+	if (null == entry) {
+	    return null;
+	}
+	if (entry.configuration != configuration) {
+	    entries.remove(key);
+	    return null;
+	}
+	return copy(entry.securityDetails);
+    }
+
+    /**
+     * Caches authorization data
+     * 
+     * @param dut
+     * @param snmpVersion
+     * @param configuration
+     *            Configuration snapshot the authorization data was built from
+     * @param securityDetails
+     */
+    public synchronized void put(Dut dut, SnmpProtocol snmpVersion, ProviderConfiguration configuration,
+	    SnmpSecurityDetails securityDetails) {
+	entries.put(new CacheKey(dut, snmpVersion), new CacheEntry(configuration, copy(securityDetails)));
+    }
+
+    /**
+     * Removes cached authorization data of all SNMP versions for the DUT
+     * 
+     * @param dut
+     */
+    public synchronized void invalidate(Dut dut) {
+	String dutId = getDutId(dut);
+	Iterator<CacheKey> iterator = entries.keySet().iterator();
+	while (iterator.hasNext()) {
+	    if (iterator.next().dutId.equals(dutId)) {
+		iterator.remove();
+	    }
+	}
+    }
+
+    /**
+     * Removes all cached authorization data
+     */
+    public synchronized void invalidateAll() {
+	entries.clear();
+    }
+
+    public synchronized int size() {
+	return entries.size();
+    }
+
+    private static SnmpSecurityDetails copy(SnmpSecurityDetails securityDetails) {
+	SnmpSecurityDetails copy = new SnmpSecurityDetails();
+	copy.setSnmpPort(securityDetails.getSnmpPort());
+	copy.setSnmpProtocol(securityDetails.getSnmpProtocol());
+	copy.setSecurityLevel(securityDetails.getSecurityLevel());
+	copy.setSecurityName(securityDetails.getSecurityName());
+	copy.setSecurityOptions(securityDetails.getSecurityOptions());
+	copy.setCommunity(securityDetails.getCommunity());
+	return copy;
+    }
+
+    /**
+     * DUTs are identified by mac address, which is stable across address changes, or by ip address if the mac
+     * address is not known
+     */
+    private static String getDutId(Dut dut) {
+	if (null == dut) {
+	    return "";
+	}
+	String dutId = dut.getHostMacAddress();
+	if (null == dutId) {
+	    dutId = dut.getHostIpAddress();
+	}
+	return null != dutId ? dutId : "";
+    }
+
+    private static final class CacheKey {
+
+	private final String dutId;
+	private final SnmpProtocol snmpVersion;
+
+	CacheKey(Dut dut, SnmpProtocol snmpVersion) {
+	    this.dutId = getDutId(dut);
+	    this.snmpVersion = snmpVersion;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+	    if (this == obj) {
+		return true;
+	    }
+	    if (!(obj instanceof CacheKey)) {
+		return false;
+	    }
+	    CacheKey other = (CacheKey) obj;
+	    return dutId.equals(other.dutId) && snmpVersion == other.snmpVersion;
+	}
+
+	@Override
+	public int hashCode() {
+	    return Objects.hash(dutId, snmpVersion);
+	}
+    }
+
+    private static final class CacheEntry {
+
+	private final ProviderConfiguration configuration;
+	private final SnmpSecurityDetails securityDetails;
+
+	CacheEntry(ProviderConfiguration configuration, SnmpSecurityDetails securityDetails) {
+	    this.configuration = configuration;
+	    this.securityDetails = securityDetails;
+	}
+    }
+}
@@ -0,0 +1,271 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import java.net.InetSocketAddress;
+import java.util.Objects;
+
+import com.automatics.snmp.SnmpParams;
+import com.automatics.snmp.SnmpProtocol;
+import com.automatics.snmp.SnmpSecurityDetails;
+import com.automatics.snmp.Snmpv3SecurityLevel;
+import com.automatics.zte.utils.CommonMethods;
+
+/**
+ * Agent address and credentials an SNMP request is sent with. Version 3 targets use the user based security model,
+ * other versions use a community string.
+ */
+public class SnmpTarget {
+
+    public static final int DEFAULT_PORT = 161;
+    public static final long DEFAULT_TIMEOUT_MILLISECS = 1000;
+    public static final int DEFAULT_RETRIES = 2;
+    private static final String TCP_PROTOCOL = "tcp";
+
+    private final InetSocketAddress address;
+    private final SnmpProtocol version;
+    private final String community;
+    private final String securityName;
+    private final Snmpv3SecurityLevel securityLevel;
+    private final SnmpAuthProtocol authProtocol;
+    private final String authPassphrase;
+    private final SnmpPrivProtocol privProtocol;
+    private final String privPassphrase;
+    private final long timeoutMillis;
+    private final int retries;
+
+    private SnmpTarget(InetSocketAddress address, SnmpProtocol version, String community, String securityName,
+	    Snmpv3SecurityLevel securityLevel, SnmpAuthProtocol authProtocol, String authPassphrase,
+	    SnmpPrivProtocol privProtocol, String privPassphrase, long timeoutMillis, int retries) {
+	this.address = address;
+	this.version = version;
+	this.community = community;
+	this.securityName = securityName;
+	this.securityLevel = securityLevel;
+	this.authProtocol = authProtocol;
+	this.authPassphrase = authPassphrase;
+	this.privProtocol = privProtocol;
+	this.privPassphrase = privPassphrase;
+	this.timeoutMillis = timeoutMillis;
+	this.retries = retries;
+    }
+
+    /**
+     * Creates a community based target
+     * 
+     * @param address
+     * @param community
+     * @return SnmpTarget instance
+     */
+    public static SnmpTarget community(InetSocketAddress address, String community) {
+	return new SnmpTarget(address, SnmpProtocol.SNMP_V2, community, null, null, null, null, null, null,
+		DEFAULT_TIMEOUT_MILLISECS, DEFAULT_RETRIES);
+    }
+
+    /**
+     * Creates an SNMPv3 target. Authentication and privacy settings are only required by the security levels that use
+     * them
+     * 
+     * @param address
+     * @param securityName
+     * @param securityLevel
+     * @param authProtocol
+     *            Authentication protocol, MD5 if null
+     * @param authPassphrase
+     * @param privProtocol
+     *            Privacy protocol, DES if null
+     * @param privPassphrase
+     * @return SnmpTarget instance
+     */
+    public static SnmpTarget usm(InetSocketAddress address, String securityName, Snmpv3SecurityLevel securityLevel,
+	    SnmpAuthProtocol authProtocol, String authPassphrase, SnmpPrivProtocol privProtocol,
+	    String privPassphrase) {
+	if (CommonMethods.isNull(securityName)) {
+	    throw new SnmpException("SNMPv3 security name is not configured");
+	}
+	Snmpv3SecurityLevel level = null != securityLevel ? securityLevel : Snmpv3SecurityLevel.noAuthNoPriv;
+	if (Snmpv3SecurityLevel.noAuthNoPriv != level && CommonMethods.isNull(authPassphrase)) {
+	    throw new SnmpException("SNMPv3 authentication passphrase is not configured for " + level);
+	}
+	if (Snmpv3SecurityLevel.authPriv == level && CommonMethods.isNull(privPassphrase)) {
+	    throw new SnmpException("SNMPv3 privacy passphrase is not configured for " + level);
+	}
+	return new SnmpTarget(address, SnmpProtocol.SNMP_V3, null, securityName, level,
+		null != authProtocol ? authProtocol : SnmpAuthProtocol.MD5, authPassphrase,
+		null != privProtocol ? privProtocol : SnmpPrivProtocol.DES, privPassphrase, DEFAULT_TIMEOUT_MILLISECS,
+		DEFAULT_RETRIES);
+    }
+
+    /**
+     * Creates a target from the snmp params and authorization data resolved by SnmpDataProviderImpl. SNMPv3 security
+     * options are read in net-snmp syntax, e.g. -a SHA -A authpass -x AES -X privpass
+     * 
+     * @param snmpParams
+     * @param securityDetails
+     * @return SnmpTarget instance
+     */
+    public static SnmpTarget from(SnmpParams snmpParams, SnmpSecurityDetails securityDetails) {
+	if (TCP_PROTOCOL.equalsIgnoreCase(securityDetails.getSnmpProtocol())) {
+	    throw new SnmpException("SNMP over tcp is not supported");
+	}
+	int port = DEFAULT_PORT;
+	if (CommonMethods.isNotNull(securityDetails.getSnmpPort())) {
+	    port = Integer.parseInt(securityDetails.getSnmpPort().trim());
+	}
+	InetSocketAddress address = new InetSocketAddress(snmpParams.getIpAddress(), port);
+	if (SnmpProtocol.SNMP_V3 != snmpParams.getSnmpVersion()) {
+	    return community(address, securityDetails.getCommunity());
+	}
+
+	SnmpAuthProtocol authProtocol = null;
+	String authPassphrase = null;
+	SnmpPrivProtocol privProtocol = null;
+	String privPassphrase = null;
+	String securityOptions = securityDetails.getSecurityOptions();
+	if (CommonMethods.isNotNull(securityOptions)) {
+	    String[] tokens = securityOptions.trim().split("\\s+");
+	    for (int index = 0; index < tokens.length; index++) {
+		String token = tokens[index];
+		if (token.length() < 2 || '-' != token.charAt(0)) {
+		    continue;
+		}
+		String value = token.length() > 2 ? token.substring(2)
+			: (index + 1 < tokens.length ? tokens[++index] : "");
+		switch (token.charAt(1)) {
+		case 'a':
+		    authProtocol = SnmpAuthProtocol.fromName(value);
+		    break;
+		case 'A':
+		    authPassphrase = value;
+		    break;
+		case 'x':
+		    privProtocol = SnmpPrivProtocol.fromName(value);
+		    break;
+		case 'X':
+		    privPassphrase = value;
+		    break;
+		default:
+		    break;
+		}
+	    }
+	}
+	return usm(address, securityDetails.getSecurityName(), securityDetails.getSecurityLevel(), authProtocol,
+		authPassphrase, privProtocol, privPassphrase);
+    }
+
+    /**
+     * @param newTimeoutMillis
+     *            Time to wait for a response before sending the request again
+     * @param newRetries
+     *            Number of times a request is sent again
+     * @return copy of this target with the given timeout and retries
+     */
+    public SnmpTarget withTimeout(long newTimeoutMillis, int newRetries) {
+	return new SnmpTarget(address, version, community, securityName, securityLevel, authProtocol, authPassphrase,
+		privProtocol, privPassphrase, newTimeoutMillis, newRetries);
+    }
+
+    public InetSocketAddress getAddress() {
+	return address;
+    }
+
+    public SnmpProtocol getVersion() {
+	return version;
+    }
+
+    public boolean isUsm() {
+	return SnmpProtocol.SNMP_V3 == version;
+    }
+
+    public String getCommunity() {
+	return community;
+    }
+
+    public String getSecurityName() {
+	return securityName;
+    }
+
+    public Snmpv3SecurityLevel getSecurityLevel() {
+	return securityLevel;
+    }
+
+    public SnmpAuthProtocol getAuthProtocol() {
+	return authProtocol;
+    }
+
+    String getAuthPassphrase() {
+	return authPassphrase;
+    }
+
+    public SnmpPrivProtocol getPrivProtocol() {
+	return privProtocol;
+    }
+
+    String getPrivPassphrase() {
+	return privPassphrase;
+    }
+
+    public long getTimeoutMillis() {
+	return timeoutMillis;
+    }
+
+    public int getRetries() {
+	return retries;
+    }
+
+    /**
+     * @return true if requests are authenticated
+     */
+    public boolean isAuthenticated() {
+	return isUsm() && Snmpv3SecurityLevel.noAuthNoPriv != securityLevel;
+    }
+
+    /**
+     * @return true if requests are encrypted
+     */
+    public boolean isEncrypted() {
+	return isUsm() && Snmpv3SecurityLevel.authPriv == securityLevel;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+	if (this == obj) {
+	    return true;
+	}
+	if (!(obj instanceof SnmpTarget)) {
+	    return false;
+	}
+	SnmpTarget other = (SnmpTarget) obj;
+	return address.equals(other.address) && version == other.version
+		&& Objects.equals(community, other.community) && Objects.equals(securityName, other.securityName)
+		&& securityLevel == other.securityLevel && authProtocol == other.authProtocol
+		&& Objects.equals(authPassphrase, other.authPassphrase) && privProtocol == other.privProtocol
+		&& Objects.equals(privPassphrase, other.privPassphrase) && timeoutMillis == other.timeoutMillis
+		&& retries == other.retries;
+    }
+
+    @Override
+    public int hashCode() {
+	return Objects.hash(address, version, community, securityName, securityLevel, authProtocol, privProtocol);
+    }
+
+    @Override
+    public String toString() {
+	return address + (isUsm() ? " (v3 " + securityName + " " + securityLevel + ")" : " (v2c)");
+    }
+}
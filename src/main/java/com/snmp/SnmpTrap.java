@@ -0,0 +1,113 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+/**
+ * Notification received by {@link SnmpTrapReceiver}: a v2c or v3 trap or inform
+ */
+public class SnmpTrap {
+
+    public static final String SYS_UPTIME_OID = "1.3.6.1.2.1.1.3.0";
+    public static final String SNMP_TRAP_OID = "1.3.6.1.6.3.1.1.4.1.0";
+    public static final String COLD_START = "1.3.6.1.6.3.1.1.5.1";
+    public static final String WARM_START = "1.3.6.1.6.3.1.1.5.2";
+    public static final String LINK_DOWN = "1.3.6.1.6.3.1.1.5.3";
+    public static final String LINK_UP = "1.3.6.1.6.3.1.1.5.4";
+
+    private final InetSocketAddress source;
+    private final boolean isInform;
+    private final String securityName;
+    private final List<SnmpVarbind> varbinds;
+    private final long receivedAtMillis;
+
+    SnmpTrap(InetSocketAddress source, boolean isInform, String securityName, List<SnmpVarbind> varbinds) {
+	this.source = source;
+	this.isInform = isInform;
+	this.securityName = securityName;
+	this.varbinds = varbinds;
+	this.receivedAtMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * @return address the notification was sent from
+     */
+    public InetSocketAddress getSource() {
+	return source;
+    }
+
+    /**
+     * @return true if the notification is an inform, acknowledged by the receiver
+     */
+    public boolean isInform() {
+	return isInform;
+    }
+
+    /**
+     * @return community of v2c notifications, user name of v3 notifications
+     */
+    public String getSecurityName() {
+	return securityName;
+    }
+
+    public List<SnmpVarbind> getVarbinds() {
+	return varbinds;
+    }
+
+    public long getReceivedAtMillis() {
+	return receivedAtMillis;
+    }
+
+    /**
+     * @return object identifier of the notification, such as {@link #LINK_UP}, null if missing
+     */
+    public String getTrapOid() {
+	SnmpVarbind trapOid = getVarbind(SNMP_TRAP_OID);
+	return null != trapOid ? trapOid.getStringValue() : null;
+    }
+
+    /**
+     * @param oid
+     * @return variable binding of the object identifier, null if not part of the notification
+     */
+    public SnmpVarbind getVarbind(String oid) {
+	String normalizedOid = SnmpOids.normalize(oid);
+	for (SnmpVarbind varbind : varbinds) {
+	    if (varbind.getOid().equals(normalizedOid)) {
+		return varbind;
+	    }
+	}
+	return null;
+    }
+
+    /**
+     * @param hostAddress
+     *            IP address of the DUT
+     * @return true if the notification was sent from the address
+     */
+    public boolean isFrom(String hostAddress) {
+	return null != source.getAddress() && source.getAddress().getHostAddress().equals(hostAddress);
+    }
+
+    @Override
+    public String toString() {
+	return (isInform ? "Inform " : "Trap ") + getTrapOid() + " from " + source + " " + varbinds;
+    }
+}
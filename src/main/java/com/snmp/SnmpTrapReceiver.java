@@ -0,0 +1,286 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Receives v2c and v3 traps and informs on a datagram channel and lets tests wait for a matching notification instead
+ * of polling the DUT. Notifications are accepted for the communities and v3 users registered with
+ * {@link #addCredentials(SnmpTarget)}, typically the targets resolved by
+ * {@link SnmpDataProviderImpl#getSnmpTarget(com.automatics.device.Dut, com.automatics.snmp.SnmpParams)}. Informs are
+ * acknowledged; for v3 informs the receiver acts as the authoritative engine and answers engine discovery.
+ */
+public class SnmpTrapReceiver implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnmpTrapReceiver.class);
+    private static final String USM_STATS_UNKNOWN_ENGINE_IDS = "1.3.6.1.6.3.15.1.1.4.0";
+    private static final int USM_CACHE_MAX_ENTRIES = 64;
+    /** Engine id format of RFC 3411: enterprise 8072 with the high bit set, followed by random octets */
+    private static final byte[] ENGINE_ID_PREFIX = { (byte) 0x80, 0x00, 0x1F, (byte) 0x88, 0x05 };
+    private static final int ENGINE_ID_RANDOM_LENGTH = 8;
+
+    private final DatagramChannel channel;
+    private final Thread receiver;
+    private final UsmEngineInfo localEngine;
+    private final UsmCache usmCache = new UsmCache(USM_CACHE_MAX_ENTRIES);
+    private final Set<String> communities = ConcurrentHashMap.newKeySet();
+    private final Map<String, SnmpTarget> users = new ConcurrentHashMap<String, SnmpTarget>();
+    private final List<SnmpTrapListener> listeners = new CopyOnWriteArrayList<SnmpTrapListener>();
+    private volatile boolean isOpen = true;
+
+    /**
+     * @param port
+     *            UDP port to receive notifications on, 0 for any free port
+     */
+    public SnmpTrapReceiver(int port) {
+	this(new InetSocketAddress(port));
+    }
+
+    /**
+     * @param localAddress
+     *            Address to receive notifications on
+     */
+    public SnmpTrapReceiver(InetSocketAddress localAddress) {
+	byte[] engineId = Arrays.copyOf(ENGINE_ID_PREFIX, ENGINE_ID_PREFIX.length + ENGINE_ID_RANDOM_LENGTH);
+	byte[] random = new byte[ENGINE_ID_RANDOM_LENGTH];
+	new SecureRandom().nextBytes(random);
+	System.arraycopy(random, 0, engineId, ENGINE_ID_PREFIX.length, random.length);
+	localEngine = new UsmEngineInfo(engineId, 1, 0);
+	try {
+	    channel = DatagramChannel.open();
+	    channel.bind(localAddress);
+	} catch (IOException e) {
+	    throw new SnmpException("Unable to open SNMP trap receiver socket on " + localAddress, e);
+	}
+	receiver = new Thread(this::receiveNotifications, "snmp-trap-receiver");
+	receiver.setDaemon(true);
+	receiver.start();
+    }
+
+    /**
+     * @return address the receiver is bound to
+     */
+    public InetSocketAddress getLocalAddress() {
+	try {
+	    return (InetSocketAddress) channel.getLocalAddress();
+	} catch (IOException e) {
+	    throw new SnmpException("Unable to get SNMP trap receiver address", e);
+	}
+    }
+
+    /**
+     * Accepts notifications sent with the community of a v2c target or by the user of a v3 target
+     * 
+     * @param target
+     */
+    public void addCredentials(SnmpTarget target) {
+	if (target.isUsm()) {
+	    users.put(target.getSecurityName(), target);
+	} else {
+	    communities.add(target.getCommunity());
+	}
+    }
+
+    public void addListener(SnmpTrapListener listener) {
+	listeners.add(listener);
+    }
+
+    public void removeListener(SnmpTrapListener listener) {
+	listeners.remove(listener);
+    }
+
+    /**
+     * Starts waiting for a notification. Call before triggering the action expected to send it, so that an early
+     * notification is not missed
+     * 
+     * @param condition
+     * @return future completed with the first notification matching the condition, cancel it to stop waiting
+     */
+    public CompletableFuture<SnmpTrap> expect(Predicate<SnmpTrap> condition) {
+	CompletableFuture<SnmpTrap> future = new CompletableFuture<SnmpTrap>();
+	SnmpTrapListener listener = trap -> {
+	    if (!future.isDone() && condition.test(trap)) {
+		future.complete(trap);
+	    }
+	};
+	listeners.add(listener);
+	future.whenComplete((trap, error) -> listeners.remove(listener));
+	return future;
+    }
+
+    /**
+     * Waits for a notification received after this call
+     * 
+     * @param condition
+     * @param timeoutMillis
+     * @return first notification matching the condition, null if none was received in time
+     */
+    public SnmpTrap await(Predicate<SnmpTrap> condition, long timeoutMillis) {
+	return await(expect(condition), timeoutMillis);
+    }
+
+    /**
+     * Waits for a notification expected with {@link #expect(Predicate)}
+     * 
+     * @param expectation
+     * @param timeoutMillis
+     * @return the expected notification, null if none was received in time
+     */
+    public SnmpTrap await(CompletableFuture<SnmpTrap> expectation, long timeoutMillis) {
+	try {
+	    return expectation.get(timeoutMillis, TimeUnit.MILLISECONDS);
+	} catch (TimeoutException e) {
+	    LOGGER.info("No matching SNMP notification received within {} ms", timeoutMillis);
+	    return null;
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new SnmpException("Interrupted while waiting for SNMP notification", e);
+	} catch (ExecutionException e) {
+	    throw new SnmpException("Error waiting for SNMP notification: " + e.getCause().getMessage(),
+		    e.getCause());
+	} finally {
+	    expectation.cancel(false);
+	}
+    }
+
+    /**
+     * Stops receiving notifications
+     */
+    @Override
+    public void close() {
+	isOpen = false;
+	try {
+	    channel.close();
+	} catch (IOException e) {
+	    LOGGER.error("Error closing SNMP trap receiver socket: {}", e.getMessage());
+	}
+    }
+
+    private void receiveNotifications() {
+	ByteBuffer buffer = ByteBuffer.allocate(SnmpMessage.MAX_MESSAGE_SIZE);
+	while (isOpen) {
+	    try {
+		buffer.clear();
+		SocketAddress sender = channel.receive(buffer);
+		buffer.flip();
+		byte[] data = new byte[buffer.remaining()];
+		buffer.get(data);
+		handle((InetSocketAddress) sender, data);
+	    } catch (ClosedChannelException e) {
+		break;
+	    } catch (IOException e) {
+		LOGGER.error("Error receiving SNMP notification: {}", e.getMessage());
+	    } catch (RuntimeException e) {
+		LOGGER.debug("Ignoring SNMP message: {}", e.getMessage());
+	    }
+	}
+    }
+
+    private void handle(InetSocketAddress sender, byte[] data) throws IOException {
+	SnmpMessage message = SnmpMessage.decode(data);
+	if (SnmpMessage.VERSION_3 != message.getVersion()) {
+	    if (!communities.contains(message.getCommunity())) {
+		LOGGER.debug("Ignoring SNMP notification from {} with unknown community", sender);
+		return;
+	    }
+	    SnmpPdu pdu = message.getPdu();
+	    if (SnmpPdu.INFORM == pdu.getType()) {
+		reply(sender, SnmpMessage.encodeCommunity(message.getCommunity(), acknowledge(pdu)));
+	    }
+	    notify(sender, pdu, message.getCommunity());
+	    return;
+	}
+
+	if (0 == message.getEngineId().length) {
+	    if (message.isReportable()) {
+		List<SnmpVarbind> report = new ArrayList<SnmpVarbind>();
+		report.add(new SnmpVarbind(USM_STATS_UNKNOWN_ENGINE_IDS, SnmpValueType.COUNTER32, 1L));
+		reply(sender, SnmpMessage.encodeUsm(message.getMessageId(), 0, localEngine, "", UsmKeys.NONE,
+			new SnmpPdu(SnmpPdu.REPORT, 0, 0, 0, report)));
+	    }
+	    return;
+	}
+	SnmpTarget user = users.get(message.getUserName());
+	if (null == user || message.isAuthenticated() != user.isAuthenticated()
+		|| message.isEncrypted() != user.isEncrypted()) {
+	    LOGGER.debug("Ignoring SNMPv3 notification from {} for unknown user or security level", sender);
+	    return;
+	}
+	// informs are sent to the receiver as authoritative engine, traps by the sender as authoritative engine
+	UsmKeys keys = usmCache.getKeys(user, message.getEngineId());
+	message.unprotect(keys);
+	SnmpPdu pdu = message.getPdu();
+	if (SnmpPdu.INFORM == pdu.getType()) {
+	    if (!Arrays.equals(localEngine.getEngineId(), message.getEngineId())) {
+		LOGGER.debug("Ignoring SNMPv3 inform from {} for another engine", sender);
+		return;
+	    }
+	    int flags = (user.isAuthenticated() ? SnmpMessage.FLAG_AUTH : 0)
+		    | (user.isEncrypted() ? SnmpMessage.FLAG_PRIV : 0);
+	    reply(sender, SnmpMessage.encodeUsm(message.getMessageId(), flags, localEngine, user.getSecurityName(),
+		    keys, acknowledge(pdu)));
+	}
+	notify(sender, pdu, user.getSecurityName());
+    }
+
+    private void notify(InetSocketAddress sender, SnmpPdu pdu, String securityName) {
+	if (SnmpPdu.TRAP != pdu.getType() && SnmpPdu.INFORM != pdu.getType()) {
+	    LOGGER.debug("Ignoring SNMP PDU {} from {}", pdu.getType(), sender);
+	    return;
+	}
+	SnmpTrap trap = new SnmpTrap(sender, SnmpPdu.INFORM == pdu.getType(), securityName, pdu.getVarbinds());
+	LOGGER.debug("Received {}", trap);
+	for (SnmpTrapListener listener : listeners) {
+	    try {
+		listener.onTrap(trap);
+	    } catch (RuntimeException e) {
+		LOGGER.error("SNMP trap listener failed: {}", e.getMessage());
+	    }
+	}
+    }
+
+    private void reply(InetSocketAddress sender, byte[] message) throws IOException {
+	channel.send(ByteBuffer.wrap(message), sender);
+    }
+
+    private static SnmpPdu acknowledge(SnmpPdu inform) {
+	return new SnmpPdu(SnmpPdu.RESPONSE, inform.getRequestId(), 0, 0, inform.getVarbinds());
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+/**
+ * SNMP value types with their BER tags and the type names printed by net-snmp
+ */
+public enum SnmpValueType {
+
+    INTEGER(0x02, "INTEGER"),
+    OCTET_STRING(0x04, "STRING"),
+    NULL(0x05, "NULL"),
+    OBJECT_IDENTIFIER(0x06, "OID"),
+    IP_ADDRESS(0x40, "IpAddress"),
+    COUNTER32(0x41, "Counter32"),
+    GAUGE32(0x42, "Gauge32"),
+    TIMETICKS(0x43, "Timeticks"),
+    OPAQUE(0x44, "Opaque"),
+    COUNTER64(0x46, "Counter64"),
+    NO_SUCH_OBJECT(0x80, "No Such Object available on this agent at this OID"),
+    NO_SUCH_INSTANCE(0x81, "No Such Instance currently exists at this OID"),
+    END_OF_MIB_VIEW(0x82, "No more variables left in this MIB View (It is past the end of the MIB tree)");
+
+    private final int tag;
+    private final String displayName;
+
+    private SnmpValueType(int tag, String displayName) {
+	this.tag = tag;
+	this.displayName = displayName;
+    }
+
+    public int getTag() {
+	return tag;
+    }
+
+    public String getDisplayName() {
+	return displayName;
+    }
+
+    /**
+     * @return true for the types an agent returns instead of a value for a missing variable
+     */
+    public boolean isException() {
+	return this == NO_SUCH_OBJECT || this == NO_SUCH_INSTANCE || this == END_OF_MIB_VIEW;
+    }
+
+    /**
+     * @return true for the unsigned integer types
+     */
+    public boolean isUnsigned() {
+	return this == COUNTER32 || this == GAUGE32 || this == TIMETICKS || this == COUNTER64;
+    }
+
+    /**
+     * @param tag
+     * @return value type of the BER tag
+     */
+    public static SnmpValueType fromTag(int tag) {
+	for (SnmpValueType type : values()) {
+	    if (type.tag == tag) {
+		return type;
+	    }
+	}
+	throw new SnmpException(String.format("Unsupported SNMP value type 0x%02x", tag));
+    }
+}
@@ -0,0 +1,277 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Variable binding: an object identifier with a typed value. Integer types hold a Long, octet strings and opaque
+ * values hold a byte array, object identifiers and ip addresses hold a dotted String. Null and exception values hold
+ * no value.
+ */
+public class SnmpVarbind {
+
+    private static final int IP_ADDRESS_LENGTH = 4;
+    private static final long TICKS_PER_SECOND = 100;
+
+    private final String oid;
+    private final SnmpValueType type;
+    private final Object value;
+
+    public SnmpVarbind(String oid, SnmpValueType type, Object value) {
+	this.oid = SnmpOids.normalize(oid);
+	this.type = type;
+	this.value = value;
+    }
+
+    /**
+     * @param oid
+     * @return variable binding without value, as used in get requests
+     */
+    public static SnmpVarbind forRequest(String oid) {
+	return new SnmpVarbind(oid, SnmpValueType.NULL, null);
+    }
+
+    public static SnmpVarbind ofInteger(String oid, long value) {
+	return new SnmpVarbind(oid, SnmpValueType.INTEGER, value);
+    }
+
+    public static SnmpVarbind ofString(String oid, String value) {
+	return new SnmpVarbind(oid, SnmpValueType.OCTET_STRING, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getOid() {
+	return oid;
+    }
+
+    public SnmpValueType getType() {
+	return type;
+    }
+
+    public Object getValue() {
+	return value;
+    }
+
+    /**
+     * @return value of integer types
+     */
+    public long getLongValue() {
+	if (!(value instanceof Long)) {
+	    throw new IllegalStateException(oid + " is not an integer: " + type);
+	}
+	return (Long) value;
+    }
+
+    /**
+     * @return value as text: octet strings decoded as UTF-8 when printable, otherwise as hex
+     */
+    public String getStringValue() {
+	if (null == value) {
+	    return "";
+	}
+	if (value instanceof byte[]) {
+	    byte[] bytes = (byte[]) value;
+	    return type == SnmpValueType.OCTET_STRING && isPrintable(bytes) ? new String(bytes, StandardCharsets.UTF_8)
+		    : toHex(bytes);
+	}
+	if (type.isUnsigned()) {
+	    return Long.toUnsignedString((Long) value);
+	}
+	return value.toString();
+    }
+
+    public boolean isException() {
+	return type.isException();
+    }
+
+    /**
+     * @return variable binding in net-snmp output format with numeric object identifiers
+     */
+    @Override
+    public String toString() {
+	return "." + oid + " = " + formatValue();
+    }
+
+    /**
+     * @return value in net-snmp output format, e.g. STRING: "text" or Timeticks: (100) 0:00:01.00
+     */
+    public String formatValue() {
+	switch (type) {
+	case NULL:
+	case NO_SUCH_OBJECT:
+	case NO_SUCH_INSTANCE:
+	case END_OF_MIB_VIEW:
+	    return type.getDisplayName();
+	case OCTET_STRING: {
+	    byte[] bytes = (byte[]) value;
+	    if (isPrintable(bytes)) {
+		return "STRING: \"" + new String(bytes, StandardCharsets.UTF_8) + "\"";
+	    }
+	    return "Hex-STRING: " + toHex(bytes);
+	}
+	case OBJECT_IDENTIFIER:
+	    return "OID: ." + value;
+	case TIMETICKS:
+	    return "Timeticks: (" + getStringValue() + ") " + formatTimeticks((Long) value);
+	default:
+	    return type.getDisplayName() + ": " + getStringValue();
+	}
+    }
+
+    void encode(BerWriter writer) {
+	int mark = writer.size();
+	switch (type) {
+	case INTEGER:
+	    writer.writeInteger(type.getTag(), (Long) value);
+	    break;
+	case COUNTER32:
+	case GAUGE32:
+	case TIMETICKS:
+	case COUNTER64:
+	    writer.writeUnsigned(type.getTag(), (Long) value);
+	    break;
+	case OCTET_STRING:
+	case OPAQUE:
+	    writer.writeOctetString(type.getTag(), (byte[]) value);
+	    break;
+	case OBJECT_IDENTIFIER:
+	    writer.writeOid((String) value);
+	    break;
+	case IP_ADDRESS:
+	    writer.writeOctetString(type.getTag(), parseIpAddress((String) value));
+	    break;
+	default:
+	    writer.writeNull(type.getTag());
+	}
+	writer.writeOid(oid);
+	writer.writeHeader(BerTags.SEQUENCE, mark);
+    }
+
+    static SnmpVarbind decode(BerReader reader) {
+	reader.readSequence(BerTags.SEQUENCE);
+	String oid = reader.readOid();
+	SnmpValueType type = SnmpValueType.fromTag(reader.readTag());
+	int length = reader.readLength();
+	Object value;
+	switch (type) {
+	case INTEGER:
+	    value = reader.decodeSigned(length);
+	    break;
+	case COUNTER32:
+	case GAUGE32:
+	case TIMETICKS:
+	case COUNTER64:
+	    value = reader.decodeUnsigned(length);
+	    break;
+	case OCTET_STRING:
+	case OPAQUE:
+	    value = reader.readBytes(length);
+	    break;
+	case OBJECT_IDENTIFIER:
+	    value = reader.decodeOid(length);
+	    break;
+	case IP_ADDRESS:
+	    value = formatIpAddress(reader.readBytes(length));
+	    break;
+	default:
+	    reader.skip(length);
+	    value = null;
+	}
+	return new SnmpVarbind(oid, type, value);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+	if (this == obj) {
+	    return true;
+	}
+	if (!(obj instanceof SnmpVarbind)) {
+	    return false;
+	}
+	SnmpVarbind other = (SnmpVarbind) obj;
+	return oid.equals(other.oid) && type == other.type && Arrays.deepEquals(new Object[] { value },
+		new Object[] { other.value });
+    }
+
+    @Override
+    public int hashCode() {
+	return Arrays.deepHashCode(new Object[] { oid, type, value });
+    }
+
+    static String toHex(byte[] bytes) {
+	StringBuilder hex = new StringBuilder();
+	for (byte current : bytes) {
+	    if (hex.length() > 0) {
+		hex.append(' ');
+	    }
+	    hex.append(String.format("%02X", current & 0xFF));
+	}
+	return hex.toString();
+    }
+
+    private static boolean isPrintable(byte[] bytes) {
+	for (byte current : bytes) {
+	    int character = current & 0xFF;
+	    if (character < 0x20 && '\n' != character && '\r' != character && '\t' != character) {
+		return false;
+	    }
+	    if (0x7F == character) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    private static String formatTimeticks(long ticks) {
+	long hundredths = ticks % TICKS_PER_SECOND;
+	long totalSeconds = ticks / TICKS_PER_SECOND;
+	long days = totalSeconds / 86400;
+	long hours = (totalSeconds / 3600) % 24;
+	long minutes = (totalSeconds / 60) % 60;
+	long seconds = totalSeconds % 60;
+	String time = String.format("%d:%02d:%02d.%02d", hours, minutes, seconds, hundredths);
+	if (days > 0) {
+	    return days + (1 == days ? " day, " : " days, ") + time;
+	}
+	return time;
+    }
+
+    private static String formatIpAddress(byte[] bytes) {
+	StringBuilder address = new StringBuilder();
+	for (byte current : bytes) {
+	    if (address.length() > 0) {
+		address.append('.');
+	    }
+	    address.append(current & 0xFF);
+	}
+	return address.toString();
+    }
+
+    private static byte[] parseIpAddress(String address) {
+	String[] parts = address.split("\\.");
+	if (IP_ADDRESS_LENGTH != parts.length) {
+	    throw new SnmpException("Invalid ip address value: " + address);
+	}
+	byte[] bytes = new byte[IP_ADDRESS_LENGTH];
+	for (int index = 0; index < IP_ADDRESS_LENGTH; index++) {
+	    bytes[index] = (byte) Integer.parseInt(parts[index]);
+	}
+	return bytes;
+    }
+}
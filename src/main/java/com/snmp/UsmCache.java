@@ -0,0 +1,152 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded cache of the SNMPv3 engines discovered per agent address and of the user keys localized to them. Localizing
+ * a key hashes a megabyte of data, so keys are localized once per user and engine, and concurrent requests for the
+ * same keys wait for the first one. Keys depend on the engine id only: a rebooted agent keeps its keys, while an agent
+ * reporting another engine id gets keys localized to the new id.
+ */
+final class UsmCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UsmCache.class);
+
+    private final Map<InetSocketAddress, UsmEngineInfo> engines;
+    private final Map<List<Object>, CompletableFuture<UsmKeys>> localizedKeys;
+
+    UsmCache(int maxEntries) {
+	engines = createLruMap(maxEntries);
+	localizedKeys = createLruMap(maxEntries);
+    }
+
+    /**
+     * @param address
+     * @return engine last learned for the agent address, null if not known
+     */
+    UsmEngineInfo getEngine(InetSocketAddress address) {
+	synchronized (engines) {
+	    return engines.get(address);
+	}
+    }
+
+    /**
+     * Records the engine of an agent. A change of the engine boots means the agent rebooted since it was last seen
+     * 
+     * @param address
+     * @param engine
+     */
+    void putEngine(InetSocketAddress address, UsmEngineInfo engine) {
+	UsmEngineInfo previous;
+	synchronized (engines) {
+	    previous = engines.put(address, engine);
+	}
+	if (null != previous) {
+	    if (!Arrays.equals(previous.getEngineId(), engine.getEngineId())) {
+		LOGGER.info("SNMPv3 engine id of {} changed", address);
+	    } else if (previous.getEngineBoots() != engine.getEngineBoots()) {
+		LOGGER.info("SNMPv3 engine of {} rebooted, engine boots {} -> {}", address, previous.getEngineBoots(),
+			engine.getEngineBoots());
+	    }
+	}
+    }
+
+    /**
+     * Drops the engine of an agent, so that it is discovered again with the next request
+     * 
+     * @param address
+     */
+    void invalidateEngine(InetSocketAddress address) {
+	synchronized (engines) {
+	    engines.remove(address);
+	}
+    }
+
+    /**
+     * @param target
+     * @param engineId
+     * @return keys of the target user localized to the engine if already localized, null otherwise
+     */
+    UsmKeys peekKeys(SnmpTarget target, byte[] engineId) {
+	CompletableFuture<UsmKeys> keys;
+	synchronized (localizedKeys) {
+	    keys = localizedKeys.get(getKeysId(target, engineId));
+	}
+	return null != keys && keys.isDone() && !keys.isCompletedExceptionally() ? keys.join() : null;
+    }
+
+    /**
+     * Gets the keys of the target user localized to the engine, localizing them if not cached
+     * 
+     * @param target
+     * @param engineId
+     * @return UsmKeys instance
+     */
+    UsmKeys getKeys(SnmpTarget target, byte[] engineId) {
+	List<Object> keysId = getKeysId(target, engineId);
+	CompletableFuture<UsmKeys> keys;
+	boolean isLocalizing = false;
+	synchronized (localizedKeys) {
+	    keys = localizedKeys.get(keysId);
+	    if (null == keys) {
+		keys = new CompletableFuture<UsmKeys>();
+		localizedKeys.put(keysId, keys);
+		isLocalizing = true;
+	    }
+	}
+	if (isLocalizing) {
+	    try {
+		keys.complete(UsmKeys.localize(target, engineId));
+	    } catch (RuntimeException e) {
+		synchronized (localizedKeys) {
+		    localizedKeys.remove(keysId);
+		}
+		keys.completeExceptionally(e);
+	    }
+	}
+	return SnmpClient.await(keys);
+    }
+
+    private static List<Object> getKeysId(SnmpTarget target, byte[] engineId) {
+	return Arrays.<Object> asList(SnmpVarbind.toHex(engineId), target.getSecurityName(),
+		target.getSecurityLevel(), target.getAuthProtocol(), target.getAuthPassphrase(),
+		target.getPrivProtocol(), target.getPrivPassphrase());
+    }
+
+    private static <K, V> Map<K, V> createLruMap(final int maxEntries) {
+	final int capacity = Math.max(1, maxEntries);
+	return new LinkedHashMap<K, V>(16, 0.75f, true) {
+	    private static final long serialVersionUID = 1L;
+
+	    @Override
+	    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+		return size() > capacity;
+	    }
+	};
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Identity and clock of an authoritative SNMPv3 engine, as learned from its messages
+ */
+final class UsmEngineInfo {
+
+    private final byte[] engineId;
+    private final int engineBoots;
+    private final int engineTime;
+    private final long receivedAtNanos;
+
+    UsmEngineInfo(byte[] engineId, int engineBoots, int engineTime) {
+	this.engineId = engineId;
+	this.engineBoots = engineBoots;
+	this.engineTime = engineTime;
+	this.receivedAtNanos = System.nanoTime();
+    }
+
+    byte[] getEngineId() {
+	return engineId;
+    }
+
+    int getEngineBoots() {
+	return engineBoots;
+    }
+
+    /**
+     * @return engine time estimated from the time received and the time elapsed since
+     */
+    int getCurrentEngineTime() {
+	return engineTime + (int) TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - receivedAtNanos);
+    }
+}
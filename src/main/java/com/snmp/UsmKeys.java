@@ -0,0 +1,72 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+/**
+ * Keys of an SNMPv3 user localized to one authoritative engine
+ */
+final class UsmKeys {
+
+    static final UsmKeys NONE = new UsmKeys(null, null, null, null);
+
+    private final SnmpAuthProtocol authProtocol;
+    private final byte[] authKey;
+    private final SnmpPrivProtocol privProtocol;
+    private final byte[] privKey;
+
+    UsmKeys(SnmpAuthProtocol authProtocol, byte[] authKey, SnmpPrivProtocol privProtocol, byte[] privKey) {
+	this.authProtocol = authProtocol;
+	this.authKey = authKey;
+	this.privProtocol = privProtocol;
+	this.privKey = privKey;
+    }
+
+    /**
+     * Localizes the keys of the target user to the engine. This hashes a megabyte of data per key
+     * 
+     * @param target
+     * @param engineId
+     * @return UsmKeys instance, {@link #NONE} for targets without authentication
+     */
+    static UsmKeys localize(SnmpTarget target, byte[] engineId) {
+	if (!target.isAuthenticated()) {
+	    return NONE;
+	}
+	byte[] authKey = UsmSecurity.localizeKey(target.getAuthProtocol(), target.getAuthPassphrase(), engineId);
+	byte[] privKey = target.isEncrypted()
+		? UsmSecurity.localizeKey(target.getAuthProtocol(), target.getPrivPassphrase(), engineId)
+		: null;
+	return new UsmKeys(target.getAuthProtocol(), authKey, target.getPrivProtocol(), privKey);
+    }
+
+    SnmpAuthProtocol getAuthProtocol() {
+	return authProtocol;
+    }
+
+    byte[] getAuthKey() {
+	return authKey;
+    }
+
+    SnmpPrivProtocol getPrivProtocol() {
+	return privProtocol;
+    }
+
+    byte[] getPrivKey() {
+	return privKey;
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Cryptographic operations of the SNMPv3 user based security model: password to key localization (RFC 3414), HMAC-96
+ * authentication, CBC-DES (RFC 3414) and CFB128-AES-128 (RFC 3826) privacy
+ */
+final class UsmSecurity {
+
+    static final int AUTH_PARAMETERS_LENGTH = 12;
+    static final int PRIV_PARAMETERS_LENGTH = 8;
+    private static final int PASSWORD_EXPANSION_LENGTH = 1048576;
+    private static final int DIGEST_BLOCK_LENGTH = 64;
+    private static final int DES_KEY_LENGTH = 8;
+    private static final int DES_BLOCK_LENGTH = 8;
+    private static final int AES_KEY_LENGTH = 16;
+
+    private UsmSecurity() {
+    }
+
+    /**
+     * Converts a passphrase to a key localized to the authoritative engine
+     * 
+     * @param protocol
+     * @param passphrase
+     * @param engineId
+     * @return localized key
+     */
+    static byte[] localizeKey(SnmpAuthProtocol protocol, String passphrase, byte[] engineId) {
+	byte[] password = passphrase.getBytes(StandardCharsets.UTF_8);
+	if (0 == password.length) {
+	    throw new SnmpException("SNMPv3 passphrase must not be empty");
+	}
+	MessageDigest digest = protocol.newDigest();
+	byte[] block = new byte[DIGEST_BLOCK_LENGTH];
+	int passwordIndex = 0;
+	for (int count = 0; count < PASSWORD_EXPANSION_LENGTH; count += DIGEST_BLOCK_LENGTH) {
+	    for (int index = 0; index < DIGEST_BLOCK_LENGTH; index++) {
+		block[index] = password[passwordIndex++ % password.length];
+	    }
+	    digest.update(block);
+	}
+	byte[] key = digest.digest();
+	digest.update(key);
+	digest.update(engineId);
+	digest.update(key);
+	return digest.digest();
+    }
+
+    /**
+     * @param protocol
+     * @param authKey
+     * @param message
+     *            Whole message with zeroed authentication parameters
+     * @return authentication parameters of the message
+     */
+    static byte[] sign(SnmpAuthProtocol protocol, byte[] authKey, byte[] message) {
+	try {
+	    Mac mac = Mac.getInstance(protocol.getMacAlgorithm());
+	    mac.init(new SecretKeySpec(authKey, protocol.getMacAlgorithm()));
+	    return Arrays.copyOf(mac.doFinal(message), AUTH_PARAMETERS_LENGTH);
+	} catch (GeneralSecurityException e) {
+	    throw new SnmpException("Error authenticating SNMPv3 message", e);
+	}
+    }
+
+    /**
+     * Verifies the authentication parameters found at the given offset of a received message
+     * 
+     * @return true if the message is authentic
+     */
+    static boolean verify(SnmpAuthProtocol protocol, byte[] authKey, byte[] message, int authParametersOffset) {
+	byte[] received = Arrays.copyOfRange(message, authParametersOffset,
+		authParametersOffset + AUTH_PARAMETERS_LENGTH);
+	byte[] zeroed = message.clone();
+	Arrays.fill(zeroed, authParametersOffset, authParametersOffset + AUTH_PARAMETERS_LENGTH, (byte) 0);
+	return MessageDigest.isEqual(received, sign(protocol, authKey, zeroed));
+    }
+
+    /**
+     * @param protocol
+     * @param engineBoots
+     * @param salt
+     *            Value that must not repeat for the same key
+     * @return privacy parameters sent with an encrypted message
+     */
+    static byte[] privParameters(SnmpPrivProtocol protocol, int engineBoots, long salt) {
+	ByteBuffer parameters = ByteBuffer.allocate(PRIV_PARAMETERS_LENGTH);
+	if (SnmpPrivProtocol.DES == protocol) {
+	    parameters.putInt(engineBoots).putInt((int) salt);
+	} else {
+	    parameters.putLong(salt);
+	}
+	return parameters.array();
+    }
+
+    static byte[] encrypt(SnmpPrivProtocol protocol, byte[] privKey, int engineBoots, int engineTime,
+	    byte[] privParameters, byte[] plainText) {
+	byte[] input = plainText;
+	if (SnmpPrivProtocol.DES == protocol && 0 != plainText.length % DES_BLOCK_LENGTH) {
+	    input = Arrays.copyOf(plainText,
+		    plainText.length + DES_BLOCK_LENGTH - plainText.length % DES_BLOCK_LENGTH);
+	}
+	return crypt(Cipher.ENCRYPT_MODE, protocol, privKey, engineBoots, engineTime, privParameters, input);
+    }
+
+    static byte[] decrypt(SnmpPrivProtocol protocol, byte[] privKey, int engineBoots, int engineTime,
+	    byte[] privParameters, byte[] cipherText) {
+	if (PRIV_PARAMETERS_LENGTH != privParameters.length
+		|| (SnmpPrivProtocol.DES == protocol && 0 != cipherText.length % DES_BLOCK_LENGTH)) {
+	    throw new SnmpException("SNMPv3 decryption error");
+	}
+	return crypt(Cipher.DECRYPT_MODE, protocol, privKey, engineBoots, engineTime, privParameters, cipherText);
+    }
+
+    private static byte[] crypt(int mode, SnmpPrivProtocol protocol, byte[] privKey, int engineBoots,
+	    int engineTime, byte[] privParameters, byte[] input) {
+	try {
+	    Cipher cipher;
+	    if (SnmpPrivProtocol.DES == protocol) {
+		byte[] iv = new byte[DES_BLOCK_LENGTH];
+		for (int index = 0; index < DES_BLOCK_LENGTH; index++) {
+		    iv[index] = (byte) (privKey[DES_KEY_LENGTH + index] ^ privParameters[index]);
+		}
+		cipher = Cipher.getInstance("DES/CBC/NoPadding");
+		cipher.init(mode, new SecretKeySpec(privKey, 0, DES_KEY_LENGTH, "DES"), new IvParameterSpec(iv));
+	    } else {
+		byte[] iv = ByteBuffer.allocate(AES_KEY_LENGTH).putInt(engineBoots).putInt(engineTime)
+			.put(privParameters).array();
+		cipher = Cipher.getInstance("AES/CFB/NoPadding");
+		cipher.init(mode, new SecretKeySpec(privKey, 0, AES_KEY_LENGTH, "AES"), new IvParameterSpec(iv));
+	    }
+	    return cipher.doFinal(input);
+	} catch (GeneralSecurityException e) {
+	    throw new SnmpException("SNMPv3 " + (Cipher.ENCRYPT_MODE == mode ? "encryption" : "decryption")
+		    + " error", e);
+	}
+    }
+}
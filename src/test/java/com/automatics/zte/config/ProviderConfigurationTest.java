@@ -0,0 +1,162 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.automatics.zte.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.testng.annotations.Test;
+
+import com.automatics.snmp.Snmpv3SecurityLevel;
+import com.automatics.zte.constants.Constants;
+
+/**
+ * Unit test for ProviderConfiguration parsing and validation.
+ */
+public class ProviderConfigurationTest {
+
+    @Test
+    public void shouldUseDefaultsWhenNothingConfigured() {
+	List<String> errors = new ArrayList<String>();
+	ProviderConfiguration configuration = ProviderConfiguration.build(name -> null, errors);
+	assertTrue(errors.isEmpty());
+	assertEquals(ProviderConfiguration.DEFAULT_RDK_RESPONSE_TIMEOUT_MILLISECS,
+		configuration.getRdkResponseTimeout());
+	assertEquals(0, configuration.getNonRdkResponseTimeout());
+	assertEquals(ProviderConfiguration.DEFAULT_SSH_CONNECTION_MAX_ATTEMPT,
+		configuration.getSshConnectionMaxAttempt());
+	assertEquals(ProviderConfiguration.DEFAULT_SNMP_PORT, configuration.getSnmpPort());
+	assertEquals(ProviderConfiguration.DEFAULT_SNMP_COMMUNITY, configuration.getSnmpCommunity());
+	assertNull(configuration.getSnmpSecurityLevel());
+	assertEquals(ProviderConfiguration.DEFAULT_PIPE_REWRITE_POLICY, configuration.getPipeRewritePolicy());
+	assertEquals(ProviderConfiguration.DEFAULT_SSH_RETRY_BACKOFF_MULTIPLIER,
+		configuration.getSshRetryBackoffMultiplier(), 0);
+	assertTrue(configuration.isSshCircuitBreakerEnabled());
+	assertTrue(configuration.isSshPoolEnabled());
+	assertEquals(ProviderConfiguration.DEFAULT_SSH_POOL_MAX_SESSIONS_PER_HOST,
+		configuration.getSshPoolMaxSessionsPerHost());
+	assertTrue(configuration.isDeviceSchedulerEnabled());
+	assertEquals(ProviderConfiguration.DEFAULT_DEVICE_SCHEDULER_QUEUE_WAIT_MILLISECS,
+		configuration.getDeviceSchedulerQueueWait());
+    }
+
+    @Test
+    public void shouldParseConnectionSettings() {
+	Map<String, String> properties = new HashMap<String, String>();
+	properties.put(Constants.PROPS_SSH_RETRY_JITTER_FACTOR, "0.25");
+	properties.put(Constants.PROPS_SSH_CIRCUIT_BREAKER_ENABLED, "FALSE");
+	properties.put(Constants.PROPS_SSH_POOL_IDLE_TIMEOUT_MILLISEC, "0");
+	properties.put(Constants.PROPS_DEVICE_SCHEDULER_MAX_CONCURRENT_PER_DEVICE, "4");
+	List<String> errors = new ArrayList<String>();
+	ProviderConfiguration configuration = ProviderConfiguration.build(properties::get, errors);
+	assertTrue(errors.isEmpty());
+	assertEquals(0.25, configuration.getSshRetryJitterFactor(), 0);
+	assertFalse(configuration.isSshCircuitBreakerEnabled());
+	assertEquals(0, configuration.getSshPoolIdleTimeout());
+	assertEquals(4, configuration.getDeviceSchedulerMaxConcurrentPerDevice());
+    }
+
+    @Test
+    public void shouldReportInvalidConnectionSettings() {
+	Map<String, String> properties = new HashMap<String, String>();
+	properties.put(Constants.PROPS_SSH_RETRY_BACKOFF_MULTIPLIER, "0.5");
+	properties.put(Constants.PROPS_SSH_RETRY_JITTER_FACTOR, "2");
+	properties.put(Constants.PROPS_SSH_CIRCUIT_BREAKER_ENABLED, "yes");
+	properties.put(Constants.PROPS_SSH_POOL_ENABLED, "yes");
+	properties.put(Constants.PROPS_DEVICE_SCHEDULER_MAX_CONCURRENT_TOTAL, "0");
+	List<String> errors = new ArrayList<String>();
+	ProviderConfiguration configuration = ProviderConfiguration.build(properties::get, errors);
+	assertEquals(5, errors.size());
+	assertEquals(ProviderConfiguration.DEFAULT_SSH_RETRY_JITTER_FACTOR, configuration.getSshRetryJitterFactor(), 0);
+	assertTrue(configuration.isSshCircuitBreakerEnabled());
+	assertTrue(configuration.isSshPoolEnabled());
+	assertEquals(ProviderConfiguration.DEFAULT_DEVICE_SCHEDULER_MAX_CONCURRENT_TOTAL,
+		configuration.getDeviceSchedulerMaxConcurrentTotal());
+    }
+
+    @Test
+    public void shouldParseConfiguredValues() {
+	Map<String, String> properties = new HashMap<String, String>();
+	properties.put(Constants.PROPS_RDK_RESP_WAIT_TIME_MILLISEC, " 2500 ");
+	properties.put(Constants.PROPS_SNMP_PROTOCOL, "TCP");
+	properties.put(Constants.PROPS_SNMP_SECURITY_LEVEL, "authPriv");
+	properties.put(Constants.PROPS_SSH_PIPE_REWRITE_POLICY, "none");
+	List<String> errors = new ArrayList<String>();
+	ProviderConfiguration configuration = ProviderConfiguration.build(properties::get, errors);
+	assertTrue(errors.isEmpty());
+	assertEquals(PipeRewritePolicy.NONE, configuration.getPipeRewritePolicy());
+	assertEquals(2500, configuration.getRdkResponseTimeout());
+	assertEquals("tcp", configuration.getSnmpProtocol());
+	assertEquals(Snmpv3SecurityLevel.authPriv, configuration.getSnmpSecurityLevel());
+    }
+
+    @Test
+    public void shouldReportInvalidValuesAndFallBackToDefaults() {
+	Map<String, String> properties = new HashMap<String, String>();
+	properties.put(Constants.PROPS_RDK_RESP_WAIT_TIME_MILLISEC, "-1");
+	properties.put(Constants.PROPS_SNMP_PORT, "70000");
+	properties.put(Constants.PROPS_SNMP_SECURITY_LEVEL, "none");
+	List<String> errors = new ArrayList<String>();
+	ProviderConfiguration configuration = ProviderConfiguration.build(properties::get, errors);
+	assertEquals(3, errors.size());
+	assertEquals(ProviderConfiguration.DEFAULT_RDK_RESPONSE_TIMEOUT_MILLISECS,
+		configuration.getRdkResponseTimeout());
+	assertEquals(ProviderConfiguration.DEFAULT_SNMP_PORT, configuration.getSnmpPort());
+	assertNull(configuration.getSnmpSecurityLevel());
+    }
+
+    @Test
+    public void shouldKeepCurrentSnapshotWhenUpdateIsInvalid() {
+	ProviderConfiguration current = ProviderConfigurationHolder.get();
+	assertFalse(ProviderConfigurationHolder
+		.update(name -> Constants.PROPS_SSH_CONNECTION_MAX_ATTEMPT.equals(name) ? "zero" : null));
+	assertSame(current, ProviderConfigurationHolder.get());
+    }
+
+    @Test
+    public void shouldNotifyListenersOfReplacedSnapshot() {
+	ProviderConfiguration original = ProviderConfigurationHolder.get();
+	AtomicReference<ProviderConfiguration> notified = new AtomicReference<ProviderConfiguration>();
+	Consumer<ProviderConfiguration> listener = notified::set;
+	ProviderConfigurationHolder.addListener(listener);
+	try {
+	    assertTrue(ProviderConfigurationHolder
+		    .update(name -> Constants.PROPS_SSH_CONNECTION_MAX_ATTEMPT.equals(name) ? "5" : null));
+	    assertSame(ProviderConfigurationHolder.get(), notified.get());
+	    assertEquals(5, notified.get().getSshConnectionMaxAttempt());
+
+	    notified.set(null);
+	    assertFalse(ProviderConfigurationHolder
+		    .update(name -> Constants.PROPS_SSH_CONNECTION_MAX_ATTEMPT.equals(name) ? "-5" : null));
+	    assertNull("Rejected snapshot must not be applied", notified.get());
+	} finally {
+	    ProviderConfigurationHolder.removeListener(listener);
+	    ProviderConfigurationHolder.set(original);
+	}
+    }
+}
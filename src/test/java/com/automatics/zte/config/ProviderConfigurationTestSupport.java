@@ -0,0 +1,37 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.automatics.zte.config;
+
+/**
+ * Lets tests of other packages put back the configuration snapshot that was current before they changed it.
+ */
+public final class ProviderConfigurationTestSupport {
+
+    private ProviderConfigurationTestSupport() {
+    }
+
+    /**
+     * Makes the given snapshot current again and notifies the listeners
+     * 
+     * @param configuration
+     *            Snapshot returned by {@link ProviderConfigurationHolder#get()} before the test changed it
+     */
+    public static void restore(ProviderConfiguration configuration) {
+	ProviderConfigurationHolder.set(configuration);
+    }
+}
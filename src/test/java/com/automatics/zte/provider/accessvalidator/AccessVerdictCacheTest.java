@@ -0,0 +1,63 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.automatics.zte.provider.accessvalidator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.testng.annotations.Test;
+
+import com.automatics.device.Device;
+
+/**
+ * Unit test for AccessVerdictCache
+ */
+public class AccessVerdictCacheTest {
+
+    private static Device createDevice(String macAddress, String ipAddress) {
+	Device device = new Device();
+	device.setHostMacAddress(macAddress);
+	device.setHostIp4Address(ipAddress);
+	return device;
+    }
+
+    @Test
+    public void shouldReuseVerdictUntilExpired() throws Exception {
+	AccessVerdictCache cache = new AccessVerdictCache();
+	Device device = createDevice("00:11:22:33:44:55", "10.0.0.1");
+
+	cache.put(device, true, 50);
+	assertEquals(Boolean.TRUE, cache.get(createDevice("00:11:22:33:44:55", "10.0.0.2")));
+	Thread.sleep(60);
+	assertNull(cache.get(device));
+
+	cache.put(device, false, 0);
+	assertNull(cache.get(device));
+    }
+
+    @Test
+    public void shouldIdentifyDevicesWithoutMacAddressByIpAddress() {
+	AccessVerdictCache cache = new AccessVerdictCache();
+	cache.put(createDevice(null, "10.0.0.1"), false, 60000);
+
+	assertEquals(Boolean.FALSE, cache.get(createDevice("", "10.0.0.1")));
+	assertNull(cache.get(createDevice(null, "10.0.0.2")));
+	cache.invalidate(createDevice(null, "10.0.0.1"));
+	assertNull(cache.get(createDevice(null, "10.0.0.1")));
+    }
+}
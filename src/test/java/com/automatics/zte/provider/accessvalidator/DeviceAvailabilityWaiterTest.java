@@ -0,0 +1,125 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.automatics.zte.provider.accessvalidator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import com.automatics.device.Device;
+
+/**
+ * Unit test for DeviceAvailabilityWaiter
+ */
+public class DeviceAvailabilityWaiterTest {
+
+    private static Device createDevice() {
+	Device device = new Device();
+	device.setHostMacAddress("00:11:22:33:44:55");
+	device.setHostIp4Address("127.0.0.1");
+	return device;
+    }
+
+    private static int getFreePort() throws IOException {
+	try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+	    return server.getLocalPort();
+	}
+    }
+
+    /**
+     * Starts a server sending an SSH banner to every connection
+     */
+    private static ServerSocket startSshServer(int port) throws IOException {
+	ServerSocket server = new ServerSocket();
+	server.setReuseAddress(true);
+	server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+	Thread thread = new Thread(() -> {
+	    while (!server.isClosed()) {
+		try (Socket socket = server.accept()) {
+		    OutputStream output = socket.getOutputStream();
+		    output.write("SSH-2.0-OpenSSH_8.4\r\n".getBytes(StandardCharsets.US_ASCII));
+		    output.flush();
+		} catch (IOException e) {
+		    // server closed
+		}
+	    }
+	});
+	thread.setDaemon(true);
+	thread.start();
+	return server;
+    }
+
+    @Test
+    public void shouldCompleteWhenDeviceComesBack() throws Exception {
+	int port = getFreePort();
+	AtomicInteger checkCount = new AtomicInteger();
+	try (DeviceAvailabilityWaiter waiter = new DeviceAvailabilityWaiter(dut -> checkCount.incrementAndGet() > 1,
+		port, 50, 2)) {
+	    CompletableFuture<Boolean> available = waiter.awaitAvailable(createDevice(), 10000);
+	    Thread.sleep(200);
+	    assertFalse(available.isDone());
+	    assertEquals(0, checkCount.get());
+
+	    try (ServerSocket server = startSshServer(port)) {
+		assertTrue(available.get(5, TimeUnit.SECONDS));
+		// the first command check fails, the device is probed again
+		assertEquals(2, checkCount.get());
+	    }
+	}
+    }
+
+    @Test
+    public void shouldWaitForRebootAndTimeOut() throws Exception {
+	int port = getFreePort();
+	AtomicInteger checkCount = new AtomicInteger();
+	try (DeviceAvailabilityWaiter waiter = new DeviceAvailabilityWaiter(dut -> checkCount.incrementAndGet() > 0,
+		port, 50, 2)) {
+	    ServerSocket server = startSshServer(port);
+	    CompletableFuture<Boolean> rebooted = waiter.awaitReboot(createDevice(), 10000);
+	    Thread.sleep(200);
+	    assertFalse(rebooted.isDone());
+	    server.close();
+	    Thread.sleep(200);
+	    try (ServerSocket restartedServer = startSshServer(port)) {
+		assertTrue(rebooted.get(5, TimeUnit.SECONDS));
+	    }
+	    assertEquals(1, checkCount.get());
+	}
+    }
+
+    @Test
+    public void shouldTimeOutWhenDeviceStaysDown() throws Exception {
+	// A port nothing listens on, a server closed in the test may still accept connections for a moment
+	try (DeviceAvailabilityWaiter waiter = new DeviceAvailabilityWaiter(dut -> true, getFreePort(), 50, 2)) {
+	    assertFalse(waiter.awaitAvailable(createDevice(), 300).get(5, TimeUnit.SECONDS));
+	}
+    }
+}
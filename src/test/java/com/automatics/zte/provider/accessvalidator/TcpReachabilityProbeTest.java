@@ -0,0 +1,70 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.automatics.zte.provider.accessvalidator;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for TcpReachabilityProbe
+ */
+public class TcpReachabilityProbeTest {
+
+    @Test
+    public void shouldReportWhichHostsAcceptConnections() throws Exception {
+	int closedPort;
+	try (ServerSocket closedServer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+	    closedPort = closedServer.getLocalPort();
+	}
+	try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+	    TcpReachabilityProbe probe = new TcpReachabilityProbe();
+
+	    Map<String, Boolean> reachability = probe.probe(Arrays.asList("127.0.0.1", "unresolvable.invalid"),
+		    server.getLocalPort(), 2000);
+	    assertTrue(reachability.get("127.0.0.1"));
+	    assertFalse(reachability.get("unresolvable.invalid"));
+
+	    assertFalse(probe.probe(Arrays.asList("127.0.0.1"), closedPort, 2000).get("127.0.0.1"));
+	}
+    }
+
+    @Test
+    public void shouldReturnOnceAllConnectsFinished() throws Exception {
+	int closedPort;
+	try (ServerSocket closedServer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+	    closedPort = closedServer.getLocalPort();
+	}
+	try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+	    TcpReachabilityProbe probe = new TcpReachabilityProbe();
+
+	    long start = System.nanoTime();
+	    assertTrue(probe.probe(Arrays.asList("127.0.0.1"), server.getLocalPort(), 10000).get("127.0.0.1"));
+	    assertFalse(probe.probe(Arrays.asList("127.0.0.1"), closedPort, 10000).get("127.0.0.1"));
+	    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+	    assertTrue("Probe waited out the timeout: " + elapsedMillis + " ms", elapsedMillis < 2000);
+	}
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.automatics.zte.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumSet;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for CommandClassifier feature detection.
+ */
+public class CommandClassifierTest {
+
+    @Test
+    public void shouldFindSedAsCommand() {
+	assertTrue(SshExecutionUtils.isSedCommandPresent("sed -i 's/a/b/' /tmp/f"));
+	assertTrue(SshExecutionUtils.isSedCommandPresent("cat /tmp/f | sed -n 1p"));
+	assertTrue(SshExecutionUtils.isSedCommandPresent("sh -c \"sed -n 1p /tmp/f\""));
+	assertTrue(SshExecutionUtils.isSedCommandPresent("cd /tmp && /bin/sed -n 1p f"));
+	assertFalse(SshExecutionUtils.isSedCommandPresent("grep sed /tmp/f"));
+	assertFalse(SshExecutionUtils.isSedCommandPresent("echo used"));
+    }
+
+    @Test
+    public void shouldFindOperatorsOutsideOfQuotes() {
+	assertEquals(EnumSet.of(CommandFeature.PIPE), CommandClassifier.classify("ps | grep x"));
+	assertEquals(EnumSet.noneOf(CommandFeature.class), CommandClassifier.classify("echo 'a | b > c &' || true"));
+	assertEquals(EnumSet.of(CommandFeature.BACKGROUND, CommandFeature.REDIRECTION),
+		CommandClassifier.classify("nohup ./run.sh > /tmp/log 2>&1 &"));
+	assertEquals(EnumSet.of(CommandFeature.PIPE, CommandFeature.REDIRECTION),
+		CommandClassifier.classify("ls /tmp 2>&1 |& cat"));
+	assertEquals(EnumSet.of(CommandFeature.SHELL_STATE), CommandClassifier.classify("cd /tmp && ls # a | b"));
+	assertEquals(EnumSet.noneOf(CommandFeature.class), CommandClassifier.classify("diff <(ls a) <(ls b)"));
+	assertEquals(EnumSet.noneOf(CommandFeature.class), CommandClassifier.classify(null));
+    }
+
+    @Test
+    public void shouldFindLongRunningCommands() {
+	assertEquals(EnumSet.of(CommandFeature.LONG_RUNNING, CommandFeature.PIPE),
+		CommandClassifier.classify("tail -F /var/log/messages | grep wan"));
+	assertTrue(CommandClassifier.classify("ping 10.0.0.1").contains(CommandFeature.LONG_RUNNING));
+	assertTrue(CommandClassifier.classify("logread -f").contains(CommandFeature.LONG_RUNNING));
+	assertTrue(CommandClassifier.classify("VAR=1 top -b").contains(CommandFeature.LONG_RUNNING));
+	assertFalse(CommandClassifier.classify("ping -c 3 10.0.0.1").contains(CommandFeature.LONG_RUNNING));
+	assertFalse(CommandClassifier.classify("top -bn1").contains(CommandFeature.LONG_RUNNING));
+	assertFalse(CommandClassifier.classify("tail -n 20 /tmp/f").contains(CommandFeature.LONG_RUNNING));
+    }
+
+    @Test
+    public void shouldFindShellStateChanges() {
+	assertTrue(CommandClassifier.classify("export PATH=$PATH:/opt/bin").contains(CommandFeature.SHELL_STATE));
+	assertTrue(CommandClassifier.classify("ls; cd /tmp").contains(CommandFeature.SHELL_STATE));
+	assertTrue(CommandClassifier.classify(". /etc/profile").contains(CommandFeature.SHELL_STATE));
+	assertTrue(CommandClassifier.classify("LOG_LEVEL=3").contains(CommandFeature.SHELL_STATE));
+	assertFalse(CommandClassifier.classify("LOG_LEVEL=3 ./run.sh").contains(CommandFeature.SHELL_STATE));
+	assertFalse(CommandClassifier.classify("echo cd /tmp").contains(CommandFeature.SHELL_STATE));
+    }
+
+    @Test
+    public void shouldFindTrailingCommentOutsideOfQuotes() {
+	assertEquals(8, CommandClassifier.findCommentStart("ls /tmp # list"));
+	assertEquals(3, CommandClassifier.findCommentStart("ls;# list"));
+	assertEquals(-1, CommandClassifier.findCommentStart("echo '# a' \"# b\" \\# c"));
+	assertEquals(-1, CommandClassifier.findCommentStart("echo a#b ${#PATH}"));
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for completion, rejection and time out handling of AsyncCommandExecutor.
+ */
+public class AsyncCommandExecutorTest {
+
+    @Test
+    public void shouldCompleteWithResultOrError() throws Exception {
+	AsyncCommandExecutor executor = new AsyncCommandExecutor(2, 2);
+	assertEquals("response", executor.submit(() -> "response").get(5, TimeUnit.SECONDS));
+
+	CompletableFuture<String> failed = executor.submit(() -> {
+	    throw new IllegalStateException("connection failed");
+	});
+	try {
+	    failed.get(5, TimeUnit.SECONDS);
+	    fail("Error of the task must complete the future exceptionally");
+	} catch (ExecutionException e) {
+	    assertTrue(e.getCause() instanceof IllegalStateException);
+	}
+	executor.shutdown();
+    }
+
+    @Test
+    public void shouldRejectWhenQueueIsFull() throws Exception {
+	AsyncCommandExecutor executor = new AsyncCommandExecutor(1, 1);
+	CountDownLatch release = new CountDownLatch(1);
+	CountDownLatch started = new CountDownLatch(1);
+	CompletableFuture<String> running = executor.submit(() -> {
+	    started.countDown();
+	    await(release);
+	    return "first";
+	});
+	assertTrue(started.await(5, TimeUnit.SECONDS));
+	CompletableFuture<String> queued = executor.submit(() -> "second");
+
+	CompletableFuture<String> rejected = executor.submit(() -> "third");
+	assertTrue("Request beyond the queue capacity must not block the caller", rejected.isDone());
+	try {
+	    rejected.get();
+	    fail("Request beyond the queue capacity must be rejected");
+	} catch (ExecutionException e) {
+	    assertTrue(e.getCause() instanceof RejectedExecutionException);
+	}
+
+	release.countDown();
+	assertEquals("first", running.get(5, TimeUnit.SECONDS));
+	assertEquals("second", queued.get(5, TimeUnit.SECONDS));
+	executor.shutdown();
+    }
+
+    @Test
+    public void shouldSkipQueuedTaskAfterCallerTimedOut() throws Exception {
+	AsyncCommandExecutor executor = new AsyncCommandExecutor(1, 1);
+	CountDownLatch release = new CountDownLatch(1);
+	CompletableFuture<String> running = executor.submit(() -> {
+	    await(release);
+	    return "first";
+	});
+	AtomicBoolean isQueuedTaskRun = new AtomicBoolean();
+	CompletableFuture<String> queued = executor.submit(() -> {
+	    isQueuedTaskRun.set(true);
+	    return "second";
+	});
+
+	try {
+	    queued.get(200, TimeUnit.MILLISECONDS);
+	    fail("Queued request must not complete while the executor is busy");
+	} catch (TimeoutException e) {
+	    queued.cancel(true);
+	}
+
+	release.countDown();
+	assertEquals("first", running.get(5, TimeUnit.SECONDS));
+	// The single worker takes the cancelled task before this one
+	assertEquals("third", executor.submit(() -> "third").get(5, TimeUnit.SECONDS));
+	assertFalse("Task of a timed out request is not run", isQueuedTaskRun.get());
+	executor.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+	try {
+	    latch.await(5, TimeUnit.SECONDS);
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	}
+    }
+}
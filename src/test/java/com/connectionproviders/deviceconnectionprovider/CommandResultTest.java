@@ -0,0 +1,59 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for the status of CommandResult.
+ */
+public class CommandResultTest {
+
+    @Test
+    public void shouldReportShellResponseWithoutExitStatusAsUnknown() {
+	CommandResult result = CommandResult.ofShellResponse("show version", "V1.0\n", 5, 20);
+	assertEquals(CommandResult.Status.UNKNOWN, result.getStatus());
+	assertFalse(result.isSuccess());
+	assertFalse("Missing exit status must not be reported as failure", result.isFailure());
+	assertEquals("V1.0\n", result.getStdout());
+	assertEquals(25, result.getTotalMillis());
+    }
+
+    @Test
+    public void shouldReportCommandThatCouldNotBeExecutedAsFailed() {
+	CommandResult result = CommandResult.ofError("show version", new IllegalStateException("connection lost"), 5,
+		20);
+	assertEquals(CommandResult.Status.FAILED, result.getStatus());
+	assertTrue(result.isFailure());
+	assertEquals("", result.getStdout());
+	assertEquals("connection lost", result.getError().getMessage());
+    }
+
+    @Test
+    public void shouldTellStatusFromExitStatusAndTimeOut() {
+	assertEquals(CommandResult.Status.SUCCEEDED,
+		new CommandResult("true", "", "", 0, false, 0, 0, 0).getStatus());
+	assertEquals(CommandResult.Status.FAILED, new CommandResult("false", "", "", 1, false, 0, 0, 0).getStatus());
+	assertEquals(CommandResult.Status.FAILED,
+		new CommandResult("sleep 60", "", "", CommandResult.EXIT_STATUS_UNKNOWN, true, 0, 0, 0).getStatus());
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.automatics.exceptions.FailedTransitionException;
+
+/**
+ * Unit test for DeviceConcurrencyScheduler limits and queue order.
+ */
+public class DeviceConcurrencySchedulerTest {
+
+    private static final String HOST = "192.168.1.10";
+    private static final String OTHER_HOST = "192.168.1.11";
+    private static final int PORT = 22;
+
+    @Test
+    public void shouldServeQueuedRequestsOfDeviceInArrivalOrder() throws InterruptedException {
+	DeviceConcurrencyScheduler scheduler = new DeviceConcurrencyScheduler(true, 1, 10, 10000);
+	List<Integer> grantOrder = Collections.synchronizedList(new ArrayList<Integer>());
+
+	DeviceConcurrencyScheduler.Permit permit = scheduler.acquire(HOST, PORT);
+	Thread first = startAcquire(scheduler, HOST, 1, grantOrder);
+	waitForQueued(scheduler, HOST, 1);
+	Thread second = startAcquire(scheduler, HOST, 2, grantOrder);
+	waitForQueued(scheduler, HOST, 2);
+
+	scheduler.acquire(OTHER_HOST, PORT).close();
+	permit.close();
+	first.join(5000);
+	second.join(5000);
+
+	assertEquals(Arrays.asList(1, 2), grantOrder);
+	DeviceQueueStatistics statistics = scheduler.getStatistics(HOST, PORT);
+	assertEquals(0, statistics.getActiveCount());
+	assertEquals(0, statistics.getQueuedCount());
+	assertEquals(2, statistics.getMaxQueuedCount());
+	assertEquals(3, statistics.getGrantedCount());
+    }
+
+    @Test
+    public void shouldLimitSessionsAcrossDevices() throws InterruptedException {
+	DeviceConcurrencyScheduler scheduler = new DeviceConcurrencyScheduler(true, 2, 1, 10000);
+	List<Integer> grantOrder = Collections.synchronizedList(new ArrayList<Integer>());
+
+	DeviceConcurrencyScheduler.Permit permit = scheduler.acquire(HOST, PORT);
+	Thread other = startAcquire(scheduler, OTHER_HOST, 1, grantOrder);
+	waitForQueued(scheduler, OTHER_HOST, 1);
+	assertEquals(1, scheduler.getTotalActiveCount());
+	assertEquals(1, scheduler.getTotalQueuedCount());
+
+	permit.close();
+	permit.close();
+	other.join(5000);
+	assertEquals(Arrays.asList(1), grantOrder);
+	assertEquals(0, scheduler.getTotalActiveCount());
+    }
+
+    @Test
+    public void shouldGiveNestedRequestsOfSameThreadTheHeldSlot() throws InterruptedException {
+	DeviceConcurrencyScheduler scheduler = new DeviceConcurrencyScheduler(true, 1, 1, 100);
+
+	try (DeviceConcurrencyScheduler.Permit outer = scheduler.acquire(HOST, PORT)) {
+	    try (DeviceConcurrencyScheduler.Permit nested = scheduler.acquire(HOST, PORT)) {
+		assertEquals(1, scheduler.getTotalActiveCount());
+	    }
+	    assertEquals(1, scheduler.getTotalActiveCount());
+
+	    List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+	    Thread other = new Thread(() -> {
+		try {
+		    scheduler.acquire(HOST, PORT).close();
+		} catch (FailedTransitionException e) {
+		    errors.add(e);
+		}
+	    });
+	    other.start();
+	    other.join(5000);
+	    assertEquals("Request of another thread should time out waiting", 1, errors.size());
+	}
+	assertEquals(0, scheduler.getTotalActiveCount());
+	assertEquals(1, scheduler.getStatistics(HOST, PORT).getTimedOutCount());
+    }
+
+    @Test
+    public void shouldGrantWaitingRequestWhenLimitIsRaised() throws InterruptedException {
+	DeviceConcurrencyScheduler scheduler = new DeviceConcurrencyScheduler(true, 1, 10, 10000);
+	List<Integer> grantOrder = Collections.synchronizedList(new ArrayList<Integer>());
+
+	try (DeviceConcurrencyScheduler.Permit permit = scheduler.acquire(HOST, PORT)) {
+	    Thread waiting = startAcquire(scheduler, HOST, 1, grantOrder);
+	    waitForQueued(scheduler, HOST, 1);
+
+	    scheduler.configure(true, 2, 10, 10000);
+	    waiting.join(5000);
+	    assertEquals("Raised limit should be granted while the first slot is still held", Arrays.asList(1),
+		    grantOrder);
+	}
+	assertEquals(0, scheduler.getTotalActiveCount());
+    }
+
+    private static Thread startAcquire(final DeviceConcurrencyScheduler scheduler, final String host, final int id,
+	    final List<Integer> grantOrder) {
+	Thread thread = new Thread(() -> {
+	    try (DeviceConcurrencyScheduler.Permit permit = scheduler.acquire(host, PORT)) {
+		grantOrder.add(id);
+	    }
+	});
+	thread.start();
+	return thread;
+    }
+
+    private static void waitForQueued(DeviceConcurrencyScheduler scheduler, String host, int queued)
+	    throws InterruptedException {
+	long deadline = System.currentTimeMillis() + 5000;
+	while (System.currentTimeMillis() < deadline) {
+	    DeviceQueueStatistics statistics = scheduler.getStatistics(host, PORT);
+	    if (null != statistics && statistics.getQueuedCount() == queued) {
+		return;
+	    }
+	    Thread.sleep(5);
+	}
+	fail("Expected " + queued + " queued requests for " + host);
+    }
+}
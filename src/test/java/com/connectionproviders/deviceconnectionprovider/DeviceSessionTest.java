@@ -0,0 +1,64 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import com.automatics.device.Device;
+import com.automatics.exceptions.FailedTransitionException;
+
+/**
+ * Unit test for DeviceSession command execution and closing.
+ */
+public class DeviceSessionTest {
+
+    @Test
+    public void shouldRunCommandsInOneShellUntilClosed() {
+	List<String> sentCommands = new ArrayList<String>();
+	AtomicInteger releaseCount = new AtomicInteger();
+	Device device = new Device();
+	device.setHostIp4Address("192.168.1.10");
+
+	try (DeviceSession session = new DeviceSession(device, null, (conn, command, timeOutMilliSecs) -> {
+	    sentCommands.add(command);
+	    return "response of " + command;
+	}, null, releaseCount::incrementAndGet)) {
+	    session.execute("cd /tmp", 1000);
+	    assertEquals("response of pwd", session.execute("pwd", 1000));
+	    session.close();
+	    assertTrue(session.isClosed());
+	    try {
+		session.execute("ls", 1000);
+		fail("Closed session should not execute commands");
+	    } catch (FailedTransitionException e) {
+		// expected
+	    }
+	}
+	assertEquals(Arrays.asList("cd /tmp", "pwd"), sentCommands);
+	assertEquals(1, releaseCount.get());
+    }
+}
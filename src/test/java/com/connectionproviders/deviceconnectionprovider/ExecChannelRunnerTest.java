@@ -0,0 +1,164 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for the output handling of ExecChannelRunner.
+ */
+public class ExecChannelRunnerTest {
+
+    @Test
+    public void shouldDeliverLinesSplitAcrossChunksOnCallingThread() throws Exception {
+	final ChannelOutputBuffer output = new ChannelOutputBuffer(1024, null);
+	final List<String> lines = new ArrayList<String>();
+	final List<Thread> listenerThreads = new ArrayList<Thread>();
+	Thread writer = new Thread(() -> {
+	    write(output, "first li");
+	    write(output, "ne\r\nsecond\nla");
+	    write(output, "st");
+	    output.close();
+	});
+	writer.start();
+
+	boolean isCompleted = ExecChannelRunner.deliverLines(output, line -> {
+	    lines.add(line);
+	    listenerThreads.add(Thread.currentThread());
+	    return true;
+	}, new AtomicBoolean());
+
+	writer.join(5000);
+	assertTrue(isCompleted);
+	assertEquals(Arrays.asList("first line", "second", "last"), lines);
+	for (Thread thread : listenerThreads) {
+	    assertEquals(Thread.currentThread(), thread);
+	}
+    }
+
+    @Test
+    public void shouldNotBlockWriterWhileListenerIsSlow() throws Exception {
+	ChannelOutputBuffer output = new ChannelOutputBuffer(1024 * 1024, null);
+	long startTime = System.currentTimeMillis();
+	for (int index = 0; index < 1000; index++) {
+	    write(output, "line " + index + "\n");
+	}
+	assertTrue("Writes should not wait for the listener", System.currentTimeMillis() - startTime < 1000);
+
+	final AtomicInteger deliveredLines = new AtomicInteger();
+	boolean isCompleted = ExecChannelRunner.deliverLines(output, line -> {
+	    try {
+		Thread.sleep(10);
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+	    }
+	    return deliveredLines.incrementAndGet() < 3;
+	}, new AtomicBoolean());
+
+	assertFalse("Listener should have stopped the delivery", isCompleted);
+	assertEquals(3, deliveredLines.get());
+    }
+
+    @Test
+    public void shouldStopCommandOnceBufferLimitIsExceeded() throws IOException {
+	final AtomicInteger overflowCount = new AtomicInteger();
+	ChannelOutputBuffer output = new ChannelOutputBuffer(10, overflowCount::incrementAndGet);
+	write(output, "12345678");
+	write(output, "90abcdef");
+	write(output, "ghijklmn");
+
+	assertEquals(1, overflowCount.get());
+	assertTrue(output.isOverflowed());
+	InputStream stream = output.asInputStream();
+	byte[] buffer = new byte[64];
+	int read = stream.read(buffer, 0, buffer.length);
+	read += stream.read(buffer, read, buffer.length - read);
+	assertEquals("1234567890", new String(buffer, 0, read, StandardCharsets.UTF_8));
+	try {
+	    stream.read(buffer, 0, buffer.length);
+	    fail("Reading beyond the buffered output of an overflowed buffer should fail");
+	} catch (IOException e) {
+	    // expected
+	}
+    }
+
+    @Test
+    public void shouldTruncateErrorOutputToLimit() {
+	ChannelOutputBuffer stderr = new ChannelOutputBuffer(8, null);
+	write(stderr, "error: ");
+	write(stderr, "something failed");
+	assertEquals("error: s", stderr.drainText());
+	assertTrue(stderr.isOverflowed());
+    }
+
+    @Test
+    public void shouldEndStreamWhenOutputIsClosed() throws IOException {
+	ChannelOutputBuffer output = new ChannelOutputBuffer(1024, null);
+	write(output, "done");
+	output.close();
+	write(output, "ignored");
+	InputStream stream = output.asInputStream();
+	byte[] buffer = new byte[64];
+	assertEquals(4, stream.read(buffer, 0, buffer.length));
+	assertEquals(-1, stream.read(buffer, 0, buffer.length));
+    }
+
+    @Test
+    public void shouldReportExitStatusOfSuccessfulCommandOnceChannelClosed() {
+	final AtomicInteger closeChecks = new AtomicInteger();
+	final AtomicBoolean isClosed = new AtomicBoolean();
+	int exitStatus = ExecChannelRunner.awaitExitStatus(() -> {
+	    // The channel closes a few polls after the end of the output was read
+	    if (closeChecks.incrementAndGet() > 3) {
+		isClosed.set(true);
+	    }
+	    return isClosed.get();
+	}, () -> isClosed.get() ? 0 : CommandResult.EXIT_STATUS_UNKNOWN, System.currentTimeMillis() + 5000);
+
+	assertEquals(0, exitStatus);
+	assertTrue(new CommandResult("true", "", "", exitStatus, false, 0, 0, 0).isSuccess());
+    }
+
+    @Test
+    public void shouldReportUnknownExitStatusWhenChannelDoesNotClose() {
+	long startTime = System.currentTimeMillis();
+	int exitStatus = ExecChannelRunner.awaitExitStatus(() -> false, () -> 0, startTime + 100);
+
+	assertEquals(CommandResult.EXIT_STATUS_UNKNOWN, exitStatus);
+	assertTrue(System.currentTimeMillis() - startTime >= 100);
+    }
+
+    private static void write(ChannelOutputBuffer output, String text) {
+	byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+	output.write(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for matching several expect patterns in one pass over the output.
+ */
+public class ExpectPatternSetTest {
+
+    @Test
+    public void shouldReportFirstPatternEndingInOutput() {
+	ExpectPatternSet patternSet = new ExpectPatternSet(Arrays.asList("he", "she", "hers", null, "#"));
+	assertEquals(Arrays.asList(-1, -1, -1, 0), feed(patternSet.newScanner(), "ushe"));
+	assertEquals(Arrays.asList(-1, -1, 4), feed(patternSet.newScanner(), "hr#"));
+	assertEquals("#", patternSet.getPattern(4));
+    }
+
+    @Test
+    public void shouldMatchPatternSplitAcrossChunks() {
+	ExpectPatternSet.Scanner scanner = new ExpectPatternSet(Arrays.asList("Password:")).newScanner();
+	assertEquals(Arrays.asList(-1, -1, -1, -1, -1), feed(scanner, "Passw"));
+	assertEquals(Arrays.asList(-1, -1, -1, 0), feed(scanner, "ord:"));
+	scanner.reset();
+	assertEquals(Arrays.asList(-1, -1, -1, -1), feed(scanner, "ord:"));
+    }
+
+    private static List<Integer> feed(ExpectPatternSet.Scanner scanner, String text) {
+	Integer[] matches = new Integer[text.length()];
+	for (int index = 0; index < text.length(); index++) {
+	    matches[index] = scanner.feed(text.charAt(index));
+	}
+	return Arrays.asList(matches);
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for holding expect dialogs over a device shell.
+ */
+public class ExpectRunnerTest {
+
+    @Test
+    public void shouldAnswerPromptsUntilEndPattern() {
+	FakeChannel channel = new FakeChannel("Pass", "word: ", "Welcome\n# ", "tail");
+	ExpectDialog dialog = new ExpectDialog().respond("Password:", "secret").until("# ", "$ ");
+
+	ExpectResult result = new ExpectRunner(10).converse(channel, "su", dialog, 1000);
+
+	assertEquals("# ", result.getMatchedPattern());
+	assertEquals("Password: Welcome\n# ", result.getOutput());
+	assertEquals(Arrays.asList("su", "secret"), channel.writtenLines);
+	assertFalse(result.isTimedOut());
+    }
+
+    @Test
+    public void shouldReturnOutputSoFarOnTimeout() {
+	FakeChannel channel = new FakeChannel("still running");
+
+	ExpectResult result = new ExpectRunner(10).converse(channel, "sleep 10", new ExpectDialog().until("# "), 50);
+
+	assertTrue(result.isTimedOut());
+	assertNull(result.getMatchedPattern());
+	assertEquals("still running", result.getOutput());
+    }
+
+    /**
+     * Channel returning the given chunks, one per read
+     */
+    private static class FakeChannel implements ExpectRunner.ExpectChannel {
+
+	private final LinkedList<String> chunks;
+	private final List<String> writtenLines = new ArrayList<String>();
+
+	FakeChannel(String... chunks) {
+	    this.chunks = new LinkedList<String>(Arrays.asList(chunks));
+	}
+
+	@Override
+	public void write(String line) {
+	    writtenLines.add(line);
+	}
+
+	@Override
+	public String read(long timeOutMilliSecs) throws Exception {
+	    if (chunks.isEmpty()) {
+		Thread.sleep(timeOutMilliSecs);
+		return "";
+	    }
+	    return chunks.poll();
+	}
+    }
+}
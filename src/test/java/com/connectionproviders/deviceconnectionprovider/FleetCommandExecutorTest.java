@@ -0,0 +1,146 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import com.automatics.device.Device;
+
+/**
+ * Unit test for FleetCommandExecutor result delivery, failure isolation and limits.
+ */
+public class FleetCommandExecutorTest {
+
+    private static final List<String> COMMANDS = Arrays.asList("uptime");
+
+    @Test
+    public void shouldReportFailedDevicesWithoutStoppingOthers() throws InterruptedException {
+	List<DeviceExecutionResult> listenedResults = Collections
+		.synchronizedList(new ArrayList<DeviceExecutionResult>());
+	FleetCommandExecutor executor = new FleetCommandExecutor((device, commandList) -> {
+	    if ("192.168.1.11".equals(device.getHostIpAddress())) {
+		throw new IllegalStateException("device unreachable");
+	    }
+	    return "up on " + device.getHostIpAddress();
+	}, 4, 4, 24);
+	try {
+	    FleetExecution execution = executor.execute(
+		    createDevices("192.168.1.10", "192.168.1.11", "192.168.2.10"), COMMANDS, listenedResults::add);
+
+	    assertTrue(execution.awaitCompletion(5, TimeUnit.SECONDS));
+	    assertTrue(execution.isDone());
+	    assertEquals(3, execution.getResults().size());
+	    assertEquals(3, listenedResults.size());
+	    for (DeviceExecutionResult result : execution.getResults()) {
+		if ("192.168.1.11".equals(result.getDevice().getHostIpAddress())) {
+		    assertFalse(result.isSuccess());
+		    assertNull(result.getResponse());
+		    assertEquals("device unreachable", result.getError().getMessage());
+		} else {
+		    assertTrue(result.isSuccess());
+		    assertEquals("up on " + result.getDevice().getHostIpAddress(), result.getResponse());
+		}
+	    }
+	} finally {
+	    executor.shutdown();
+	}
+    }
+
+    @Test
+    public void shouldDeliverCompletedDevicesWhileOtherDeviceTimesOut() throws InterruptedException {
+	final CountDownLatch hangingDevice = new CountDownLatch(1);
+	FleetCommandExecutor executor = new FleetCommandExecutor((device, commandList) -> {
+	    if ("192.168.1.11".equals(device.getHostIpAddress())) {
+		try {
+		    hangingDevice.await();
+		} catch (InterruptedException e) {
+		    Thread.currentThread().interrupt();
+		}
+	    }
+	    return "done";
+	}, 4, 4, 24);
+	try {
+	    FleetExecution execution = executor.execute(createDevices("192.168.1.10", "192.168.1.11"), COMMANDS,
+		    null);
+
+	    assertFalse(execution.awaitCompletion(200, TimeUnit.MILLISECONDS));
+	    assertFalse(execution.isDone());
+	    DeviceExecutionResult completed = execution.poll(5, TimeUnit.SECONDS);
+	    assertEquals("192.168.1.10", completed.getDevice().getHostIpAddress());
+	    assertNull(execution.poll(100, TimeUnit.MILLISECONDS));
+
+	    hangingDevice.countDown();
+	    assertTrue(execution.awaitCompletion(5, TimeUnit.SECONDS));
+	    assertEquals(2, execution.getResults().size());
+	} finally {
+	    hangingDevice.countDown();
+	    executor.shutdown();
+	}
+    }
+
+    @Test
+    public void shouldLimitConcurrentDevicesPerSubnet() throws InterruptedException {
+	final AtomicInteger running = new AtomicInteger();
+	final AtomicInteger maxRunning = new AtomicInteger();
+	FleetCommandExecutor executor = new FleetCommandExecutor((device, commandList) -> {
+	    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+	    try {
+		Thread.sleep(20);
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+	    } finally {
+		running.decrementAndGet();
+	    }
+	    return "done";
+	}, 8, 2, 24);
+	try {
+	    FleetExecution execution = executor.execute(createDevices("10.0.0.1", "10.0.0.2", "10.0.0.3",
+		    "10.0.0.4", "10.0.0.5", "10.0.0.6"), COMMANDS, null);
+
+	    assertTrue(execution.awaitCompletion(5, TimeUnit.SECONDS));
+	    assertEquals(6, execution.getResults().size());
+	    assertTrue("At most 2 devices of the subnet should run at once", maxRunning.get() <= 2);
+	} finally {
+	    executor.shutdown();
+	}
+    }
+
+    private static List<Device> createDevices(String... addresses) {
+	List<Device> devices = new ArrayList<Device>();
+	for (String address : addresses) {
+	    Device device = new Device();
+	    device.setHostIp4Address(address);
+	    device.setHostMacAddress("mac-" + address);
+	    devices.add(device);
+	}
+	return devices;
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for HostCircuitBreaker state transitions.
+ */
+public class HostCircuitBreakerTest {
+
+    private static final String HOST = "192.168.1.10";
+    private static final int PORT = 22;
+
+    @Test
+    public void shouldFailFastAfterThresholdAndRecoverAfterProbe() throws InterruptedException {
+	AtomicBoolean isReachable = new AtomicBoolean(false);
+	HostCircuitBreaker breaker = new HostCircuitBreaker(true, 2, 10, (host, port) -> isReachable.get());
+
+	breaker.recordFailure(HOST, PORT);
+	assertTrue(breaker.allowRequest(HOST, PORT));
+	breaker.recordFailure(HOST, PORT);
+	assertTrue(breaker.isOpen(HOST, PORT));
+	assertFalse(breaker.allowRequest(HOST, PORT));
+
+	isReachable.set(true);
+	waitForState(breaker, HostCircuitBreaker.State.HALF_OPEN);
+	assertTrue(breaker.allowRequest(HOST, PORT));
+	assertFalse("Only one trial is allowed while half open", breaker.allowRequest(HOST, PORT));
+
+	breaker.recordSuccess(HOST, PORT);
+	assertEquals(HostCircuitBreaker.State.CLOSED, breaker.getState(HOST, PORT));
+	assertTrue(breaker.allowRequest(HOST, PORT));
+    }
+
+    @Test
+    public void shouldReopenWhenTrialFails() throws InterruptedException {
+	AtomicBoolean isReachable = new AtomicBoolean(true);
+	HostCircuitBreaker breaker = new HostCircuitBreaker(true, 1, 10, (host, port) -> isReachable.get());
+
+	breaker.recordFailure(HOST, PORT);
+	waitForState(breaker, HostCircuitBreaker.State.HALF_OPEN);
+	isReachable.set(false);
+	assertTrue(breaker.allowRequest(HOST, PORT));
+	breaker.recordFailure(HOST, PORT);
+	assertTrue(breaker.isOpen(HOST, PORT));
+    }
+
+    @Test
+    public void shouldAlwaysAllowWhenDisabled() {
+	HostCircuitBreaker breaker = new HostCircuitBreaker(false, 1, 10, (host, port) -> false);
+	breaker.recordFailure(HOST, PORT);
+	breaker.recordFailure(HOST, PORT);
+	assertTrue(breaker.allowRequest(HOST, PORT));
+    }
+
+    @Test
+    public void shouldForgetFailuresWhenDisabledByConfigurationChange() {
+	HostCircuitBreaker breaker = new HostCircuitBreaker(true, 1, 60000, (host, port) -> false);
+	breaker.recordFailure(HOST, PORT);
+	assertTrue(breaker.isOpen(HOST, PORT));
+
+	breaker.configure(false, 1, 60000);
+	assertTrue(breaker.allowRequest(HOST, PORT));
+	breaker.configure(true, 1, 60000);
+	assertEquals(HostCircuitBreaker.State.CLOSED, breaker.getState(HOST, PORT));
+	assertTrue(breaker.allowRequest(HOST, PORT));
+    }
+
+    private static void waitForState(HostCircuitBreaker breaker, HostCircuitBreaker.State expected)
+	    throws InterruptedException {
+	long deadline = System.currentTimeMillis() + 5000;
+	while (expected != breaker.getState(HOST, PORT) && System.currentTimeMillis() < deadline) {
+	    Thread.sleep(5);
+	}
+	assertEquals(expected, breaker.getState(HOST, PORT));
+    }
+}
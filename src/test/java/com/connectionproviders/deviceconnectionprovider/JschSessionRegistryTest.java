@@ -0,0 +1,161 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+/**
+ * Unit test for sharing, invalidation and idle eviction of JschSessionRegistry sessions.
+ */
+public class JschSessionRegistryTest {
+
+    private static final SshEndpoint ENDPOINT = new SshEndpoint("192.168.1.10", 22, "root");
+
+    @Test
+    public void shouldShareSessionUntilInvalidated() throws JSchException {
+	FakeConnector connector = new FakeConnector();
+	JschSessionRegistry registry = new JschSessionRegistry(0, connector);
+
+	Session session = registry.getSession(ENDPOINT, "password", null);
+	assertSame(session, registry.getSession(ENDPOINT, "password", null));
+	assertEquals(1, connector.created.size());
+
+	registry.invalidate(ENDPOINT);
+	assertFalse(connector.isConnected(session));
+	Session reconnected = registry.getSession(ENDPOINT, "password", null);
+	assertNotSame(session, reconnected);
+	assertTrue(connector.isConnected(reconnected));
+    }
+
+    @Test
+    public void shouldReconnectAfterIdleSessionIsClosed() throws Exception {
+	FakeConnector connector = new FakeConnector();
+	JschSessionRegistry registry = new JschSessionRegistry(100, connector);
+	Session session = registry.getSession(ENDPOINT, "password", null);
+
+	registry.closeIdleSessions();
+	assertTrue("Recently used session is kept", connector.isConnected(session));
+
+	Thread.sleep(150);
+	registry.closeIdleSessions();
+	assertFalse(connector.isConnected(session));
+	assertNotSame(session, registry.getSession(ENDPOINT, "password", null));
+    }
+
+    @Test
+    public void shouldNotConnectIntoInvalidatedEntry() throws Exception {
+	FakeConnector connector = new FakeConnector();
+	JschSessionRegistry registry = new JschSessionRegistry(0, connector);
+	CountDownLatch connectGate = new CountDownLatch(1);
+	connector.connectGate = connectGate;
+
+	Thread connecting = new Thread(() -> getSession(registry));
+	connecting.start();
+	assertTrue(connector.connectStarted.await(2, TimeUnit.SECONDS));
+	// Waits for the entry locked by the connecting thread
+	Thread waiting = new Thread(() -> getSession(registry));
+	waiting.start();
+	awaitBlocked(waiting);
+	// Removes the entry and waits for its lock as well
+	Thread invalidating = new Thread(() -> registry.invalidate(ENDPOINT));
+	invalidating.start();
+	awaitBlocked(invalidating);
+
+	connectGate.countDown();
+	connecting.join(2000);
+	waiting.join(2000);
+	invalidating.join(2000);
+
+	registry.close();
+	for (Session session : connector.created) {
+	    assertFalse("Session left connected outside of the registry", connector.isConnected(session));
+	}
+    }
+
+    private static void getSession(JschSessionRegistry registry) {
+	try {
+	    registry.getSession(ENDPOINT, "password", null);
+	} catch (JSchException e) {
+	    throw new IllegalStateException(e);
+	}
+    }
+
+    private static void awaitBlocked(Thread thread) throws InterruptedException {
+	long deadline = System.currentTimeMillis() + 2000;
+	while (Thread.State.BLOCKED != thread.getState() && System.currentTimeMillis() < deadline) {
+	    Thread.sleep(10);
+	}
+	assertEquals(Thread.State.BLOCKED, thread.getState());
+    }
+
+    /**
+     * Hands out unconnected JSch sessions and tracks which of them the registry considers connected
+     */
+    private static class FakeConnector implements JschSessionRegistry.SessionConnector {
+	private final JSch jsch = new JSch();
+	private final List<Session> created = new CopyOnWriteArrayList<Session>();
+	private final Set<Session> connected = ConcurrentHashMap.newKeySet();
+	private final CountDownLatch connectStarted = new CountDownLatch(1);
+	private volatile CountDownLatch connectGate;
+
+	@Override
+	public Session connect(SshEndpoint endpoint, String password, String privateKeyPath) throws JSchException {
+	    connectStarted.countDown();
+	    CountDownLatch gate = connectGate;
+	    connectGate = null;
+	    if (null != gate) {
+		try {
+		    gate.await(2, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+		    Thread.currentThread().interrupt();
+		}
+	    }
+	    Session session = jsch.getSession(endpoint.getUser(), endpoint.getHost(), endpoint.getPort());
+	    created.add(session);
+	    connected.add(session);
+	    return session;
+	}
+
+	@Override
+	public boolean isConnected(Session session) {
+	    return connected.contains(session);
+	}
+
+	@Override
+	public void disconnect(Session session) {
+	    connected.remove(session);
+	}
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for LocalShellPool framing, isolation and time out handling.
+ */
+public class LocalShellPoolTest {
+
+    @Test
+    public void shouldSeparateOutputErrorAndExitStatus() throws IOException {
+	LocalShellPool pool = new LocalShellPool(1);
+	try {
+	    CommandResult result = pool.execute("echo out; echo err >&2; exit 3", 10000);
+	    assertEquals("out\n", result.getStdout());
+	    assertEquals("err\n", result.getStderr());
+	    assertEquals(3, result.getExitStatus());
+	    assertFalse(result.isTimedOut());
+	} finally {
+	    pool.close();
+	}
+    }
+
+    @Test
+    public void shouldReuseShellWithoutLeakingState() throws IOException {
+	LocalShellPool pool = new LocalShellPool(1);
+	try {
+	    String initialDirectory = pool.execute("pwd", 10000).getStdout();
+	    pool.execute("cd /; export POOL_TEST_VARIABLE=leaked", 10000);
+	    assertEquals(initialDirectory, pool.execute("pwd", 10000).getStdout());
+	    assertEquals("\n", pool.execute("echo $POOL_TEST_VARIABLE", 10000).getStdout());
+	} finally {
+	    pool.close();
+	}
+    }
+
+    @Test
+    public void shouldReplaceShellAfterTimeout() throws IOException {
+	LocalShellPool pool = new LocalShellPool(1);
+	try {
+	    CommandResult result = pool.execute("sleep 5", 200);
+	    assertTrue(result.isTimedOut());
+	    assertEquals("ok\n", pool.execute("echo ok", 10000).getStdout());
+	} finally {
+	    pool.close();
+	}
+    }
+
+    @Test
+    public void shouldNotHandLateOutputToNextCommand() throws IOException, InterruptedException {
+	LocalShellPool pool = new LocalShellPool(1);
+	try {
+	    pool.execute("(sleep 0.2; echo late; echo late >&2) &", 10000);
+	    Thread.sleep(600);
+	    CommandResult result = pool.execute("echo ok", 10000);
+	    assertEquals("ok\n", result.getStdout());
+	    assertEquals("", result.getStderr());
+	} finally {
+	    pool.close();
+	}
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import com.automatics.exceptions.FailedTransitionException;
+import com.jcraft.jsch.Session;
+
+/**
+ * Unit test for ordering, channel limit and failure handling of ParallelCommandExecutor.
+ */
+public class ParallelCommandExecutorTest {
+
+    @Test
+    public void shouldReturnResponsesInCommandOrderWithinChannelLimit() {
+	CountingRunner runner = new CountingRunner();
+	ParallelCommandExecutor executor = new ParallelCommandExecutor(runner, 2);
+	List<String> commands = Arrays.asList("30", "0", "20", "10", "0");
+
+	assertEquals(Arrays.asList("done 30", "done 0", "done 20", "done 10", "done 0"),
+		executor.execute(null, commands, 1000));
+	assertEquals(commands.size(), runner.executedCount.get());
+	assertTrue("At most two channels may be open at the same time", runner.maxOpenChannels.get() <= 2);
+    }
+
+    @Test
+    public void shouldFailWhenAnyCommandFails() {
+	ParallelCommandExecutor executor = new ParallelCommandExecutor(new CountingRunner(), 3);
+	try {
+	    executor.execute(null, Arrays.asList("0", "fail", "0"), 1000);
+	    fail("Failure of one command must fail the execution");
+	} catch (FailedTransitionException e) {
+	    assertTrue(e.getCause() instanceof IOException);
+	}
+    }
+
+    /**
+     * Sleeps for the number of milli seconds given as command and counts the channels open at the same time
+     */
+    private static class CountingRunner extends ExecChannelRunner {
+	private final AtomicInteger openChannels = new AtomicInteger();
+	private final AtomicInteger maxOpenChannels = new AtomicInteger();
+	private final AtomicInteger executedCount = new AtomicInteger();
+
+	@Override
+	public String execute(Session session, String command, long timeOutMilliSecs) throws IOException {
+	    if ("fail".equals(command)) {
+		throw new IOException("channel closed");
+	    }
+	    int open = openChannels.incrementAndGet();
+	    maxOpenChannels.accumulateAndGet(open, Math::max);
+	    try {
+		Thread.sleep(Long.parseLong(command));
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+	    } finally {
+		openChannels.decrementAndGet();
+	    }
+	    executedCount.incrementAndGet();
+	    return "done " + command;
+	}
+    }
+}
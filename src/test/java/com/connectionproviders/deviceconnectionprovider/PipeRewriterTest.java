@@ -0,0 +1,68 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for PipeRewriter lexing and rewriting of pipelines.
+ */
+public class PipeRewriterTest {
+
+    @Test
+    public void shouldRewritePipelinesIntoProcessSubstitutions() {
+	PipeRewriter rewriter = new PipeRewriter(16);
+	assertEquals("grep eth0 < <(ifconfig)", rewriter.rewrite("ifconfig | grep eth0"));
+	assertEquals("wc -l < <((grep eth0) < <(ifconfig))", rewriter.rewrite("ifconfig | grep eth0 | wc -l"));
+	assertEquals("grep x < <(ps) && wc -l < <(cat f)", rewriter.rewrite("ps | grep x && cat f | wc -l"));
+	assertEquals("grep x < <(logread) &", rewriter.rewrite("logread | grep x &"));
+	assertEquals("grep err < <(dmesg 2>&1)", rewriter.rewrite("dmesg 2>&1 | grep err"));
+	assertEquals("grep x < <(ps) # a | b", rewriter.rewrite("ps | grep x # a | b"));
+    }
+
+    @Test
+    public void shouldKeepPipesThatAreNotPipelineSeparators() {
+	PipeRewriter rewriter = new PipeRewriter(16);
+	assertEquals("ls || echo none", rewriter.rewrite("ls || echo none"));
+	assertEquals("echo 'a|b' \"c|d\" e\\|f", rewriter.rewrite("echo 'a|b' \"c|d\" e\\|f"));
+	assertEquals("wc -l < <(echo $(ps | grep x))", rewriter.rewrite("echo $(ps | grep x) | wc -l"));
+	assertEquals("ps |& grep x", rewriter.rewrite("ps |& grep x"));
+	assertEquals("cat <<EOF | grep x", rewriter.rewrite("cat <<EOF | grep x"));
+	assertEquals("echo 'a | b", rewriter.rewrite("echo 'a | b"));
+	assertEquals("ps | | grep x", rewriter.rewrite("ps | | grep x"));
+    }
+
+    @Test
+    public void shouldReuseCompiledCommands() {
+	PipeRewriter rewriter = new PipeRewriter(2);
+	PipeRewriter.CompiledCommand compiled = rewriter.compile("ps | grep x");
+	assertEquals(1, compiled.getRewrittenPipelineCount());
+	assertSame(compiled, rewriter.compile("ps | grep x"));
+	rewriter.compile("ps | grep y");
+	rewriter.compile("ps | grep z");
+	assertEquals(2, rewriter.getCachedCount());
+	assertEquals("uptime", rewriter.rewrite("uptime"));
+
+	PipeRewriter uncachedRewriter = new PipeRewriter(0);
+	assertEquals("sort < <(ls)", uncachedRewriter.rewrite("ls | sort"));
+	assertEquals(0, uncachedRewriter.getCachedCount());
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for the command decoration and response reading of ResponseCompletionDetector.
+ */
+public class ResponseCompletionDetectorTest {
+
+    private final ResponseCompletionDetector sentinelDetector = new ResponseCompletionDetector(
+	    ResponseCompletionDetector.Mode.SENTINEL, 10, "[#$>]\\s*$");
+
+    @Test
+    public void shouldAppendMarkerEchoThatDoesNotContainMarker() {
+	String marker = sentinelDetector.newMarker();
+	String command = sentinelDetector.decorate("uname -a", marker);
+	assertTrue(command.startsWith("uname -a; echo "));
+	assertFalse("Echo of the typed command must not match the marker", command.contains(marker));
+    }
+
+    @Test
+    public void shouldKeepTrailingNewLineAndBackgroundOperator() {
+	String marker = sentinelDetector.newMarker();
+	String command = sentinelDetector.decorate("sleep 10 &\n", marker);
+	assertTrue(command.startsWith("sleep 10 & echo "));
+	assertTrue(command.endsWith("\n"));
+    }
+
+    @Test
+    public void shouldLeaveCommandUnchangedInTimeoutMode() {
+	ResponseCompletionDetector detector = new ResponseCompletionDetector(ResponseCompletionDetector.Mode.TIMEOUT,
+		10, "[#$>]\\s*$");
+	String marker = detector.newMarker();
+	assertNull(marker);
+	assertEquals("uname -a", detector.decorate("uname -a", marker));
+    }
+
+    @Test
+    public void shouldCompleteWhenMarkerIsSplitAcrossChunks() throws Exception {
+	String marker = sentinelDetector.newMarker();
+	String sentCommand = sentinelDetector.decorate("uname -a", marker);
+	int splitIndex = marker.length() / 2;
+	ResponseReader reader = chunks(sentCommand + "\nLinux box\n" + marker.substring(0, splitIndex),
+		marker.substring(splitIndex) + "\n# ");
+
+	long startTime = System.currentTimeMillis();
+	String response = sentinelDetector.readResponse(reader, "uname -a", marker, 5000);
+
+	assertTrue("Response should return once the marker arrived", System.currentTimeMillis() - startTime < 1000);
+	assertEquals("uname -a\nLinux box\n", response);
+    }
+
+    @Test
+    public void shouldStripMarkerEchoFromEchoedCommandLine() throws Exception {
+	String marker = sentinelDetector.newMarker();
+	String sentCommand = sentinelDetector.decorate("ls /tmp\n", marker);
+	ResponseReader reader = chunks(sentCommand, "a.txt\n", marker + "\n# ");
+
+	String response = sentinelDetector.readResponse(reader, "ls /tmp\n", marker, 5000);
+
+	assertEquals("ls /tmp\na.txt\n", response);
+	assertFalse(response.contains("echo"));
+    }
+
+    @Test
+    public void shouldPlaceMarkerEchoBeforeTrailingComment() throws Exception {
+	String marker = sentinelDetector.newMarker();
+	String sentCommand = sentinelDetector.decorate("ls /tmp  # list 'files'\n", marker);
+	assertTrue(sentCommand.startsWith("ls /tmp; echo "));
+	assertTrue(sentCommand.endsWith("  # list 'files'\n"));
+	assertTrue("Hash inside quotes is no comment",
+		sentinelDetector.decorate("echo '# a'", marker).startsWith("echo '# a'; echo "));
+
+	ResponseReader reader = chunks(sentCommand, "a.txt\n", marker + "\n# ");
+	long startTime = System.currentTimeMillis();
+	String response = sentinelDetector.readResponse(reader, "ls /tmp  # list 'files'\n", marker, 5000);
+
+	assertTrue("Response must complete at the marker", System.currentTimeMillis() - startTime < 5000);
+	assertEquals("ls /tmp  # list 'files'\na.txt\n", response);
+    }
+
+    @Test
+    public void shouldReturnPartialOutputWhenMarkerDoesNotArrive() throws Exception {
+	String marker = sentinelDetector.newMarker();
+	String sentCommand = sentinelDetector.decorate("tail -f /var/log/messages", marker);
+	ResponseReader reader = chunks(sentCommand + "\n", "line 1\n", "line 2\n");
+
+	long startTime = System.currentTimeMillis();
+	String response = sentinelDetector.readResponse(reader, "tail -f /var/log/messages", marker, 300);
+
+	assertTrue("Response should wait for the full time out", System.currentTimeMillis() - startTime >= 300);
+	assertEquals("tail -f /var/log/messages\nline 1\nline 2\n", response);
+    }
+
+    @Test
+    public void shouldCompleteAtPromptInPromptMode() throws Exception {
+	ResponseCompletionDetector detector = new ResponseCompletionDetector(ResponseCompletionDetector.Mode.PROMPT,
+		10, "[#$>]\\s*$");
+	ResponseReader reader = chunks("uptime\n", " 10:00 up 2 days\n", "root@box:~# ");
+
+	long startTime = System.currentTimeMillis();
+	String response = detector.readResponse(reader, "uptime", detector.newMarker(), 5000);
+
+	assertTrue("Response should return at the prompt", System.currentTimeMillis() - startTime < 1000);
+	assertEquals("uptime\n 10:00 up 2 days\nroot@box:~# ", response);
+    }
+
+    /**
+     * @return reader handing out the chunks one per read, and no output once they are used up
+     */
+    private static ResponseReader chunks(String... chunks) {
+	final Deque<String> pending = new ArrayDeque<String>(Arrays.asList(chunks));
+	return timeOutMilliSecs -> {
+	    String chunk = pending.poll();
+	    if (null == chunk) {
+		Thread.sleep(timeOutMilliSecs);
+		return "";
+	    }
+	    return chunk;
+	};
+    }
+}
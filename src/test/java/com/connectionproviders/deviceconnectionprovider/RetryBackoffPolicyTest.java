@@ -0,0 +1,55 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for RetryBackoffPolicy delays.
+ */
+public class RetryBackoffPolicyTest {
+
+    @Test
+    public void shouldGrowExponentiallyUpToMaximum() {
+	RetryBackoffPolicy policy = new RetryBackoffPolicy(100, 1000, 2.0, 0);
+	assertEquals(100, policy.getDelayMillis(1));
+	assertEquals(200, policy.getDelayMillis(2));
+	assertEquals(400, policy.getDelayMillis(3));
+	assertEquals(1000, policy.getDelayMillis(10));
+    }
+
+    @Test
+    public void shouldKeepJitteredDelayWithinBounds() {
+	RetryBackoffPolicy policy = new RetryBackoffPolicy(1000, 10000, 2.0, 0.5);
+	for (int attempt = 0; attempt < 100; attempt++) {
+	    long delay = policy.getDelayMillis(2);
+	    assertTrue("Delay out of range: " + delay, delay > 1000 && delay <= 2000);
+	}
+    }
+
+    @Test
+    public void shouldUseReplacedSettings() {
+	RetryBackoffPolicy policy = new RetryBackoffPolicy(100, 1000, 2.0, 0);
+	policy.configure(50, 100, 3.0, 0);
+	assertEquals(50, policy.getDelayMillis(1));
+	assertEquals(100, policy.getDelayMillis(2));
+    }
+}
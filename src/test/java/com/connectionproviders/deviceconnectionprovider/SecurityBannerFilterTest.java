@@ -0,0 +1,151 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.testng.annotations.Test;
+
+import com.automatics.zte.constants.Constants;
+
+/**
+ * Unit test for SecurityBannerFilter marker configuration, incremental banner matching and banner consumption.
+ */
+public class SecurityBannerFilterTest {
+
+    @Test
+    public void shouldFindMarkerSplitAcrossChunks() {
+	BannerMatcher matcher = new BannerMatcher(Arrays.asList("law enforcement.", "Authorized use only"));
+	assertEquals(-1, matcher.feed("Activity may be reported to law enf"));
+	assertEquals(9, matcher.feed("orcement.\r\nroot@gw:~# "));
+	assertEquals("Found marker is not searched again", -1, matcher.feed("law enforcement."));
+
+	BannerMatcher overlappingMatcher = new BannerMatcher(Collections.singletonList("aab"));
+	assertEquals(-1, overlappingMatcher.feed("xaa"));
+	assertEquals(2, overlappingMatcher.feed("ab"));
+    }
+
+    @Test
+    public void shouldReadMarkersPerModel() {
+	Map<String, String> properties = new HashMap<String, String>();
+	properties.put(Constants.PROPS_SSH_BANNER_END_MARKERS, "end of banner");
+	properties.put(Constants.PROPS_SSH_BANNER_END_MARKERS + ".MODEL-A", "first | second ");
+	SecurityBannerFilter filter = new SecurityBannerFilter(properties::get, 0);
+	assertEquals(Arrays.asList("first", "second"), filter.getMarkers("MODEL-A"));
+	assertEquals(Arrays.asList("end of banner"), filter.getMarkers("MODEL-B"));
+	assertEquals(Arrays.asList("end of banner"), filter.getMarkers(null));
+
+	SecurityBannerFilter defaultFilter = new SecurityBannerFilter(name -> null, 0);
+	assertEquals(Arrays.asList(Constants.END_OF_SSH_CONNECTION_PRIVACY_MESSAGE), defaultFilter.getMarkers(null));
+    }
+
+    @Test
+    public void shouldNotStripResponseWhenBannerIsConsumed() {
+	SecurityBannerFilter filter = new SecurityBannerFilter(markerProperties(), 5000);
+	Object connection = new Object();
+	long start = System.currentTimeMillis();
+	filter.consumeBanner(connection, chunks("Authorized use only. End of ", "banner\r\nroot@gw:~# "), null);
+	assertTrue("Reading stops at the marker", System.currentTimeMillis() - start < 1000);
+	assertEquals("End of banner\r\nok", filter.strip(connection, "End of banner\r\nok"));
+    }
+
+    @Test
+    public void shouldStripRestOfBannerFromFirstResponseWhenOutputGoesQuiet() {
+	SecurityBannerFilter filter = new SecurityBannerFilter(markerProperties(), 5000);
+	Object connection = new Object();
+	long start = System.currentTimeMillis();
+	filter.consumeBanner(connection, chunks("Authorized use only. End of ", ""), null);
+	assertTrue("Reading stops when the output goes quiet", System.currentTimeMillis() - start < 1000);
+	assertEquals("\r\nok", filter.strip(connection, "banner\r\nok"));
+	assertEquals("Only the first response is searched", "End of banner\r\nok",
+		filter.strip(connection, "End of banner\r\nok"));
+	assertEquals("Response of another connection is not stripped", "End of banner\r\nok",
+		filter.strip(new Object(), "End of banner\r\nok"));
+    }
+
+    @Test
+    public void shouldStopReadingBannerAfterWaitTime() {
+	SecurityBannerFilter filter = new SecurityBannerFilter(markerProperties(),
+		SecurityBannerFilter.DEFAULT_BANNER_WAIT_MILLISECS);
+	Object connection = new Object();
+	long start = System.currentTimeMillis();
+	filter.consumeBanner(connection, timeOutMilliSecs -> {
+	    Thread.sleep(Math.min(10, timeOutMilliSecs));
+	    return "Authorized use only. ";
+	}, null);
+	long elapsed = System.currentTimeMillis() - start;
+	assertTrue("Waited " + elapsed + " ms", elapsed >= SecurityBannerFilter.DEFAULT_BANNER_WAIT_MILLISECS);
+	assertTrue("Waited " + elapsed + " ms", elapsed < SecurityBannerFilter.DEFAULT_BANNER_WAIT_MILLISECS + 1000);
+	assertEquals("\r\nok", filter.strip(connection, "End of banner\r\nok"));
+	assertEquals("End of banner\r\nok", filter.strip(connection, "End of banner\r\nok"));
+    }
+
+    @Test
+    public void shouldStopReadingAtPromptWithoutBanner() {
+	SecurityBannerFilter filter = new SecurityBannerFilter(markerProperties(), 5000);
+	Object connection = new Object();
+	AtomicInteger readCount = new AtomicInteger();
+	long start = System.currentTimeMillis();
+	filter.consumeBanner(connection, timeOutMilliSecs -> {
+	    if (1 == readCount.incrementAndGet()) {
+		return "Last login: Mon Oct 12 10:00:00 2026\r\nroot@gw:";
+	    }
+	    Thread.sleep(Math.min(10, timeOutMilliSecs));
+	    return 2 == readCount.get() ? "~# " : "output of a background job";
+	}, null);
+	assertTrue("Reading stops at the prompt", System.currentTimeMillis() - start < 1000);
+	assertEquals(2, readCount.get());
+	assertEquals("ok", filter.strip(connection, "ok"));
+    }
+
+    @Test
+    public void shouldStopReadingWhenNoOutputArrives() {
+	SecurityBannerFilter filter = new SecurityBannerFilter(markerProperties(), 5000);
+	Object connection = new Object();
+	long start = System.currentTimeMillis();
+	filter.consumeBanner(connection, timeOutMilliSecs -> {
+	    Thread.sleep(timeOutMilliSecs);
+	    return "";
+	}, null);
+	long elapsed = System.currentTimeMillis() - start;
+	assertTrue("Waited " + elapsed + " ms", elapsed < 2000);
+	assertEquals("Banner arriving late is stripped from the first response", "\r\nok",
+		filter.strip(connection, "End of banner\r\nok"));
+    }
+
+    private static Function<String, String> markerProperties() {
+	Map<String, String> properties = new HashMap<String, String>();
+	properties.put(Constants.PROPS_SSH_BANNER_END_MARKERS, "End of banner");
+	return properties::get;
+    }
+
+    private static ResponseReader chunks(String... chunks) {
+	Deque<String> remaining = new ArrayDeque<String>(Arrays.asList(chunks));
+	return timeOutMilliSecs -> remaining.isEmpty() ? "" : remaining.poll();
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.connectionproviders.deviceconnectionprovider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.Test;
+
+import com.automatics.exceptions.FailedTransitionException;
+
+/**
+ * Unit test for SshSessionPool limits, reuse checks, invalidation and idle eviction.
+ */
+public class SshSessionPoolTest {
+
+    private static final SshEndpoint ENDPOINT = new SshEndpoint("192.168.1.10", 22, "root");
+
+    @Test
+    public void shouldReuseReleasedSessionWithinPerHostLimit() {
+	FakeSessionHandler handler = new FakeSessionHandler();
+	SshSessionPool<FakeSession> pool = new SshSessionPool<FakeSession>(handler, true, 2, 0, 1000, 200);
+	AtomicInteger createdCount = new AtomicInteger();
+	SshSessionPool.SessionFactory<FakeSession> factory = () -> new FakeSession(createdCount.incrementAndGet());
+
+	FakeSession first = pool.borrow(ENDPOINT, factory);
+	FakeSession second = pool.borrow(ENDPOINT, factory);
+	assertNotSame(first, second);
+	assertEquals(2, pool.getSessionCount(ENDPOINT));
+
+	long startTime = System.currentTimeMillis();
+	try {
+	    pool.borrow(ENDPOINT, factory);
+	    fail("Borrowing above the per host limit must time out");
+	} catch (FailedTransitionException e) {
+	    assertTrue(System.currentTimeMillis() - startTime >= 200);
+	}
+
+	pool.release(ENDPOINT, first);
+	assertSame(first, pool.borrow(ENDPOINT, factory));
+	assertEquals(2, createdCount.get());
+	assertEquals("Reused session must be checked before it is handed out", 1, handler.checkCount.get());
+    }
+
+    @Test
+    public void shouldHandOutSessionReleasedWhileWaiting() throws InterruptedException {
+	SshSessionPool<FakeSession> pool = new SshSessionPool<FakeSession>(new FakeSessionHandler(), true, 1, 0, 1000,
+		5000);
+	FakeSession session = pool.borrow(ENDPOINT, () -> new FakeSession(1));
+	AtomicReference<FakeSession> borrowed = new AtomicReference<FakeSession>();
+	Thread waiting = new Thread(() -> borrowed.set(pool.borrow(ENDPOINT, () -> new FakeSession(2))));
+	waiting.start();
+
+	Thread.sleep(100);
+	assertTrue("Borrow should wait while the limit is reached", waiting.isAlive());
+	pool.release(ENDPOINT, session);
+	waiting.join(2000);
+	assertSame(session, borrowed.get());
+    }
+
+    @Test
+    public void shouldCloseInvalidatedAndStaleSessions() {
+	SshSessionPool<FakeSession> pool = new SshSessionPool<FakeSession>(new FakeSessionHandler(), true, 1, 0, 1000,
+		200);
+	AtomicInteger createdCount = new AtomicInteger();
+	SshSessionPool.SessionFactory<FakeSession> factory = () -> new FakeSession(createdCount.incrementAndGet());
+
+	FakeSession invalidated = pool.borrow(ENDPOINT, factory);
+	pool.invalidate(ENDPOINT, invalidated);
+	assertTrue(invalidated.isClosed);
+	assertEquals(0, pool.getSessionCount(ENDPOINT));
+
+	FakeSession stale = pool.borrow(ENDPOINT, factory);
+	assertNotSame(invalidated, stale);
+	pool.release(ENDPOINT, stale);
+	stale.isAlive = false;
+	FakeSession fresh = pool.borrow(ENDPOINT, factory);
+	assertNotSame("Session failing its check must not be handed out", stale, fresh);
+	assertTrue(stale.isClosed);
+	assertEquals(1, pool.getSessionCount(ENDPOINT));
+    }
+
+    @Test
+    public void shouldCloseIdleSessions() throws InterruptedException {
+	SshSessionPool<FakeSession> pool = new SshSessionPool<FakeSession>(new FakeSessionHandler(), true, 2, 100, 1000,
+		200);
+	FakeSession idle = pool.borrow(ENDPOINT, () -> new FakeSession(1));
+	FakeSession inUse = pool.borrow(ENDPOINT, () -> new FakeSession(2));
+	pool.release(ENDPOINT, idle);
+
+	pool.evictIdleSessions();
+	assertFalse("Recently used session is kept", idle.isClosed);
+
+	Thread.sleep(150);
+	pool.evictIdleSessions();
+	assertTrue(idle.isClosed);
+	assertFalse("Session in use is never evicted", inUse.isClosed);
+	assertEquals(1, pool.getSessionCount(ENDPOINT));
+    }
+
+    @Test
+    public void shouldDropOutputBeforeLivenessMarker() throws Exception {
+	String marker = "__POOL_READY_7__";
+	assertTrue(SshSessionPool.ShellSessionHandler.awaitMarker(
+		chunks("late output of previous command\n", "echo __POOL_READY_\"\"7__\r\n__POOL_", "READY_7__\r\n# "),
+		marker, 1000));
+
+	long startTime = System.currentTimeMillis();
+	assertFalse("Echo of the typed command does not count as reply",
+		SshSessionPool.ShellSessionHandler.awaitMarker(chunks("echo __POOL_READY_\"\"7__\r\n"), marker, 300));
+	assertTrue(System.currentTimeMillis() - startTime >= 300);
+    }
+
+    private static ResponseReader chunks(String... chunks) {
+	Deque<String> remaining = new ArrayDeque<String>(Arrays.asList(chunks));
+	return timeOutMilliSecs -> remaining.isEmpty() ? "" : remaining.poll();
+    }
+
+    private static class FakeSession {
+	private final int id;
+	private volatile boolean isAlive = true;
+	private volatile boolean isClosed;
+
+	private FakeSession(int id) {
+	    this.id = id;
+	}
+
+	@Override
+	public String toString() {
+	    return "session " + id;
+	}
+    }
+
+    private static class FakeSessionHandler implements SshSessionPool.SessionHandler<FakeSession> {
+	private final AtomicInteger checkCount = new AtomicInteger();
+
+	@Override
+	public boolean prepareForReuse(FakeSession session, long timeoutMillis) {
+	    checkCount.incrementAndGet();
+	    return session.isAlive;
+	}
+
+	@Override
+	public void close(FakeSession session) {
+	    session.isClosed = true;
+	}
+    }
+}
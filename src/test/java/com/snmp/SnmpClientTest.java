@@ -0,0 +1,218 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.testng.annotations.Test;
+
+import com.automatics.snmp.Snmpv3SecurityLevel;
+
+/**
+ * Unit test for SnmpClient against an in-process agent.
+ */
+public class SnmpClientTest {
+
+    private static final String SYS_DESCR = "1.3.6.1.2.1.1.1.0";
+    private static final String SYS_UPTIME = "1.3.6.1.2.1.1.3.0";
+    private static final String SYS_NAME = "1.3.6.1.2.1.1.5.0";
+
+    private static TestSnmpAgent createAgent(SnmpTarget usmUser) throws Exception {
+	TestSnmpAgent agent = new TestSnmpAgent("private", usmUser);
+	agent.put(SnmpVarbind.ofString(SYS_DESCR, "RPi gateway"));
+	agent.put(new SnmpVarbind(SYS_UPTIME, SnmpValueType.TIMETICKS, 12345L));
+	agent.put(SnmpVarbind.ofString(SYS_NAME, "rpi"));
+	return agent;
+    }
+
+    @Test
+    public void shouldGetAndWalkWithCommunity() throws Exception {
+	SnmpClient client = new SnmpClient();
+	try (TestSnmpAgent agent = createAgent(null)) {
+	    SnmpTarget target = SnmpTarget.community(agent.getAddress(), "private");
+
+	    List<SnmpVarbind> varbinds = client.get(target, SYS_DESCR, "1.3.6.1.2.1.1.99.0");
+	    assertEquals("RPi gateway", varbinds.get(0).getStringValue());
+	    assertEquals(SnmpValueType.NO_SUCH_OBJECT, varbinds.get(1).getType());
+
+	    assertEquals(3, client.walk(target, "1.3.6.1.2.1.1", true).size());
+	    assertEquals(3, client.walk(target, "1.3.6.1.2.1.1", false).size());
+
+	    client.set(target, SnmpVarbind.ofString(SYS_NAME, "renamed"));
+	    assertEquals("renamed", client.get(target, SYS_NAME).get(0).getStringValue());
+	} finally {
+	    client.close();
+	}
+    }
+
+    @Test
+    public void shouldAuthenticateAndEncryptWithUsm() throws Exception {
+	SnmpClient client = new SnmpClient();
+	for (SnmpPrivProtocol privProtocol : SnmpPrivProtocol.values()) {
+	    SnmpTarget user = SnmpTarget.usm(new InetSocketAddress(0), "linuser", Snmpv3SecurityLevel.authPriv,
+		    SnmpAuthProtocol.SHA, "linuserpass", privProtocol, "linprivpass");
+	    try (TestSnmpAgent agent = createAgent(user)) {
+		SnmpTarget target = SnmpTarget.usm(agent.getAddress(), "linuser", Snmpv3SecurityLevel.authPriv,
+			SnmpAuthProtocol.SHA, "linuserpass", privProtocol, "linprivpass");
+		SnmpVarbind uptime = client.get(target, SYS_UPTIME).get(0);
+		assertEquals(12345L, uptime.getLongValue());
+		assertEquals("Timeticks: (12345) 0:02:03.45", uptime.formatValue());
+	    }
+	}
+	client.close();
+    }
+
+    @Test
+    public void shouldReuseDiscoveredEngineUntilAgentReboots() throws Exception {
+	SnmpClient client = new SnmpClient();
+	SnmpTarget user = SnmpTarget.usm(new InetSocketAddress(0), "linuser", Snmpv3SecurityLevel.authPriv,
+		SnmpAuthProtocol.MD5, "linuserpass", SnmpPrivProtocol.AES, "linprivpass");
+	try (TestSnmpAgent agent = createAgent(user)) {
+	    SnmpTarget target = SnmpTarget.usm(agent.getAddress(), "linuser", Snmpv3SecurityLevel.authPriv,
+		    SnmpAuthProtocol.MD5, "linuserpass", SnmpPrivProtocol.AES, "linprivpass");
+	    for (int attempt = 0; attempt < 3; attempt++) {
+		assertEquals("rpi", client.get(target, SYS_NAME).get(0).getStringValue());
+	    }
+	    // one discovery, then one request per get
+	    assertEquals(4, agent.getRequestCount());
+
+	    agent.setEngineBoots(2);
+	    assertEquals("rpi", client.get(target, SYS_NAME).get(0).getStringValue());
+	    // rejected as outside the time window, resent with the engine clock from the report
+	    assertEquals(6, agent.getRequestCount());
+	    assertEquals("rpi", client.get(target, SYS_NAME).get(0).getStringValue());
+	    assertEquals(7, agent.getRequestCount());
+	} finally {
+	    client.close();
+	}
+    }
+
+    @Test
+    public void shouldWalkTableColumnsTogether() throws Exception {
+	SnmpClient client = new SnmpClient();
+	try (TestSnmpAgent agent = createAgent(null)) {
+	    for (int row = 1; row <= 10; row++) {
+		agent.put(SnmpVarbind.ofInteger("1.3.6.1.2.1.2.2.1.1." + row, row));
+		agent.put(SnmpVarbind.ofString("1.3.6.1.2.1.2.2.1.2." + row, "eth" + row));
+		agent.put(SnmpVarbind.ofInteger("1.3.6.1.2.1.2.2.1.8." + row, 1));
+	    }
+	    SnmpTarget target = SnmpTarget.community(agent.getAddress(), "private");
+	    Map<String, List<SnmpVarbind>> columns = client.walkColumns(target, ".1.3.6.1.2.1.2.2.1.1",
+		    "1.3.6.1.2.1.2.2.1.2", "1.3.6.1.2.1.2.2.1.8");
+
+	    assertEquals(1, agent.getRequestCount());
+	    assertEquals(3, columns.size());
+	    assertEquals(10, columns.get("1.3.6.1.2.1.2.2.1.1").size());
+	    assertEquals("eth10", columns.get("1.3.6.1.2.1.2.2.1.2").get(9).getStringValue());
+	    assertEquals(10, columns.get("1.3.6.1.2.1.2.2.1.8").size());
+	} finally {
+	    client.close();
+	}
+    }
+
+    @Test
+    public void shouldTimeOutWhenAgentDoesNotRespond() throws Exception {
+	SnmpClient client = new SnmpClient();
+	try (TestSnmpAgent agent = createAgent(null)) {
+	    SnmpTarget target = SnmpTarget.community(agent.getAddress(), "wrong").withTimeout(100, 1);
+	    try {
+		client.get(target, SYS_DESCR);
+		assertTrue("Expected timeout", false);
+	    } catch (SnmpException e) {
+		assertTrue(e.isTimeout());
+		assertEquals(2, agent.getRequestCount());
+	    }
+	} finally {
+	    client.close();
+	}
+    }
+
+    @Test
+    public void shouldIgnoreMessagesNotAnsweringRequest() throws Exception {
+	SnmpClient client = new SnmpClient();
+	InetAddress loopback = InetAddress.getLoopbackAddress();
+	try (DatagramSocket agentSocket = new DatagramSocket(new InetSocketAddress(loopback, 0));
+		DatagramSocket otherSocket = new DatagramSocket(new InetSocketAddress(loopback, 0))) {
+	    agentSocket.setSoTimeout(5000);
+	    SnmpTarget target = SnmpTarget.community(new InetSocketAddress(loopback, agentSocket.getLocalPort()),
+		    "private").withTimeout(5000, 0);
+	    CompletableFuture<SnmpPdu> future = client.sendAsync(target,
+		    SnmpPdu.request(SnmpPdu.GET, Collections.singletonList(SnmpVarbind.forRequest(SYS_NAME))));
+
+	    DatagramPacket packet = new DatagramPacket(new byte[SnmpMessage.MAX_MESSAGE_SIZE],
+		    SnmpMessage.MAX_MESSAGE_SIZE);
+	    agentSocket.receive(packet);
+	    int requestId = SnmpMessage.decode(Arrays.copyOf(packet.getData(), packet.getLength())).getPdu()
+		    .getRequestId();
+	    reply(otherSocket, packet.getSocketAddress(), SnmpPdu.RESPONSE, requestId, "spoofed");
+	    reply(agentSocket, packet.getSocketAddress(), SnmpPdu.SET, requestId, "request");
+	    Thread.sleep(200);
+	    assertFalse("Messages from another address or of another type must be ignored", future.isDone());
+
+	    reply(agentSocket, packet.getSocketAddress(), SnmpPdu.RESPONSE, requestId, "rpi");
+	    assertEquals("rpi", SnmpClient.await(future).getVarbinds().get(0).getStringValue());
+	} finally {
+	    client.close();
+	}
+    }
+
+    @Test
+    public void shouldExecuteNetSnmpCommandLines() throws Exception {
+	SnmpClient client = new SnmpClient();
+	try (TestSnmpAgent agent = createAgent(null)) {
+	    NetSnmpCommandExecutor executor = new NetSnmpCommandExecutor(client, true);
+	    String agentAddress = "udp:127.0.0.1:" + agent.getAddress().getPort();
+	    assertEquals(".1.3.6.1.2.1.1.1.0 = STRING: \"RPi gateway\"",
+		    executor.execute("snmpget -v2c -c private -On " + agentAddress + " .1.3.6.1.2.1.1.1.0"));
+	    assertEquals("12345", executor.execute("snmpget -v2c -c private -Oqvt " + agentAddress + " " + SYS_UPTIME));
+	    assertEquals(null, executor.execute("snmpget -v2c -c private -On " + agentAddress + " sysDescr.0"));
+	    assertEquals(null,
+		    executor.execute("snmpget -v2c -c private -On " + agentAddress + " " + SYS_DESCR + " | cut"));
+	    assertEquals("Output with MIB names has to be left to net-snmp", null,
+		    executor.execute("snmpget -v2c -c private " + agentAddress + " " + SYS_DESCR));
+	    assertEquals(null, executor.execute("snmpget -v2c -c private -Onf " + agentAddress + " " + SYS_DESCR));
+
+	    NetSnmpCommandExecutor remoteExecutor = new NetSnmpCommandExecutor(client);
+	    assertEquals("Loopback agent of the remote host has to be left to net-snmp", null,
+		    remoteExecutor.execute("snmpget -v2c -c private -On " + agentAddress + " " + SYS_DESCR));
+	    assertEquals(null, remoteExecutor.execute("snmpget -v2c -c private -Ov localhost " + SYS_DESCR));
+	} finally {
+	    client.close();
+	}
+    }
+
+    private static void reply(DatagramSocket socket, SocketAddress client, int pduType, int requestId, String value)
+	    throws Exception {
+	byte[] message = SnmpMessage.encodeCommunity("private", new SnmpPdu(pduType, requestId, 0, 0,
+		Collections.singletonList(SnmpVarbind.ofString(SYS_NAME, value))));
+	socket.send(new DatagramPacket(message, message.length, client));
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for BER encoding and the USM key localization test vectors of RFC 3414 appendix A.3.
+ */
+public class SnmpMessageTest {
+
+    private static final byte[] RFC3414_ENGINE_ID = { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2 };
+
+    private static byte[] hex(String value) {
+	String[] parts = value.split(" ");
+	byte[] bytes = new byte[parts.length];
+	for (int index = 0; index < parts.length; index++) {
+	    bytes[index] = (byte) Integer.parseInt(parts[index], 16);
+	}
+	return bytes;
+    }
+
+    @Test
+    public void shouldLocalizeKeysAsInRfc3414() {
+	assertArrayEquals(hex("52 6f 5e ed 9f cc e2 6f 89 64 c2 93 07 87 d8 2b"),
+		UsmSecurity.localizeKey(SnmpAuthProtocol.MD5, "maplesyrup", RFC3414_ENGINE_ID));
+	assertArrayEquals(hex("66 95 fe bc 92 88 e3 62 82 23 5f c7 15 1f 12 84 97 b3 8f 3f"),
+		UsmSecurity.localizeKey(SnmpAuthProtocol.SHA, "maplesyrup", RFC3414_ENGINE_ID));
+    }
+
+    @Test
+    public void shouldRoundTripCommunityMessage() {
+	SnmpPdu pdu = new SnmpPdu(SnmpPdu.RESPONSE, 42, 0, 0,
+		Arrays.asList(SnmpVarbind.ofInteger("1.3.6.1.2.1.2.1.0", -129),
+			new SnmpVarbind("1.3.6.1.2.1.31.1.1.1.6.1", SnmpValueType.COUNTER64, -1L),
+			new SnmpVarbind("1.3.6.1.2.1.4.20.1.1.10.0.0.1", SnmpValueType.IP_ADDRESS, "10.0.0.1"),
+			new SnmpVarbind("1.3.6.1.2.1.1.2.0", SnmpValueType.OBJECT_IDENTIFIER,
+				"1.3.6.1.4.1.4491.2.4.1")));
+	SnmpMessage message = SnmpMessage.decode(SnmpMessage.encodeCommunity("public", pdu));
+	assertEquals("public", message.getCommunity());
+	assertEquals(42, message.getCorrelationId());
+	assertEquals(pdu.getVarbinds(), message.getPdu().getVarbinds());
+	assertEquals("18446744073709551615", message.getPdu().getVarbinds().get(1).getStringValue());
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import com.automatics.device.Device;
+
+/**
+ * Unit test for SnmpPoller
+ */
+public class SnmpPollerTest {
+
+    private static final String SYS_UPTIME = "1.3.6.1.2.1.1.3.0";
+    private static final String SYS_NAME = "1.3.6.1.2.1.1.5.0";
+
+    private static Device createDevice(String macAddress) {
+	Device device = new Device();
+	device.setHostMacAddress(macAddress);
+	return device;
+    }
+
+    @Test
+    public void shouldPublishPollResultsOfEachDut() throws Exception {
+	SnmpClient client = new SnmpClient();
+	try (TestSnmpAgent agent = new TestSnmpAgent("private", null);
+		SnmpPoller poller = new SnmpPoller(new SnmpDataProviderImpl(), client)) {
+	    agent.put(new SnmpVarbind(SYS_UPTIME, SnmpValueType.TIMETICKS, 100L));
+	    agent.put(SnmpVarbind.ofString(SYS_NAME, "rpi"));
+	    SnmpTarget target = SnmpTarget.community(agent.getAddress(), "private");
+	    BlockingQueue<SnmpPollResult> results = new LinkedBlockingQueue<SnmpPollResult>();
+	    poller.addListener(results::add);
+
+	    Device first = createDevice("first");
+	    Device second = createDevice("second");
+	    poller.schedule(first, () -> target, 20, SYS_UPTIME, SYS_NAME);
+	    poller.schedule(second, () -> target, 20, SYS_NAME);
+
+	    boolean isFirstPolled = false;
+	    boolean isSecondPolled = false;
+	    while (!isFirstPolled || !isSecondPolled) {
+		SnmpPollResult result = results.poll(5, TimeUnit.SECONDS);
+		assertNotNull(result);
+		assertTrue(result.isSuccess());
+		if (first == result.getDut()) {
+		    assertEquals(2, result.getVarbinds().size());
+		    assertEquals("rpi", result.getVarbinds().get(1).getStringValue());
+		    isFirstPolled = true;
+		} else {
+		    assertEquals(1, result.getVarbinds().size());
+		    isSecondPolled = true;
+		}
+	    }
+	} finally {
+	    client.close();
+	}
+    }
+
+    @Test
+    public void shouldResolveTargetAgainAfterFailedPoll() throws Exception {
+	SnmpClient client = new SnmpClient();
+	try (TestSnmpAgent agent = new TestSnmpAgent("private", null);
+		SnmpPoller poller = new SnmpPoller(new SnmpDataProviderImpl(), client)) {
+	    SnmpTarget target = SnmpTarget.community(agent.getAddress(), "wrong").withTimeout(20, 0);
+	    AtomicInteger resolveCount = new AtomicInteger();
+	    BlockingQueue<SnmpPollResult> results = new LinkedBlockingQueue<SnmpPollResult>();
+	    poller.addListener(results::add);
+	    poller.schedule(createDevice("dut"), () -> {
+		resolveCount.incrementAndGet();
+		return target;
+	    }, 10, SYS_NAME);
+
+	    for (int poll = 0; poll < 2; poll++) {
+		SnmpPollResult result = results.poll(5, TimeUnit.SECONDS);
+		assertNotNull(result);
+		assertFalse(result.isSuccess());
+		assertTrue(result.getError().isTimeout());
+	    }
+	    assertTrue(resolveCount.get() >= 2);
+	} finally {
+	    client.close();
+	}
+    }
+}
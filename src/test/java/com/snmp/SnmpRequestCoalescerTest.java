@@ -0,0 +1,92 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for SnmpRequestCoalescer
+ */
+public class SnmpRequestCoalescerTest {
+
+    private static final String OID_PREFIX = "1.3.6.1.4.1.99.";
+    private static final int OID_COUNT = 20;
+
+    private static List<CompletableFuture<List<SnmpVarbind>>> getConcurrently(SnmpRequestCoalescer coalescer,
+	    SnmpTarget target) {
+	List<CompletableFuture<List<SnmpVarbind>>> futures = new ArrayList<CompletableFuture<List<SnmpVarbind>>>();
+	for (int index = 0; index < OID_COUNT; index++) {
+	    futures.add(coalescer.getAsync(target, OID_PREFIX + index));
+	}
+	return futures;
+    }
+
+    private static TestSnmpAgent createAgent() throws Exception {
+	TestSnmpAgent agent = new TestSnmpAgent("private", null);
+	for (int index = 0; index < OID_COUNT; index++) {
+	    agent.put(SnmpVarbind.ofInteger(OID_PREFIX + index, index));
+	}
+	agent.setResponseDelay(100);
+	return agent;
+    }
+
+    @Test
+    public void shouldMergeRequestsWaitingForTheSameTarget() throws Exception {
+	SnmpClient client = new SnmpClient();
+	try (TestSnmpAgent agent = createAgent()) {
+	    SnmpTarget target = SnmpTarget.community(agent.getAddress(), "private");
+	    SnmpRequestCoalescer coalescer = new SnmpRequestCoalescer(client, () -> 1472);
+	    List<CompletableFuture<List<SnmpVarbind>>> futures = getConcurrently(coalescer, target);
+
+	    for (int index = 0; index < OID_COUNT; index++) {
+		List<SnmpVarbind> varbinds = SnmpClient.await(futures.get(index));
+		assertEquals(1, varbinds.size());
+		assertEquals(index, varbinds.get(0).getLongValue());
+	    }
+	    // the first request is sent alone, the other requests are merged while it is outstanding
+	    assertEquals(2, agent.getRequestCount());
+	} finally {
+	    client.close();
+	}
+    }
+
+    @Test
+    public void shouldSplitMergedRequestsAtMessageSize() throws Exception {
+	SnmpClient client = new SnmpClient();
+	try (TestSnmpAgent agent = createAgent()) {
+	    SnmpTarget target = SnmpTarget.community(agent.getAddress(), "private");
+	    // each variable binding takes 13 bytes, so three fit into one request
+	    SnmpRequestCoalescer coalescer = new SnmpRequestCoalescer(client,
+		    () -> SnmpRequestCoalescer.MESSAGE_OVERHEAD + 50);
+	    List<CompletableFuture<List<SnmpVarbind>>> futures = getConcurrently(coalescer, target);
+
+	    for (int index = 0; index < OID_COUNT; index++) {
+		assertEquals(index, SnmpClient.await(futures.get(index)).get(0).getLongValue());
+	    }
+	    assertEquals(8, agent.getRequestCount());
+	} finally {
+	    client.close();
+	}
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.automatics.device.Device;
+import com.automatics.snmp.SnmpProtocol;
+import com.automatics.snmp.SnmpSecurityDetails;
+import com.automatics.zte.config.ProviderConfiguration;
+import com.automatics.zte.config.ProviderConfigurationHolder;
+import com.automatics.zte.config.ProviderConfigurationTestSupport;
+
+/**
+ * Unit test for SnmpSecurityDetailsCache.
+ */
+public class SnmpSecurityDetailsCacheTest {
+
+    private ProviderConfiguration originalConfiguration;
+
+    @BeforeMethod
+    public void saveConfiguration() {
+	originalConfiguration = ProviderConfigurationHolder.get();
+    }
+
+    @AfterMethod
+    public void restoreConfiguration() {
+	ProviderConfigurationTestSupport.restore(originalConfiguration);
+    }
+
+    private static Device createDevice(String macAddress) {
+	Device device = new Device();
+	device.setHostMacAddress(macAddress);
+	return device;
+    }
+
+    @Test
+    public void shouldCachePerDutAndVersion() {
+	SnmpSecurityDetailsCache cache = new SnmpSecurityDetailsCache(10);
+	ProviderConfiguration configuration = ProviderConfigurationHolder.get();
+	Device device = createDevice("00:11:22:33:44:55");
+	SnmpSecurityDetails details = new SnmpSecurityDetails();
+	details.setCommunity("private");
+	cache.put(device, SnmpProtocol.SNMP_V2, configuration, details);
+
+	assertEquals("private",
+		cache.get(createDevice("00:11:22:33:44:55"), SnmpProtocol.SNMP_V2, configuration).getCommunity());
+	assertNull(cache.get(device, SnmpProtocol.SNMP_V3, configuration));
+
+	cache.invalidate(device);
+	assertNull(cache.get(device, SnmpProtocol.SNMP_V2, configuration));
+    }
+
+    @Test
+    public void shouldNotShareCachedInstances() {
+	SnmpSecurityDetailsCache cache = new SnmpSecurityDetailsCache(10);
+	ProviderConfiguration configuration = ProviderConfigurationHolder.get();
+	Device device = createDevice("00:11:22:33:44:55");
+	SnmpSecurityDetails details = new SnmpSecurityDetails();
+	details.setSnmpPort("161");
+	details.setSecurityName("linuser");
+	cache.put(device, SnmpProtocol.SNMP_V3, configuration, details);
+	details.setSnmpPort("1161");
+
+	SnmpSecurityDetails first = cache.get(device, SnmpProtocol.SNMP_V3, configuration);
+	assertNotSame(details, first);
+	assertEquals("161", first.getSnmpPort());
+	first.setSecurityName("other");
+
+	SnmpSecurityDetails second = cache.get(device, SnmpProtocol.SNMP_V3, configuration);
+	assertNotSame(first, second);
+	assertEquals("linuser", second.getSecurityName());
+	assertEquals("161", second.getSnmpPort());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedEntry() {
+	SnmpSecurityDetailsCache cache = new SnmpSecurityDetailsCache(2);
+	ProviderConfiguration configuration = ProviderConfigurationHolder.get();
+	Device first = createDevice("first");
+	Device second = createDevice("second");
+	cache.put(first, SnmpProtocol.SNMP_V2, configuration, new SnmpSecurityDetails());
+	cache.put(second, SnmpProtocol.SNMP_V2, configuration, new SnmpSecurityDetails());
+	cache.get(first, SnmpProtocol.SNMP_V2, configuration);
+	cache.put(createDevice("third"), SnmpProtocol.SNMP_V2, configuration, new SnmpSecurityDetails());
+
+	assertEquals(2, cache.size());
+	assertNull(cache.get(second, SnmpProtocol.SNMP_V2, configuration));
+    }
+
+    @Test
+    public void shouldMissWhenConfigurationChanged() {
+	SnmpSecurityDetailsCache cache = new SnmpSecurityDetailsCache(10);
+	Device device = createDevice("00:11:22:33:44:55");
+	cache.put(device, SnmpProtocol.SNMP_V2, ProviderConfigurationHolder.get(), new SnmpSecurityDetails());
+
+	ProviderConfigurationHolder.reload();
+	assertNull(cache.get(device, SnmpProtocol.SNMP_V2, ProviderConfigurationHolder.get()));
+	assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void shouldMaskPassphrasesInSecurityOptions() {
+	assertEquals("-a SHA -A **** -x DES -X ****",
+		SnmpDataProviderImpl.maskSecurityOptions("-a SHA -A linuserpass -x DES -X linprivpass"));
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.testng.annotations.Test;
+
+import com.automatics.snmp.Snmpv3SecurityLevel;
+
+/**
+ * Unit test for SnmpTrapReceiver
+ */
+public class SnmpTrapReceiverTest {
+
+    private static List<SnmpVarbind> createLinkUp(int ifIndex) {
+	return Arrays.asList(new SnmpVarbind(SnmpTrap.SYS_UPTIME_OID, SnmpValueType.TIMETICKS, 4200L),
+		new SnmpVarbind(SnmpTrap.SNMP_TRAP_OID, SnmpValueType.OBJECT_IDENTIFIER, SnmpTrap.LINK_UP),
+		SnmpVarbind.ofInteger("1.3.6.1.2.1.2.2.1.1." + ifIndex, ifIndex));
+    }
+
+    private static InetSocketAddress getLoopbackAddress(SnmpTrapReceiver receiver) {
+	return new InetSocketAddress(InetAddress.getLoopbackAddress(), receiver.getLocalAddress().getPort());
+    }
+
+    @Test
+    public void shouldReceiveCommunityTrapsOfRegisteredCommunities() throws Exception {
+	try (SnmpTrapReceiver receiver = new SnmpTrapReceiver(0); DatagramSocket socket = new DatagramSocket()) {
+	    receiver.addCredentials(SnmpTarget.community(new InetSocketAddress(0), "public"));
+	    CompletableFuture<SnmpTrap> linkUp = receiver.expect(trap -> SnmpTrap.LINK_UP.equals(trap.getTrapOid())
+		    && null != trap.getVarbind(".1.3.6.1.2.1.2.2.1.1.2"));
+
+	    for (String community : new String[] { "unknown", "public" }) {
+		for (int ifIndex = 1; ifIndex <= 2; ifIndex++) {
+		    byte[] message = SnmpMessage.encodeCommunity(community,
+			    new SnmpPdu(SnmpPdu.TRAP, ifIndex, 0, 0, createLinkUp(ifIndex)));
+		    socket.send(new DatagramPacket(message, message.length, getLoopbackAddress(receiver)));
+		}
+	    }
+
+	    SnmpTrap trap = receiver.await(linkUp, 5000);
+	    assertNotNull(trap);
+	    assertEquals("public", trap.getSecurityName());
+	    assertTrue(trap.isFrom("127.0.0.1"));
+	    assertNull(receiver.await(candidate -> "unknown".equals(candidate.getSecurityName()), 100));
+	}
+    }
+
+    @Test
+    public void shouldAcknowledgeUsmInforms() throws Exception {
+	SnmpClient client = new SnmpClient();
+	try (SnmpTrapReceiver receiver = new SnmpTrapReceiver(0)) {
+	    SnmpTarget target = SnmpTarget.usm(getLoopbackAddress(receiver), "linuser", Snmpv3SecurityLevel.authPriv,
+		    SnmpAuthProtocol.SHA, "linuserpass", SnmpPrivProtocol.AES, "linprivpass");
+	    receiver.addCredentials(target);
+	    CompletableFuture<SnmpTrap> inform = receiver.expect(SnmpTrap::isInform);
+
+	    List<SnmpVarbind> acknowledged = client.execute(target, SnmpPdu.request(SnmpPdu.INFORM, createLinkUp(3)));
+
+	    assertEquals(createLinkUp(3), acknowledged);
+	    SnmpTrap trap = receiver.await(inform, 5000);
+	    assertNotNull(trap);
+	    assertEquals(SnmpTrap.LINK_UP, trap.getTrapOid());
+	    assertEquals("linuser", trap.getSecurityName());
+	} finally {
+	    client.close();
+	}
+    }
+}
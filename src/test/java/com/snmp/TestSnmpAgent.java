@@ -0,0 +1,202 @@
+/**
+ * Copyright 2022 Vodafone Group plc
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.snmp;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal SNMP agent for tests, answering v2c and v3 requests from an in-memory MIB.
+ */
+class TestSnmpAgent implements AutoCloseable {
+
+    static final byte[] ENGINE_ID = { (byte) 0x80, 0x00, 0x1F, (byte) 0x88, 0x04, 't', 'e', 's', 't' };
+    private static final String USM_STATS_NOT_IN_TIME_WINDOWS = "1.3.6.1.6.3.15.1.1.2.0";
+    private static final String USM_STATS_UNKNOWN_ENGINE_IDS = "1.3.6.1.6.3.15.1.1.4.0";
+
+    private final DatagramSocket socket;
+    private final Map<String, SnmpVarbind> mib = new ConcurrentSkipListMap<String, SnmpVarbind>(SnmpOids::compare);
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final String community;
+    private final SnmpTarget usmUser;
+    private volatile UsmKeys usmKeys;
+    private volatile int engineBoots = 1;
+    private volatile long responseDelayMillis;
+
+    /**
+     * @param community
+     *            Community accepted for v2c requests
+     * @param usmUser
+     *            Target describing the v3 user accepted by the agent, null to accept v2c only
+     */
+    TestSnmpAgent(String community, SnmpTarget usmUser) throws SocketException {
+	this.community = community;
+	this.usmUser = usmUser;
+	this.usmKeys = null != usmUser ? UsmKeys.localize(usmUser, ENGINE_ID) : null;
+	socket = new DatagramSocket(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+	Thread thread = new Thread(this::serve, "test-snmp-agent");
+	thread.setDaemon(true);
+	thread.start();
+    }
+
+    InetSocketAddress getAddress() {
+	return new InetSocketAddress(InetAddress.getLoopbackAddress(), socket.getLocalPort());
+    }
+
+    void put(SnmpVarbind varbind) {
+	mib.put(varbind.getOid(), varbind);
+    }
+
+    int getRequestCount() {
+	return requestCount.get();
+    }
+
+    void setEngineBoots(int engineBoots) {
+	this.engineBoots = engineBoots;
+    }
+
+    void setResponseDelay(long responseDelayMillis) {
+	this.responseDelayMillis = responseDelayMillis;
+    }
+
+    @Override
+    public void close() {
+	socket.close();
+    }
+
+    private void serve() {
+	byte[] buffer = new byte[SnmpMessage.MAX_MESSAGE_SIZE];
+	while (!socket.isClosed()) {
+	    try {
+		DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+		socket.receive(packet);
+		byte[] response = respond(Arrays.copyOf(packet.getData(), packet.getLength()));
+		if (responseDelayMillis > 0) {
+		    Thread.sleep(responseDelayMillis);
+		}
+		if (null != response) {
+		    socket.send(new DatagramPacket(response, response.length, packet.getSocketAddress()));
+		}
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+		return;
+	    } catch (IOException | RuntimeException e) {
+		// closed or malformed request
+	    }
+	}
+    }
+
+    private byte[] respond(byte[] data) {
+	SnmpMessage request = SnmpMessage.decode(data);
+	requestCount.incrementAndGet();
+	if (SnmpMessage.VERSION_3 != request.getVersion()) {
+	    if (!community.equals(request.getCommunity())) {
+		return null;
+	    }
+	    return SnmpMessage.encodeCommunity(community, process(request.getPdu()));
+	}
+
+	UsmEngineInfo engine = new UsmEngineInfo(ENGINE_ID, engineBoots, 100);
+	if (0 == request.getEngineId().length) {
+	    List<SnmpVarbind> report = new ArrayList<SnmpVarbind>();
+	    report.add(new SnmpVarbind(USM_STATS_UNKNOWN_ENGINE_IDS, SnmpValueType.COUNTER32, 1L));
+	    return SnmpMessage.encodeUsm(request.getMessageId(), 0, engine, "", UsmKeys.NONE,
+		    new SnmpPdu(SnmpPdu.REPORT, request.getPdu().getRequestId(), 0, 0, report));
+	}
+	if (null == usmUser || !usmUser.getSecurityName().equals(request.getUserName())) {
+	    return null;
+	}
+	request.unprotect(usmKeys);
+	if (request.isAuthenticated() && request.getEngineBoots() != engineBoots) {
+	    List<SnmpVarbind> report = new ArrayList<SnmpVarbind>();
+	    report.add(new SnmpVarbind(USM_STATS_NOT_IN_TIME_WINDOWS, SnmpValueType.COUNTER32, 1L));
+	    return SnmpMessage.encodeUsm(request.getMessageId(), SnmpMessage.FLAG_AUTH, engine,
+		    usmUser.getSecurityName(), usmKeys,
+		    new SnmpPdu(SnmpPdu.REPORT, request.getPdu().getRequestId(), 0, 0, report));
+	}
+	int flags = (usmUser.isAuthenticated() ? SnmpMessage.FLAG_AUTH : 0)
+		| (usmUser.isEncrypted() ? SnmpMessage.FLAG_PRIV : 0);
+	return SnmpMessage.encodeUsm(request.getMessageId(), flags, engine, usmUser.getSecurityName(), usmKeys,
+		process(request.getPdu()));
+    }
+
+    private SnmpPdu process(SnmpPdu request) {
+	List<SnmpVarbind> response = new ArrayList<SnmpVarbind>();
+	List<SnmpVarbind> varbinds = request.getVarbinds();
+	switch (request.getType()) {
+	case SnmpPdu.GET:
+	    for (SnmpVarbind varbind : varbinds) {
+		SnmpVarbind value = mib.get(varbind.getOid());
+		response.add(null != value ? value
+			: new SnmpVarbind(varbind.getOid(), SnmpValueType.NO_SUCH_OBJECT, null));
+	    }
+	    break;
+	case SnmpPdu.GET_NEXT:
+	    for (SnmpVarbind varbind : varbinds) {
+		response.add(next(varbind.getOid()));
+	    }
+	    break;
+	case SnmpPdu.GET_BULK: {
+	    int nonRepeaters = Math.min(request.getNonRepeaters(), varbinds.size());
+	    for (int index = 0; index < nonRepeaters; index++) {
+		response.add(next(varbinds.get(index).getOid()));
+	    }
+	    List<String> current = new ArrayList<String>();
+	    for (int index = nonRepeaters; index < varbinds.size(); index++) {
+		current.add(varbinds.get(index).getOid());
+	    }
+	    for (int repetition = 0; repetition < request.getMaxRepetitions() && !current.isEmpty(); repetition++) {
+		for (int index = 0; index < current.size(); index++) {
+		    SnmpVarbind next = next(current.get(index));
+		    response.add(next);
+		    current.set(index, next.getOid());
+		}
+	    }
+	    break;
+	}
+	case SnmpPdu.SET:
+	    for (SnmpVarbind varbind : varbinds) {
+		mib.put(varbind.getOid(), varbind);
+		response.add(varbind);
+	    }
+	    break;
+	default:
+	    break;
+	}
+	return new SnmpPdu(SnmpPdu.RESPONSE, request.getRequestId(), 0, 0, response);
+    }
+
+    private SnmpVarbind next(String oid) {
+	for (Map.Entry<String, SnmpVarbind> entry : mib.entrySet()) {
+	    if (SnmpOids.compare(entry.getKey(), oid) > 0) {
+		return entry.getValue();
+	    }
+	}
+	return new SnmpVarbind(oid, SnmpValueType.END_OF_MIB_VIEW, null);
+    }
+}